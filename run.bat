@@ -14,12 +14,14 @@ set CLASSPATH=.;lib/*;lib/natives/windows-amd64/*
 REM Parse command line arguments
 set MODE=%1
 if "%MODE%"=="" (
-    echo Usage: run.bat [opengl^|software^|demo] [options]
+    echo Usage: run.bat [opengl^|software^|demo^|thumbnails] [options]
     echo.
     echo Modes:
     echo   opengl    - Run with OpenGL rendering
     echo   software  - Run with software rendering
     echo   demo      - Run demo mode
+    echo   thumbnails - Render model library thumbnails without a display
+    echo                [--size N] [--threads N] [--out DIR] [library.dat]
     echo.
     echo Options:
     echo   --debug   - Enable debug mode
@@ -40,6 +42,9 @@ if /i "%MODE%"=="opengl" (
 ) else if /i "%MODE%"=="demo" (
     echo Starting demo mode...
     java %JAVA_OPTS% -cp %CLASSPATH% com.modelviewer.SoftwareRenderer --demo %2 %3
+) else if /i "%MODE%"=="thumbnails" (
+    echo Rendering library thumbnails...
+    java -Djava.awt.headless=true -cp %CLASSPATH% com.modelviewer.ThumbnailBatch %2 %3 %4 %5 %6 %7 %8 %9
 ) else (
     echo Invalid mode: %MODE%
     echo Use 'run.bat --help' for usage information
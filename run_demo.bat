@@ -25,7 +25,7 @@ mkdir advanced_samples 2>nul
 
 echo.
 echo Compiling Java files...
-javac -cp "lib\*" src/com/modelviewer/SimpleModelViewer.java src/com/modelviewer/TestObjects.java src/com/modelviewer/BasicViewer.java -d bin
+javac -cp "lib\*" -sourcepath src src/com/modelviewer/SimpleModelViewer.java src/com/modelviewer/TestObjects.java src/com/modelviewer/BasicViewer.java -d bin
 
 if %ERRORLEVEL% neq 0 (
     echo Compilation failed!
@@ -39,7 +39,7 @@ mkdir resources 2>nul
 
 echo.
 echo Compiling Java files...
-javac -cp "lib\*" src/com/modelviewer/*.java -d bin
+javac -cp "lib\*" -sourcepath src src/com/modelviewer/*.java -d bin
 
 if %ERRORLEVEL% neq 0 (
     echo Compilation failed!
@@ -47,7 +47,7 @@ javac -cp "lib\*" src\com\modelviewer\TestObjects.java -d bin
 java -cp "bin" com.modelviewer.TestObjects advanced_samples
 
 echo Compiling viewer...
-javac -cp "lib\*" src\com\modelviewer\SimpleModelViewer.java -d bin
+javac -cp "lib\*" -sourcepath src src\com\modelviewer\SimpleModelViewer.java -d bin
 
 echo.
 echo Setup complete! Run the following command to start the OpenGL viewer:
@@ -4,12 +4,12 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
-import java.awt.geom.Path2D;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
@@ -26,8 +26,17 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import com.modelviewer.io.ObjTokenizer;
+import com.modelviewer.mesh.Triangulator;
+import com.modelviewer.render.GeometryKernels;
+import com.modelviewer.render.ResolutionController;
+import com.modelviewer.render.SoftwareRasterizer;
+import com.modelviewer.util.FloatList;
+import com.modelviewer.util.IntList;
+
 public class BasicViewer extends JFrame {
     private static final long serialVersionUID = 1L;
     
@@ -105,11 +114,31 @@ public class BasicViewer extends JFrame {
     class ModelPanel extends JPanel {
         private static final long serialVersionUID = 1L;
         
-        private List<Vertex> vertices = new ArrayList<>();
-        private List<Face> faces = new ArrayList<>();
+        private static final int DEFAULT_COLOR = 0xC8C8C8;
+        private static final int SETTLE_DELAY = 150; // Milliseconds without drag events that end an interaction
+        
+        // Mesh as flat arrays: x, y, z per vertex and three vertex indices per triangle
+        private FloatList positions = new FloatList();
+        private IntList triangles = new IntList();
+        private IntList triangleMaterials = new IntList(); // Index into materialNames, -1 for none
+        private List<String> materialNames = new ArrayList<>();
+        private int[] triangleColors = new int[0];
+        private float[] facePlanes = new float[0]; // Computed once per load for culling and lighting
         private Map<String, Material> materials = new HashMap<>();
         private String currentMaterial = null;
         
+        private final SoftwareRasterizer rasterizer = new SoftwareRasterizer();
+        private final float[] view = new float[12];
+        
+        // Drags render at a reduced resolution picked by the controller and
+        // scaled up on display; once input stops, each frame doubles the
+        // resolution until it is full again
+        private final ResolutionController resolution = new ResolutionController();
+        private final Timer settleTimer = new Timer(SETTLE_DELAY, e -> settle());
+        private final Timer refineTimer = new Timer(0, e -> refine());
+        private boolean interacting = false;
+        private float renderScale = 1.0f;
+        
         private float rotX = 30.0f;
         private float rotY = 30.0f;
         private float scale = 100.0f;
@@ -122,6 +151,8 @@ public class BasicViewer extends JFrame {
         
         public ModelPanel() {
             setBackground(Color.BLACK);
+            settleTimer.setRepeats(false);
+            refineTimer.setRepeats(false);
             
             // Add mouse listeners for rotation and zooming
             addMouseListener(new MouseAdapter() {
@@ -130,6 +161,13 @@ public class BasicViewer extends JFrame {
                     lastX = e.getX();
                     lastY = e.getY();
                 }
+                
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    if (interacting) {
+                        settle();
+                    }
+                }
             });
             
             addMouseMotionListener(new MouseMotionAdapter() {
@@ -144,6 +182,10 @@ public class BasicViewer extends JFrame {
                     lastX = e.getX();
                     lastY = e.getY();
                     
+                    interacting = true;
+                    refineTimer.stop();
+                    settleTimer.restart();
+                    renderScale = resolution.getScale();
                     repaint();
                 }
             });
@@ -158,36 +200,45 @@ public class BasicViewer extends JFrame {
             });
         }
         
+        /**
+         * Ends an interaction and starts refining towards full resolution
+         */
+        private void settle() {
+            settleTimer.stop();
+            interacting = false;
+            if (renderScale < 1.0f) {
+                refine();
+            }
+        }
+        
+        private void refine() {
+            if (!interacting && renderScale < 1.0f) {
+                renderScale = Math.min(1.0f, renderScale * 2);
+                repaint();
+            }
+        }
+        
         public void loadObjFile(String filePath) {
             try {
                 // Clear previous data
-                vertices.clear();
-                faces.clear();
+                positions.clear();
+                triangles.clear();
+                triangleMaterials.clear();
+                materialNames.clear();
+                currentMaterial = null;
                 
                 // Reset bounding box
                 minX = minY = minZ = Float.MAX_VALUE;
                 maxX = maxY = maxZ = Float.MIN_VALUE;
                 
-                BufferedReader reader = new BufferedReader(new FileReader(filePath));
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    
-                    if (line.isEmpty() || line.startsWith("#")) {
-                        continue;
-                    }
-                    
-                    String[] parts = line.split("\\s+");
-                    String type = parts[0];
-                    
-                    if ("v".equals(type)) {
-                        // Vertex
-                        float x = Float.parseFloat(parts[1]);
-                        float y = Float.parseFloat(parts[2]);
-                        float z = Float.parseFloat(parts[3]);
-                        
-                        vertices.add(new Vertex(x, y, z));
+                List<String> materialLibraries = new ArrayList<>();
+                Map<String, Integer> materialIds = new HashMap<>();
+                Triangulator triangulator = new Triangulator();
+                IntList corners = new IntList();
+                ObjTokenizer.parseFile(filePath, new ObjTokenizer.Handler() {
+                    @Override
+                    public void vertex(float x, float y, float z) {
+                        positions.add(x, y, z);
                         
                         // Update bounding box
                         minX = Math.min(minX, x);
@@ -196,36 +247,61 @@ public class BasicViewer extends JFrame {
                         maxY = Math.max(maxY, y);
                         minZ = Math.min(minZ, z);
                         maxZ = Math.max(maxZ, z);
-                        
-                    } else if ("f".equals(type)) {
-                        // Face
-                        int[] vertexIndices = new int[parts.length - 1];
-                        
-                        for (int i = 0; i < vertexIndices.length; i++) {
-                            String[] indices = parts[i + 1].split("/");
-                            vertexIndices[i] = Integer.parseInt(indices[0]) - 1; // OBJ indices start at 1
+                    }
+                    
+                    @Override
+                    public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+                        int vertexCount = positions.size() / 3;
+                        for (int i = 0; i < count; i++) {
+                            if (vertexIndices[i] < 0 || vertexIndices[i] >= vertexCount) {
+                                return;
+                            }
                         }
                         
-                        faces.add(new Face(vertexIndices, currentMaterial));
-                        
-                    } else if ("mtllib".equals(type)) {
-                        // Material library reference
-                        String mtlFilePath = parts[1];
-                        File objFile = new File(filePath);
-                        File mtlFile = new File(objFile.getParentFile(), mtlFilePath);
-                        if (mtlFile.exists()) {
-                            mtlFileText.setText(mtlFile.getAbsolutePath());
-                            loadMtlFile(mtlFile.getAbsolutePath());
+                        int material = -1;
+                        if (currentMaterial != null) {
+                            material = materialIds.computeIfAbsent(currentMaterial, name -> {
+                                materialNames.add(name);
+                                return materialNames.size() - 1;
+                            });
                         }
                         
-                    } else if ("usemtl".equals(type)) {
-                        // Use material
-                        currentMaterial = parts[1];
+                        corners.clear();
+                        int added = triangulator.triangulate(positions.array(), vertexIndices, 0, count, corners);
+                        for (int i = 0; i < added * 3; i++) {
+                            triangles.add(vertexIndices[corners.get(i)]);
+                        }
+                        for (int i = 0; i < added; i++) {
+                            triangleMaterials.add(material);
+                        }
+                    }
+                    
+                    @Override
+                    public void useMaterial(String name) {
+                        currentMaterial = name;
+                    }
+                    
+                    @Override
+                    public void materialLibrary(String name) {
+                        materialLibraries.add(name);
+                    }
+                });
+                
+                for (String library : materialLibraries) {
+                    File mtlFile = new File(new File(filePath).getParentFile(), library);
+                    if (mtlFile.exists()) {
+                        mtlFileText.setText(mtlFile.getAbsolutePath());
+                        loadMtlFile(mtlFile.getAbsolutePath());
                     }
                 }
                 
-                reader.close();
-                System.out.println("Loaded OBJ: " + vertices.size() + " vertices, " + faces.size() + " faces");
+                int triangleCount = triangleMaterials.size();
+                facePlanes = new float[triangleCount * GeometryKernels.PLANE_STRIDE];
+                GeometryKernels.facePlanes(positions.array(), triangles.array(), facePlanes, 0, triangleCount);
+                
+                updateTriangleColors();
+                System.out.println("Loaded OBJ: " + positions.size() / 3 + " vertices, "
+                        + triangleMaterials.size() + " triangles");
                 
                 repaint();
                 
@@ -272,6 +348,7 @@ public class BasicViewer extends JFrame {
                 reader.close();
                 System.out.println("Loaded MTL: " + materials.size() + " materials");
                 
+                updateTriangleColors();
                 repaint();
                 
             } catch (IOException e) {
@@ -279,133 +356,88 @@ public class BasicViewer extends JFrame {
             }
         }
         
+        /**
+         * Resolve each triangle's material to the RGB colour the rasterizer draws
+         */
+        private void updateTriangleColors() {
+            int[] palette = new int[materialNames.size()];
+            for (int id = 0; id < palette.length; id++) {
+                Material material = materials.get(materialNames.get(id));
+                palette[id] = material != null ? material.color.getRGB() & 0xFFFFFF : DEFAULT_COLOR;
+            }
+            
+            int triangleCount = triangleMaterials.size();
+            int[] ids = triangleMaterials.array();
+            int[] colors = new int[triangleCount];
+            for (int t = 0; t < triangleCount; t++) {
+                colors[t] = ids[t] >= 0 ? palette[ids[t]] : DEFAULT_COLOR;
+            }
+            triangleColors = colors;
+        }
+        
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g;
             
-            if (vertices.isEmpty() || faces.isEmpty()) {
+            if (positions.isEmpty() || triangleMaterials.isEmpty()) {
                 g2d.setColor(Color.WHITE);
                 g2d.drawString("No model loaded. Use the Browse button to load an OBJ file.", 20, getHeight() / 2);
                 return;
             }
             
-            // Center of panel
-            int centerX = getWidth() / 2;
-            int centerY = getHeight() / 2;
-            
             // Calculate model center
             float modelCenterX = (minX + maxX) / 2;
             float modelCenterY = (minY + maxY) / 2;
             float modelCenterZ = (minZ + maxZ) / 2;
             
-            // Create transformed vertices
-            List<Point2D> projectedPoints = new ArrayList<>(vertices.size());
+            float sinX = (float) Math.sin(Math.toRadians(rotX));
+            float cosX = (float) Math.cos(Math.toRadians(rotX));
+            float sinY = (float) Math.sin(Math.toRadians(rotY));
+            float cosY = (float) Math.cos(Math.toRadians(rotY));
             
-            double sinX = Math.sin(Math.toRadians(rotX));
-            double cosX = Math.cos(Math.toRadians(rotX));
-            double sinY = Math.sin(Math.toRadians(rotY));
-            double cosY = Math.cos(Math.toRadians(rotY));
-            
-            for (Vertex v : vertices) {
-                // Center the model
-                float x = v.x - modelCenterX;
-                float y = v.y - modelCenterY;
-                float z = v.z - modelCenterZ;
-                
-                // Rotate around X axis
-                float y2 = (float) (y * cosX - z * sinX);
-                float z2 = (float) (y * sinX + z * cosX);
-                
-                // Rotate around Y axis
-                float x3 = (float) (x * cosY + z2 * sinY);
-                float z3 = (float) (-x * sinY + z2 * cosY);
-                
-                // Project to 2D
-                float depth = 5; // Perspective strength
-                float projX = x3 * scale / (z3 + depth);
-                float projY = y2 * scale / (z3 + depth);
-                
-                projectedPoints.add(new Point2D(centerX + projX, centerY + projY, z3));
+            // Center the model, rotate around X then Y, and push it in front of the eye
+            float depth = 5; // Perspective strength
+            view[0] = cosY;
+            view[1] = sinY * sinX;
+            view[2] = sinY * cosX;
+            view[4] = 0;
+            view[5] = cosX;
+            view[6] = -sinX;
+            view[8] = -sinY;
+            view[9] = cosY * sinX;
+            view[10] = cosY * cosX;
+            for (int row = 0; row < 3; row++) {
+                int r = row * 4;
+                view[r + 3] = -(view[r] * modelCenterX + view[r + 1] * modelCenterY + view[r + 2] * modelCenterZ);
             }
+            view[11] += depth;
             
-            // Sort faces by depth (painter's algorithm)
-            List<Face> sortedFaces = new ArrayList<>(faces);
-            sortedFaces.sort((f1, f2) -> {
-                float z1 = 0;
-                for (int idx : f1.vertexIndices) {
-                    z1 += projectedPoints.get(idx).z;
-                }
-                z1 /= f1.vertexIndices.length;
-                
-                float z2 = 0;
-                for (int idx : f2.vertexIndices) {
-                    z2 += projectedPoints.get(idx).z;
-                }
-                z2 /= f2.vertexIndices.length;
-                
-                return Float.compare(z2, z1);
-            });
+            // A reduced framebuffer sees the same view with a proportionally shorter focal length
+            long start = System.nanoTime();
+            int width = Math.max(1, Math.round(getWidth() * renderScale));
+            int height = Math.max(1, Math.round(getHeight() * renderScale));
+            rasterizer.resize(width, height);
+            rasterizer.clear(getBackground().getRGB() & 0xFFFFFF);
+            rasterizer.setCamera(view, scale * width / Math.max(1, getWidth()));
+            rasterizer.drawTriangles(positions.array(), positions.size() / 3, triangles.array(),
+                    triangleMaterials.size(), triangleColors, facePlanes);
+            if (width == getWidth() && height == getHeight()) {
+                g2d.drawImage(rasterizer.getImage(), 0, 0, null);
+            } else {
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.drawImage(rasterizer.getImage(), 0, 0, getWidth(), getHeight(), 0, 0, width, height, null);
+            }
+            resolution.frameDrawn((System.nanoTime() - start) / 1e6f, (float) width / Math.max(1, getWidth()));
             
-            // Draw faces
-            for (Face face : sortedFaces) {
-                Path2D path = new Path2D.Float();
-                
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    Point2D p = projectedPoints.get(face.vertexIndices[i]);
-                    if (i == 0) {
-                        path.moveTo(p.x, p.y);
-                    } else {
-                        path.lineTo(p.x, p.y);
-                    }
-                }
-                path.closePath();
-                
-                // Set color based on material or use default color
-                if (face.materialName != null && materials.containsKey(face.materialName)) {
-                    g2d.setColor(materials.get(face.materialName).color);
-                } else {
-                    g2d.setColor(new Color(200, 200, 200));
-                }
-                
-                g2d.fill(path);
-                g2d.setColor(Color.BLACK);
-                g2d.draw(path);
+            // Show each refinement step before starting the next
+            if (!interacting && renderScale < 1.0f) {
+                refineTimer.restart();
             }
         }
     }
     
     // Basic 3D classes
-    static class Vertex {
-        float x, y, z;
-        
-        public Vertex(float x, float y, float z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-    }
-    
-    static class Point2D {
-        float x, y, z; // z is used for depth sorting
-        
-        public Point2D(float x, float y, float z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-    }
-    
-    static class Face {
-        int[] vertexIndices;
-        String materialName;
-        
-        public Face(int[] vertexIndices, String materialName) {
-            this.vertexIndices = vertexIndices;
-            this.materialName = materialName;
-        }
-    }
-    
     static class Material {
         String name;
         Color color = new Color(0.8f, 0.8f, 0.8f); // Default color
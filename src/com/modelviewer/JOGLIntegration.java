@@ -7,7 +7,8 @@ import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.awt.GLJPanel;
-import com.jogamp.opengl.util.Animator;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.render.RenderScheduler;
 
 import java.awt.Color;
 import java.util.List;
@@ -19,7 +20,7 @@ public class JOGLIntegration implements GLEventListener {
     
     private Model3D currentModel;
     private List<Model3D> roomModels;
-    private Animator animator;
+    private RenderScheduler renderScheduler;
     private GLJPanel glPanel;
     
     // Rendering settings
@@ -72,28 +73,44 @@ public class JOGLIntegration implements GLEventListener {
         glPanel = new GLJPanel(glCapabilities);
         glPanel.addGLEventListener(this);
         
-        // Set up animator
-        animator = new Animator(glPanel);
-        animator.setUpdateFPSFrames(20, null);
+        // Frames are drawn on demand, when a setter changes the view
+        renderScheduler = new RenderScheduler(glPanel);
+        renderScheduler.stop();
         
         return glPanel;
     }
     
     /**
-     * Starts the animation
+     * Starts drawing frames as the view changes
      */
     public void startAnimation() {
-        if (animator != null && !animator.isAnimating()) {
-            animator.start();
+        if (renderScheduler != null) {
+            renderScheduler.start();
         }
     }
     
     /**
-     * Stops the animation
+     * Stops drawing frames
      */
     public void stopAnimation() {
-        if (animator != null && animator.isAnimating()) {
-            animator.stop();
+        if (renderScheduler != null) {
+            renderScheduler.stop();
+        }
+    }
+    
+    /**
+     * Marks the start of a camera drag; frames follow the display refresh
+     * rate until {@link #endInteraction}
+     */
+    public void beginInteraction() {
+        if (renderScheduler != null) {
+            renderScheduler.beginInteraction();
+        }
+    }
+    
+    public void endInteraction() {
+        if (renderScheduler != null) {
+            renderScheduler.endInteraction();
         }
     }
     
@@ -117,8 +134,8 @@ public class JOGLIntegration implements GLEventListener {
      * Refreshes the display
      */
     public void refreshDisplay() {
-        if (glPanel != null) {
-            glPanel.repaint();
+        if (renderScheduler != null) {
+            renderScheduler.requestRender();
         }
     }
     
@@ -381,81 +398,93 @@ public class JOGLIntegration implements GLEventListener {
             );
         }
         
-        // Draw each face
-        Material lastMaterial = null;
-        for (Face face : model.faces) {
+        float[] vertexData = model.vertices.array();
+        float[] normalData = model.normals.array();
+        float[] texCoordData = model.texCoords.array();
+        FaceTable faces = model.faces;
+        int[] faceStarts = faces.getFaceStarts();
+        int[] vertexIndices = faces.getVertexIndices();
+        int[] normalIndices = faces.getNormalIndices();
+        int[] texCoordIndices = faces.getTexCoordIndices();
+        
+        // Draw one material run at a time
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            Material material = model.materials.get(faces.getMaterialName(faces.getRunMaterial(run)));
+            
             // Apply material if available and not using color override
-            if (!useColorOverride && !wireframeMode && face.materialName != null && 
-                model.materials.containsKey(face.materialName)) {
+            if (!useColorOverride && !wireframeMode && material != null) {
+                gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
+                gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
+                gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_SPECULAR, material.specular, 0);
+                gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, material.shininess);
                 
-                Material material = model.materials.get(face.materialName);
-                if (material != lastMaterial) {
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_SPECULAR, material.specular, 0);
-                    gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, material.shininess);
-                    
-                    // Set color directly for better visual feedback
-                    gl.glColor3f(material.diffuse[0], material.diffuse[1], material.diffuse[2]);
-                    lastMaterial = material;
-                }
+                // Set color directly for better visual feedback
+                gl.glColor3f(material.diffuse[0], material.diffuse[1], material.diffuse[2]);
+                material.bindTexture(gl);
             } else if (wireframeMode) {
                 // For wireframe, use white color
                 gl.glColor3f(1.0f, 1.0f, 1.0f);
+                gl.glDisable(GL.GL_TEXTURE_2D);
             } else if (!useColorOverride) {
                 // Default color if no material or override
                 gl.glColor3f(0.8f, 0.8f, 0.8f);
-            }
-            
-            // Draw the face with the correct primitive type
-            if (face.vertexIndices.size() == 3) {
-                gl.glBegin(GL2.GL_TRIANGLES);
-            } else if (face.vertexIndices.size() == 4) {
-                gl.glBegin(GL2.GL_QUADS);
+                gl.glDisable(GL.GL_TEXTURE_2D);
             } else {
-                gl.glBegin(GL2.GL_POLYGON);
+                gl.glDisable(GL.GL_TEXTURE_2D);
             }
             
-            // Render each vertex of the face
-            for (int i = 0; i < face.vertexIndices.size(); i++) {
-                int vertIndex = face.vertexIndices.get(i);
-                
-                // Handle normals
-                if (face.normalIndices != null && i < face.normalIndices.size() &&
-                    face.normalIndices.get(i) >= 0 &&
-                    face.normalIndices.get(i) * 3 + 2 < model.normals.size()) {
-                    
-                    int normIndex = face.normalIndices.get(i);
-                    gl.glNormal3f(
-                        model.normals.get(normIndex * 3),
-                        model.normals.get(normIndex * 3 + 1),
-                        model.normals.get(normIndex * 3 + 2)
-                    );
+            // Consecutive triangles (or quads) share one glBegin/glEnd pair
+            int mode = -1;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                int start = faceStarts[f];
+                int end = faceStarts[f + 1];
+                int faceMode = end - start == 3 ? GL2.GL_TRIANGLES
+                        : end - start == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
                 }
                 
-                // Handle texture coordinates
-                if (face.texCoordIndices != null && i < face.texCoordIndices.size() &&
-                    face.texCoordIndices.get(i) >= 0 && 
-                    !model.texCoords.isEmpty() &&
-                    face.texCoordIndices.get(i) * 2 + 1 < model.texCoords.size()) {
+                // Render each vertex of the face
+                for (int c = start; c < end; c++) {
+                    // Handle normals
+                    int normIndex = normalIndices[c];
+                    if (normIndex >= 0 && normIndex * 3 + 2 < model.normals.size()) {
+                        gl.glNormal3f(
+                            normalData[normIndex * 3],
+                            normalData[normIndex * 3 + 1],
+                            normalData[normIndex * 3 + 2]
+                        );
+                    }
                     
-                    int texIndex = face.texCoordIndices.get(i);
-                    gl.glTexCoord2f(
-                        model.texCoords.get(texIndex * 2),
-                        model.texCoords.get(texIndex * 2 + 1)
+                    // Handle texture coordinates
+                    int texIndex = texCoordIndices[c];
+                    if (texIndex >= 0 && texIndex * 2 + 1 < model.texCoords.size()) {
+                        gl.glTexCoord2f(
+                            texCoordData[texIndex * 2],
+                            texCoordData[texIndex * 2 + 1]
+                        );
+                    }
+                    
+                    // Draw vertex
+                    int vertIndex = vertexIndices[c];
+                    gl.glVertex3f(
+                        vertexData[vertIndex * 3],
+                        vertexData[vertIndex * 3 + 1],
+                        vertexData[vertIndex * 3 + 2]
                     );
                 }
-                
-                // Draw vertex
-                gl.glVertex3f(
-                    model.vertices.get(vertIndex * 3),
-                    model.vertices.get(vertIndex * 3 + 1),
-                    model.vertices.get(vertIndex * 3 + 2)
-                );
             }
-            
-            gl.glEnd();
+            if (mode != -1) {
+                gl.glEnd();
+            }
         }
+        gl.glDisable(GL.GL_TEXTURE_2D);
     }
     
     /**
@@ -0,0 +1,62 @@
+package com.modelviewer;
+
+import java.awt.image.BufferedImage;
+
+import com.modelviewer.core.ThumbnailService;
+import com.modelviewer.io.ThumbnailCache;
+import com.modelviewer.mesh.Triangulator;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.render.ThumbnailRenderer;
+
+/**
+ * Thumbnail of a model in the software renderer's library, coloured like
+ * the viewer draws it: the custom colour if it has one, otherwise the
+ * diffuse colour of each face's material.
+ */
+final class LibraryThumbnailSource implements ThumbnailService.Source {
+    private static final int DEFAULT_COLOR = 0xB4B4B4;
+
+    private final SoftwareRenderer.Model3D model;
+
+    LibraryThumbnailSource(SoftwareRenderer.Model3D model) {
+        this.model = model;
+    }
+
+    @Override
+    public String cacheKey() {
+        FaceTable faces = Triangulator.triangulate(model.vertices, model.faces);
+        return ThumbnailCache.key(model.vertices, faces, faceColors(faces));
+    }
+
+    @Override
+    public BufferedImage render(ThumbnailRenderer renderer, int size) {
+        FaceTable faces = Triangulator.triangulate(model.vertices, model.faces);
+        return renderer.render(model.vertices.array(), model.vertices.size() / 3, faces.getVertexIndices(),
+                faces.getFaceCount(), faceColors(faces), size);
+    }
+
+    private int[] faceColors(FaceTable faces) {
+        int[] materialColors = new int[faces.getMaterialCount()];
+        for (int m = 0; m < materialColors.length; m++) {
+            SoftwareRenderer.Material material = model.materials.get(faces.getMaterialName(m));
+            materialColors[m] = model.useCustomColor ? model.customColor.getRGB() & 0xFFFFFF
+                    : material != null ? toRgb(material.diffuse) : DEFAULT_COLOR;
+        }
+        int noMaterialColor = model.useCustomColor ? model.customColor.getRGB() & 0xFFFFFF : DEFAULT_COLOR;
+
+        int[] faceMaterials = faces.getFaceMaterials();
+        int[] colors = new int[faces.getFaceCount()];
+        for (int f = 0; f < colors.length; f++) {
+            int material = faceMaterials[f];
+            colors[f] = material == FaceTable.NO_MATERIAL ? noMaterialColor : materialColors[material];
+        }
+        return colors;
+    }
+
+    private static int toRgb(float[] color) {
+        int r = Math.round(Math.max(0.0f, Math.min(1.0f, color[0])) * 255);
+        int g = Math.round(Math.max(0.0f, Math.min(1.0f, color[1])) * 255);
+        int b = Math.round(Math.max(0.0f, Math.min(1.0f, color[2])) * 255);
+        return (r << 16) | (g << 8) | b;
+    }
+}
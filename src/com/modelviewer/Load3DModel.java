@@ -25,6 +25,10 @@ import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import com.modelviewer.core.ModelLoadService;
+import com.modelviewer.core.ModelLoadService.LoadTask;
+import com.modelviewer.ui.dialogs.LoadProgressDialog;
+
 /**
  * 3D Model Loader and Viewer implementation
  */
@@ -37,7 +41,7 @@ public class Load3DModel extends JFrame implements GLEventListener {
     private FPSAnimator animator;
     
     // Model data
-    private Model3D currentModel = null;
+    private volatile Model3D currentModel = null;
     private boolean wireframeMode = false;
     private boolean colorOverride = false;
     private Color overrideColor = new Color(200, 100, 100);
@@ -182,45 +186,61 @@ public class Load3DModel extends JFrame implements GLEventListener {
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
             
-            try {
-                // Load the selected OBJ file
-                currentModel = OBJLoader.loadOBJModel(selectedFile.getAbsolutePath());
-                
-                // Center and scale the model
-                float[] center = currentModel.getCenter();
-                float size = currentModel.getSize();
-                
-                // Apply transform
-                currentModel.x = -center[0];
-                currentModel.y = -center[1];
-                currentModel.z = -center[2];
-                currentModel.scale = 2.0f / Math.max(0.1f, size);
-                
-                // Reset view
-                rotX = 0;
-                rotY = 0;
-                zoom = 5.0f;
-                
-                // Update window title
-                setTitle("3D Model Viewer - " + selectedFile.getName());
-                
-                JOptionPane.showMessageDialog(this,
-                    "Model loaded: " + currentModel.name + "\n" +
-                    "Vertices: " + (currentModel.vertices.size() / 3) + "\n" +
-                    "Faces: " + currentModel.faces.size() + "\n" +
-                    "Materials: " + currentModel.materials.size(),
-                    "Model Loaded", JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(null,
-                    "Error loading model: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-                ex.printStackTrace();
-            }
+            // Parse in the background; the model is shown once it is complete
+            LoadTask<Model3D> task = ModelLoadService.getDefault().submit(selectedFile.getName(),
+                progress -> OBJLoader.loadOBJModel(selectedFile.getAbsolutePath(), progress),
+                new ModelLoadService.Listener<Model3D>() {
+                    @Override
+                    public void loaded(Model3D model) {
+                        showLoadedModel(model, selectedFile);
+                    }
+                    
+                    @Override
+                    public void failed(Exception ex) {
+                        JOptionPane.showMessageDialog(Load3DModel.this,
+                            "Error loading model: " + ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                        ex.printStackTrace();
+                    }
+                });
+            LoadProgressDialog.open(this, task);
         }
     }
     
+    /**
+     * Centre, scale and display a model that finished loading
+     */
+    private void showLoadedModel(Model3D model, File selectedFile) {
+        // Center and scale the model
+        float[] center = model.getCenter();
+        float size = model.getSize();
+        
+        // Apply transform
+        model.x = -center[0];
+        model.y = -center[1];
+        model.z = -center[2];
+        model.scale = 2.0f / Math.max(0.1f, size);
+        
+        // Publish the finished model to the render thread in one step
+        currentModel = model;
+        
+        // Reset view
+        rotX = 0;
+        rotY = 0;
+        zoom = 5.0f;
+        
+        // Update window title
+        setTitle("3D Model Viewer - " + selectedFile.getName());
+        
+        JOptionPane.showMessageDialog(this,
+            "Model loaded: " + currentModel.name + "\n" +
+            "Vertices: " + (currentModel.vertices.size() / 3) + "\n" +
+            "Faces: " + currentModel.faces.getFaceCount() + "\n" +
+            "Materials: " + currentModel.materials.size(),
+            "Model Loaded", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
     /**
      * Toggle wireframe mode
      */
@@ -2,6 +2,7 @@ package com.modelviewer;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
+import com.modelviewer.io.TextureImage;
 import java.awt.Color;
 
 /**
@@ -21,6 +22,10 @@ public class Material {
     public String diffuseTexture = null;
     public int textureId = -1;
     
+    // Decoded texture maps, uploaded on first use
+    public TextureImage ambientImage = null;
+    public TextureImage diffuseImage = null;
+    
     /**
      * Create a new material with the specified name
      */
@@ -69,6 +74,27 @@ public class Material {
         gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, shininess);
         
         // Apply texture if available
+        bindTexture(gl);
+    }
+    
+    /**
+     * Bind this material's texture, uploading the decoded diffuse (or
+     * ambient) map the first time, or disable texturing if it has none
+     */
+    public void bindTexture(GL2 gl) {
+        TextureImage image = diffuseImage != null ? diffuseImage : ambientImage;
+        if (textureId <= 0 && image != null) {
+            int[] ids = new int[1];
+            gl.glGenTextures(1, ids, 0);
+            textureId = ids[0];
+            gl.glBindTexture(GL.GL_TEXTURE_2D, textureId);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+            gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 1);
+            gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, image.getWidth(), image.getHeight(), 0,
+                    GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, image.getPixels());
+        }
+        
         if (textureId > 0) {
             gl.glEnable(GL.GL_TEXTURE_2D);
             gl.glBindTexture(GL.GL_TEXTURE_2D, textureId);
@@ -93,6 +119,8 @@ public class Material {
         copy.ambientTexture = this.ambientTexture;
         copy.diffuseTexture = this.diffuseTexture;
         copy.textureId = this.textureId;
+        copy.ambientImage = this.ambientImage;
+        copy.diffuseImage = this.diffuseImage;
         
         return copy;
     }
@@ -1,9 +1,9 @@
 package com.modelviewer;
 
 import com.jogamp.opengl.GL2;
-import java.util.ArrayList;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.util.FloatList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -12,10 +12,10 @@ import java.util.Map;
 public class Model3D {
     // Model data
     public String name;
-    public List<Float> vertices = new ArrayList<>();
-    public List<Float> normals = new ArrayList<>();
-    public List<Float> texCoords = new ArrayList<>();
-    public List<Face> faces = new ArrayList<>();
+    public FloatList vertices = new FloatList();
+    public FloatList normals = new FloatList();
+    public FloatList texCoords = new FloatList();
+    public FaceTable faces = new FaceTable();
     public Map<String, Material> materials = new HashMap<>();
     public String activeMaterial = null;
     
@@ -52,9 +52,7 @@ public class Model3D {
      * Add a vertex to the model
      */
     public void addVertex(float x, float y, float z) {
-        vertices.add(x);
-        vertices.add(y);
-        vertices.add(z);
+        vertices.add(x, y, z);
         
         // Update bounding box
         minX = Math.min(minX, x);
@@ -69,25 +67,22 @@ public class Model3D {
      * Add a normal vector
      */
     public void addNormal(float x, float y, float z) {
-        normals.add(x);
-        normals.add(y);
-        normals.add(z);
+        normals.add(x, y, z);
     }
     
     /**
      * Add a texture coordinate
      */
     public void addTexCoord(float u, float v) {
-        texCoords.add(u);
-        texCoords.add(v);
+        texCoords.add(u, v);
     }
     
     /**
-     * Add a face to the model
+     * Add a face to the model using the active material. Indices are
+     * 0-based; null or -1 entries mean no texture coordinate/normal.
      */
-    public void addFace(Face face) {
-        face.materialName = activeMaterial;
-        faces.add(face);
+    public void addFace(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+        faces.addFace(vertexIndices, texCoordIndices, normalIndices, count, activeMaterial);
     }
     
     /**
@@ -144,69 +139,79 @@ public class Model3D {
             gl.glPolygonMode(GL2.GL_FRONT_AND_BACK, GL2.GL_FILL);
         }
         
-        // Render each face
-        String currentMaterial = null;
+        float[] vertexData = vertices.array();
+        float[] normalData = normals.array();
+        float[] texCoordData = texCoords.array();
+        int[] faceStarts = faces.getFaceStarts();
+        int[] vertexIndices = faces.getVertexIndices();
+        int[] normalIndices = faces.getNormalIndices();
+        int[] texCoordIndices = faces.getTexCoordIndices();
         
-        for (Face face : faces) {
-            // Apply material if it has changed and not overriding color
-            if (!colorOverride && face.materialName != null && 
-                !face.materialName.equals(currentMaterial) && 
-                materials.containsKey(face.materialName)) {
-                
-                currentMaterial = face.materialName;
-                Material mat = materials.get(currentMaterial);
-                mat.apply(gl);
-            }
-            
-            // Draw the face
-            if (face.vertexIndices.size() == 3) {
-                gl.glBegin(GL2.GL_TRIANGLES);
-            } else if (face.vertexIndices.size() == 4) {
-                gl.glBegin(GL2.GL_QUADS);
-            } else {
-                gl.glBegin(GL2.GL_POLYGON);
+        // Draw one material run at a time
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            if (!colorOverride) {
+                Material mat = materials.get(faces.getMaterialName(faces.getRunMaterial(run)));
+                if (mat != null) {
+                    mat.apply(gl);
+                }
             }
             
-            for (int i = 0; i < face.vertexIndices.size(); i++) {
-                // Apply normal if available
-                if (i < face.normalIndices.size() && face.normalIndices.get(i) > 0) {
-                    int normalIdx = (face.normalIndices.get(i) - 1) * 3;
+            // Consecutive triangles (or quads) share one glBegin/glEnd pair
+            int mode = -1;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                int start = faceStarts[f];
+                int end = faceStarts[f + 1];
+                int faceMode = end - start == 3 ? GL2.GL_TRIANGLES
+                        : end - start == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
+                }
+                
+                for (int c = start; c < end; c++) {
+                    // Apply normal if available
+                    int normalIdx = normalIndices[c] * 3;
                     if (normalIdx >= 0 && normalIdx < normals.size()) {
                         gl.glNormal3f(
-                            normals.get(normalIdx),
-                            normals.get(normalIdx + 1),
-                            normals.get(normalIdx + 2)
+                            normalData[normalIdx],
+                            normalData[normalIdx + 1],
+                            normalData[normalIdx + 2]
                         );
                     }
-                }
-                
-                // Apply texture coordinate if available
-                if (i < face.texCoordIndices.size() && face.texCoordIndices.get(i) > 0) {
-                    int texIdx = (face.texCoordIndices.get(i) - 1) * 2;
+                    
+                    // Apply texture coordinate if available
+                    int texIdx = texCoordIndices[c] * 2;
                     if (texIdx >= 0 && texIdx < texCoords.size()) {
                         gl.glTexCoord2f(
-                            texCoords.get(texIdx),
-                            texCoords.get(texIdx + 1)
+                            texCoordData[texIdx],
+                            texCoordData[texIdx + 1]
+                        );
+                    }
+                    
+                    // Draw vertex
+                    int vertexIdx = vertexIndices[c] * 3;
+                    if (vertexIdx >= 0 && vertexIdx < vertices.size()) {
+                        gl.glVertex3f(
+                            vertexData[vertexIdx],
+                            vertexData[vertexIdx + 1],
+                            vertexData[vertexIdx + 2]
                         );
                     }
-                }
-                
-                // Draw vertex
-                int vertexIdx = (face.vertexIndices.get(i) - 1) * 3;
-                if (vertexIdx >= 0 && vertexIdx < vertices.size()) {
-                    gl.glVertex3f(
-                        vertices.get(vertexIdx),
-                        vertices.get(vertexIdx + 1),
-                        vertices.get(vertexIdx + 2)
-                    );
                 }
             }
-            
-            gl.glEnd();
+            if (mode != -1) {
+                gl.glEnd();
+            }
         }
         
-        // Reset polygon mode
+        // Reset polygon mode and texturing
         gl.glPolygonMode(GL2.GL_FRONT_AND_BACK, GL2.GL_FILL);
+        gl.glDisable(GL2.GL_TEXTURE_2D);
         
         gl.glPopMatrix();
     }
@@ -228,9 +233,7 @@ public class Model3D {
         }
         
         // Copy faces
-        for (Face face : this.faces) {
-            copy.faces.add(face.duplicate());
-        }
+        copy.faces = this.faces.copy();
         
         // Copy transform
         copy.x = this.x;
@@ -17,6 +17,7 @@ import java.awt.event.MouseWheelListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -46,8 +47,11 @@ import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.awt.GLJPanel;
-import com.jogamp.opengl.util.Animator;
 import com.modelviewer.SoftwareRenderer.Model3D;
+import com.modelviewer.core.ModelLoadService;
+import com.modelviewer.core.ModelLoadService.LoadTask;
+import com.modelviewer.render.RenderScheduler;
+import com.modelviewer.ui.dialogs.LoadProgressDialog;
 
 /**
  * Model Manager Window providing both 3D and 2D views of models
@@ -274,28 +278,40 @@ public class ModelManagerWindow extends JFrame {
                 name = file.getName();
             }
             
-            // Create new model
-            Model3D model = new Model3D(name);
-            
-            // Load model data
-            if (mainApp.loadModelFromObjFile(model, file.getAbsolutePath())) {
-                // Add to models list
-                models.add(model);
-                modelsListModel.addElement(name);
-                
-                // Select the new model
-                modelsList.setSelectedIndex(models.size() - 1);
+            // Load model data in the background
+            String modelName = name;
+            LoadTask<Model3D> task = ModelLoadService.getDefault().submit(modelName, progress -> {
+                Model3D model = new Model3D(modelName);
+                if (!mainApp.loadModelFromObjFile(model, file.getAbsolutePath(), progress)) {
+                    throw new IOException("Failed to load model.");
+                }
+                SoftwareRenderer.buildLods(model);
+                return model;
+            }, new ModelLoadService.Listener<Model3D>() {
+                @Override
+                public void loaded(Model3D model) {
+                    // Add to models list
+                    models.add(model);
+                    modelsListModel.addElement(modelName);
+                    
+                    // Select the new model
+                    modelsList.setSelectedIndex(models.size() - 1);
+                    
+                    JOptionPane.showMessageDialog(ModelManagerWindow.this, 
+                                                 "Model added successfully.", 
+                                                 "Success", 
+                                                 JOptionPane.INFORMATION_MESSAGE);
+                }
                 
-                JOptionPane.showMessageDialog(this, 
-                                             "Model added successfully.", 
-                                             "Success", 
-                                             JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                                             "Failed to load model.", 
-                                             "Error", 
-                                             JOptionPane.ERROR_MESSAGE);
-            }
+                @Override
+                public void failed(Exception e) {
+                    JOptionPane.showMessageDialog(ModelManagerWindow.this, 
+                                                 "Failed to load model.", 
+                                                 "Error", 
+                                                 JOptionPane.ERROR_MESSAGE);
+                }
+            });
+            LoadProgressDialog.open(this, task);
         }
     }
     
@@ -352,7 +368,7 @@ public class ModelManagerWindow extends JFrame {
         private static final long serialVersionUID = 1L;
         
         private GLJPanel canvas;
-        private Animator animator;
+        private RenderScheduler renderScheduler;
         private Model3D model;
         
         // View parameters
@@ -384,6 +400,12 @@ public class ModelManagerWindow extends JFrame {
                     public void mousePressed(MouseEvent e) {
                         lastX = e.getX();
                         lastY = e.getY();
+                        renderScheduler.beginInteraction();
+                    }
+
+                    @Override
+                    public void mouseReleased(MouseEvent e) {
+                        renderScheduler.endInteraction();
                     }
                 });
                 
@@ -398,6 +420,7 @@ public class ModelManagerWindow extends JFrame {
                         
                         lastX = e.getX();
                         lastY = e.getY();
+                        renderScheduler.requestRender();
                     }
                 });
                 
@@ -405,15 +428,15 @@ public class ModelManagerWindow extends JFrame {
                     @Override
                     public void mouseWheelMoved(MouseWheelEvent e) {
                         zoom += e.getWheelRotation() * 0.5f;
+                        renderScheduler.requestRender();
                     }
                 });
                 
                 add(canvas, BorderLayout.CENTER);
                 
-                // Start animator
-                animator = new Animator(canvas);
-                animator.setUpdateFPSFrames(20, null);
-                animator.start();
+                // Draw only when the view changes
+                renderScheduler = new RenderScheduler(canvas);
+                renderScheduler.start();
                 
             } catch (Exception e) {
                 System.err.println("Error creating 3D view: " + e.getMessage());
@@ -432,14 +455,14 @@ public class ModelManagerWindow extends JFrame {
                 zoom = -5.0f;
             }
             
-            if (canvas != null) {
-                canvas.repaint();
+            if (renderScheduler != null) {
+                renderScheduler.requestRender();
             }
         }
         
         public void stopAnimator() {
-            if (animator != null && animator.isAnimating()) {
-                animator.stop();
+            if (renderScheduler != null) {
+                renderScheduler.stop();
             }
         }
         
@@ -534,23 +557,28 @@ public class ModelManagerWindow extends JFrame {
             gl.glColor3f(0.7f, 0.7f, 0.7f); // Light gray default color
             gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
             
-            for (SoftwareRenderer.Face face : model.faces) {
-                if (face.vertexIndices.length == 3) {
-                    gl.glBegin(GL.GL_TRIANGLES);
-                } else if (face.vertexIndices.length == 4) {
-                    gl.glBegin(GL2.GL_QUADS);
-                } else {
-                    gl.glBegin(GL2.GL_POLYGON);
+            int[] faceNormals = model.faces.getNormalIndices();
+            int[] faceVertices = model.faces.getVertexIndices();
+            int[] faceStarts = model.faces.getFaceStarts();
+            int mode = -1;
+            for (int f = 0; f < model.faces.getFaceCount(); f++) {
+                int start = faceStarts[f];
+                int size = faceStarts[f + 1] - start;
+                int faceMode = size == 3 ? GL.GL_TRIANGLES : size == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
                 }
                 
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int vertIndex = face.vertexIndices[i];
+                for (int i = 0; i < size; i++) {
+                    int vertIndex = faceVertices[start + i];
                     
                     // Apply normal if available
-                    if (face.normalIndices != null && face.normalIndices[i] >= 0 && 
-                        face.normalIndices[i] < model.normals.size() / 3) {
-                        
-                        int normIndex = face.normalIndices[i];
+                    int normIndex = faceNormals[start + i];
+                    if (normIndex >= 0 && normIndex < model.normals.size() / 3) {
                         gl.glNormal3f(
                             model.normals.get(normIndex * 3), 
                             model.normals.get(normIndex * 3 + 1), 
@@ -565,7 +593,8 @@ public class ModelManagerWindow extends JFrame {
                         model.vertices.get(vertIndex * 3 + 2)
                     );
                 }
-                
+            }
+            if (mode != -1) {
                 gl.glEnd();
             }
         }
@@ -576,17 +605,23 @@ public class ModelManagerWindow extends JFrame {
         private void renderModelWireframe(GL2 gl, Model3D model) {
             gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_LINE);
             
-            for (SoftwareRenderer.Face face : model.faces) {
-                if (face.vertexIndices.length == 3) {
-                    gl.glBegin(GL.GL_TRIANGLES);
-                } else if (face.vertexIndices.length == 4) {
-                    gl.glBegin(GL2.GL_QUADS);
-                } else {
-                    gl.glBegin(GL2.GL_POLYGON);
+            int[] faceVertices = model.faces.getVertexIndices();
+            int[] faceStarts = model.faces.getFaceStarts();
+            int mode = -1;
+            for (int f = 0; f < model.faces.getFaceCount(); f++) {
+                int start = faceStarts[f];
+                int size = faceStarts[f + 1] - start;
+                int faceMode = size == 3 ? GL.GL_TRIANGLES : size == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
                 }
                 
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int vertIndex = face.vertexIndices[i];
+                for (int i = 0; i < size; i++) {
+                    int vertIndex = faceVertices[start + i];
                     
                     // Set vertex
                     gl.glVertex3f(
@@ -595,7 +630,8 @@ public class ModelManagerWindow extends JFrame {
                         model.vertices.get(vertIndex * 3 + 2)
                     );
                 }
-                
+            }
+            if (mode != -1) {
                 gl.glEnd();
             }
             
@@ -733,10 +769,14 @@ public class ModelManagerWindow extends JFrame {
             float scale = Math.min(width / modelWidth, height / modelDepth) * 0.8f;
             
             // Draw model outline from top view
-            for (SoftwareRenderer.Face face : model.faces) {
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int curr = face.vertexIndices[i];
-                    int next = face.vertexIndices[(i + 1) % face.vertexIndices.length];
+            int[] faceVertices = model.faces.getVertexIndices();
+            int[] faceStarts = model.faces.getFaceStarts();
+            for (int f = 0; f < model.faces.getFaceCount(); f++) {
+                int start = faceStarts[f];
+                int size = faceStarts[f + 1] - start;
+                for (int i = 0; i < size; i++) {
+                    int curr = faceVertices[start + i];
+                    int next = faceVertices[start + (i + 1) % size];
                     
                     float x1 = model.vertices.get(curr * 3);
                     float z1 = model.vertices.get(curr * 3 + 2);
@@ -783,10 +823,14 @@ public class ModelManagerWindow extends JFrame {
             float scale = Math.min(width / modelWidth, height / modelHeight) * 0.8f;
             
             // Draw model outline from front view
-            for (SoftwareRenderer.Face face : model.faces) {
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int curr = face.vertexIndices[i];
-                    int next = face.vertexIndices[(i + 1) % face.vertexIndices.length];
+            int[] faceVertices = model.faces.getVertexIndices();
+            int[] faceStarts = model.faces.getFaceStarts();
+            for (int f = 0; f < model.faces.getFaceCount(); f++) {
+                int start = faceStarts[f];
+                int size = faceStarts[f + 1] - start;
+                for (int i = 0; i < size; i++) {
+                    int curr = faceVertices[start + i];
+                    int next = faceVertices[start + (i + 1) % size];
                     
                     float x1 = model.vertices.get(curr * 3);
                     float y1 = model.vertices.get(curr * 3 + 1);
@@ -833,10 +877,14 @@ public class ModelManagerWindow extends JFrame {
             float scale = Math.min(width / modelDepth, height / modelHeight) * 0.8f;
             
             // Draw model outline from side view
-            for (SoftwareRenderer.Face face : model.faces) {
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int curr = face.vertexIndices[i];
-                    int next = face.vertexIndices[(i + 1) % face.vertexIndices.length];
+            int[] faceVertices = model.faces.getVertexIndices();
+            int[] faceStarts = model.faces.getFaceStarts();
+            for (int f = 0; f < model.faces.getFaceCount(); f++) {
+                int start = faceStarts[f];
+                int size = faceStarts[f + 1] - start;
+                for (int i = 0; i < size; i++) {
+                    int curr = faceVertices[start + i];
+                    int next = faceVertices[start + (i + 1) % size];
                     
                     float z1 = model.vertices.get(curr * 3 + 2);
                     float y1 = model.vertices.get(curr * 3 + 1);
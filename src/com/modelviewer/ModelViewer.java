@@ -5,11 +5,11 @@ import java.awt.*;
 import java.awt.event.*;
 import com.jogamp.opengl.*;
 import com.jogamp.opengl.awt.GLCanvas;
-import com.jogamp.opengl.util.Animator;
+import com.modelviewer.render.RenderScheduler;
 
 public class ModelViewer extends JFrame implements GLEventListener {
     private GLCanvas glCanvas;
-    private Animator animator;
+    private RenderScheduler renderScheduler;
     private JButton loadButton;
     private JButton clearButton;
     
@@ -43,9 +43,9 @@ public class ModelViewer extends JFrame implements GLEventListener {
         
         add(mainPanel);
         
-        // Set up animation
-        animator = new Animator(glCanvas);
-        animator.start();
+        // Draw on demand; the canvas redraws itself when resized or exposed
+        renderScheduler = new RenderScheduler(glCanvas);
+        renderScheduler.start();
         
         // Set up window
         setSize(800, 600);
@@ -55,8 +55,8 @@ public class ModelViewer extends JFrame implements GLEventListener {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                if (animator != null) {
-                    animator.stop();
+                if (renderScheduler != null) {
+                    renderScheduler.stop();
                 }
                 System.exit(0);
             }
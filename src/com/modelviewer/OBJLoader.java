@@ -4,24 +4,74 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.modelviewer.io.LoadProgress;
+import com.modelviewer.io.ObjTokenizer;
+import com.modelviewer.io.ParallelObjParser;
+import com.modelviewer.io.TextureImage;
+import com.modelviewer.mesh.Triangulator;
 
 /**
  * Handles loading of OBJ and MTL files
  */
 public class OBJLoader {
     
+    /** Files at least this large are parsed in parallel by default */
+    public static final long PARALLEL_LOAD_THRESHOLD = 32L << 20;
+    
+    /** Worker threads for MTL parsing and texture decoding */
+    private static final ExecutorService ASSET_EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "obj-assets");
+            thread.setDaemon(true);
+            return thread;
+        });
+    
     /**
      * Load a 3D model from an OBJ file
      */
     public static Model3D loadOBJModel(String objFilePath) throws IOException {
-        return loadOBJModel(objFilePath, null);
+        return loadOBJModel(objFilePath, LoadProgress.NONE);
     }
     
     /**
      * Load a 3D model from an OBJ file with optional MTL file
      */
     public static Model3D loadOBJModel(String objFilePath, String mtlFilePath) throws IOException {
+        return loadOBJModel(objFilePath, mtlFilePath,
+                new File(objFilePath).length() >= PARALLEL_LOAD_THRESHOLD);
+    }
+    
+    /**
+     * Load a 3D model from an OBJ file, optionally parsing it in parallel.
+     * Both modes build the same model.
+     */
+    public static Model3D loadOBJModel(String objFilePath, String mtlFilePath, boolean parallel)
+            throws IOException {
+        return loadOBJModel(objFilePath, mtlFilePath, parallel, LoadProgress.NONE);
+    }
+    
+    /**
+     * Load a 3D model from an OBJ file, reporting progress as it is read.
+     * A cancelled load ends with a CancellationException.
+     */
+    public static Model3D loadOBJModel(String objFilePath, LoadProgress progress) throws IOException {
+        return loadOBJModel(objFilePath, null,
+                new File(objFilePath).length() >= PARALLEL_LOAD_THRESHOLD, progress);
+    }
+    
+    public static Model3D loadOBJModel(String objFilePath, String mtlFilePath, boolean parallel,
+            LoadProgress progress) throws IOException {
         File objFile = new File(objFilePath);
         String modelName = objFile.getName();
         if (modelName.toLowerCase().endsWith(".obj")) {
@@ -30,85 +80,88 @@ public class OBJLoader {
         
         Model3D model = new Model3D(modelName);
         
-        // Load materials if MTL path is provided
-        if (mtlFilePath != null && !mtlFilePath.isEmpty()) {
-            loadMTLFile(model, mtlFilePath);
+        // Materials and textures load on worker threads while the geometry is parsed
+        MaterialPipeline pipeline = new MaterialPipeline();
+        boolean mtlGiven = mtlFilePath != null && !mtlFilePath.isEmpty();
+        if (mtlGiven) {
+            pipeline.add(mtlFilePath);
         }
         
-        // Open the OBJ file
-        BufferedReader reader = new BufferedReader(new FileReader(objFile));
-        String line;
-        
-        // Parse each line of the file
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
+        File objDir = objFile.getParentFile();
+        ObjTokenizer.Handler handler = new ObjTokenizer.Handler() {
+            @Override
+            public void vertex(float x, float y, float z) {
+                model.addVertex(x, y, z);
+            }
             
-            if (line.isEmpty() || line.startsWith("#")) {
-                // Skip empty lines and comments
-                continue;
+            @Override
+            public void normal(float x, float y, float z) {
+                model.addNormal(x, y, z);
             }
             
-            StringTokenizer tokenizer = new StringTokenizer(line);
-            if (tokenizer.hasMoreTokens()) {
-                String type = tokenizer.nextToken();
-                
-                switch (type) {
-                    case "v":
-                        // Vertex
-                        parseVertex(model, tokenizer);
-                        break;
-                    case "vn":
-                        // Normal
-                        parseNormal(model, tokenizer);
-                        break;
-                    case "vt":
-                        // Texture coordinate
-                        parseTexCoord(model, tokenizer);
-                        break;
-                    case "f":
-                        // Face
-                        parseFace(model, tokenizer);
-                        break;
-                    case "mtllib":
-                        // Material library
-                        if (mtlFilePath == null || mtlFilePath.isEmpty()) {
-                            // Only load MTL if not already specified
-                            String mtlFile = tokenizer.nextToken();
-                            File objDir = objFile.getParentFile();
-                            String mtlPath = objDir != null ? 
-                                new File(objDir, mtlFile).getAbsolutePath() : mtlFile;
-                            loadMTLFile(model, mtlPath);
-                        }
-                        break;
-                    case "usemtl":
-                        // Use material
-                        if (tokenizer.hasMoreTokens()) {
-                            model.setActiveMaterial(tokenizer.nextToken());
-                        }
-                        break;
-                    // Ignore other types
+            @Override
+            public void texCoord(float u, float v) {
+                model.addTexCoord(u, v);
+            }
+            
+            @Override
+            public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+                model.addFace(vertexIndices, texCoordIndices, normalIndices, count);
+            }
+            
+            @Override
+            public void useMaterial(String name) {
+                model.setActiveMaterial(name);
+            }
+            
+            @Override
+            public void materialLibrary(String name) {
+                // Only load MTL files referenced by the OBJ if one was not specified
+                if (!mtlGiven) {
+                    pipeline.add(objDir != null ? new File(objDir, name).getAbsolutePath() : name);
                 }
             }
+        };
+        try {
+            if (parallel) {
+                new ParallelObjParser().parse(objFilePath, handler, progress);
+            } else {
+                ObjTokenizer.parseFile(objFilePath, handler, progress);
+            }
+        } catch (IOException | RuntimeException e) {
+            pipeline.cancel();
+            throw e;
         }
         
-        reader.close();
+        // Wait for the material stages still running
+        pipeline.addTo(model);
         
         // If no vertices, create a simple cube as a placeholder
         if (model.vertices.isEmpty()) {
             createDefaultCube(model);
         }
         
+        // Split polygons into triangles, group them by material and drop
+        // the spare capacity left over from growing
+        model.faces = Triangulator.triangulate(model.vertices, model.faces);
+        model.faces.groupByMaterial();
+        model.faces.trimToSize();
+        model.vertices.trimToSize();
+        model.normals.trimToSize();
+        model.texCoords.trimToSize();
+        
         return model;
     }
     
     /**
-     * Load materials from a MTL file
+     * Read the materials of a MTL file, in file order
      */
-    private static void loadMTLFile(Model3D model, String mtlFilePath) throws IOException {
+    private static List<Material> readMTLFile(String mtlFilePath) throws IOException {
+        List<Material> materials = new ArrayList<>();
         File mtlFile = new File(mtlFilePath);
         if (!mtlFile.exists()) {
             System.out.println("MTL file not found: " + mtlFilePath);
-            return;
+            return materials;
         }
         
         BufferedReader reader = new BufferedReader(new FileReader(mtlFile));
@@ -134,7 +187,7 @@ public class OBJLoader {
                         if (tokenizer.hasMoreTokens()) {
                             String materialName = tokenizer.nextToken();
                             currentMaterial = new Material(materialName);
-                            model.addMaterial(currentMaterial);
+                            materials.add(currentMaterial);
                         }
                         break;
                     case "Ka":
@@ -191,75 +244,83 @@ public class OBJLoader {
         
         reader.close();
         
-        System.out.println("Loaded MTL: " + model.materials.size() + " materials");
+        System.out.println("Loaded MTL: " + materials.size() + " materials");
+        return materials;
     }
     
     /**
-     * Parse a vertex line
+     * Loads material libraries and their textures on worker threads.
+     * Each library is parsed as soon as it is added; once parsed, the texture
+     * maps it names are decoded in parallel, each distinct image only once.
+     * The geometry parse carries on meanwhile, so a textured model costs
+     * roughly its slowest stage instead of the sum of all of them.
      */
-    private static void parseVertex(Model3D model, StringTokenizer tokenizer) {
-        if (tokenizer.countTokens() >= 3) {
-            float x = Float.parseFloat(tokenizer.nextToken());
-            float y = Float.parseFloat(tokenizer.nextToken());
-            float z = Float.parseFloat(tokenizer.nextToken());
-            model.addVertex(x, y, z);
+    private static class MaterialPipeline {
+        private final List<CompletableFuture<List<Material>>> libraries = new ArrayList<>();
+        private final Map<String, CompletableFuture<TextureImage>> textures = new ConcurrentHashMap<>();
+        
+        void add(String mtlFilePath) {
+            libraries.add(CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return readMTLFile(mtlFilePath);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, ASSET_EXECUTOR)
+                .thenCompose(materials -> decodeTextures(new File(mtlFilePath).getParentFile(), materials)));
         }
-    }
-    
-    /**
-     * Parse a normal line
-     */
-    private static void parseNormal(Model3D model, StringTokenizer tokenizer) {
-        if (tokenizer.countTokens() >= 3) {
-            float x = Float.parseFloat(tokenizer.nextToken());
-            float y = Float.parseFloat(tokenizer.nextToken());
-            float z = Float.parseFloat(tokenizer.nextToken());
-            model.addNormal(x, y, z);
+        
+        private CompletableFuture<List<Material>> decodeTextures(File mtlDir, List<Material> materials) {
+            List<CompletableFuture<Void>> decodes = new ArrayList<>();
+            for (Material material : materials) {
+                if (material.diffuseTexture != null) {
+                    decodes.add(texture(mtlDir, material.diffuseTexture)
+                        .thenAccept(image -> material.diffuseImage = image));
+                }
+                if (material.ambientTexture != null) {
+                    decodes.add(texture(mtlDir, material.ambientTexture)
+                        .thenAccept(image -> material.ambientImage = image));
+                }
+            }
+            return CompletableFuture.allOf(decodes.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> materials);
         }
-    }
-    
-    /**
-     * Parse a texture coordinate line
-     */
-    private static void parseTexCoord(Model3D model, StringTokenizer tokenizer) {
-        if (tokenizer.countTokens() >= 2) {
-            float u = Float.parseFloat(tokenizer.nextToken());
-            float v = Float.parseFloat(tokenizer.nextToken());
-            model.addTexCoord(u, v);
+        
+        private CompletableFuture<TextureImage> texture(File mtlDir, String name) {
+            File file = new File(name).isAbsolute() || mtlDir == null ? new File(name) : new File(mtlDir, name);
+            return textures.computeIfAbsent(file.getAbsolutePath(), path ->
+                CompletableFuture.supplyAsync(() -> TextureImage.read(new File(path)), ASSET_EXECUTOR));
         }
-    }
-    
-    /**
-     * Parse a face line
-     */
-    private static void parseFace(Model3D model, StringTokenizer tokenizer) {
-        Face face = new Face();
         
-        // Process each vertex of the face
-        while (tokenizer.hasMoreTokens()) {
-            String vertexData = tokenizer.nextToken();
-            String[] indices = vertexData.split("/");
-            
-            int vertexIndex = 0;
-            int texCoordIndex = 0;
-            int normalIndex = 0;
-            
-            if (indices.length > 0 && !indices[0].isEmpty()) {
-                vertexIndex = Integer.parseInt(indices[0]);
+        /**
+         * Wait for every library and add its materials in the order the
+         * libraries were named
+         */
+        void addTo(Model3D model) throws IOException {
+            try {
+                for (CompletableFuture<List<Material>> library : libraries) {
+                    for (Material material : library.join()) {
+                        model.addMaterial(material);
+                    }
+                }
+            } catch (CompletionException e) {
+                cancel();
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
             }
-            
-            if (indices.length > 1 && !indices[1].isEmpty()) {
-                texCoordIndex = Integer.parseInt(indices[1]);
+        }
+        
+        void cancel() {
+            for (CompletableFuture<List<Material>> library : libraries) {
+                library.cancel(false);
             }
-            
-            if (indices.length > 2 && !indices[2].isEmpty()) {
-                normalIndex = Integer.parseInt(indices[2]);
+            for (CompletableFuture<TextureImage> texture : textures.values()) {
+                texture.cancel(false);
             }
-            
-            face.addVertex(vertexIndex, texCoordIndex, normalIndex);
         }
-        
-        model.addFace(face);
     }
     
     /**
@@ -295,81 +356,34 @@ public class OBJLoader {
         // Create the 6 faces of the cube (each face consists of 2 triangles)
         
         // Front face (z = -0.5)
-        Face front1 = new Face();
-        front1.addVertex(1, 0, 1);
-        front1.addVertex(2, 0, 1);
-        front1.addVertex(3, 0, 1);
-        model.addFace(front1);
-        
-        Face front2 = new Face();
-        front2.addVertex(1, 0, 1);
-        front2.addVertex(3, 0, 1);
-        front2.addVertex(4, 0, 1);
-        model.addFace(front2);
+        addTriangle(model, 0, 1, 2, 0);
+        addTriangle(model, 0, 2, 3, 0);
         
         // Back face (z = 0.5)
-        Face back1 = new Face();
-        back1.addVertex(5, 0, 2);
-        back1.addVertex(8, 0, 2);
-        back1.addVertex(7, 0, 2);
-        model.addFace(back1);
-        
-        Face back2 = new Face();
-        back2.addVertex(5, 0, 2);
-        back2.addVertex(7, 0, 2);
-        back2.addVertex(6, 0, 2);
-        model.addFace(back2);
+        addTriangle(model, 4, 7, 6, 1);
+        addTriangle(model, 4, 6, 5, 1);
         
         // Right face (x = 0.5)
-        Face right1 = new Face();
-        right1.addVertex(2, 0, 3);
-        right1.addVertex(6, 0, 3);
-        right1.addVertex(7, 0, 3);
-        model.addFace(right1);
-        
-        Face right2 = new Face();
-        right2.addVertex(2, 0, 3);
-        right2.addVertex(7, 0, 3);
-        right2.addVertex(3, 0, 3);
-        model.addFace(right2);
+        addTriangle(model, 1, 5, 6, 2);
+        addTriangle(model, 1, 6, 2, 2);
         
         // Left face (x = -0.5)
-        Face left1 = new Face();
-        left1.addVertex(1, 0, 4);
-        left1.addVertex(5, 0, 4);
-        left1.addVertex(8, 0, 4);
-        model.addFace(left1);
-        
-        Face left2 = new Face();
-        left2.addVertex(1, 0, 4);
-        left2.addVertex(8, 0, 4);
-        left2.addVertex(4, 0, 4);
-        model.addFace(left2);
+        addTriangle(model, 0, 4, 7, 3);
+        addTriangle(model, 0, 7, 3, 3);
         
         // Top face (y = 0.5)
-        Face top1 = new Face();
-        top1.addVertex(3, 0, 5);
-        top1.addVertex(7, 0, 5);
-        top1.addVertex(8, 0, 5);
-        model.addFace(top1);
-        
-        Face top2 = new Face();
-        top2.addVertex(3, 0, 5);
-        top2.addVertex(8, 0, 5);
-        top2.addVertex(4, 0, 5);
-        model.addFace(top2);
+        addTriangle(model, 2, 6, 7, 4);
+        addTriangle(model, 2, 7, 3, 4);
         
         // Bottom face (y = -0.5)
-        Face bottom1 = new Face();
-        bottom1.addVertex(1, 0, 6);
-        bottom1.addVertex(5, 0, 6);
-        bottom1.addVertex(6, 0, 6);
-        model.addFace(bottom1);
-        
-        Face bottom2 = new Face();
-        bottom2.addVertex(1, 0, 6);
-        bottom2.addVertex(6, 0, 6);
-        bottom2.addVertex(2, 0, 6);
-        model.addFace(bottom2);
+        addTriangle(model, 0, 4, 5, 5);
+        addTriangle(model, 0, 5, 1, 5);
+    }
+    
+    /**
+     * Add a flat-shaded triangle (0-based indices)
+     */
+    private static void addTriangle(Model3D model, int a, int b, int c, int normal) {
+        model.addFace(new int[] { a, b, c }, null, new int[] { normal, normal, normal }, 3);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -13,7 +13,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -25,21 +24,28 @@ import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
-import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import com.jogamp.opengl.GL2ES1;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.awt.GLCanvas;
 import com.jogamp.opengl.util.FPSAnimator;
+import com.modelviewer.io.ObjTokenizer;
+import com.modelviewer.mesh.MeshWelder;
+import com.modelviewer.mesh.Triangulator;
+import com.modelviewer.mesh.VertexCacheOptimizer;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.model.IndexedMesh;
+import com.modelviewer.render.MeshBuffers;
+import com.modelviewer.util.FloatList;
 
 public class SimpleModelViewer extends JFrame implements GLEventListener {
     private static final long serialVersionUID = 1L;
@@ -52,10 +58,10 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
     private int lastX = 0;
     private int lastY = 0;
     
-    private List<Float> vertices = new ArrayList<>();
-    private List<Float> normals = new ArrayList<>();
-    private List<Float> textureCoords = new ArrayList<>();
-    private List<Face> faces = new ArrayList<>();
+    private FloatList vertices = new FloatList();
+    private FloatList normals = new FloatList();
+    private FloatList textureCoords = new FloatList();
+    private FaceTable faces = new FaceTable();
     private Map<String, Material> materials = new HashMap<>();
     private String currentMaterial = null;
     
@@ -65,9 +71,19 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
     private JCheckBox smoothShadingCheckbox;
     private JComboBox<String> renderQualityCombo;
     
-    // VBO buffers for improved performance
-    private int[] vboHandles = new int[3]; // 0: vertices, 1: normals, 2: colors
+    // Welded copy of the faces, held in buffer objects for improved performance
+    private IndexedMesh indexedMesh;
+    private MeshBuffers meshBuffers;
+    private volatile boolean meshChanged = false; // Buffers are refilled on the GL thread
     private boolean useVBO = true;
+
+    // Benchmark state: frames left per path, and time spent drawing
+    private static final int BENCHMARK_FRAMES = 120;
+    private int benchmarkFramesLeft = 0;
+    private boolean benchmarkVBOPass;
+    private long benchmarkVBONanos;
+    private long benchmarkImmediateNanos;
+    private int drawCalls;
     
     // Bounding box for auto-centering
     private float minX = Float.MAX_VALUE, maxX = Float.MIN_VALUE;
@@ -79,20 +95,6 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
     private boolean smoothShading = true;
     private int quality = 2; // 0: low, 1: medium, 2: high
     
-    static class Face {
-        int[] vertexIndices;
-        int[] normalIndices;
-        int[] texCoordIndices;
-        String materialName;
-        
-        public Face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, String materialName) {
-            this.vertexIndices = vertexIndices;
-            this.texCoordIndices = texCoordIndices;
-            this.normalIndices = normalIndices;
-            this.materialName = materialName;
-        }
-    }
-    
     static class Material {
         float[] ambient = {0.2f, 0.2f, 0.2f, 1.0f};
         float[] diffuse = {0.8f, 0.8f, 0.8f, 1.0f};
@@ -176,6 +178,10 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
         });
         controlPanel.add(renderQualityCombo);
         
+        JButton benchmarkButton = new JButton("Benchmark");
+        benchmarkButton.addActionListener(e -> startBenchmark());
+        controlPanel.add(benchmarkButton);
+        
         add(controlPanel, BorderLayout.NORTH);
         
         // Create OpenGL canvas with anti-aliasing
@@ -354,22 +360,15 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
                 System.out.println("Warning: Multisampling not supported: " + e.getMessage());
             }
             
-            // Generate VBO handles if supported
-            try {
-                if (useVBO) {
-                    int[] vboArray = new int[3];
-                    gl.glGenBuffers(3, vboArray, 0);
-                    vboHandles = vboArray;
-                    
-                    System.out.println("VBO enabled with handles: " + 
-                                      vboHandles[0] + ", " + 
-                                      vboHandles[1] + ", " + 
-                                      vboHandles[2]);
-                }
-            } catch (Exception e) {
-                System.out.println("Warning: VBO not supported: " + e.getMessage());
+            // Buffer objects need OpenGL 1.5
+            if (useVBO && !MeshBuffers.isSupported(gl)) {
+                System.out.println("Warning: VBO not supported, using immediate mode");
                 useVBO = false;
             }
+            
+            // A new context has none of the old buffers
+            meshBuffers = null;
+            meshChanged = true;
         } catch (Exception e) {
             System.err.println("Error during OpenGL initialization: " + e.getMessage());
             e.printStackTrace();
@@ -442,8 +441,12 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
             gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
         }
         
-        // Draw the model
-        renderModel(gl);
+        // Draw the model, timing it while a benchmark runs
+        if (benchmarkFramesLeft > 0) {
+            benchmarkFrame(gl);
+        } else {
+            renderModel(gl);
+        }
         
         // Reset polygon mode
         gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
@@ -476,45 +479,29 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
         GL2 gl = drawable.getGL().getGL2();
         
         // Clean up VBOs when done
-        if (useVBO && vboHandles[0] != 0) {
-            gl.glDeleteBuffers(3, vboHandles, 0);
+        if (meshBuffers != null) {
+            meshBuffers.release(gl);
+            meshBuffers = null;
         }
     }
     
     private void loadObjFile(String filePath) {
         try {
-            // Clear previous data
-            vertices.clear();
-            normals.clear();
-            textureCoords.clear();
-            faces.clear();
+            // Parse into fresh lists; the render thread keeps drawing the old ones
+            FloatList vertices = new FloatList();
+            FloatList normals = new FloatList();
+            FloatList textureCoords = new FloatList();
+            FaceTable faces = new FaceTable();
             
             // Reset bounding box
             minX = minY = minZ = Float.MAX_VALUE;
             maxX = maxY = maxZ = Float.MIN_VALUE;
             
-            BufferedReader reader = new BufferedReader(new FileReader(filePath));
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-                
-                String[] parts = line.split("\\s+");
-                String type = parts[0];
-                
-                if ("v".equals(type)) {
-                    // Vertex
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-                    
-                    vertices.add(x);
-                    vertices.add(y);
-                    vertices.add(z);
+            List<String> materialLibraries = new ArrayList<>();
+            ObjTokenizer.parseFile(filePath, new ObjTokenizer.Handler() {
+                @Override
+                public void vertex(float x, float y, float z) {
+                    vertices.add(x, y, z);
                     
                     // Update bounding box
                     minX = Math.min(minX, x);
@@ -523,108 +510,81 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
                     maxY = Math.max(maxY, y);
                     minZ = Math.min(minZ, z);
                     maxZ = Math.max(maxZ, z);
-                    
-                } else if ("vn".equals(type)) {
-                    // Normal
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-                    
-                    normals.add(x);
-                    normals.add(y);
-                    normals.add(z);
-                    
-                } else if ("vt".equals(type)) {
-                    // Texture coordinate
-                    float u = Float.parseFloat(parts[1]);
-                    float v = parts.length > 2 ? Float.parseFloat(parts[2]) : 0.0f;
-                    
-                    textureCoords.add(u);
-                    textureCoords.add(v);
-                    
-                } else if ("f".equals(type)) {
-                    // Face
-                    int[] vertIndices = new int[parts.length - 1];
-                    int[] texIndices = new int[parts.length - 1];
-                    int[] normIndices = new int[parts.length - 1];
-                    
-                    for (int i = 1; i < parts.length; i++) {
-                        String[] indices = parts[i].split("/");
-                        
-                        vertIndices[i - 1] = Integer.parseInt(indices[0]) - 1;
-                        texIndices[i - 1] = indices.length > 1 && !indices[1].isEmpty() ? Integer.parseInt(indices[1]) - 1 : -1;
-                        normIndices[i - 1] = indices.length > 2 ? Integer.parseInt(indices[2]) - 1 : -1;
-                    }
-                    
-                    faces.add(new Face(vertIndices, texIndices, normIndices, currentMaterial));
-                    
-                } else if ("mtllib".equals(type)) {
-                    // Material library
-                    if (parts.length > 1) {
-                        File objFile = new File(filePath);
-                        File mtlFile = new File(objFile.getParent(), parts[1]);
-                        if (mtlFile.exists()) {
-                            mtlFileText.setText(mtlFile.getAbsolutePath());
-                            loadMtlFile(mtlFile.getAbsolutePath());
-                        }
-                    }
-                    
-                } else if ("usemtl".equals(type)) {
-                    // Use material
-                    if (parts.length > 1) {
-                        currentMaterial = parts[1];
-                    }
                 }
-            }
-            
-            reader.close();
+                
+                @Override
+                public void normal(float x, float y, float z) {
+                    normals.add(x, y, z);
+                }
+                
+                @Override
+                public void texCoord(float u, float v) {
+                    textureCoords.add(u, v);
+                }
+                
+                @Override
+                public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+                    faces.addFace(vertexIndices, texCoordIndices, normalIndices, count, currentMaterial);
+                }
+                
+                @Override
+                public void useMaterial(String name) {
+                    currentMaterial = name;
+                }
+                
+                @Override
+                public void materialLibrary(String name) {
+                    materialLibraries.add(name);
+                }
+            });
             
-            // Prepare VBO data if using VBOs
-            if (useVBO && !vertices.isEmpty()) {
-                prepareVBOs(canvas.getGL().getGL2());
+            for (String library : materialLibraries) {
+                File mtlFile = new File(new File(filePath).getParent(), library);
+                if (mtlFile.exists()) {
+                    mtlFileText.setText(mtlFile.getAbsolutePath());
+                    loadMtlFile(mtlFile.getAbsolutePath());
+                }
             }
             
+            // Triangles grouped by material, welded into one vertex per
+            // distinct corner; the GL thread uploads it on the next frame
+            FaceTable triangles = Triangulator.triangulate(vertices, faces);
+            triangles.groupByMaterial();
+            IndexedMesh mesh = VertexCacheOptimizer.optimize(
+                    MeshWelder.weld(vertices, normals, textureCoords, triangles));
+            this.vertices = vertices;
+            this.normals = normals;
+            this.textureCoords = textureCoords;
+            this.faces = triangles;
+            this.indexedMesh = mesh;
+            meshChanged = true;
+            
             // Calculate auto-scale factor for consistent model size
             float modelSize = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
             float scaleFactor = 4.0f / modelSize;
             zoom = -5.0f * scaleFactor; // Adjust zoom based on model size
             
-            System.out.println("Loaded model with " + (vertices.size() / 3) + " vertices and " + faces.size() + " faces");
+            System.out.println("Loaded model with " + (vertices.size() / 3) + " vertices and " + faces.getFaceCount()
+                    + " faces (" + mesh.getVertexCount() + " welded vertices, " + mesh.getRangeCount() + " materials)");
             
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     
-    private void prepareVBOs(GL2 gl) {
-        // Convert ArrayList to arrays for VBO
-        float[] vertexArray = new float[vertices.size()];
-        for (int i = 0; i < vertices.size(); i++) {
-            vertexArray[i] = vertices.get(i);
-        }
-        
-        float[] normalArray = null;
-        if (!normals.isEmpty()) {
-            normalArray = new float[normals.size()];
-            for (int i = 0; i < normals.size(); i++) {
-                normalArray[i] = normals.get(i);
-            }
+    /**
+     * Refills the buffer objects from the welded mesh. Only runs on the
+     * first frame after a model loads or the context is recreated.
+     */
+    private void uploadMesh(GL2 gl) {
+        meshChanged = false;
+        if (meshBuffers != null) {
+            meshBuffers.release(gl);
+            meshBuffers = null;
         }
-        
-        // Create and populate vertex buffer
-        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboHandles[0]);
-        FloatBuffer vertexBuffer = Buffers.newDirectFloatBuffer(vertexArray);
-        gl.glBufferData(GL.GL_ARRAY_BUFFER, vertexArray.length * Float.BYTES, vertexBuffer, GL.GL_STATIC_DRAW);
-        
-        // Create and populate normal buffer if available
-        if (normalArray != null) {
-            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboHandles[1]);
-            FloatBuffer normalBuffer = Buffers.newDirectFloatBuffer(normalArray);
-            gl.glBufferData(GL.GL_ARRAY_BUFFER, normalArray.length * Float.BYTES, normalBuffer, GL.GL_STATIC_DRAW);
+        if (useVBO && indexedMesh != null && indexedMesh.getIndexCount() > 0) {
+            meshBuffers = MeshBuffers.upload(gl, indexedMesh);
         }
-        
-        // Unbind buffer
-        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
     }
     
     private void loadMtlFile(String filePath) {
@@ -690,120 +650,135 @@ public class SimpleModelViewer extends JFrame implements GLEventListener {
         if (vertices.isEmpty()) {
             return;
         }
+        if (meshChanged) {
+            uploadMesh(gl);
+        }
         
-        if (useVBO && vboHandles[0] != 0) {
+        drawCalls = 0;
+        if (useVBO && meshBuffers != null) {
             renderWithVBO(gl);
         } else {
             renderImmediate(gl);
         }
     }
     
-    private void renderWithVBO(GL2 gl) {
-        // Enable vertex and normal arrays
-        gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
-        gl.glEnableClientState(GL2.GL_NORMAL_ARRAY);
-        
-        // Bind vertex buffer
-        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboHandles[0]);
-        gl.glVertexPointer(3, GL.GL_FLOAT, 0, 0);
-        
-        // Bind normal buffer if available
-        if (!normals.isEmpty()) {
-            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboHandles[1]);
-            gl.glNormalPointer(GL.GL_FLOAT, 0, 0);
+    private void applyMaterial(GL2 gl, String materialName) {
+        Material material = materialName != null ? materials.get(materialName) : null;
+        if (material != null) {
+            gl.glMaterialfv(GL.GL_FRONT, GL2.GL_AMBIENT, material.ambient, 0);
+            gl.glMaterialfv(GL.GL_FRONT, GL2.GL_DIFFUSE, material.diffuse, 0);
+            gl.glMaterialfv(GL.GL_FRONT, GL2.GL_SPECULAR, material.specular, 0);
+            gl.glMaterialf(GL.GL_FRONT, GL2.GL_SHININESS, material.shininess);
         }
-        
-        // Render each face
-        Material lastMaterial = null;
-        
-        for (Face face : faces) {
-            // Apply material if available
-            if (face.materialName != null && materials.containsKey(face.materialName)) {
-                Material material = materials.get(face.materialName);
-                if (material != lastMaterial) {
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_AMBIENT, material.ambient, 0);
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_DIFFUSE, material.diffuse, 0);
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_SPECULAR, material.specular, 0);
-                    gl.glMaterialf(GL.GL_FRONT, GL2.GL_SHININESS, material.shininess);
-                    lastMaterial = material;
-                }
-            }
-            
-            // Draw the face (supports triangles and quads)
-            if (face.vertexIndices.length == 3) {
-                gl.glDrawArrays(GL.GL_TRIANGLES, face.vertexIndices[0], 3);
-            } else if (face.vertexIndices.length == 4) {
-                gl.glDrawArrays(GL2.GL_QUADS, face.vertexIndices[0], 4);
-            } else {
-                gl.glBegin(GL2.GL_POLYGON);
-                for (int i = 0; i < face.vertexIndices.length; i++) {
-                    int vertIndex = face.vertexIndices[i];
-                    if (face.normalIndices != null && face.normalIndices[i] >= 0) {
-                        int normIndex = face.normalIndices[i];
-                        gl.glNormal3f(normals.get(normIndex * 3), normals.get(normIndex * 3 + 1), normals.get(normIndex * 3 + 2));
-                    }
-                    gl.glVertex3f(vertices.get(vertIndex * 3), vertices.get(vertIndex * 3 + 1), vertices.get(vertIndex * 3 + 2));
-                }
-                gl.glEnd();
-            }
+    }
+    
+    private void renderWithVBO(GL2 gl) {
+        // One draw per material range of the welded mesh
+        IndexedMesh mesh = meshBuffers.getMesh();
+        meshBuffers.bind(gl);
+        for (int range = 0; range < mesh.getRangeCount(); range++) {
+            applyMaterial(gl, mesh.getRangeMaterial(range));
+            meshBuffers.drawRange(gl, range);
+            drawCalls++;
         }
-        
-        // Disable arrays and unbind buffers
-        gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
-        gl.glDisableClientState(GL2.GL_NORMAL_ARRAY);
-        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+        meshBuffers.unbind(gl);
     }
     
     private void renderImmediate(GL2 gl) {
         // Direct immediate mode rendering (slower but compatible with all systems)
-        Material lastMaterial = null;
-        
-        for (Face face : faces) {
-            // Apply material if available
-            if (face.materialName != null && materials.containsKey(face.materialName)) {
-                Material material = materials.get(face.materialName);
-                if (material != lastMaterial) {
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_AMBIENT, material.ambient, 0);
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_DIFFUSE, material.diffuse, 0);
-                    gl.glMaterialfv(GL.GL_FRONT, GL2.GL_SPECULAR, material.specular, 0);
-                    gl.glMaterialf(GL.GL_FRONT, GL2.GL_SHININESS, material.shininess);
-                    lastMaterial = material;
-                }
-            }
-            
-            // Draw the face
-            if (face.vertexIndices.length == 3) {
-                gl.glBegin(GL.GL_TRIANGLES);
-            } else if (face.vertexIndices.length == 4) {
-                gl.glBegin(GL2.GL_QUADS);
-            } else {
-                gl.glBegin(GL2.GL_POLYGON);
-            }
+        float[] vertexData = vertices.array();
+        float[] normalData = normals.array();
+        float[] texCoordData = textureCoords.array();
+        int normalCount = normals.size() / 3;
+        int texCoordCount = textureCoords.size() / 2;
+        
+        FaceTable faces = this.faces;
+        int[] faceVertices = faces.getVertexIndices();
+        int[] faceNormals = faces.getNormalIndices();
+        int[] faceTexCoords = faces.getTexCoordIndices();
+        int[] faceStarts = faces.getFaceStarts();
+        
+        // Faces are triangulated at load, so each material run is one batch
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            applyMaterial(gl, faces.getMaterialName(faces.getRunMaterial(run)));
             
-            for (int i = 0; i < face.vertexIndices.length; i++) {
-                int vertIndex = face.vertexIndices[i];
-                
+            gl.glBegin(GL.GL_TRIANGLES);
+            drawCalls++;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int i = faceStarts[firstFace]; i < faceStarts[lastFace]; i++) {
                 // Apply normal if available
-                if (face.normalIndices != null && face.normalIndices[i] >= 0) {
-                    int normIndex = face.normalIndices[i];
-                    gl.glNormal3f(normals.get(normIndex * 3), normals.get(normIndex * 3 + 1), normals.get(normIndex * 3 + 2));
+                int normIndex = faceNormals[i];
+                if (normIndex >= 0 && normIndex < normalCount) {
+                    gl.glNormal3f(normalData[normIndex * 3], normalData[normIndex * 3 + 1], normalData[normIndex * 3 + 2]);
                 }
                 
                 // Apply texture coordinate if available
-                if (face.texCoordIndices != null && face.texCoordIndices[i] >= 0 && !textureCoords.isEmpty()) {
-                    int texIndex = face.texCoordIndices[i];
-                    gl.glTexCoord2f(textureCoords.get(texIndex * 2), textureCoords.get(texIndex * 2 + 1));
+                int texIndex = faceTexCoords[i];
+                if (texIndex >= 0 && texIndex < texCoordCount) {
+                    gl.glTexCoord2f(texCoordData[texIndex * 2], texCoordData[texIndex * 2 + 1]);
                 }
                 
                 // Set vertex
-                gl.glVertex3f(
-                    vertices.get(vertIndex * 3),
-                    vertices.get(vertIndex * 3 + 1),
-                    vertices.get(vertIndex * 3 + 2)
-                );
+                int vertIndex = faceVertices[i];
+                gl.glVertex3f(vertexData[vertIndex * 3], vertexData[vertIndex * 3 + 1], vertexData[vertIndex * 3 + 2]);
             }
-            
             gl.glEnd();
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Times the VBO and immediate paths over BENCHMARK_FRAMES frames each at
+     * the current quality setting
+     */
+    private void startBenchmark() {
+        if (vertices.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Load a model before running the benchmark.",
+                    "Benchmark", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        benchmarkVBONanos = 0;
+        benchmarkImmediateNanos = 0;
+        benchmarkVBOPass = true;
+        benchmarkFramesLeft = BENCHMARK_FRAMES * 2;
+    }
+    
+    /**
+     * Draws one benchmark frame; glFinish makes the time include the GPU
+     * work, not just the submission
+     */
+    private void benchmarkFrame(GL2 gl) {
+        boolean savedUseVBO = useVBO;
+        useVBO = benchmarkVBOPass;
+        gl.glFinish();
+        long start = System.nanoTime();
+        renderModel(gl);
+        gl.glFinish();
+        long elapsed = System.nanoTime() - start;
+        useVBO = savedUseVBO;
+        
+        if (benchmarkVBOPass) {
+            benchmarkVBONanos += elapsed;
+        } else {
+            benchmarkImmediateNanos += elapsed;
+        }
+        benchmarkFramesLeft--;
+        if (benchmarkFramesLeft == BENCHMARK_FRAMES) {
+            benchmarkVBOPass = false;
+        } else if (benchmarkFramesLeft == 0) {
+            String vboResult = meshBuffers != null
+                    ? String.format("%.2f ms/frame (%d draw calls)", benchmarkVBONanos / 1e6 / BENCHMARK_FRAMES,
+                            meshBuffers.getMesh().getRangeCount())
+                    : "unavailable";
+            String result = String.format(
+                    "%s quality, %d triangles, %d frames each:%n"
+                    + "VBO: %s%n"
+                    + "Immediate: %.2f ms/frame (%d glBegin batches)",
+                    renderQualityCombo.getItemAt(quality), faces.getTriangleCount(), BENCHMARK_FRAMES, vboResult,
+                    benchmarkImmediateNanos / 1e6 / BENCHMARK_FRAMES, drawCalls);
+            System.out.println(result);
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, result,
+                    "Benchmark", JOptionPane.INFORMATION_MESSAGE));
+        }
+    }
+}
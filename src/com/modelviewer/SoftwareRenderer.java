@@ -3,6 +3,7 @@ package com.modelviewer;
 import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
@@ -25,19 +26,31 @@ import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.DefaultListModel;
+import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JCheckBoxMenuItem;
@@ -73,7 +86,27 @@ import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.awt.GLJPanel;
-import com.jogamp.opengl.util.Animator;
+import com.jogamp.opengl.util.awt.TextRenderer;
+import com.modelviewer.core.ModelLoadService;
+import com.modelviewer.core.ModelLoadService.LoadTask;
+import com.modelviewer.core.ThumbnailService;
+import com.modelviewer.io.LoadProgress;
+import com.modelviewer.io.MeshCache;
+import com.modelviewer.io.ObjTokenizer;
+import com.modelviewer.mesh.MeshSimplifier;
+import com.modelviewer.mesh.MeshWelder;
+import com.modelviewer.mesh.Triangulator;
+import com.modelviewer.mesh.VertexCacheOptimizer;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.model.IndexedMesh;
+import com.modelviewer.render.FrameStats;
+import com.modelviewer.render.MeshBuffers;
+import com.modelviewer.render.RenderQueue;
+import com.modelviewer.render.RenderScheduler;
+import com.modelviewer.ui.dialogs.LoadProgressDialog;
+import com.modelviewer.util.FloatList;
+import com.modelviewer.util.GeometryUtils;
+import com.modelviewer.util.IntList;
 
 /**
  * A 3D model viewer using JOGL with software rendering
@@ -81,8 +114,10 @@ import com.jogamp.opengl.util.Animator;
  */
 public class SoftwareRenderer extends JFrame implements GLEventListener {
    private static final long serialVersionUID = 1L;
+    /** Models with fewer triangles are drawn at full detail only */
+    private static final int LOD_MIN_TRIANGLES = 4096;
     private GLJPanel canvas;
-    private Animator animator;
+    private RenderScheduler renderScheduler;
 
     private float rotX = 0.0f;
     private float rotY = 0.0f;
@@ -90,10 +125,10 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     private int lastX = 0;
     private int lastY = 0;
 
-    private List<Float> vertices = new ArrayList<>();
-    private List<Float> normals = new ArrayList<>();
-    private List<Float> textureCoords = new ArrayList<>();
-    private List<Face> faces = new ArrayList<>();
+    private FloatList vertices = new FloatList();
+    private FloatList normals = new FloatList();
+    private FloatList textureCoords = new FloatList();
+    private FaceTable faces = new FaceTable();
     private Map<String, Material> materials = new HashMap<>();
     private String currentMaterial = null;
 
@@ -113,6 +148,53 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     // Render settings
     private boolean wireframeMode = false;
 
+    // Level of detail for room models
+    private boolean lodEnabled = true;
+    private float lodPixelError = 2.0f; // Largest acceptable edge length on screen, in pixels
+    private int lodTriangleBudget = 2000000; // Most triangles drawn for all room models together
+    private static final float LOD_HYSTERESIS = 0.25f; // Band around the pixel error that keeps a level
+    private int viewportHeight = 1;
+
+    // Buffer objects per room mesh, shared by every instance drawn from it
+    private boolean buffersSupported = false;
+    private final Map<IndexedMesh, MeshBuffers> roomMeshBuffers = new IdentityHashMap<>();
+    private final Set<IndexedMesh> referencedMeshes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private SceneSnapshot bufferScene = null; // Snapshot the buffers were last trimmed to
+
+    // Room models as last published for the renderer, and the snapshot the
+    // frame being drawn uses (render thread only)
+    private final AtomicReference<SceneSnapshot> scene = new AtomicReference<>(SceneSnapshot.EMPTY);
+    private SceneSnapshot frameScene = SceneSnapshot.EMPTY;
+
+    // Level each instance of lodScene was drawn at, for LOD hysteresis (render thread only)
+    private SceneSnapshot lodScene = SceneSnapshot.EMPTY;
+    private int[] lodLevels = new int[0];
+
+    // Frame timings and the overlay that shows them
+    private final FrameStats frameStats = new FrameStats();
+    private boolean showPerformanceOverlay = false;
+    private TextRenderer overlayText;
+    private final int[] overlayBins = new int[40];
+    private static final float OVERLAY_HISTOGRAM_MS = 50.0f; // Frame time at the right edge of the histogram
+    private int viewportWidth = 1;
+
+    // Frame draw queue; an item indexes queueOwners and queueRanges
+    private final RenderQueue renderQueue = new RenderQueue();
+    private final IntList queueOwners = new IntList(); // Room model index, VIEWER_ITEM or a room surface
+    private final IntList queueRanges = new IntList(); // Material range of the model's mesh, -1 for all faces
+    private final Map<Material, Integer> materialStates = new IdentityHashMap<>();
+    private static final int VIEWER_ITEM = -1;
+    private static final int SURFACE_ITEM = -2; // Surface s is SURFACE_ITEM - s
+    private static final int COLOR_STATE = 0; // GL_COLOR_MATERIAL with glColor
+    private static final int OWN_STATE = 1; // Geometry that sets its own materials
+    private static final int DEFAULT_STATE = 2; // Default material, for ranges without one
+    private static final Material DEFAULT_MATERIAL = new Material(null);
+
+    // View-frustum culling of room models
+    private boolean frustumCulling = true;
+    private int cullTested, cullCulled, cullDrawn; // Counts from the last frame
+    private JLabel cullingStatsLabel;
+
     // Room model properties
     private boolean showRoom = false;
     private float roomWidth = 5.0f;
@@ -131,6 +213,8 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     // Model library
     private List<Model3D> modelLibrary = new ArrayList<>();
     private File modelLibraryFile = new File("model_library.dat");
+    private final Map<Model3D, ThumbnailService.Thumbnail> libraryThumbnails = new IdentityHashMap<>();
+    private static final int LIBRARY_ICON_SIZE = 40; // Thumbnail size in the library list
 
     // Room view mode
     private boolean use2DView = false; // Toggle between 3D and 2D (top-down) views
@@ -172,20 +256,6 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     private boolean objectManipulationEnabled = true;
     private JCheckBoxMenuItem enableObjectManipulationItem;
 
-    static class Face {
-        int[] vertexIndices;
-        int[] normalIndices;
-        int[] texCoordIndices;
-        String materialName;
-
-        public Face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, String materialName) {
-            this.vertexIndices = vertexIndices;
-            this.texCoordIndices = texCoordIndices;
-            this.normalIndices = normalIndices;
-            this.materialName = materialName;
-        }
-    }
-
     static class Material {
         float[] ambient = { 0.2f, 0.2f, 0.2f, 1.0f };
         float[] diffuse = { 0.8f, 0.8f, 0.8f, 1.0f };
@@ -199,15 +269,21 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     }
 
     /**
-     * Class representing a 3D model that can be placed in the room
+     * Class representing a 3D model that can be placed in the room.
+     * Copies of one model share its geometry, materials and LODs, so those
+     * are replaced when they change, never edited in place; each placed
+     * instance owns only its transform and colour override.
      */
     static class Model3D {
         String name;
-        List<Float> vertices = new ArrayList<>();
-        List<Float> normals = new ArrayList<>();
-        List<Float> textureCoords = new ArrayList<>();
-        List<Face> faces = new ArrayList<>();
+        FloatList vertices = new FloatList();
+        FloatList normals = new FloatList();
+        FloatList textureCoords = new FloatList();
+        FaceTable faces = new FaceTable();
         Map<String, Material> materials = new HashMap<>();
+        // Levels of detail, finest first; immutable, so copies share them
+        List<IndexedMesh> lods = Collections.emptyList();
+        float[] lodErrors = new float[0]; // Mean edge length of each level, in model units
 
         // Position and orientation
         float x, y, z; // Position
@@ -231,6 +307,106 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         }
     }
 
+    /**
+     * Immutable copy of a room model's placement as the renderer sees it,
+     * with its world-space bounds. Geometry is referenced, not copied: it
+     * is replaced rather than edited, so the references stay valid.
+     */
+    static final class ModelInstance {
+        final Model3D source;
+        final FloatList vertices;
+        final FloatList normals;
+        final FloatList textureCoords;
+        final FaceTable faces;
+        final Map<String, Material> materials;
+        final List<IndexedMesh> lods;
+        final float[] lodErrors;
+        final float x, y, z, rotY, scale;
+        final boolean useCustomColor;
+        final Color customColor;
+        private final float[] bounds; // Local minX, maxX, minY, maxY, minZ, maxZ
+        final float[] worldSphere = new float[4]; // x, y, z, radius
+        final float[] worldBox = new float[6]; // minX, maxX, minY, maxY, minZ, maxZ
+
+        ModelInstance(Model3D model) {
+            source = model;
+            vertices = model.vertices;
+            normals = model.normals;
+            textureCoords = model.textureCoords;
+            faces = model.faces;
+            materials = model.materials;
+            lods = model.lods;
+            lodErrors = model.lodErrors;
+            x = model.x;
+            y = model.y;
+            z = model.z;
+            rotY = model.rotY;
+            scale = model.scale;
+            useCustomColor = model.useCustomColor;
+            customColor = model.customColor;
+            bounds = new float[] { model.minX, model.maxX, model.minY, model.maxY, model.minZ, model.maxZ };
+
+            float[] sphere = GeometryUtils.calculateBoundingSphere(bounds);
+            double angle = Math.toRadians(rotY);
+            float cos = (float) Math.cos(angle);
+            float sin = (float) Math.sin(angle);
+            worldSphere[0] = x + (sphere[0] * cos + sphere[2] * sin) * scale;
+            worldSphere[1] = y + sphere[1] * scale;
+            worldSphere[2] = z + (-sphere[0] * sin + sphere[2] * cos) * scale;
+            worldSphere[3] = sphere[3] * Math.abs(scale);
+
+            // Box around the eight rotated corners
+            worldBox[0] = worldBox[2] = worldBox[4] = Float.MAX_VALUE;
+            worldBox[1] = worldBox[3] = worldBox[5] = -Float.MAX_VALUE;
+            for (int c = 0; c < 8; c++) {
+                float lx = bounds[c & 1] * scale;
+                float ly = bounds[2 + ((c >> 1) & 1)] * scale;
+                float lz = bounds[4 + ((c >> 2) & 1)] * scale;
+                float wx = x + lx * cos + lz * sin;
+                float wy = y + ly;
+                float wz = z - lx * sin + lz * cos;
+                worldBox[0] = Math.min(worldBox[0], wx);
+                worldBox[1] = Math.max(worldBox[1], wx);
+                worldBox[2] = Math.min(worldBox[2], wy);
+                worldBox[3] = Math.max(worldBox[3], wy);
+                worldBox[4] = Math.min(worldBox[4], wz);
+                worldBox[5] = Math.max(worldBox[5], wz);
+            }
+        }
+
+        /**
+         * Whether this instance still shows the model as it is now
+         */
+        boolean matches(Model3D model) {
+            return model == source && model.x == x && model.y == y && model.z == z
+                    && model.rotY == rotY && model.scale == scale
+                    && model.useCustomColor == useCustomColor && model.customColor == customColor
+                    && model.vertices == vertices && model.normals == normals
+                    && model.textureCoords == textureCoords && model.faces == faces
+                    && model.materials == materials && model.lods == lods && model.lodErrors == lodErrors
+                    && model.minX == bounds[0] && model.maxX == bounds[1]
+                    && model.minY == bounds[2] && model.maxY == bounds[3]
+                    && model.minZ == bounds[4] && model.maxZ == bounds[5];
+        }
+    }
+
+    /**
+     * The room's models and selection for one frame. Edits on the event
+     * thread publish a new snapshot; the renderer takes whichever is
+     * current when a frame starts and never sees one change under it.
+     */
+    static final class SceneSnapshot {
+        static final SceneSnapshot EMPTY = new SceneSnapshot(new ModelInstance[0], -1);
+
+        final ModelInstance[] instances;
+        final int selectedIndex;
+
+        SceneSnapshot(ModelInstance[] instances, int selectedIndex) {
+            this.instances = instances;
+            this.selectedIndex = selectedIndex;
+        }
+    }
+
     public static void main(String[] args) {
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -1047,11 +1223,15 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                         lastMousePosition = e.getPoint();
                         System.out.println("Object drag started");
                     }
+
+                    // Full frame rate while the view is being dragged
+                    renderScheduler.beginInteraction();
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
                     isDraggingObject = false;
+                    renderScheduler.endInteraction();
                 }
 
                 @Override
@@ -1094,6 +1274,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
                         lastX = e.getX();
                         lastY = e.getY();
+                        refreshDisplay();
                     }
                 }
             });
@@ -1117,6 +1298,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                     } else {
                         // Normal camera zoom
                         zoom += e.getWheelRotation() * 0.5f;
+                        refreshDisplay();
                     }
                 }
             });
@@ -1165,19 +1347,21 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
             // Add focus button to a panel
             JPanel focusPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
             focusPanel.add(focusButton);
+
+            // Culling statistics for the room models
+            cullingStatsLabel = new JLabel(" ");
+            focusPanel.add(cullingStatsLabel);
             add(focusPanel, BorderLayout.SOUTH);
 
-            // Set up animator with low frame rate for better compatibility
-            animator = new Animator(canvas);
-            animator.setUpdateFPSFrames(20, null);
+            // Frames are drawn on demand, when something in the view changes
+            renderScheduler = new RenderScheduler(canvas);
+            renderScheduler.setFrameStats(frameStats);
 
             // Handle window closing
             addWindowListener(new WindowAdapter() {
                 @Override
                 public void windowClosing(WindowEvent e) {
-                    if (animator.isAnimating()) {
-                        animator.stop();
-                    }
+                    renderScheduler.stop();
                     System.exit(0);
                 }
             });
@@ -1207,15 +1391,13 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
                 @Override
                 public void windowClosing(WindowEvent e) {
-                    if (animator.isAnimating()) {
-                        animator.stop();
-                    }
+                    renderScheduler.stop();
                     System.exit(0);
                 }
             });
 
-            // Start the animator
-            animator.start();
+            // Draw the first frame
+            renderScheduler.start();
 
             // Request focus for the canvas after UI is visible
             SwingUtilities.invokeLater(() -> {
@@ -1309,6 +1491,13 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
             gl.glClearColor(0.2f, 0.2f, 0.2f, 1.0f);
             gl.glEnable(GL.GL_DEPTH_TEST);
 
+            // Swap on vertical retrace; frames are only drawn on demand
+            gl.setSwapInterval(1);
+
+            // A new context starts without any of the old buffers
+            buffersSupported = MeshBuffers.isSupported(gl);
+            roomMeshBuffers.clear();
+
             // Enable transparency
             gl.glEnable(GL.GL_BLEND);
             gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
@@ -1348,6 +1537,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
     @Override
     public void display(GLAutoDrawable drawable) {
+        frameStats.beginFrame();
         try {
             GL2 gl = drawable.getGL().getGL2();
             gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
@@ -1382,26 +1572,21 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
             }
 
-            // Draw the model if available
-            if (!vertices.isEmpty()) {
-                renderModel(gl);
-            }
-
-            // Draw the room if enabled
-            if (showRoom) {
-                renderRoom(gl);
+            // Draw the model, and the room with its models if enabled
+            renderScene(gl);
 
-                // Draw the models inside the room
-                renderRoomModels(gl);
-
-                // In 2D mode, overlay a grid for better positioning reference
-                if (use2DView) {
-                    renderGrid(gl);
-                }
+            // In 2D mode, overlay a grid for better positioning reference
+            if (showRoom && use2DView) {
+                renderGrid(gl);
             }
 
             // Reset polygon mode
             gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
+
+            if (showPerformanceOverlay) {
+                renderPerformanceOverlay(gl);
+            }
+            frameStats.mark(FrameStats.Stage.SUBMIT);
         } catch (Exception e) {
             System.err.println("Error in display: " + e.getMessage());
             e.printStackTrace();
@@ -1413,6 +1598,8 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         try {
             GL2 gl = drawable.getGL().getGL2();
             gl.glViewport(0, 0, width, height);
+            viewportHeight = Math.max(height, 1);
+            viewportWidth = Math.max(width, 1);
             gl.glMatrixMode(GL2.GL_PROJECTION);
             gl.glLoadIdentity();
 
@@ -1429,119 +1616,50 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
     @Override
     public void dispose(GLAutoDrawable drawable) {
-        // Nothing to clean up in this simplified viewer
+        GL2 gl = drawable.getGL().getGL2();
+        for (MeshBuffers buffers : roomMeshBuffers.values()) {
+            buffers.release(gl);
+        }
+        roomMeshBuffers.clear();
+        if (overlayText != null) {
+            overlayText.dispose();
+            overlayText = null;
+        }
     }
 
     private void loadObjFile(String filePath) {
         try {
-            // Clear previous data
-            vertices.clear();
-            normals.clear();
-            textureCoords.clear();
-            faces.clear();
-
-            // Reset bounding box
-            minX = minY = minZ = Float.MAX_VALUE;
-            maxX = maxY = maxZ = Float.MIN_VALUE;
-
-            BufferedReader reader = new BufferedReader(new FileReader(filePath));
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-
-                String[] parts = line.split("\\s+");
-                if (parts.length == 0)
-                    continue;
-
-                String type = parts[0];
-
-                if ("v".equals(type)) {
-                    // Vertex
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-
-                    vertices.add(x);
-                    vertices.add(y);
-                    vertices.add(z);
-
-                    // Update bounding box
-                    minX = Math.min(minX, x);
-                    maxX = Math.max(maxX, x);
-                    minY = Math.min(minY, y);
-                    maxY = Math.max(maxY, y);
-                    minZ = Math.min(minZ, z);
-                    maxZ = Math.max(maxZ, z);
-
-                } else if ("vn".equals(type)) {
-                    // Normal
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-
-                    normals.add(x);
-                    normals.add(y);
-                    normals.add(z);
-
-                } else if ("vt".equals(type)) {
-                    // Texture coordinate
-                    float u = Float.parseFloat(parts[1]);
-                    float v = parts.length > 2 ? Float.parseFloat(parts[2]) : 0.0f;
-
-                    textureCoords.add(u);
-                    textureCoords.add(v);
-
-                } else if ("f".equals(type)) {
-                    // Face
-                    int[] vertIndices = new int[parts.length - 1];
-                    int[] texIndices = new int[parts.length - 1];
-                    int[] normIndices = new int[parts.length - 1];
-
-                    for (int i = 1; i < parts.length; i++) {
-                        String[] indices = parts[i].split("/");
-
-                        vertIndices[i - 1] = Integer.parseInt(indices[0]) - 1;
-                        texIndices[i - 1] = indices.length > 1 && !indices[1].isEmpty()
-                                ? Integer.parseInt(indices[1]) - 1
-                                : -1;
-                        normIndices[i - 1] = indices.length > 2 ? Integer.parseInt(indices[2]) - 1 : -1;
-                    }
-
-                    faces.add(new Face(vertIndices, texIndices, normIndices, currentMaterial));
-
-                } else if ("mtllib".equals(type)) {
-                    // Material library
-                    if (parts.length > 1) {
-                        File objFile = new File(filePath);
-                        File mtlFile = new File(objFile.getParent(), parts[1]);
-                        if (mtlFile.exists()) {
-                            mtlFileText.setText(mtlFile.getAbsolutePath());
-                            loadMtlFile(mtlFile.getAbsolutePath());
-                        }
-                    }
-
-                } else if ("usemtl".equals(type)) {
-                    // Use material
-                    if (parts.length > 1) {
-                        currentMaterial = parts[1];
-                    }
+            Model3D parsed = new Model3D(new File(filePath).getName());
+            List<String> materialLibraries = readObjGeometry(filePath, parsed);
+
+            // Swap in the new geometry
+            vertices = parsed.vertices;
+            normals = parsed.normals;
+            textureCoords = parsed.textureCoords;
+            faces = parsed.faces;
+            minX = parsed.minX;
+            maxX = parsed.maxX;
+            minY = parsed.minY;
+            maxY = parsed.maxY;
+            minZ = parsed.minZ;
+            maxZ = parsed.maxZ;
+
+            for (String library : materialLibraries) {
+                File mtlFile = new File(new File(filePath).getParent(), library);
+                if (mtlFile.exists()) {
+                    mtlFileText.setText(mtlFile.getAbsolutePath());
+                    loadMtlFile(mtlFile.getAbsolutePath());
                 }
             }
 
-            reader.close();
-
             // Calculate auto-scale factor for consistent model size
             float modelSize = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
             float scaleFactor = 3.0f / modelSize;
             zoom = -5.0f * scaleFactor; // Adjust zoom based on model size
 
             System.out
-                    .println("Loaded model with " + (vertices.size() / 3) + " vertices and " + faces.size() + " faces");
+                    .println("Loaded model with " + (vertices.size() / 3) + " vertices and " + faces.getFaceCount() + " faces");
+            refreshDisplay();
 
         } catch (IOException e) {
             System.err.println("Error loading OBJ file: " + e.getMessage());
@@ -1600,11 +1718,20 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                     } else if ("Ns".equals(type)) {
                         // Shininess
                         currentMaterial.shininess = Float.parseFloat(parts[1]) / 1000.0f * 128.0f;
+
+                    } else if ("d".equals(type)) {
+                        // Opacity; lighting takes its alpha from the diffuse colour
+                        currentMaterial.diffuse[3] = Float.parseFloat(parts[1]);
+
+                    } else if ("Tr".equals(type)) {
+                        // Transparency, the inverse of d
+                        currentMaterial.diffuse[3] = 1.0f - Float.parseFloat(parts[1]);
                     }
                 }
             }
 
             reader.close();
+            refreshDisplay();
 
         } catch (IOException e) {
             System.err.println("Error loading MTL file: " + e.getMessage());
@@ -1665,13 +1792,22 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         }
 
         Material lastMaterial = null;
+        float[] vertexData = vertices.array();
+        float[] normalData = normals.array();
+        float[] texCoordData = textureCoords.array();
 
-        // Draw each face
-        for (Face face : faces) {
+        int[] faceVertices = faces.getVertexIndices();
+        int[] faceNormals = faces.getNormalIndices();
+        int[] faceTexCoords = faces.getTexCoordIndices();
+        int[] faceStarts = faces.getFaceStarts();
+
+        // Draw the faces one material run at a time
+        for (int run = 0; run < faces.getRunCount(); run++) {
             // Apply material if available and not using color override
-            if (!useColorOverride && !wireframeMode && face.materialName != null
-                    && materials.containsKey(face.materialName)) {
-                Material material = materials.get(face.materialName);
+            String materialName = faces.getMaterialName(faces.getRunMaterial(run));
+            if (!useColorOverride && !wireframeMode && materialName != null
+                    && materials.containsKey(materialName)) {
+                Material material = materials.get(materialName);
                 if (material != lastMaterial) {
                     gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
                     gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
@@ -1682,6 +1818,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                     // Set the color directly too for better visual feedback
                     gl.glColor3f(material.diffuse[0], material.diffuse[1], material.diffuse[2]);
                     lastMaterial = material;
+                    frameStats.addStateChange();
                 }
             } else if (wireframeMode) {
                 // For wireframe, use white color
@@ -1691,392 +1828,875 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 gl.glColor3f(0.8f, 0.8f, 0.8f);
             }
 
-            // Draw the face with the correct primitive type
-            if (face.vertexIndices.length == 3) {
-                gl.glBegin(GL.GL_TRIANGLES);
-            } else if (face.vertexIndices.length == 4) {
-                gl.glBegin(GL2.GL_QUADS);
-            } else {
-                gl.glBegin(GL2.GL_POLYGON);
-            }
+            // Consecutive triangles share one glBegin/glEnd pair; faces are
+            // triangulated at load, so that is usually the whole run
+            int mode = -1;
+            int batches = 0;
+            int triangles = 0;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                int start = faceStarts[f];
+                int end = faceStarts[f + 1];
+                triangles += end - start - 2;
+                int faceMode = end - start == 3 ? GL.GL_TRIANGLES
+                        : end - start == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
+                    batches++;
+                }
 
-            for (int i = 0; i < face.vertexIndices.length; i++) {
-                int vertIndex = face.vertexIndices[i];
+                for (int i = start; i < end; i++) {
+                    int vertIndex = faceVertices[i];
 
-                // Apply normal if available (important for lighting)
-                if (face.normalIndices != null && face.normalIndices[i] >= 0) {
-                    int normIndex = face.normalIndices[i];
-                    if (normIndex * 3 + 2 < normals.size()) {
+                    // Apply normal if available (important for lighting)
+                    int normIndex = faceNormals[i];
+                    if (normIndex >= 0 && normIndex * 3 + 2 < normals.size()) {
                         gl.glNormal3f(
-                                normals.get(normIndex * 3),
-                                normals.get(normIndex * 3 + 1),
-                                normals.get(normIndex * 3 + 2));
+                                normalData[normIndex * 3],
+                                normalData[normIndex * 3 + 1],
+                                normalData[normIndex * 3 + 2]);
                     }
-                }
 
-                // Apply texture coordinate if available
-                if (face.texCoordIndices != null && face.texCoordIndices[i] >= 0 && !textureCoords.isEmpty()) {
-                    int texIndex = face.texCoordIndices[i];
-                    if (texIndex * 2 + 1 < textureCoords.size()) {
+                    // Apply texture coordinate if available
+                    int texIndex = faceTexCoords[i];
+                    if (texIndex >= 0 && texIndex * 2 + 1 < textureCoords.size()) {
                         gl.glTexCoord2f(
-                                textureCoords.get(texIndex * 2),
-                                textureCoords.get(texIndex * 2 + 1));
+                                texCoordData[texIndex * 2],
+                                texCoordData[texIndex * 2 + 1]);
                     }
-                }
 
-                // Set vertex
-                if (vertIndex * 3 + 2 < vertices.size()) {
-                    gl.glVertex3f(
-                            vertices.get(vertIndex * 3),
-                            vertices.get(vertIndex * 3 + 1),
-                            vertices.get(vertIndex * 3 + 2));
+                    // Set vertex
+                    if (vertIndex * 3 + 2 < vertices.size()) {
+                        gl.glVertex3f(
+                                vertexData[vertIndex * 3],
+                                vertexData[vertIndex * 3 + 1],
+                                vertexData[vertIndex * 3 + 2]);
+                    }
                 }
             }
-
-            gl.glEnd();
+            if (mode != -1) {
+                gl.glEnd();
+            }
+            frameStats.addDrawCalls(batches, triangles);
         }
     }
 
     /**
-     * Renders a 3D room with the specified dimensions and colors
+     * Queues the room's floor, ceiling and four walls; surfaces that are
+     * not fully opaque go to the transparent pass
      */
-    private void renderRoom(GL2 gl) {
-        // Save current matrix
-        gl.glPushMatrix();
+    private void enqueueRoomSurfaces(float[] modelView) {
+        float halfWidth = roomWidth / 2.0f;
+        float halfLength = roomLength / 2.0f;
+        float halfHeight = roomHeight / 2.0f;
 
-        // Enable color material for room
-        gl.glEnable(GL2.GL_COLOR_MATERIAL);
-        gl.glColorMaterial(GL2.GL_FRONT_AND_BACK, GL2.GL_AMBIENT_AND_DIFFUSE);
+        // Surface centres: floor, ceiling, front, back, left, right
+        float[] centers = {
+                0, -halfHeight, 0,
+                0, halfHeight, 0,
+                0, 0, halfLength,
+                0, 0, -halfLength,
+                -halfWidth, 0, 0,
+                halfWidth, 0, 0 };
+        float[] transparency = { floorTransparency, ceilingTransparency,
+                wallTransparency, wallTransparency, wallTransparency, wallTransparency };
+
+        for (int s = 0; s < 6; s++) {
+            float depth = eyeDepth(modelView, centers[s * 3], centers[s * 3 + 1], centers[s * 3 + 2]);
+            int item = queueItem(SURFACE_ITEM - s, -1);
+            if (transparency[s] >= 1.0f) {
+                renderQueue.addOpaque(COLOR_STATE, depth, item);
+            } else {
+                renderQueue.addTransparent(COLOR_STATE, depth, item);
+            }
+        }
+    }
 
-        // Calculate room dimensions (centered on origin)
+    /**
+     * Draws one room surface (see {@link #enqueueRoomSurfaces} for the
+     * order); the inside faces are visible (counter-clockwise winding)
+     */
+    private void renderRoomSurface(GL2 gl, int surface) {
         float halfWidth = roomWidth / 2.0f;
         float halfLength = roomLength / 2.0f;
         float halfHeight = roomHeight / 2.0f;
 
-        // Draw the room using quads
-        // Room is drawn with the inside faces visible (counter-clockwise winding)
-
-        // First render fully opaque surfaces
-        if (floorTransparency >= 1.0f) {
-            // Floor (bottom) - +Y normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(floorColor.getRed() / 255f, floorColor.getGreen() / 255f, floorColor.getBlue() / 255f,
-                    floorTransparency);
-            gl.glNormal3f(0.0f, 1.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glEnd();
-        }
-
-        if (ceilingTransparency >= 1.0f) {
-            // Ceiling (top) - -Y normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(ceilingColor.getRed() / 255f, ceilingColor.getGreen() / 255f, ceilingColor.getBlue() / 255f,
-                    ceilingTransparency);
-            gl.glNormal3f(0.0f, -1.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glEnd();
-        }
-
-        if (wallTransparency >= 1.0f) {
-            // Wall 1 (front) - +Z normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(0.0f, 0.0f, -1.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glEnd();
-
-            // Wall 2 (back) - -Z normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(0.0f, 0.0f, 1.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glEnd();
-
-            // Wall 3 (left) - +X normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(1.0f, 0.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glEnd();
-
-            // Wall 4 (right) - -X normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(-1.0f, 0.0f, 0.0f);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glEnd();
-        }
-
-        // Now render semi-transparent surfaces (back to front)
-        gl.glDepthMask(false); // Disable depth buffer writes for transparent surfaces
-
-        if (wallTransparency < 1.0f) {
-            // Wall 2 (back) - -Z normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(0.0f, 0.0f, 1.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glEnd();
-
-            // Wall 3 (left) - +X normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(1.0f, 0.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glEnd();
-
-            // Wall 4 (right) - -X normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(-1.0f, 0.0f, 0.0f);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glEnd();
-
-            // Wall 1 (front) - +Z normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
-                    wallTransparency);
-            gl.glNormal3f(0.0f, 0.0f, -1.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glEnd();
-        }
-
-        if (ceilingTransparency < 1.0f) {
-            // Ceiling (top) - -Y normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(ceilingColor.getRed() / 255f, ceilingColor.getGreen() / 255f, ceilingColor.getBlue() / 255f,
-                    ceilingTransparency);
-            gl.glNormal3f(0.0f, -1.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, -halfLength);
-            gl.glVertex3f(halfWidth, halfHeight, halfLength);
-            gl.glVertex3f(-halfWidth, halfHeight, halfLength);
-            gl.glEnd();
-        }
-
-        if (floorTransparency < 1.0f) {
-            // Floor (bottom) - +Y normal
-            gl.glBegin(GL2.GL_QUADS);
-            gl.glColor4f(floorColor.getRed() / 255f, floorColor.getGreen() / 255f, floorColor.getBlue() / 255f,
-                    floorTransparency);
-            gl.glNormal3f(0.0f, 1.0f, 0.0f);
-            gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
-            gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, halfLength);
-            gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
-            gl.glEnd();
-        }
-
-        // Re-enable depth buffer writes
-        gl.glDepthMask(true);
-
-        // Reset color material
-        gl.glDisable(GL2.GL_COLOR_MATERIAL);
-
-        // Restore matrix
-        gl.glPopMatrix();
+        gl.glBegin(GL2.GL_QUADS);
+        switch (surface) {
+            case 0:
+                // Floor (bottom) - +Y normal
+                gl.glColor4f(floorColor.getRed() / 255f, floorColor.getGreen() / 255f, floorColor.getBlue() / 255f,
+                        floorTransparency);
+                gl.glNormal3f(0.0f, 1.0f, 0.0f);
+                gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
+                gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, -halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
+                break;
+            case 1:
+                // Ceiling (top) - -Y normal
+                gl.glColor4f(ceilingColor.getRed() / 255f, ceilingColor.getGreen() / 255f,
+                        ceilingColor.getBlue() / 255f, ceilingTransparency);
+                gl.glNormal3f(0.0f, -1.0f, 0.0f);
+                gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, -halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, halfLength);
+                gl.glVertex3f(-halfWidth, halfHeight, halfLength);
+                break;
+            case 2:
+                // Wall 1 (front) - +Z normal
+                gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
+                        wallTransparency);
+                gl.glNormal3f(0.0f, 0.0f, -1.0f);
+                gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
+                gl.glVertex3f(-halfWidth, halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, -halfHeight, halfLength);
+                break;
+            case 3:
+                // Wall 2 (back) - -Z normal
+                gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
+                        wallTransparency);
+                gl.glNormal3f(0.0f, 0.0f, 1.0f);
+                gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
+                gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, -halfLength);
+                gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
+                break;
+            case 4:
+                // Wall 3 (left) - +X normal
+                gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
+                        wallTransparency);
+                gl.glNormal3f(1.0f, 0.0f, 0.0f);
+                gl.glVertex3f(-halfWidth, -halfHeight, -halfLength);
+                gl.glVertex3f(-halfWidth, halfHeight, -halfLength);
+                gl.glVertex3f(-halfWidth, halfHeight, halfLength);
+                gl.glVertex3f(-halfWidth, -halfHeight, halfLength);
+                break;
+            default:
+                // Wall 4 (right) - -X normal
+                gl.glColor4f(wallColor.getRed() / 255f, wallColor.getGreen() / 255f, wallColor.getBlue() / 255f,
+                        wallTransparency);
+                gl.glNormal3f(-1.0f, 0.0f, 0.0f);
+                gl.glVertex3f(halfWidth, -halfHeight, -halfLength);
+                gl.glVertex3f(halfWidth, -halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, halfLength);
+                gl.glVertex3f(halfWidth, halfHeight, -halfLength);
+                break;
+        }
+        gl.glEnd();
     }
 
     /**
-     * Renders all models placed in the room
+     * Draws the loaded model, the room and the room's models through one
+     * sorted queue: opaque items grouped by material and front to back,
+     * then transparent items back to front with depth writes off
      */
-    private void renderRoomModels(GL2 gl) {
-        if (roomModels.isEmpty()) {
-            return;
+    private void renderScene(GL2 gl) {
+        frameScene = scene.get();
+        renderQueue.clear();
+        queueOwners.clear();
+        queueRanges.clear();
+        materialStates.clear();
+
+        float[] modelView = new float[16];
+        gl.glGetFloatv(GL2.GL_MODELVIEW_MATRIX, modelView, 0);
+        frameStats.mark(FrameStats.Stage.SNAPSHOT);
+
+        int[] levels = null;
+        boolean[] visible = null;
+        if (showRoom) {
+            visible = cullRoomModels(gl);
+            levels = selectLodLevels(gl, visible);
+        } else {
+            updateCullingStats(0, 0);
         }
+        frameStats.mark(FrameStats.Stage.CULL);
 
-        // Iterate through all models
-        for (int i = 0; i < roomModels.size(); i++) {
-            Model3D model = roomModels.get(i);
+        if (!vertices.isEmpty()) {
+            float depth = eyeDepth(modelView, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+            renderQueue.addOpaque(OWN_STATE, depth, queueItem(VIEWER_ITEM, -1));
+        }
+        if (showRoom) {
+            enqueueRoomSurfaces(modelView);
+            enqueueRoomModels(modelView, visible, levels);
+        }
+        renderQueue.sort();
+        frameStats.mark(FrameStats.Stage.SORT);
+        int firstTransparent = renderQueue.firstTransparent();
+        renderQueueItems(gl, 0, firstTransparent, levels);
+
+        // The selection outline goes over the opaque scene
+        int selected = frameScene.selectedIndex;
+        if (visible != null && selected >= 0 && selected < frameScene.instances.length
+                && visible[selected] && !wireframeMode) {
+            renderSelectionOutline(gl, frameScene.instances[selected], levels[selected]);
+        }
 
-            // Skip if model has no geometry
-            if (model.vertices.isEmpty()) {
+        if (firstTransparent < renderQueue.size()) {
+            gl.glDepthMask(false); // Disable depth buffer writes for transparent surfaces
+            renderQueueItems(gl, firstTransparent, renderQueue.size(), levels);
+            gl.glDepthMask(true);
+        }
+
+        releaseUnreferencedBuffers(gl);
+    }
+
+    /**
+     * Queues every visible room model, one item per material range of the
+     * level it is drawn at, or one for all its faces when it has no levels
+     */
+    private void enqueueRoomModels(float[] modelView, boolean[] visible, int[] levels) {
+        for (int i = 0; i < frameScene.instances.length; i++) {
+            ModelInstance model = frameScene.instances[i];
+            if (!visible[i]) {
                 continue;
             }
+            float[] sphere = model.worldSphere;
+            float depth = eyeDepth(modelView, sphere[0], sphere[1], sphere[2]);
+            boolean colored = wireframeMode || useColorOverride || model.useCustomColor;
 
-            // Save transformation state
-            gl.glPushMatrix();
-
-            // Apply model transformation
-            gl.glTranslatef(model.x, model.y, model.z);
-            gl.glRotatef(model.rotY, 0.0f, 1.0f, 0.0f);
-            gl.glScalef(model.scale, model.scale, model.scale);
+            if (model.lods.isEmpty()) {
+                renderQueue.addOpaque(colored ? COLOR_STATE : OWN_STATE, depth, queueItem(i, -1));
+                continue;
+            }
 
-            // Highlight selected model
-            boolean isSelected = (i == selectedModelIndex);
+            IndexedMesh mesh = model.lods.get(levels[i]);
+            for (int r = 0; r < mesh.getRangeCount(); r++) {
+                int item = queueItem(i, r);
+                if (colored) {
+                    renderQueue.addOpaque(COLOR_STATE, depth, item);
+                    continue;
+                }
+                Material material = model.materials.get(mesh.getRangeMaterial(r));
+                if (material == null) {
+                    material = DEFAULT_MATERIAL;
+                }
+                int state = materialState(material);
+                if (material.diffuse[3] < 1.0f) {
+                    renderQueue.addTransparent(state, depth, item);
+                } else {
+                    renderQueue.addOpaque(state, depth, item);
+                }
+            }
+        }
+    }
 
-            // Draw with wireframe overlay if selected
-            if (isSelected && !wireframeMode) {
-                // First draw the model normally
-                renderModelGeometry(gl, model, false);
+    /**
+     * Draws sorted queue entries [from, to), changing the transform, bound
+     * buffers and material only where consecutive items differ
+     */
+    private void renderQueueItems(GL2 gl, int from, int to, int[] levels) {
+        int owner = VIEWER_ITEM;
+        int state = -1;
+        MeshBuffers bound = null;
+        boolean colorMaterial = false;
+
+        for (int i = from; i < to; i++) {
+            int item = renderQueue.getItem(i);
+            int itemOwner = queueOwners.get(item);
+            int range = queueRanges.get(item);
+
+            // Room models carry their own transform; everything else is
+            // drawn in room space
+            if (itemOwner != owner) {
+                if (owner >= 0) {
+                    gl.glPopMatrix();
+                }
+                if (itemOwner >= 0) {
+                    frameStats.addStateChange();
+                    ModelInstance model = frameScene.instances[itemOwner];
+                    gl.glPushMatrix();
+                    gl.glTranslatef(model.x, model.y, model.z);
+                    gl.glRotatef(model.rotY, 0.0f, 1.0f, 0.0f);
+                    gl.glScalef(model.scale, model.scale, model.scale);
+                }
+                owner = itemOwner;
+            }
 
-                // Then draw wireframe on top with slight offset to avoid z-fighting
-                gl.glEnable(GL2.GL_POLYGON_OFFSET_FILL);
-                gl.glPolygonOffset(1.0f, 1.0f);
+            if (itemOwner < 0 || range < 0) {
+                // Room surfaces and whole-model items draw immediately
+                if (bound != null) {
+                    bound.unbind(gl);
+                    bound = null;
+                }
+                if (itemOwner == VIEWER_ITEM) {
+                    if (colorMaterial) {
+                        gl.glDisable(GL2.GL_COLOR_MATERIAL);
+                        colorMaterial = false;
+                    }
+                    renderModel(gl);
+                    state = -1;
+                } else if (itemOwner <= SURFACE_ITEM) {
+                    if (!colorMaterial) {
+                        gl.glEnable(GL2.GL_COLOR_MATERIAL);
+                        colorMaterial = true;
+                        frameStats.addStateChange();
+                    }
+                    renderRoomSurface(gl, SURFACE_ITEM - itemOwner);
+                    frameStats.addDrawCall(2);
+                    state = COLOR_STATE;
+                } else {
+                    // renderModelGeometry sets and clears the colour state itself
+                    if (colorMaterial) {
+                        gl.glDisable(GL2.GL_COLOR_MATERIAL);
+                        colorMaterial = false;
+                    }
+                    renderModelGeometry(gl, frameScene.instances[itemOwner], 0, wireframeMode);
+                    state = -1;
+                }
+                continue;
+            }
 
-                gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_LINE);
-                gl.glLineWidth(1.5f);
-                gl.glColor3f(1.0f, 1.0f, 0.0f); // Yellow wireframe for selected model
-                gl.glEnable(GL2.GL_COLOR_MATERIAL);
-                renderModelGeometry(gl, model, true);
-                gl.glDisable(GL2.GL_COLOR_MATERIAL);
-                gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
+            ModelInstance model = frameScene.instances[itemOwner];
+            IndexedMesh mesh = model.lods.get(levels[itemOwner]);
+            if (wireframeMode || useColorOverride || model.useCustomColor) {
+                if (!colorMaterial) {
+                    frameStats.addStateChange();
+                }
+                colorMaterial = applyModelColor(gl, model, wireframeMode);
+                state = COLOR_STATE;
+            } else {
+                if (colorMaterial) {
+                    gl.glDisable(GL2.GL_COLOR_MATERIAL);
+                    colorMaterial = false;
+                    frameStats.addStateChange();
+                }
+                Material material = model.materials.get(mesh.getRangeMaterial(range));
+                if (material == null) {
+                    material = DEFAULT_MATERIAL;
+                }
+                int itemState = materialState(material);
+                if (itemState != state) {
+                    setMaterial(gl, material);
+                    state = itemState;
+                }
+            }
 
-                gl.glDisable(GL2.GL_POLYGON_OFFSET_FILL);
+            if (buffersSupported) {
+                if (bound == null || bound.getMesh() != mesh) {
+                    if (bound != null) {
+                        bound.unbind(gl);
+                    }
+                    bound = buffersFor(gl, mesh);
+                    bound.bind(gl);
+                    frameStats.addStateChange();
+                }
+                bound.drawRange(gl, range);
+                frameStats.addDrawCall(mesh.getRangeIndexCount(range) / 3);
             } else {
-                // Draw the model normally
-                renderModelGeometry(gl, model, wireframeMode);
+                renderLodRange(gl, mesh, range);
             }
+        }
 
+        if (bound != null) {
+            bound.unbind(gl);
+        }
+        if (colorMaterial) {
+            gl.glDisable(GL2.GL_COLOR_MATERIAL);
+        }
+        if (owner >= 0) {
             gl.glPopMatrix();
         }
     }
 
     /**
-     * Renders the geometry of a specific 3D model
+     * Draws a yellow wireframe over the selected model, offset to avoid
+     * z-fighting with its faces
      */
-    private void renderModelGeometry(GL2 gl, Model3D model, boolean wireframeMode) {
-        Material lastMaterial = null;
+    private void renderSelectionOutline(GL2 gl, ModelInstance model, int level) {
+        gl.glPushMatrix();
+        gl.glTranslatef(model.x, model.y, model.z);
+        gl.glRotatef(model.rotY, 0.0f, 1.0f, 0.0f);
+        gl.glScalef(model.scale, model.scale, model.scale);
 
-        // Apply color override if enabled (also applies to wireframe)
-        if (wireframeMode || useColorOverride || model.useCustomColor) {
-            gl.glEnable(GL2.GL_COLOR_MATERIAL);
-            if (useColorOverride) {
-                gl.glColor3f(
-                        userSelectedColor.getRed() / 255.0f,
-                        userSelectedColor.getGreen() / 255.0f,
-                        userSelectedColor.getBlue() / 255.0f);
-            } else if (model.useCustomColor) {
-                gl.glColor3f(
-                        model.customColor.getRed() / 255.0f,
-                        model.customColor.getGreen() / 255.0f,
-                        model.customColor.getBlue() / 255.0f);
-            } else if (wireframeMode) {
-                gl.glColor3f(0.7f, 0.7f, 0.7f); // Light gray for wireframe
-            }
-        }
+        gl.glEnable(GL2.GL_POLYGON_OFFSET_FILL);
+        gl.glPolygonOffset(1.0f, 1.0f);
 
-        for (Face face : model.faces) {
-            // Apply material if available and not wireframe/color override
-            if (!wireframeMode && !useColorOverride && face.materialName != null &&
-                    model.materials.containsKey(face.materialName)) {
+        gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_LINE);
+        gl.glLineWidth(1.5f);
+        gl.glColor3f(1.0f, 1.0f, 0.0f); // Yellow wireframe for selected model
+        gl.glEnable(GL2.GL_COLOR_MATERIAL);
+        renderModelGeometry(gl, model, level, true);
+        gl.glDisable(GL2.GL_COLOR_MATERIAL);
+        gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
 
-                Material material = model.materials.get(face.materialName);
-                if (material != lastMaterial) {
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
-                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_SPECULAR, material.specular, 0);
-                    gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, material.shininess);
-                    lastMaterial = material;
-                }
-            }
+        gl.glDisable(GL2.GL_POLYGON_OFFSET_FILL);
+        gl.glPopMatrix();
+    }
 
-            // Draw the face
-            if (face.vertexIndices.length == 3) {
-                gl.glBegin(GL.GL_TRIANGLES);
-            } else if (face.vertexIndices.length == 4) {
-                gl.glBegin(GL2.GL_QUADS);
-            } else {
-                gl.glBegin(GL2.GL_POLYGON);
-            }
+    /**
+     * Records what a queue item draws and returns its item number
+     */
+    private int queueItem(int owner, int range) {
+        queueOwners.add(owner);
+        queueRanges.add(range);
+        return queueOwners.size() - 1;
+    }
+
+    /**
+     * Sort state for a material, numbered in order of first use this frame
+     */
+    private int materialState(Material material) {
+        Integer state = materialStates.get(material);
+        if (state == null) {
+            state = DEFAULT_STATE + materialStates.size();
+            materialStates.put(material, state);
+        }
+        return state;
+    }
 
-            for (int i = 0; i < face.vertexIndices.length; i++) {
-                int vertIndex = face.vertexIndices[i];
+    /**
+     * Distance in front of the eye of a point, given the modelview matrix
+     */
+    private static float eyeDepth(float[] modelView, float x, float y, float z) {
+        return -(modelView[2] * x + modelView[6] * y + modelView[10] * z + modelView[14]);
+    }
 
-                // Apply normal if available
-                if (face.normalIndices != null && face.normalIndices[i] >= 0 &&
-                        face.normalIndices[i] < model.normals.size() / 3) {
+    /**
+     * Marks which room models have geometry inside the view frustum. The
+     * cached world bounding sphere settles most models; only those it
+     * leaves straddling a plane are tested against the tighter box.
+     */
+    private boolean[] cullRoomModels(GL2 gl) {
+        int count = frameScene.instances.length;
+        boolean[] visible = new boolean[count];
+        float[] planes = null;
+        if (frustumCulling) {
+            float[] projection = new float[16];
+            float[] modelView = new float[16];
+            gl.glGetFloatv(GL2.GL_PROJECTION_MATRIX, projection, 0);
+            gl.glGetFloatv(GL2.GL_MODELVIEW_MATRIX, modelView, 0);
+            planes = GeometryUtils.extractFrustumPlanes(projection, modelView);
+        }
 
-                    int normIndex = face.normalIndices[i];
-                    gl.glNormal3f(
-                            model.normals.get(normIndex * 3),
-                            model.normals.get(normIndex * 3 + 1),
-                            model.normals.get(normIndex * 3 + 2));
+        int tested = 0;
+        int culled = 0;
+        for (int i = 0; i < count; i++) {
+            ModelInstance model = frameScene.instances[i];
+            if (model.vertices.isEmpty()) {
+                continue;
+            }
+            tested++;
+            if (planes != null) {
+                float[] sphere = model.worldSphere;
+                int side = GeometryUtils.sphereInFrustum(planes, sphere[0], sphere[1], sphere[2], sphere[3]);
+                if (side < 0 || (side == 0 && !GeometryUtils.boxInFrustum(planes, model.worldBox))) {
+                    culled++;
+                    continue;
                 }
+            }
+            visible[i] = true;
+        }
+        updateCullingStats(tested, culled);
+        return visible;
+    }
 
-                // Apply texture coordinate if available
-                if (face.texCoordIndices != null && face.texCoordIndices[i] >= 0 &&
-                        face.texCoordIndices[i] < model.textureCoords.size() / 2) {
+    /**
+     * Shows the last frame's culling counts, touching Swing only when they change
+     */
+    private void updateCullingStats(int tested, int culled) {
+        if (tested == cullTested && culled == cullCulled) {
+            return;
+        }
+        cullTested = tested;
+        cullCulled = culled;
+        cullDrawn = tested - culled;
+        String text = "Models: " + cullTested + " tested, " + cullCulled + " culled, " + cullDrawn + " drawn";
+        SwingUtilities.invokeLater(() -> {
+            if (cullingStatsLabel != null) {
+                cullingStatsLabel.setText(text);
+            }
+        });
+    }
 
-                    int texIndex = face.texCoordIndices[i];
-                    gl.glTexCoord2f(
-                            model.textureCoords.get(texIndex * 2),
-                            model.textureCoords.get(texIndex * 2 + 1));
-                }
+    /**
+     * Buffer objects for a room mesh, uploaded on first use
+     */
+    private MeshBuffers buffersFor(GL2 gl, IndexedMesh mesh) {
+        MeshBuffers buffers = roomMeshBuffers.get(mesh);
+        if (buffers == null) {
+            buffers = MeshBuffers.upload(gl, mesh);
+            roomMeshBuffers.put(mesh, buffers);
+        }
+        return buffers;
+    }
 
-                // Set vertex
-                gl.glVertex3f(
-                        model.vertices.get(vertIndex * 3),
-                        model.vertices.get(vertIndex * 3 + 1),
-                        model.vertices.get(vertIndex * 3 + 2));
+    /**
+     * Frees the buffers of meshes that no model of the current snapshot
+     * references at any level, such as those of models removed from the
+     * room or given new geometry. Models that are culled, hidden or drawn
+     * at another level keep theirs, so they are not uploaded again when
+     * they come back. Runs only when a new snapshot has been published.
+     */
+    private void releaseUnreferencedBuffers(GL2 gl) {
+        if (frameScene == bufferScene) {
+            return;
+        }
+        bufferScene = frameScene;
+        for (ModelInstance model : frameScene.instances) {
+            referencedMeshes.addAll(model.lods);
+        }
+        Iterator<Map.Entry<IndexedMesh, MeshBuffers>> entries = roomMeshBuffers.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<IndexedMesh, MeshBuffers> entry = entries.next();
+            if (!referencedMeshes.contains(entry.getKey())) {
+                entry.getValue().release(gl);
+                entries.remove();
             }
+        }
+        referencedMeshes.clear();
+    }
 
-            gl.glEnd();
+    /**
+     * Draws every material range of bound buffers with the model's materials
+     */
+    private void drawMeshRanges(GL2 gl, ModelInstance model, MeshBuffers buffers, boolean wireframeMode) {
+        IndexedMesh mesh = buffers.getMesh();
+        for (int r = 0; r < mesh.getRangeCount(); r++) {
+            applyMaterial(gl, model, mesh.getRangeMaterial(r), wireframeMode);
+            buffers.drawRange(gl, r);
+            frameStats.addDrawCall(mesh.getRangeIndexCount(r) / 3);
         }
+    }
 
-        // Reset material state
-        if (wireframeMode || useColorOverride || model.useCustomColor) {
-            gl.glDisable(GL2.GL_COLOR_MATERIAL);
+    private void applyMaterial(GL2 gl, ModelInstance model, String materialName, boolean wireframeMode) {
+        if (!wireframeMode && !useColorOverride && materialName != null &&
+                model.materials.containsKey(materialName)) {
+            setMaterial(gl, model.materials.get(materialName));
         }
     }
 
-    // Helper method to determine text color based on background brightness
-    private int getBrightness(Color color) {
-        return (int) Math.sqrt(
-                color.getRed() * color.getRed() * 0.241 +
-                        color.getGreen() * color.getGreen() * 0.691 +
-                        color.getBlue() * color.getBlue() * 0.068);
+    private void setMaterial(GL2 gl, Material material) {
+        frameStats.addStateChange();
+        gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
+        gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
+        gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_SPECULAR, material.specular, 0);
+        gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, material.shininess);
     }
 
     /**
-     * Creates a rounded button with consistent styling
-     * 
-     * @param text    Button text
-     * @param bgColor Background color
-     * @param font    Button font
-     * @return Styled JButton
+     * Picks the level of detail for every room model: the coarsest level
+     * whose mean edge length stays within lodPixelError on screen, with a
+     * hysteresis band so models near a threshold do not flicker. If the
+     * chosen levels add up to more than lodTriangleBudget triangles, the
+     * models whose next level costs the least on-screen detail are
+     * coarsened until the scene fits.
      */
-    private JButton createRoundedButton(String text, Color bgColor, Font font) {
-        final Color backgroundColor = bgColor;
+    private int[] selectLodLevels(GL2 gl, boolean[] visible) {
+        int count = frameScene.instances.length;
+        int[] levels = new int[count];
+        if (!lodEnabled) {
+            return levels;
+        }
 
-        JButton button = new JButton(text) {
+        // Eye-space centre of each model's bounding sphere; glFrustum in
+        // reshape puts the projection plane half a viewport height away
+        float[] modelView = new float[16];
+        gl.glGetFloatv(GL2.GL_MODELVIEW_MATRIX, modelView, 0);
+        float focalLength = viewportHeight * 0.5f;
+
+        int[] previous = previousLodLevels();
+        float[] pixelsPerUnit = new float[count];
+        long triangles = 0;
+        for (int i = 0; i < count; i++) {
+            ModelInstance model = frameScene.instances[i];
+            int levelCount = model.lods.size();
+            if (!visible[i]) {
+                // Culled models keep their level and cost nothing
+                levels[i] = Math.min(previous[i], Math.max(levelCount - 1, 0));
+                continue;
+            }
+            if (levelCount < 2) {
+                triangles += model.faces.getTriangleCount();
+                continue;
+            }
+
+            // World bounds are current: culling updated them this frame
+            float[] sphere = model.worldSphere;
+            float wx = sphere[0];
+            float wy = sphere[1];
+            float wz = sphere[2];
+            float ex = modelView[0] * wx + modelView[4] * wy + modelView[8] * wz + modelView[12];
+            float ey = modelView[1] * wx + modelView[5] * wy + modelView[9] * wz + modelView[13];
+            float ez = modelView[2] * wx + modelView[6] * wy + modelView[10] * wz + modelView[14];
+            float distance = (float) Math.sqrt(ex * ex + ey * ey + ez * ez) - sphere[3];
+
+            // Screen pixels covered by one model unit at the nearest point
+            pixelsPerUnit[i] = focalLength * model.scale / Math.max(distance, 1.0f);
+
+            int level = Math.min(previous[i], levelCount - 1);
+            while (level + 1 < levelCount
+                    && model.lodErrors[level + 1] * pixelsPerUnit[i] <= lodPixelError * (1 - LOD_HYSTERESIS)) {
+                level++;
+            }
+            while (level > 0 && model.lodErrors[level] * pixelsPerUnit[i] > lodPixelError * (1 + LOD_HYSTERESIS)) {
+                level--;
+            }
+            levels[i] = level;
+            triangles += model.lods.get(level).getTriangleCount();
+        }
+
+        // Over budget: coarsen where it shows least, one step at a time
+        while (triangles > lodTriangleBudget) {
+            int best = -1;
+            float bestError = Float.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                ModelInstance model = frameScene.instances[i];
+                if (visible[i] && levels[i] + 1 < model.lods.size()) {
+                    float error = model.lodErrors[levels[i] + 1] * pixelsPerUnit[i];
+                    if (error < bestError) {
+                        bestError = error;
+                        best = i;
+                    }
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            List<IndexedMesh> lods = frameScene.instances[best].lods;
+            triangles -= lods.get(levels[best]).getTriangleCount() - lods.get(levels[best] + 1).getTriangleCount();
+            levels[best]++;
+        }
+
+        lodScene = frameScene;
+        lodLevels = levels;
+        return levels;
+    }
+
+    /**
+     * The level each instance of the frame's snapshot was drawn at last.
+     * After a new snapshot, instances carried over keep their level, and an
+     * instance made for an edited model takes the level of the instance it
+     * replaced; new models start at full detail.
+     */
+    private int[] previousLodLevels() {
+        if (frameScene == lodScene) {
+            return lodLevels;
+        }
+        Map<ModelInstance, Integer> byInstance = new IdentityHashMap<>();
+        Map<Model3D, Integer> bySource = new IdentityHashMap<>();
+        for (int i = 0; i < lodScene.instances.length && i < lodLevels.length; i++) {
+            byInstance.put(lodScene.instances[i], lodLevels[i]);
+            bySource.putIfAbsent(lodScene.instances[i].source, lodLevels[i]);
+        }
+        int[] previous = new int[frameScene.instances.length];
+        for (int i = 0; i < previous.length; i++) {
+            ModelInstance model = frameScene.instances[i];
+            Integer level = byInstance.get(model);
+            if (level == null) {
+                level = bySource.get(model.source);
+            }
+            previous[i] = level != null ? level : 0;
+        }
+        return previous;
+    }
+
+    /**
+     * Renders the geometry of a specific 3D model
+     */
+    private void renderModelGeometry(GL2 gl, ModelInstance model, int level, boolean wireframeMode) {
+        boolean colored = applyModelColor(gl, model, wireframeMode);
+
+        if (buffersSupported && !model.lods.isEmpty()) {
+            MeshBuffers buffers = buffersFor(gl, model.lods.get(level));
+            buffers.bind(gl);
+            frameStats.addStateChange();
+            drawMeshRanges(gl, model, buffers, wireframeMode);
+            buffers.unbind(gl);
+        } else if (level > 0) {
+            renderLodGeometry(gl, model, model.lods.get(level), wireframeMode);
+        } else {
+            renderFaceGeometry(gl, model, wireframeMode);
+        }
+
+        // Reset material state
+        if (colored) {
+            gl.glDisable(GL2.GL_COLOR_MATERIAL);
+        }
+    }
+
+    /**
+     * Applies the colour override if one is active (also applies to
+     * wireframe); true if GL_COLOR_MATERIAL was enabled for it
+     */
+    private boolean applyModelColor(GL2 gl, ModelInstance model, boolean wireframeMode) {
+        // Apply color override if enabled (also applies to wireframe)
+        if (wireframeMode || useColorOverride || model.useCustomColor) {
+            gl.glEnable(GL2.GL_COLOR_MATERIAL);
+            if (useColorOverride) {
+                gl.glColor3f(
+                        userSelectedColor.getRed() / 255.0f,
+                        userSelectedColor.getGreen() / 255.0f,
+                        userSelectedColor.getBlue() / 255.0f);
+            } else if (model.useCustomColor) {
+                gl.glColor3f(
+                        model.customColor.getRed() / 255.0f,
+                        model.customColor.getGreen() / 255.0f,
+                        model.customColor.getBlue() / 255.0f);
+            } else if (wireframeMode) {
+                gl.glColor3f(0.7f, 0.7f, 0.7f); // Light gray for wireframe
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Draws a simplified level, one triangle batch per material range
+     */
+    private void renderLodGeometry(GL2 gl, ModelInstance model, IndexedMesh mesh, boolean wireframeMode) {
+        for (int r = 0; r < mesh.getRangeCount(); r++) {
+            applyMaterial(gl, model, mesh.getRangeMaterial(r), wireframeMode);
+            renderLodRange(gl, mesh, r);
+        }
+    }
+
+    /**
+     * Draws one material range of an indexed mesh in immediate mode
+     */
+    private void renderLodRange(GL2 gl, IndexedMesh mesh, int range) {
+        float[] vertexData = mesh.getVertexData();
+        int[] indices = mesh.getIndices();
+        frameStats.addDrawCall(mesh.getRangeIndexCount(range) / 3);
+        gl.glBegin(GL.GL_TRIANGLES);
+        int end = mesh.getRangeStart(range) + mesh.getRangeIndexCount(range);
+        for (int i = mesh.getRangeStart(range); i < end; i++) {
+            int base = indices[i] * IndexedMesh.STRIDE;
+            if (mesh.hasNormals()) {
+                gl.glNormal3f(
+                        vertexData[base + IndexedMesh.NORMAL_OFFSET],
+                        vertexData[base + IndexedMesh.NORMAL_OFFSET + 1],
+                        vertexData[base + IndexedMesh.NORMAL_OFFSET + 2]);
+            }
+            if (mesh.hasTexCoords()) {
+                gl.glTexCoord2f(
+                        vertexData[base + IndexedMesh.TEXCOORD_OFFSET],
+                        vertexData[base + IndexedMesh.TEXCOORD_OFFSET + 1]);
+            }
+            gl.glVertex3f(
+                    vertexData[base + IndexedMesh.POSITION_OFFSET],
+                    vertexData[base + IndexedMesh.POSITION_OFFSET + 1],
+                    vertexData[base + IndexedMesh.POSITION_OFFSET + 2]);
+        }
+        gl.glEnd();
+    }
+
+    /**
+     * Draws a model's full-detail faces
+     */
+    private void renderFaceGeometry(GL2 gl, ModelInstance model, boolean wireframeMode) {
+        Material lastMaterial = null;
+        float[] vertexData = model.vertices.array();
+        float[] normalData = model.normals.array();
+        float[] texCoordData = model.textureCoords.array();
+
+        FaceTable faces = model.faces;
+        int[] faceVertices = faces.getVertexIndices();
+        int[] faceNormals = faces.getNormalIndices();
+        int[] faceTexCoords = faces.getTexCoordIndices();
+        int[] faceStarts = faces.getFaceStarts();
+        int normalCount = model.normals.size() / 3;
+        int texCoordCount = model.textureCoords.size() / 2;
+
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            // Apply material if available and not wireframe/color override
+            String materialName = faces.getMaterialName(faces.getRunMaterial(run));
+            if (!wireframeMode && !useColorOverride && materialName != null &&
+                    model.materials.containsKey(materialName)) {
+
+                Material material = model.materials.get(materialName);
+                if (material != lastMaterial) {
+                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_AMBIENT, material.ambient, 0);
+                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_DIFFUSE, material.diffuse, 0);
+                    gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GL2.GL_SPECULAR, material.specular, 0);
+                    gl.glMaterialf(GL.GL_FRONT_AND_BACK, GL2.GL_SHININESS, material.shininess);
+                    lastMaterial = material;
+                    frameStats.addStateChange();
+                }
+            }
+
+            // Consecutive triangles share one glBegin/glEnd pair; faces are
+            // triangulated at load, so that is usually the whole run
+            int mode = -1;
+            int batches = 0;
+            int triangles = 0;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                int start = faceStarts[f];
+                int end = faceStarts[f + 1];
+                triangles += end - start - 2;
+                int faceMode = end - start == 3 ? GL.GL_TRIANGLES
+                        : end - start == 4 ? GL2.GL_QUADS : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
+                    batches++;
+                }
+
+                for (int i = start; i < end; i++) {
+                    int vertIndex = faceVertices[i];
+
+                    // Apply normal if available
+                    int normIndex = faceNormals[i];
+                    if (normIndex >= 0 && normIndex < normalCount) {
+                        gl.glNormal3f(
+                                normalData[normIndex * 3],
+                                normalData[normIndex * 3 + 1],
+                                normalData[normIndex * 3 + 2]);
+                    }
+
+                    // Apply texture coordinate if available
+                    int texIndex = faceTexCoords[i];
+                    if (texIndex >= 0 && texIndex < texCoordCount) {
+                        gl.glTexCoord2f(
+                                texCoordData[texIndex * 2],
+                                texCoordData[texIndex * 2 + 1]);
+                    }
+
+                    // Set vertex
+                    gl.glVertex3f(
+                            vertexData[vertIndex * 3],
+                            vertexData[vertIndex * 3 + 1],
+                            vertexData[vertIndex * 3 + 2]);
+                }
+            }
+            if (mode != -1) {
+                gl.glEnd();
+            }
+            frameStats.addDrawCalls(batches, triangles);
+        }
+    }
+
+    // Helper method to determine text color based on background brightness
+    private int getBrightness(Color color) {
+        return (int) Math.sqrt(
+                color.getRed() * color.getRed() * 0.241 +
+                        color.getGreen() * color.getGreen() * 0.691 +
+                        color.getBlue() * color.getBlue() * 0.068);
+    }
+
+    /**
+     * Creates a rounded button with consistent styling
+     * 
+     * @param text    Button text
+     * @param bgColor Background color
+     * @param font    Button font
+     * @return Styled JButton
+     */
+    private JButton createRoundedButton(String text, Color bgColor, Font font) {
+        final Color backgroundColor = bgColor;
+
+        JButton button = new JButton(text) {
             private static final long serialVersionUID = 1L;
 
             @Override
@@ -2157,19 +2777,41 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         return button;
     }
 
-    // Helper to force a complete refresh of the display
+    // Publish the room's current state and ask for a new frame; requests
+    // before the next frame share it
     private void refreshDisplay() {
-        if (canvas != null) {
-            canvas.repaint();
-            // Add a small delay to ensure repaint is processed
-            new Thread(() -> {
-                try {
-                    Thread.sleep(50);
-                    canvas.repaint();
-                } catch (InterruptedException e) {
-                    // Ignore
-                }
-            }).start();
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::refreshDisplay);
+            return;
+        }
+        publishScene();
+        if (renderScheduler != null) {
+            renderScheduler.requestRender();
+        }
+    }
+
+    /**
+     * Makes a new scene snapshot from roomModels if anything in it changed.
+     * Models that did not change keep their instance from the previous
+     * snapshot, so an edit costs one new instance and an array copy.
+     * Event thread only.
+     */
+    private void publishScene() {
+        SceneSnapshot previous = scene.get();
+        ModelInstance[] instances = new ModelInstance[roomModels.size()];
+        boolean changed = instances.length != previous.instances.length
+                || selectedModelIndex != previous.selectedIndex;
+        for (int i = 0; i < instances.length; i++) {
+            Model3D model = roomModels.get(i);
+            ModelInstance instance = i < previous.instances.length ? previous.instances[i] : null;
+            if (instance == null || !instance.matches(model)) {
+                instance = new ModelInstance(model);
+                changed = true;
+            }
+            instances[i] = instance;
+        }
+        if (changed) {
+            scene.set(new SceneSnapshot(instances, selectedModelIndex));
         }
     }
 
@@ -2294,6 +2936,77 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
         viewMenu.add(colorMenu);
 
+        JMenu lodMenu = new JMenu("Level of Detail");
+
+        JCheckBoxMenuItem lodItem = new JCheckBoxMenuItem("Simplify Distant Models", lodEnabled);
+        lodItem.addActionListener(e -> {
+            lodEnabled = lodItem.isSelected();
+            refreshDisplay();
+        });
+        lodMenu.add(lodItem);
+
+        JMenuItem lodErrorItem = new JMenuItem("Set Pixel Error...");
+        lodErrorItem.addActionListener(e -> {
+            SpinnerNumberModel model = new SpinnerNumberModel(lodPixelError, 0.5, 20.0, 0.5);
+            JSpinner spinner = new JSpinner(model);
+
+            int result = JOptionPane.showConfirmDialog(
+                    this, spinner, "Largest Detail Lost (pixels)",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+            if (result == JOptionPane.OK_OPTION) {
+                lodPixelError = ((Number) spinner.getValue()).floatValue();
+                refreshDisplay();
+            }
+        });
+        lodMenu.add(lodErrorItem);
+
+        JMenuItem lodBudgetItem = new JMenuItem("Set Triangle Budget...");
+        lodBudgetItem.addActionListener(e -> {
+            SpinnerNumberModel model = new SpinnerNumberModel(lodTriangleBudget, 10000, 50000000, 100000);
+            JSpinner spinner = new JSpinner(model);
+
+            int result = JOptionPane.showConfirmDialog(
+                    this, spinner, "Room Triangle Budget",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+            if (result == JOptionPane.OK_OPTION) {
+                lodTriangleBudget = ((Number) spinner.getValue()).intValue();
+                refreshDisplay();
+            }
+        });
+        lodMenu.add(lodBudgetItem);
+
+        viewMenu.add(lodMenu);
+
+        JCheckBoxMenuItem cullingItem = new JCheckBoxMenuItem("Skip Models Outside View", frustumCulling);
+        cullingItem.addActionListener(e -> {
+            frustumCulling = cullingItem.isSelected();
+            refreshDisplay();
+        });
+        viewMenu.add(cullingItem);
+
+        viewMenu.addSeparator();
+
+        JCheckBoxMenuItem overlayItem = new JCheckBoxMenuItem("Performance Overlay", showPerformanceOverlay);
+        overlayItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+        overlayItem.addActionListener(e -> {
+            showPerformanceOverlay = overlayItem.isSelected();
+            refreshDisplay();
+        });
+        viewMenu.add(overlayItem);
+
+        JMenuItem exportStatsItem = new JMenuItem("Export Frame Stats...");
+        exportStatsItem.addActionListener(e -> exportFrameStats());
+        viewMenu.add(exportStatsItem);
+
+        JMenuItem resetStatsItem = new JMenuItem("Reset Frame Stats");
+        resetStatsItem.addActionListener(e -> {
+            frameStats.reset();
+            refreshDisplay();
+        });
+        viewMenu.add(resetStatsItem);
+
         // Room Menu
         JMenu roomMenu = new JMenu("Room");
         roomMenu.setMnemonic(KeyEvent.VK_R);
@@ -2636,39 +3349,63 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
             File file = fileChooser.getSelectedFile();
             String modelName = file.getName();
 
-            // Create a new model
-            Model3D model = new Model3D(modelName);
-
-            // Load OBJ into the model
-            if (loadModelFromObjFile(model, file.getAbsolutePath())) {
-                // Position model in room
-                model.y = -roomHeight / 2 + 0.001f; // Place just above floor
+            // Load OBJ into a new model in the background
+            LoadTask<Model3D> task = ModelLoadService.getDefault().submit(modelName, progress -> {
+                Model3D model = new Model3D(modelName);
+                if (!loadModelFromObjFile(model, file.getAbsolutePath(), progress)) {
+                    throw new IOException("Failed to load " + file.getName());
+                }
+                buildLods(model);
+                return model;
+            }, new ModelLoadService.Listener<Model3D>() {
+                @Override
+                public void loaded(Model3D model) {
+                    addLoadedModelToRoom(model);
+                }
 
-                // Add to models list
-                roomModels.add(model);
-                modelsListModel.addElement(modelName);
-
-                // Select the new model
-                int newIndex = roomModels.size() - 1;
-                modelsList.setSelectedIndex(newIndex);
-
-                // Make sure room is visible
-                if (!showRoom) {
-                    showRoom = true;
-                    showRoomCheckbox.setSelected(true);
-                    // Update menu item if it exists
-                    for (int i = 0; i < getJMenuBar().getMenu(2).getItemCount(); i++) {
-                        if (getJMenuBar().getMenu(2).getItem(i) instanceof JCheckBoxMenuItem &&
-                                "Show Room".equals(getJMenuBar().getMenu(2).getItem(i).getText())) {
-                            ((JCheckBoxMenuItem) getJMenuBar().getMenu(2).getItem(i)).setSelected(true);
-                            break;
-                        }
-                    }
+                @Override
+                public void failed(Exception e) {
+                    JOptionPane.showMessageDialog(SoftwareRenderer.this,
+                            "Error loading model: " + e.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
                 }
+            });
+            LoadProgressDialog.open(this, task);
+        }
+    }
 
-                refreshDisplay();
+    /**
+     * Adds a model that finished loading to the room and selects it
+     */
+    private void addLoadedModelToRoom(Model3D model) {
+        String modelName = model.name;
+
+        // Position model in room
+        model.y = -roomHeight / 2 + 0.001f; // Place just above floor
+
+        // Add to models list
+        roomModels.add(model);
+        modelsListModel.addElement(modelName);
+
+        // Select the new model
+        int newIndex = roomModels.size() - 1;
+        modelsList.setSelectedIndex(newIndex);
+
+        // Make sure room is visible
+        if (!showRoom) {
+            showRoom = true;
+            showRoomCheckbox.setSelected(true);
+            // Update menu item if it exists
+            for (int i = 0; i < getJMenuBar().getMenu(2).getItemCount(); i++) {
+                if (getJMenuBar().getMenu(2).getItem(i) instanceof JCheckBoxMenuItem &&
+                        "Show Room".equals(getJMenuBar().getMenu(2).getItem(i).getText())) {
+                    ((JCheckBoxMenuItem) getJMenuBar().getMenu(2).getItem(i)).setSelected(true);
+                    break;
+                }
             }
         }
+
+        refreshDisplay();
     }
 
     /**
@@ -2696,44 +3433,10 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
      */
     private void duplicateSelectedModel() {
         if (selectedModel != null && selectedModelIndex >= 0) {
-            // Create a deep copy of the model
+            // Create a new instance sharing the model's geometry
             Model3D newModel = new Model3D(selectedModel.name + " (copy)");
-
-            // Copy geometry data
-            newModel.vertices.addAll(selectedModel.vertices);
-            newModel.normals.addAll(selectedModel.normals);
-            newModel.textureCoords.addAll(selectedModel.textureCoords);
-
-            // Copy faces
-            for (Face face : selectedModel.faces) {
-                int[] vertexIndices = face.vertexIndices.clone();
-                int[] normalIndices = face.normalIndices.clone();
-                int[] texCoordIndices = face.texCoordIndices.clone();
-
-                newModel.faces.add(new Face(vertexIndices, texCoordIndices, normalIndices, face.materialName));
-            }
-
-            // Copy materials
-            for (Map.Entry<String, Material> entry : selectedModel.materials.entrySet()) {
-                Material originalMat = entry.getValue();
-                Material newMat = new Material(originalMat.name);
-
-                // Copy material properties
-                System.arraycopy(originalMat.ambient, 0, newMat.ambient, 0, 4);
-                System.arraycopy(originalMat.diffuse, 0, newMat.diffuse, 0, 4);
-                System.arraycopy(originalMat.specular, 0, newMat.specular, 0, 4);
-                newMat.shininess = originalMat.shininess;
-
-                newModel.materials.put(entry.getKey(), newMat);
-            }
-
-            // Copy bounding box
-            newModel.minX = selectedModel.minX;
-            newModel.maxX = selectedModel.maxX;
-            newModel.minY = selectedModel.minY;
-            newModel.maxY = selectedModel.maxY;
-            newModel.minZ = selectedModel.minZ;
-            newModel.maxZ = selectedModel.maxZ;
+            shareGeometry(selectedModel, newModel);
+            newModel.materials = selectedModel.materials;
 
             // Copy position but offset slightly
             newModel.x = selectedModel.x + 0.5f;
@@ -2761,108 +3464,44 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
      * Loads an OBJ file into the specified model
      */
     public boolean loadModelFromObjFile(Model3D model, String filePath) {
-        try {
-            // Clear model data
-            model.vertices.clear();
-            model.normals.clear();
-            model.textureCoords.clear();
-            model.faces.clear();
-
-            // Reset bounding box
-            model.minX = model.minY = model.minZ = Float.MAX_VALUE;
-            model.maxX = model.maxY = model.maxZ = Float.MIN_VALUE;
-
-            BufferedReader reader = new BufferedReader(new FileReader(filePath));
-            String line;
-            String currentMaterial = null;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-
-                String[] parts = line.split("\\s+");
-                if (parts.length == 0)
-                    continue;
-
-                String type = parts[0];
-
-                if ("v".equals(type)) {
-                    // Vertex
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-
-                    model.vertices.add(x);
-                    model.vertices.add(y);
-                    model.vertices.add(z);
-
-                    // Update bounding box
-                    model.minX = Math.min(model.minX, x);
-                    model.maxX = Math.max(model.maxX, x);
-                    model.minY = Math.min(model.minY, y);
-                    model.maxY = Math.max(model.maxY, y);
-                    model.minZ = Math.min(model.minZ, z);
-                    model.maxZ = Math.max(model.maxZ, z);
-
-                } else if ("vn".equals(type)) {
-                    // Normal
-                    float x = Float.parseFloat(parts[1]);
-                    float y = Float.parseFloat(parts[2]);
-                    float z = Float.parseFloat(parts[3]);
-
-                    model.normals.add(x);
-                    model.normals.add(y);
-                    model.normals.add(z);
-
-                } else if ("vt".equals(type)) {
-                    // Texture coordinate
-                    float u = Float.parseFloat(parts[1]);
-                    float v = parts.length > 2 ? Float.parseFloat(parts[2]) : 0.0f;
-
-                    model.textureCoords.add(u);
-                    model.textureCoords.add(v);
-
-                } else if ("f".equals(type)) {
-                    // Face
-                    int[] vertIndices = new int[parts.length - 1];
-                    int[] texIndices = new int[parts.length - 1];
-                    int[] normIndices = new int[parts.length - 1];
-
-                    for (int i = 1; i < parts.length; i++) {
-                        String[] indices = parts[i].split("/");
-
-                        vertIndices[i - 1] = Integer.parseInt(indices[0]) - 1;
-                        texIndices[i - 1] = indices.length > 1 && !indices[1].isEmpty()
-                                ? Integer.parseInt(indices[1]) - 1
-                                : -1;
-                        normIndices[i - 1] = indices.length > 2 ? Integer.parseInt(indices[2]) - 1 : -1;
-                    }
-
-                    model.faces.add(new Face(vertIndices, texIndices, normIndices, currentMaterial));
+        return loadModelFromObjFile(model, filePath, LoadProgress.NONE);
+    }
 
-                } else if ("mtllib".equals(type)) {
-                    // Material library
-                    if (parts.length > 1) {
-                        File objFile = new File(filePath);
-                        File mtlFile = new File(objFile.getParent(), parts[1]);
-                        if (mtlFile.exists()) {
-                            mtlFileText.setText(mtlFile.getAbsolutePath());
-                            loadMtlFile(mtlFile.getAbsolutePath());
-                        }
-                    }
+    /**
+     * Loads an OBJ file into the specified model, reporting progress as it
+     * is read. Only touches the model, so it can run off the event thread;
+     * a cancelled load ends with a CancellationException. Room models also
+     * need buildLods, which background loaders run right after this.
+     */
+    public boolean loadModelFromObjFile(Model3D model, String filePath, LoadProgress progress) {
+        try {
+            // Reuse the binary snapshot of an earlier parse while the sources are unchanged
+            MeshCache cache = MeshCache.getDefault();
+            MeshCache.Mesh cached = cache.load(filePath);
+            List<String> materialLibraries;
+            if (cached != null) {
+                applyMesh(model, cached);
+                materialLibraries = cached.getMaterialLibraries();
+            } else {
+                materialLibraries = readObjGeometry(filePath, model, progress);
+            }
 
-                } else if ("usemtl".equals(type)) {
-                    // Use material
-                    if (parts.length > 1) {
-                        currentMaterial = parts[1];
-                    }
+            // Materials belong to the model, not to the viewer
+            model.materials.clear();
+            List<String> mtlPaths = new ArrayList<>();
+            for (String library : materialLibraries) {
+                File mtlFile = new File(new File(filePath).getAbsoluteFile().getParent(), library);
+                mtlPaths.add(mtlFile.getAbsolutePath());
+                if (mtlFile.exists()) {
+                    loadMaterialsForModel(model, mtlFile.getAbsolutePath());
                 }
             }
 
-            reader.close();
+            if (cached == null) {
+                cache.store(filePath, mtlPaths, MeshCache.Mesh.of(model.vertices, model.normals,
+                        model.textureCoords, model.faces, materialLibraries, new float[] {
+                                model.minX, model.minY, model.minZ, model.maxX, model.maxY, model.maxZ }));
+            }
 
             // Scale model if necessary
             float modelSize = Math.max(model.maxX - model.minX,
@@ -2875,10 +3514,12 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
             }
 
             System.out.println("Loaded model with " + (model.vertices.size() / 3) + " vertices and " +
-                    model.faces.size() + " faces");
+                    model.faces.getFaceCount() + " faces");
 
             return true;
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("Error loading model from OBJ file: " + e.getMessage());
             e.printStackTrace();
@@ -2886,6 +3527,240 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         }
     }
 
+    /**
+     * Welds the model's faces into the indexed mesh its instances are drawn
+     * from and, for large models, simplifies it into levels of detail so
+     * distant copies can be drawn with fewer triangles. Takes seconds for
+     * large models, so it runs on a load thread before the model is shown.
+     */
+    static void buildLods(Model3D model) {
+        IndexedMesh mesh = VertexCacheOptimizer.optimize(
+                MeshWelder.weld(model.vertices, model.normals, model.textureCoords, model.faces));
+        List<IndexedMesh> lods = model.faces.getTriangleCount() < LOD_MIN_TRIANGLES
+                ? Collections.singletonList(mesh)
+                : MeshSimplifier.buildLodChain(mesh);
+        float[] errors = new float[lods.size()];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = meanEdgeLength(lods.get(i));
+        }
+        model.lods = Collections.unmodifiableList(lods);
+        model.lodErrors = errors;
+    }
+
+    /**
+     * Points an instance at another model's geometry and LODs; nothing is
+     * copied
+     */
+    private static void shareGeometry(Model3D source, Model3D instance) {
+        instance.vertices = source.vertices;
+        instance.normals = source.normals;
+        instance.textureCoords = source.textureCoords;
+        instance.faces = source.faces;
+        instance.lods = source.lods;
+        instance.lodErrors = source.lodErrors;
+        instance.minX = source.minX;
+        instance.maxX = source.maxX;
+        instance.minY = source.minY;
+        instance.maxY = source.maxY;
+        instance.minZ = source.minZ;
+        instance.maxZ = source.maxZ;
+    }
+
+    /**
+     * Makes models with identical geometry share one copy of it, then
+     * builds LODs once per distinct mesh. Slow for large models; room
+     * models go through buildRoomLodsInBackground.
+     */
+    private static void shareIdenticalGeometry(List<Model3D> models) {
+        Map<Integer, List<Model3D>> distinct = new HashMap<>();
+        for (Model3D model : models) {
+            int key = model.vertices.contentHashCode() * 31 + model.faces.getCornerCount();
+            List<Model3D> candidates = distinct.computeIfAbsent(key, k -> new ArrayList<>());
+            Model3D match = null;
+            for (Model3D candidate : candidates) {
+                if (candidate.vertices.contentEquals(model.vertices)
+                        && candidate.normals.contentEquals(model.normals)
+                        && candidate.textureCoords.contentEquals(model.textureCoords)
+                        && candidate.faces.contentEquals(model.faces)) {
+                    match = candidate;
+                    break;
+                }
+            }
+            if (match != null) {
+                shareGeometry(match, model);
+            } else {
+                buildLods(model);
+                candidates.add(model);
+            }
+        }
+    }
+
+    /**
+     * Runs shareIdenticalGeometry for the models that have no LODs yet on
+     * the load service. The work is done on stand-ins that reference the
+     * models' geometry, so the models themselves only change on the event
+     * thread once it is done, and the next snapshot picks the results up.
+     * Until then the models are drawn at full detail from their faces.
+     * Models whose geometry was replaced in the meantime are left alone.
+     * The models' face tables are only read from here on, by the worker
+     * and by the frames drawn meanwhile.
+     */
+    private void buildRoomLodsInBackground(List<Model3D> models) {
+        List<Model3D> pending = new ArrayList<>();
+        List<Model3D> standIns = new ArrayList<>();
+        List<FaceTable> submittedFaces = new ArrayList<>(); // To recognize models edited while building
+        List<FloatList> submittedVertices = new ArrayList<>();
+        for (Model3D model : models) {
+            if (model.lods.isEmpty()) {
+                // Build the material runs here rather than on both threads at once
+                model.faces.getRunCount();
+                Model3D standIn = new Model3D(model.name);
+                shareGeometry(model, standIn);
+                pending.add(model);
+                standIns.add(standIn);
+                submittedFaces.add(model.faces);
+                submittedVertices.add(model.vertices);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        ModelLoadService.getDefault().submit("Levels of detail", progress -> {
+            shareIdenticalGeometry(standIns);
+            return standIns;
+        }, new ModelLoadService.Listener<List<Model3D>>() {
+            @Override
+            public void loaded(List<Model3D> built) {
+                for (int i = 0; i < pending.size(); i++) {
+                    Model3D model = pending.get(i);
+                    if (model.lods.isEmpty() && model.faces == submittedFaces.get(i)
+                            && model.vertices == submittedVertices.get(i)) {
+                        shareGeometry(built.get(i), model);
+                    }
+                }
+                refreshDisplay();
+            }
+
+            @Override
+            public void failed(Exception e) {
+                System.err.println("Error building levels of detail: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Average edge length of a mesh, used as the size of the smallest
+     * detail a level can show
+     */
+    private static float meanEdgeLength(IndexedMesh mesh) {
+        int[] indices = mesh.getIndices();
+        double total = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            for (int k = 0; k < 3; k++) {
+                int a = indices[i + k];
+                int b = indices[i + (k + 1) % 3];
+                float dx = mesh.getX(b) - mesh.getX(a);
+                float dy = mesh.getY(b) - mesh.getY(a);
+                float dz = mesh.getZ(b) - mesh.getZ(a);
+                total += Math.sqrt(dx * dx + dy * dy + dz * dz);
+            }
+        }
+        return indices.length > 0 ? (float) (total / indices.length) : 0.0f;
+    }
+
+    /**
+     * Copies a cached mesh into the model
+     */
+    private static void applyMesh(Model3D model, MeshCache.Mesh mesh) {
+        model.vertices = mesh.copyVertices();
+        model.normals = mesh.copyNormals();
+        model.textureCoords = mesh.copyTexCoords();
+        model.faces = mesh.copyFaces();
+
+        float[] bounds = mesh.getBounds();
+        model.minX = bounds[0];
+        model.minY = bounds[1];
+        model.minZ = bounds[2];
+        model.maxX = bounds[3];
+        model.maxY = bounds[4];
+        model.maxZ = bounds[5];
+    }
+
+    /**
+     * Reads the geometry of an OBJ file into the model and returns the
+     * material libraries it references
+     */
+    private static List<String> readObjGeometry(String filePath, Model3D model) throws IOException {
+        return readObjGeometry(filePath, model, LoadProgress.NONE);
+    }
+
+    private static List<String> readObjGeometry(String filePath, Model3D model, LoadProgress progress)
+            throws IOException {
+        model.vertices.clear();
+        model.normals.clear();
+        model.textureCoords.clear();
+        model.faces.clear();
+
+        // Reset bounding box
+        model.minX = model.minY = model.minZ = Float.MAX_VALUE;
+        model.maxX = model.maxY = model.maxZ = -Float.MAX_VALUE;
+
+        List<String> materialLibraries = new ArrayList<>();
+        ObjTokenizer.parseFile(filePath, new ObjTokenizer.Handler() {
+            private String currentMaterial = null;
+
+            @Override
+            public void vertex(float x, float y, float z) {
+                model.vertices.add(x, y, z);
+
+                // Update bounding box
+                model.minX = Math.min(model.minX, x);
+                model.maxX = Math.max(model.maxX, x);
+                model.minY = Math.min(model.minY, y);
+                model.maxY = Math.max(model.maxY, y);
+                model.minZ = Math.min(model.minZ, z);
+                model.maxZ = Math.max(model.maxZ, z);
+            }
+
+            @Override
+            public void normal(float x, float y, float z) {
+                model.normals.add(x, y, z);
+            }
+
+            @Override
+            public void texCoord(float u, float v) {
+                model.textureCoords.add(u, v);
+            }
+
+            @Override
+            public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+                model.faces.addFace(vertexIndices, texCoordIndices, normalIndices, count, currentMaterial);
+            }
+
+            @Override
+            public void useMaterial(String name) {
+                currentMaterial = name;
+            }
+
+            @Override
+            public void materialLibrary(String name) {
+                materialLibraries.add(name);
+            }
+        }, progress);
+
+        // Triangles only, one run per material, then drop the spare capacity
+        // left over from growing
+        model.faces = Triangulator.triangulate(model.vertices, model.faces);
+        model.faces.groupByMaterial();
+        model.faces.trimToSize();
+        model.vertices.trimToSize();
+        model.normals.trimToSize();
+        model.textureCoords.trimToSize();
+        return materialLibraries;
+    }
+
     /**
      * Loads materials for a model from MTL file
      */
@@ -2937,11 +3812,20 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                     } else if ("Ns".equals(type)) {
                         // Shininess
                         currentMaterial.shininess = Float.parseFloat(parts[1]) / 1000.0f * 128.0f;
+
+                    } else if ("d".equals(type)) {
+                        // Opacity; lighting takes its alpha from the diffuse colour
+                        currentMaterial.diffuse[3] = Float.parseFloat(parts[1]);
+
+                    } else if ("Tr".equals(type)) {
+                        // Transparency, the inverse of d
+                        currentMaterial.diffuse[3] = 1.0f - Float.parseFloat(parts[1]);
                     }
                 }
             }
 
             reader.close();
+            refreshDisplay();
 
         } catch (IOException e) {
             System.err.println("Error loading MTL file: " + e.getMessage());
@@ -3103,6 +3987,129 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * Draws frame timings over the top-left corner of the view: the last
+     * frame's stages and counters, percentiles over the stats window and a
+     * histogram of frame times from 0 to OVERLAY_HISTOGRAM_MS
+     */
+    private void renderPerformanceOverlay(GL2 gl) {
+        if (overlayText == null) {
+            overlayText = new TextRenderer(new Font("Monospaced", Font.PLAIN, 12));
+        }
+
+        String[] lines = {
+                String.format("Frame %6.2f ms  %5.1f fps", frameStats.getLastFrameMillis(),
+                        frameStats.getFramesPerSecond()),
+                String.format("  snapshot %5.2f  cull %5.2f  sort %5.2f",
+                        frameStats.getLastStageMillis(FrameStats.Stage.SNAPSHOT),
+                        frameStats.getLastStageMillis(FrameStats.Stage.CULL),
+                        frameStats.getLastStageMillis(FrameStats.Stage.SORT)),
+                String.format("  submit %5.2f  swap %5.2f",
+                        frameStats.getLastStageMillis(FrameStats.Stage.SUBMIT),
+                        frameStats.getLastStageMillis(FrameStats.Stage.SWAP)),
+                String.format("Triangles %d  draws %d  state changes %d", frameStats.getLastTriangles(),
+                        frameStats.getLastDrawCalls(), frameStats.getLastStateChanges()),
+                String.format("Last %.0f s: p50 %.2f  p95 %.2f  p99 %.2f  max %.2f ms",
+                        frameStats.getWindowSeconds(), frameStats.getPercentileMillis(0.50),
+                        frameStats.getPercentileMillis(0.95), frameStats.getPercentileMillis(0.99),
+                        frameStats.getMaxMillis())
+        };
+
+        int lineHeight = 15;
+        int left = 10;
+        int top = viewportHeight - 10;
+        int histogramHeight = 40;
+        int panelHeight = lines.length * lineHeight + histogramHeight + 20;
+        int panelWidth = 360;
+
+        // Flat 2D drawing in window pixels
+        gl.glPushAttrib(GL2.GL_ENABLE_BIT | GL2.GL_CURRENT_BIT);
+        gl.glDisable(GL2.GL_LIGHTING);
+        gl.glDisable(GL.GL_DEPTH_TEST);
+        gl.glDisable(GL2.GL_COLOR_MATERIAL);
+        gl.glEnable(GL.GL_BLEND);
+        gl.glMatrixMode(GL2.GL_PROJECTION);
+        gl.glPushMatrix();
+        gl.glLoadIdentity();
+        gl.glOrtho(0, viewportWidth, 0, viewportHeight, -1, 1);
+        gl.glMatrixMode(GL2.GL_MODELVIEW);
+        gl.glPushMatrix();
+        gl.glLoadIdentity();
+
+        gl.glColor4f(0.0f, 0.0f, 0.0f, 0.6f);
+        gl.glBegin(GL2.GL_QUADS);
+        gl.glVertex2f(left - 5, top + 5);
+        gl.glVertex2f(left + panelWidth, top + 5);
+        gl.glVertex2f(left + panelWidth, top - panelHeight);
+        gl.glVertex2f(left - 5, top - panelHeight);
+        gl.glEnd();
+
+        // Histogram bars, with frames past the budget of one refresh in red
+        int largest = frameStats.fillHistogram(overlayBins, OVERLAY_HISTOGRAM_MS);
+        float barWidth = (float) (panelWidth - 10) / overlayBins.length;
+        float baseY = top - panelHeight + 8;
+        gl.glBegin(GL2.GL_QUADS);
+        for (int b = 0; b < overlayBins.length; b++) {
+            if (overlayBins[b] == 0) {
+                continue;
+            }
+            float binMillis = (b + 0.5f) * OVERLAY_HISTOGRAM_MS / overlayBins.length;
+            if (binMillis > 1000.0f / 60) {
+                gl.glColor4f(0.9f, 0.3f, 0.2f, 0.9f);
+            } else {
+                gl.glColor4f(0.3f, 0.8f, 0.4f, 0.9f);
+            }
+            float x = left + b * barWidth;
+            float height = Math.max(1.0f, histogramHeight * (float) overlayBins[b] / largest);
+            gl.glVertex2f(x, baseY);
+            gl.glVertex2f(x + barWidth - 1, baseY);
+            gl.glVertex2f(x + barWidth - 1, baseY + height);
+            gl.glVertex2f(x, baseY + height);
+        }
+        gl.glEnd();
+
+        gl.glPopMatrix();
+        gl.glMatrixMode(GL2.GL_PROJECTION);
+        gl.glPopMatrix();
+        gl.glMatrixMode(GL2.GL_MODELVIEW);
+        gl.glPopAttrib();
+
+        overlayText.beginRendering(viewportWidth, viewportHeight);
+        overlayText.setColor(0.9f, 0.9f, 0.9f, 1.0f);
+        for (int i = 0; i < lines.length; i++) {
+            overlayText.draw(lines[i], left, top - (i + 1) * lineHeight);
+        }
+        overlayText.endRendering();
+    }
+
+    /**
+     * Saves the recorded frame timings as CSV, for attaching to bug reports
+     */
+    private void exportFrameStats() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
+
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            if (!file.getPath().toLowerCase().endsWith(".csv")) {
+                file = new File(file.getPath() + ".csv");
+            }
+
+            try (Writer out = new FileWriter(file)) {
+                frameStats.writeCsv(out);
+                JOptionPane.showMessageDialog(this,
+                        "Frame stats saved to " + file.getName(),
+                        "Frame Stats Exported", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException e) {
+                System.err.println("Error exporting frame stats: " + e.getMessage());
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                        "Error exporting frame stats: " + e.getMessage(),
+                        "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
     /**
      * Renders a 2D grid for the floor in top-down view
      */
@@ -3268,19 +4275,12 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 modelData.customColor = model.customColor;
 
                 // Save vertices, normals, texCoords
-                modelData.vertices = new ArrayList<>(model.vertices);
-                modelData.normals = new ArrayList<>(model.normals);
-                modelData.textureCoords = new ArrayList<>(model.textureCoords);
+                modelData.vertices = model.vertices.toList();
+                modelData.normals = model.normals.toList();
+                modelData.textureCoords = model.textureCoords.toList();
 
                 // Save faces
-                for (Face face : model.faces) {
-                    FaceData faceData = new FaceData();
-                    faceData.vertexIndices = face.vertexIndices.clone();
-                    faceData.normalIndices = face.normalIndices.clone();
-                    faceData.texCoordIndices = face.texCoordIndices.clone();
-                    faceData.materialName = face.materialName;
-                    modelData.faces.add(faceData);
-                }
+                modelData.faces = toFaceData(model.faces);
 
                 // Save materials
                 for (Map.Entry<String, Material> entry : model.materials.entrySet()) {
@@ -3390,14 +4390,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 model.textureCoords.addAll(modelData.textureCoords);
 
                 // Load faces
-                for (FaceData faceData : modelData.faces) {
-                    Face face = new Face(
-                            faceData.vertexIndices,
-                            faceData.texCoordIndices,
-                            faceData.normalIndices,
-                            faceData.materialName);
-                    model.faces.add(face);
-                }
+                model.faces = fromFaceData(modelData.faces, model.vertices);
 
                 // Load materials
                 for (Map.Entry<String, MaterialData> entry : modelData.materials.entrySet()) {
@@ -3423,6 +4416,10 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 modelsListModel.addElement(model.name);
             }
 
+            // Room files store every instance in full; fold copies back
+            // together and build their LODs without holding up the UI
+            buildRoomLodsInBackground(new ArrayList<>(roomModels));
+
             // Make sure room is shown
             showRoom = true;
             showRoomCheckbox.setSelected(true);
@@ -3504,6 +4501,42 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         String materialName;
     }
 
+    /**
+     * Flattens a face table into the per-face records used by saved files
+     */
+    private static List<FaceData> toFaceData(FaceTable faces) {
+        List<FaceData> faceData = new ArrayList<>(faces.getFaceCount());
+        int[] vertices = faces.getVertexIndices();
+        int[] normals = faces.getNormalIndices();
+        int[] texCoords = faces.getTexCoordIndices();
+        int[] starts = faces.getFaceStarts();
+        for (int f = 0; f < faces.getFaceCount(); f++) {
+            FaceData data = new FaceData();
+            data.vertexIndices = Arrays.copyOfRange(vertices, starts[f], starts[f + 1]);
+            data.normalIndices = Arrays.copyOfRange(normals, starts[f], starts[f + 1]);
+            data.texCoordIndices = Arrays.copyOfRange(texCoords, starts[f], starts[f + 1]);
+            data.materialName = faces.getMaterialName(faces.getFaceMaterial(f));
+            faceData.add(data);
+        }
+        return faceData;
+    }
+
+    /**
+     * Rebuilds a face table from saved per-face records, triangulating
+     * polygons saved before the loader did so
+     */
+    private static FaceTable fromFaceData(List<FaceData> faceData, FloatList vertices) {
+        FaceTable faces = new FaceTable();
+        for (FaceData data : faceData) {
+            faces.addFace(data.vertexIndices, data.texCoordIndices, data.normalIndices,
+                    data.vertexIndices.length, data.materialName);
+        }
+        faces = Triangulator.triangulate(vertices, faces);
+        faces.groupByMaterial();
+        faces.trimToSize();
+        return faces;
+    }
+
     /**
      * Serializable class for saving material data
      */
@@ -3547,13 +4580,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         model.textureCoords.addAll(textureCoords);
 
         // Copy faces
-        for (Face face : faces) {
-            int[] vertexIndices = face.vertexIndices.clone();
-            int[] normalIndices = face.normalIndices.clone();
-            int[] texCoordIndices = face.texCoordIndices.clone();
-
-            model.faces.add(new Face(vertexIndices, texCoordIndices, normalIndices, face.materialName));
-        }
+        model.faces = faces.copy();
 
         // Copy materials
         for (Map.Entry<String, Material> entry : materials.entrySet()) {
@@ -3614,8 +4641,28 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         modelList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         modelList.setSelectedIndex(0);
 
+        // Show each model's thumbnail; fixed cell sizes keep the list from
+        // asking for rows it does not show, so only visible ones are rendered
+        ThumbnailService thumbnailService = ThumbnailService.getDefault();
+        modelList.setFixedCellHeight(LIBRARY_ICON_SIZE + 6);
+        modelList.setFixedCellWidth(280);
+        modelList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                BufferedImage image = null;
+                if (index >= 0 && index < modelLibrary.size()) {
+                    image = thumbnailService.get(libraryThumbnail(modelLibrary.get(index)), list::repaint);
+                }
+                setIcon(new ThumbnailIcon(image, LIBRARY_ICON_SIZE));
+                setIconTextGap(8);
+                return this;
+            }
+        });
+
         JScrollPane scrollPane = new JScrollPane(modelList);
-        scrollPane.setPreferredSize(new Dimension(300, 200));
+        scrollPane.setPreferredSize(new Dimension(300, 300));
 
         // Create buttons
         JButton addToRoomButton = new JButton("Add to Room");
@@ -3659,35 +4706,24 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                     // Draw model statistics
                     g.setFont(new Font("SansSerif", Font.PLAIN, 12));
                     g.drawString("Vertices: " + (model.vertices.size() / 3), 10, 40);
-                    g.drawString("Faces: " + model.faces.size(), 10, 55);
-
-                    // Draw wireframe preview (simplified)
-                    g.setColor(new Color(0, 0, 150));
-                    int centerX = getWidth() / 2;
-                    int centerY = getHeight() / 2;
-
-                    // Draw a cube as placeholder
-                    int size = 50;
-                    g.drawRect(centerX - size, centerY - size, size * 2, size * 2);
-
-                    // Draw 3D cube lines (simplified)
-                    g.drawLine(centerX - size, centerY - size, centerX - size / 2, centerY - size - size / 2);
-                    g.drawLine(centerX + size, centerY - size, centerX + size + size / 2, centerY - size - size / 2);
-                    g.drawLine(centerX - size, centerY + size, centerX - size / 2, centerY + size - size / 2);
-                    g.drawLine(centerX + size, centerY + size, centerX + size + size / 2, centerY + size - size / 2);
-
-                    g.drawLine(centerX - size / 2, centerY - size - size / 2, centerX + size + size / 2,
-                            centerY - size - size / 2);
-                    g.drawLine(centerX - size / 2, centerY + size - size / 2, centerX + size + size / 2,
-                            centerY + size - size / 2);
-                    g.drawLine(centerX - size / 2, centerY - size - size / 2, centerX - size / 2,
-                            centerY + size - size / 2);
-                    g.drawLine(centerX + size + size / 2, centerY - size - size / 2, centerX + size + size / 2,
-                            centerY + size - size / 2);
+                    g.drawString("Faces: " + model.faces.getFaceCount(), 10, 55);
+
+                    // Draw the thumbnail, rendered in the background on first view
+                    ThumbnailService.Thumbnail thumbnail = libraryThumbnail(model);
+                    BufferedImage image = thumbnailService.get(thumbnail, this::repaint);
+                    int top = 65;
+                    if (image != null) {
+                        int side = Math.min(image.getWidth(), Math.min(getWidth() - 20, getHeight() - top - 10));
+                        g.drawImage(image, (getWidth() - side) / 2, top, side, side, null);
+                    } else {
+                        g.setColor(Color.GRAY);
+                        g.drawString(thumbnail.isFailed() ? "No preview available" : "Rendering preview...",
+                                10, top + 20);
+                    }
                 }
             }
         };
-        previewPanel.setPreferredSize(new Dimension(200, 200));
+        previewPanel.setPreferredSize(new Dimension(220, 240));
         previewPanel.setBorder(BorderFactory.createTitledBorder("Preview"));
 
         // Add selection listener to update preview
@@ -3739,7 +4775,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
                 if (result == JOptionPane.YES_OPTION) {
                     // Remove from library
-                    modelLibrary.remove(selectedIndex);
+                    libraryThumbnails.remove(modelLibrary.remove(selectedIndex));
                     listModel.remove(selectedIndex);
 
                     // Save updated library
@@ -3757,6 +4793,52 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         dialog.setVisible(true);
     }
 
+    /**
+     * The thumbnail of a library model, created on first use
+     */
+    private ThumbnailService.Thumbnail libraryThumbnail(Model3D model) {
+        return libraryThumbnails.computeIfAbsent(model,
+                m -> ThumbnailService.getDefault().thumbnailFor(new LibraryThumbnailSource(m)));
+    }
+
+    /**
+     * Square icon showing a thumbnail scaled down, or an empty frame while
+     * the thumbnail is not ready
+     */
+    private static class ThumbnailIcon implements Icon {
+        private final BufferedImage image;
+        private final int size;
+
+        ThumbnailIcon(BufferedImage image, int size) {
+            this.image = image;
+            this.size = size;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            if (image != null) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.drawImage(image, x, y, size, size, null);
+            } else {
+                g.setColor(new Color(240, 240, 240));
+                g.fillRect(x, y, size, size);
+                g.setColor(Color.LIGHT_GRAY);
+                g.drawRect(x, y, size - 1, size - 1);
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+
     /**
      * Loads the selected model from library into the main viewer
      */
@@ -3771,7 +4853,6 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         vertices.clear();
         normals.clear();
         textureCoords.clear();
-        faces.clear();
         materials.clear();
 
         // Copy from library model
@@ -3780,13 +4861,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
         textureCoords.addAll(libraryModel.textureCoords);
 
         // Copy faces
-        for (Face face : libraryModel.faces) {
-            int[] vertexIndices = face.vertexIndices.clone();
-            int[] normalIndices = face.normalIndices.clone();
-            int[] texCoordIndices = face.texCoordIndices.clone();
-
-            faces.add(new Face(vertexIndices, texCoordIndices, normalIndices, face.materialName));
-        }
+        faces = libraryModel.faces.copy();
 
         // Copy materials
         for (Map.Entry<String, Material> entry : libraryModel.materials.entrySet()) {
@@ -3831,45 +4906,16 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
 
         Model3D libraryModel = modelLibrary.get(index);
 
-        // Create a new model
+        // Create a new instance sharing the library model's geometry; the
+        // indexed mesh is built in the background on first use and kept
+        // with the library model for later instances
         Model3D newModel = new Model3D(libraryModel.name);
-
-        // Copy from library model
-        newModel.vertices.addAll(libraryModel.vertices);
-        newModel.normals.addAll(libraryModel.normals);
-        newModel.textureCoords.addAll(libraryModel.textureCoords);
-
-        // Copy faces
-        for (Face face : libraryModel.faces) {
-            int[] vertexIndices = face.vertexIndices.clone();
-            int[] normalIndices = face.normalIndices.clone();
-            int[] texCoordIndices = face.texCoordIndices.clone();
-
-            newModel.faces.add(new Face(vertexIndices, texCoordIndices, normalIndices, face.materialName));
+        shareGeometry(libraryModel, newModel);
+        newModel.materials = libraryModel.materials;
+        if (libraryModel.lods.isEmpty()) {
+            buildRoomLodsInBackground(Arrays.asList(libraryModel, newModel));
         }
 
-        // Copy materials
-        for (Map.Entry<String, Material> entry : libraryModel.materials.entrySet()) {
-            Material originalMat = entry.getValue();
-            Material newMat = new Material(originalMat.name);
-
-            // Copy material properties
-            System.arraycopy(originalMat.ambient, 0, newMat.ambient, 0, 4);
-            System.arraycopy(originalMat.diffuse, 0, newMat.diffuse, 0, 4);
-            System.arraycopy(originalMat.specular, 0, newMat.specular, 0, 4);
-            newMat.shininess = originalMat.shininess;
-
-            newModel.materials.put(entry.getKey(), newMat);
-        }
-
-        // Copy bounding box
-        newModel.minX = libraryModel.minX;
-        newModel.maxX = libraryModel.maxX;
-        newModel.minY = libraryModel.minY;
-        newModel.maxY = libraryModel.maxY;
-        newModel.minZ = libraryModel.minZ;
-        newModel.maxZ = libraryModel.maxZ;
-
         // Position model in room
         newModel.y = -roomHeight / 2 + 0.001f; // Place just above floor
 
@@ -3926,19 +4972,12 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 modelData.customColor = model.customColor;
 
                 // Save vertices, normals, texCoords
-                modelData.vertices = new ArrayList<>(model.vertices);
-                modelData.normals = new ArrayList<>(model.normals);
-                modelData.textureCoords = new ArrayList<>(model.textureCoords);
+                modelData.vertices = model.vertices.toList();
+                modelData.normals = model.normals.toList();
+                modelData.textureCoords = model.textureCoords.toList();
 
                 // Save faces
-                for (Face face : model.faces) {
-                    FaceData faceData = new FaceData();
-                    faceData.vertexIndices = face.vertexIndices.clone();
-                    faceData.normalIndices = face.normalIndices.clone();
-                    faceData.texCoordIndices = face.texCoordIndices.clone();
-                    faceData.materialName = face.materialName;
-                    modelData.faces.add(faceData);
-                }
+                modelData.faces = toFaceData(model.faces);
 
                 // Save materials
                 for (Map.Entry<String, Material> entry : model.materials.entrySet()) {
@@ -3978,6 +5017,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
     private void loadModelLibrary() {
         // Clear existing library
         modelLibrary.clear();
+        libraryThumbnails.clear();
 
         // Don't try to load if file doesn't exist
         if (!modelLibraryFile.exists()) {
@@ -3985,8 +5025,22 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
             return;
         }
 
+        try {
+            modelLibrary.addAll(readModelLibrary(modelLibraryFile));
+            System.out.println("Loaded " + modelLibrary.size() + " models from library");
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error loading model library: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the models of a library file written by saveModelLibrary
+     */
+    static List<Model3D> readModelLibrary(File file) throws IOException, ClassNotFoundException {
+        List<Model3D> library = new ArrayList<>();
         try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
-                new java.io.FileInputStream(modelLibraryFile))) {
+                new java.io.FileInputStream(file))) {
 
             // Read model count
             int modelCount = (Integer) in.readObject();
@@ -4013,14 +5067,7 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 model.textureCoords.addAll(modelData.textureCoords);
 
                 // Load faces
-                for (FaceData faceData : modelData.faces) {
-                    Face face = new Face(
-                            faceData.vertexIndices,
-                            faceData.texCoordIndices,
-                            faceData.normalIndices,
-                            faceData.materialName);
-                    model.faces.add(face);
-                }
+                model.faces = fromFaceData(modelData.faces, model.vertices);
 
                 // Load materials
                 for (Map.Entry<String, MaterialData> entry : modelData.materials.entrySet()) {
@@ -4042,15 +5089,10 @@ public class SoftwareRenderer extends JFrame implements GLEventListener {
                 model.maxZ = modelData.maxZ;
 
                 // Add to library
-                modelLibrary.add(model);
+                library.add(model);
             }
-
-            System.out.println("Loaded " + modelLibrary.size() + " models from library");
-
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading model library: " + e.getMessage());
-            e.printStackTrace();
         }
+        return library;
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.modelviewer;
 
 import com.jogamp.opengl.awt.GLJPanel;
+import com.modelviewer.core.ModelLoadService;
+import com.modelviewer.core.ModelLoadService.LoadTask;
+import com.modelviewer.ui.dialogs.LoadProgressDialog;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
@@ -25,7 +28,6 @@ import java.awt.event.MouseWheelListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.BorderFactory;
@@ -328,11 +330,13 @@ public class SoftwareRendererForm extends JFrame {
                 lastMouseX = e.getX();
                 lastMouseY = e.getY();
                 mouseDown = true;
+                joglIntegration.beginInteraction();
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
                 mouseDown = false;
+                joglIntegration.endInteraction();
             }
         });
         
@@ -1032,44 +1036,57 @@ public class SoftwareRendererForm extends JFrame {
         
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
-            try {
-                // Load model
-                File selectedFile = fileChooser.getSelectedFile();
-                Model3D model = OBJLoader.loadOBJModel(selectedFile.getAbsolutePath());
-                
-                // Center model at origin
-                float[] center = model.getCenter();
-                float size = model.getSize();
-                
-                // Apply initial transformation
-                model.x = 0;
-                model.y = 0;
-                model.z = 0;
-                model.rotY = 0;
-                
-                // Scale model to reasonable size
-                model.scale = 2.0f / size;
-                
-                // Update the model info
-                currentModel = model;
-                updateModelInfo.update(model);
-                
-                // Update renderer
-                joglIntegration.setCurrentModel(model);
-                
-                // Reset view
-                joglIntegration.resetView();
-                
-            } catch (IOException ex) {
-        JOptionPane.showMessageDialog(this,
-                    "Error loading model: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-                ex.printStackTrace();
-            }
+            // Load model in the background
+            File selectedFile = fileChooser.getSelectedFile();
+            LoadTask<Model3D> task = ModelLoadService.getDefault().submit(selectedFile.getName(),
+                    progress -> OBJLoader.loadOBJModel(selectedFile.getAbsolutePath(), progress),
+                    new ModelLoadService.Listener<Model3D>() {
+                        @Override
+                        public void loaded(Model3D model) {
+                            showLoadedModel(model);
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            JOptionPane.showMessageDialog(SoftwareRendererForm.this,
+                                    "Error loading model: " + ex.getMessage(),
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                            ex.printStackTrace();
+                        }
+                    });
+            LoadProgressDialog.open(this, task);
         }
     }
     
+    /**
+     * Places a model that finished loading at the origin and shows it
+     */
+    private void showLoadedModel(Model3D model) {
+        // Center model at origin
+        float[] center = model.getCenter();
+        float size = model.getSize();
+        
+        // Apply initial transformation
+        model.x = 0;
+        model.y = 0;
+        model.z = 0;
+        model.rotY = 0;
+        
+        // Scale model to reasonable size
+        model.scale = 2.0f / size;
+        
+        // Update the model info
+        currentModel = model;
+        updateModelInfo.update(model);
+        
+        // Update renderer
+        joglIntegration.setCurrentModel(model);
+        
+        // Reset view
+        joglIntegration.resetView();
+    }
+    
     /**
      * Cleans up resources when closing the application
      */
@@ -0,0 +1,100 @@
+package com.modelviewer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.modelviewer.core.ThumbnailService;
+import com.modelviewer.io.ThumbnailCache;
+
+/**
+ * Renders the thumbnail of every model in one or more model libraries into
+ * the thumbnail cache, so the library dialog can show them without
+ * rendering. Needs no display or GPU; models already in the cache are
+ * skipped, so an interrupted run can simply be started again.
+ *
+ * Usage: ThumbnailBatch [--size pixels] [--threads count] [--out directory]
+ *        [library.dat ...]
+ *
+ * The library defaults to model_library.dat, the size to the dialog's
+ * thumbnail size, the thread count to the number of processors and the
+ * output directory to the thumbnail cache directory.
+ */
+public class ThumbnailBatch {
+
+    private static final int PROGRESS_INTERVAL = 100;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        int size = ThumbnailService.DEFAULT_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThumbnailCache cache = ThumbnailCache.getDefault();
+        List<File> libraries = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--out":
+                    cache = new ThumbnailCache(new File(args[++i]));
+                    break;
+                default:
+                    libraries.add(new File(args[i]));
+            }
+        }
+        if (libraries.isEmpty()) {
+            libraries.add(new File("model_library.dat"));
+        }
+
+        ThumbnailService service = new ThumbnailService(cache, size, threads);
+        long start = System.nanoTime();
+        int rendered = 0;
+        int cached = 0;
+        int failed = 0;
+        try {
+            for (File library : libraries) {
+                List<SoftwareRenderer.Model3D> models = SoftwareRenderer.readModelLibrary(library);
+                System.out.println(library + ": " + models.size() + " models, " + threads + " threads, "
+                        + size + "x" + size + " into " + cache.getDirectory());
+
+                List<Future<Boolean>> results = new ArrayList<>(models.size());
+                for (SoftwareRenderer.Model3D model : models) {
+                    results.add(service.generate(new LibraryThumbnailSource(model)));
+                }
+                // Let the library's geometry go as soon as each thumbnail is done
+                models.clear();
+
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        if (results.get(i).get()) {
+                            rendered++;
+                        } else {
+                            cached++;
+                        }
+                    } catch (ExecutionException e) {
+                        failed++;
+                        System.err.println("Error rendering thumbnail of model " + i + ": " + e.getCause());
+                    }
+                    results.set(i, null);
+                    if ((i + 1) % PROGRESS_INTERVAL == 0) {
+                        System.out.println("  " + (i + 1) + " / " + results.size());
+                    }
+                }
+            }
+        } finally {
+            service.shutdown();
+        }
+
+        System.out.printf("%d rendered, %d already cached, %d failed in %.1f s%n",
+                rendered, cached, failed, (System.nanoTime() - start) / 1e9);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
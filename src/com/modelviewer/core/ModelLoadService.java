@@ -0,0 +1,182 @@
+package com.modelviewer.core;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import com.modelviewer.io.LoadProgress;
+
+/**
+ * Loads models off the Swing event thread.
+ *
+ * Loads run on a small fixed pool of daemon threads, so several files can
+ * load at once without competing with rendering for every core. Each load
+ * is a {@link LoadTask} that records the loader's byte-offset progress and
+ * can be cancelled at any time. The finished result is handed to the
+ * listener on the event thread, so adding it to a scene happens in one
+ * step between two frames; a cancelled load never reaches the listener.
+ */
+public final class ModelLoadService {
+
+    /**
+     * Does the actual loading on a worker thread
+     */
+    public interface Loader<T> {
+        T load(LoadProgress progress) throws Exception;
+    }
+
+    /**
+     * Receives the outcome of a load on the event thread
+     */
+    public interface Listener<T> {
+        void loaded(T result);
+
+        default void failed(Exception e) {
+            System.err.println("Error loading model: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static ModelLoadService defaultService;
+
+    private final ThreadPoolExecutor executor;
+
+    public ModelLoadService(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "model-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The shared service, with up to half the processors (at least two)
+     */
+    public static synchronized ModelLoadService getDefault() {
+        if (defaultService == null) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            defaultService = new ModelLoadService(threads);
+        }
+        return defaultService;
+    }
+
+    /**
+     * Queue a load. The listener is called on the event thread unless the
+     * task is cancelled first.
+     */
+    public <T> LoadTask<T> submit(String name, Loader<T> loader, Listener<T> listener) {
+        LoadTask<T> task = new LoadTask<>(name);
+        task.future = executor.submit(() -> task.run(loader, listener));
+        return task;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One queued or running load
+     */
+    public static final class LoadTask<T> implements LoadProgress {
+        private final String name;
+        private final AtomicLong bytesDone = new AtomicLong();
+        private volatile long bytesTotal;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Future<?> future;
+
+        private LoadTask(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBytesDone() {
+            return bytesDone.get();
+        }
+
+        public long getBytesTotal() {
+            return bytesTotal;
+        }
+
+        /**
+         * Fraction of the file read so far, 0 until the size is known
+         */
+        public double getFraction() {
+            long total = bytesTotal;
+            return total > 0 ? Math.min(1.0, (double) bytesDone.get() / total) : 0.0;
+        }
+
+        /**
+         * Stop the load; a queued task never starts and a running one stops
+         * at its next progress check. The task counts as done right away.
+         */
+        public void cancel() {
+            cancelled = true;
+            done = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * True once the task has ended, however it ended
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public void update(long done, long total) {
+            bytesTotal = total;
+            bytesDone.accumulateAndGet(done, Math::max);
+        }
+
+        private void run(Loader<T> loader, Listener<T> listener) {
+            try {
+                checkCancelled();
+                T result = loader.load(this);
+                publish(() -> listener.loaded(result));
+            } catch (CancellationException e) {
+                done = true;
+            } catch (Exception e) {
+                publish(() -> listener.failed(e));
+            } catch (OutOfMemoryError e) {
+                publish(() -> listener.failed(new Exception("Not enough memory to load " + name, e)));
+            }
+        }
+
+        /**
+         * Hand the outcome to the event thread, dropping it if the task was
+         * cancelled in the meantime
+         */
+        private void publish(Runnable outcome) {
+            SwingUtilities.invokeLater(() -> {
+                done = true;
+                if (!cancelled) {
+                    outcome.run();
+                }
+            });
+        }
+    }
+}
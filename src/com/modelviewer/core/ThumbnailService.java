@@ -0,0 +1,212 @@
+package com.modelviewer.core;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import com.modelviewer.io.ThumbnailCache;
+import com.modelviewer.render.ThumbnailRenderer;
+
+/**
+ * Produces model thumbnails off the Swing event thread.
+ *
+ * A thumbnail is read from the {@link ThumbnailCache} if it is there and
+ * otherwise rendered by a {@link ThumbnailRenderer} and written to it.
+ * Work runs on a fixed pool of low-priority daemon threads, each with its
+ * own renderer, so thumbnails of different models render in parallel and
+ * never more of them than the pool has threads.
+ *
+ * Dialogs ask for a {@link Thumbnail} when they paint it; the first request
+ * queues it and the callback runs on the event thread once the image is
+ * ready, so only thumbnails that are actually shown are ever produced.
+ * Images stay in memory for the most recently shown thumbnails only.
+ */
+public final class ThumbnailService {
+
+    /**
+     * A model to make a thumbnail of. Both methods are called on a worker
+     * thread.
+     */
+    public interface Source {
+        /**
+         * Cache key of the model, normally from {@link ThumbnailCache#key}
+         */
+        String cacheKey();
+
+        BufferedImage render(ThumbnailRenderer renderer, int size);
+    }
+
+    /** Default edge length of thumbnails in pixels */
+    public static final int DEFAULT_SIZE = 128;
+
+    /** Thumbnails kept in memory, about 64 KB each at the default size */
+    private static final int MEMORY_LIMIT = 256;
+
+    private static ThumbnailService defaultService;
+
+    private final ThreadPoolExecutor executor;
+    private final ThumbnailCache cache;
+    private final int size;
+    private final ThreadLocal<ThumbnailRenderer> renderers = ThreadLocal.withInitial(ThumbnailRenderer::new);
+
+    // Thumbnails holding an image, least recently shown first; event thread only
+    private final Map<Thumbnail, Boolean> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ThumbnailService(ThumbnailCache cache, int size, int threads) {
+        this.cache = cache;
+        this.size = size;
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The shared service, on the default cache with up to half the
+     * processors (at least two)
+     */
+    public static synchronized ThumbnailService getDefault() {
+        if (defaultService == null) {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            defaultService = new ThumbnailService(ThumbnailCache.getDefault(), DEFAULT_SIZE, threads);
+        }
+        return defaultService;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Thumbnail thumbnailFor(Source source) {
+        return new Thumbnail(source);
+    }
+
+    /**
+     * The thumbnail's image if it is ready, otherwise null. The first call
+     * for a thumbnail without an image queues it; onReady then runs on the
+     * event thread when it is ready or has failed. Event thread only.
+     */
+    public BufferedImage get(Thumbnail thumbnail, Runnable onReady) {
+        if (thumbnail.image != null) {
+            loaded.get(thumbnail);
+            return thumbnail.image;
+        }
+        if (thumbnail.pending || thumbnail.failed) {
+            return null;
+        }
+
+        thumbnail.pending = true;
+        executor.execute(() -> {
+            BufferedImage image = null;
+            try {
+                image = produce(thumbnail.source);
+            } catch (Exception | OutOfMemoryError e) {
+                System.err.println("Error rendering thumbnail: " + e.getMessage());
+                e.printStackTrace();
+            }
+            BufferedImage result = image;
+            SwingUtilities.invokeLater(() -> {
+                thumbnail.pending = false;
+                if (result == null) {
+                    thumbnail.failed = true;
+                } else {
+                    thumbnail.image = result;
+                    loaded.put(thumbnail, Boolean.TRUE);
+                    evict();
+                }
+                onReady.run();
+            });
+        });
+        return null;
+    }
+
+    /**
+     * Queue a model for the cache without keeping its image. The future
+     * yields true if the thumbnail was rendered and false if it was cached
+     * already.
+     */
+    public Future<Boolean> generate(Source source) {
+        return executor.submit(() -> {
+            String key = source.cacheKey();
+            if (cache.contains(key, size)) {
+                return Boolean.FALSE;
+            }
+            cache.store(key, source.render(renderers.get(), size));
+            return Boolean.TRUE;
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The cached thumbnail of a model, rendering and caching it on a miss.
+     * A thumbnail that cannot be cached is still returned.
+     */
+    private BufferedImage produce(Source source) {
+        String key = source.cacheKey();
+        BufferedImage image = cache.load(key, size);
+        if (image != null) {
+            return image;
+        }
+        image = source.render(renderers.get(), size);
+        try {
+            cache.store(key, image);
+        } catch (IOException e) {
+            System.err.println("Error writing thumbnail " + key + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return image;
+    }
+
+    /**
+     * Drop the images of the least recently shown thumbnails over the limit;
+     * they are read back from the cache if shown again
+     */
+    private void evict() {
+        Iterator<Thumbnail> it = loaded.keySet().iterator();
+        while (loaded.size() > MEMORY_LIMIT && it.hasNext()) {
+            it.next().image = null;
+            it.remove();
+        }
+    }
+
+    /**
+     * Thumbnail of one model, produced on first use. State changes on the
+     * event thread only.
+     */
+    public static final class Thumbnail {
+        private final Source source;
+        private BufferedImage image;
+        private boolean pending;
+        private boolean failed;
+
+        private Thumbnail(Source source) {
+            this.source = source;
+        }
+
+        /**
+         * True if the thumbnail could not be rendered; it is not retried
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
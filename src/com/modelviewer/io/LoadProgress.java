@@ -0,0 +1,31 @@
+package com.modelviewer.io;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Receives byte-offset progress from a loader and tells it when to stop.
+ * Loaders report how far into the file they are and give up with a
+ * CancellationException once the load has been cancelled.
+ */
+public interface LoadProgress {
+
+    /** Progress sink for loads nobody is watching */
+    LoadProgress NONE = new LoadProgress() {
+    };
+
+    /**
+     * Called as the loader reads; may be called from several threads
+     */
+    default void update(long bytesDone, long bytesTotal) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Load cancelled");
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.modelviewer.io;
+
+import java.io.File;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.util.FloatList;
+
+/**
+ * Binary cache of parsed OBJ meshes.
+ *
+ * After an OBJ file has been parsed its geometry, face table, material
+ * names and bounds are written to a ".mesh" snapshot in the cache
+ * directory, named after the OBJ's absolute path. The snapshot is a flat
+ * little-endian layout of the primitive arrays, so opening the same file
+ * again reads the arrays in bulk instead of tokenizing text. Entries are
+ * read with plain channel reads rather than memory-mapped, because Windows
+ * cannot delete or replace a file while a mapping of it is alive.
+ *
+ * Every snapshot records the size, modification time and CRC32C content
+ * hash of the OBJ and of each MTL file it depends on; a snapshot whose
+ * sources no longer match is deleted on lookup. The directory is kept
+ * under a size cap by evicting the least recently used snapshots, where a
+ * hit refreshes the snapshot's modification time.
+ *
+ * Defaults can be changed with the system properties modelviewer.cache.dir
+ * and modelviewer.cache.maxMB (0 disables the cache).
+ */
+public final class MeshCache {
+
+    private static final int MAGIC = 0x434d564d; // "MVMC" in little-endian order
+    private static final int VERSION = 2; // 2: faces are stored triangulated
+    private static final String SUFFIX = ".mesh";
+    /** Bytes read first to check an entry's header before reading its arrays */
+    private static final int HEADER_READ = 16 * 1024;
+
+    /** Default size cap of the cache directory */
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private static MeshCache defaultCache;
+
+    private final File directory;
+    private final long maxBytes;
+
+    public MeshCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The shared cache, configured from system properties on first use
+     */
+    public static synchronized MeshCache getDefault() {
+        if (defaultCache == null) {
+            String dir = System.getProperty("modelviewer.cache.dir",
+                    System.getProperty("user.home") + File.separator + ".modelviewer" + File.separator + "mesh-cache");
+            long maxMegabytes = Long.getLong("modelviewer.cache.maxMB", DEFAULT_MAX_BYTES >> 20);
+            defaultCache = new MeshCache(new File(dir), maxMegabytes << 20);
+        }
+        return defaultCache;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The cached mesh of an OBJ file, or null if there is none or its
+     * sources have changed since it was written
+     */
+    public Mesh load(String objPath) {
+        if (!isEnabled()) {
+            return null;
+        }
+        File objFile = new File(objPath).getAbsoluteFile();
+        File cacheFile = cacheFileFor(objFile);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try {
+            Mesh mesh;
+            try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+                mesh = read(channel, objFile);
+            }
+            if (mesh == null) {
+                cacheFile.delete();
+                return null;
+            }
+
+            // Most recently used
+            cacheFile.setLastModified(System.currentTimeMillis());
+            return mesh;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Discarding unreadable mesh cache entry " + cacheFile + ": " + e.getMessage());
+            cacheFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Write the mesh of an OBJ file to the cache. mtlPaths are the material
+     * libraries the OBJ uses; missing ones are recorded so that the entry
+     * goes stale when they appear.
+     */
+    public void store(String objPath, List<String> mtlPaths, Mesh mesh) {
+        if (!isEnabled()) {
+            return;
+        }
+        File objFile = new File(objPath).getAbsoluteFile();
+        File cacheFile = cacheFileFor(objFile);
+
+        Path temp = null;
+        try {
+            List<Source> sources = new ArrayList<>();
+            sources.add(Source.of(objFile));
+            for (String mtlPath : mtlPaths) {
+                sources.add(Source.of(new File(mtlPath).getAbsoluteFile()));
+            }
+
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+
+            // Write to a temporary file first so readers never see a partial entry
+            temp = Files.createTempFile(directory.toPath(), "mesh", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                write(channel, sources, mesh);
+            }
+            try {
+                Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+            evict();
+        } catch (IOException e) {
+            System.err.println("Error writing mesh cache entry for " + objPath + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Remove an OBJ file's entry, if there is one
+     */
+    public void invalidate(String objPath) {
+        cacheFileFor(new File(objPath).getAbsoluteFile()).delete();
+    }
+
+    /**
+     * Delete least recently used entries until the directory fits the cap
+     */
+    private synchronized void evict() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null) {
+            return;
+        }
+
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = entry.length();
+            if (entry.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private File cacheFileFor(File objFile) {
+        String key = UUID.nameUUIDFromBytes(objFile.getPath().getBytes(StandardCharsets.UTF_8)).toString();
+        return new File(directory, key + SUFFIX);
+    }
+
+    /*
+     * Layout, all little-endian and 4-byte aligned:
+     *   int magic, int version
+     *   int sourceCount, then per source: string path, long size, long mtime, long crc
+     *   float[6] bounds (min x, y, z, max x, y, z)
+     *   string list material libraries, string list material names
+     *   int vertexFloats, normalFloats, texCoordFloats, cornerCount, faceCount
+     *   float[] vertices, normals, texCoords
+     *   int[] vertexIndices, texCoordIndices, normalIndices, faceStarts (faceCount + 1), faceMaterials
+     * Strings are an int byte length followed by UTF-8 bytes padded to 4 bytes.
+     */
+
+    private static void write(FileChannel channel, List<Source> sources, Mesh mesh) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerSize(sources, mesh)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(sources.size());
+        for (Source source : sources) {
+            putString(header, source.path);
+            header.putLong(source.size);
+            header.putLong(source.modified);
+            header.putLong(source.hash);
+        }
+        for (float bound : mesh.bounds) {
+            header.putFloat(bound);
+        }
+        putStrings(header, mesh.materialLibraries);
+        putStrings(header, mesh.materialNames);
+        header.putInt(mesh.vertices.remaining());
+        header.putInt(mesh.normals.remaining());
+        header.putInt(mesh.texCoords.remaining());
+        header.putInt(mesh.vertexIndices.remaining());
+        header.putInt(mesh.faceMaterials.remaining());
+        header.flip();
+        writeFully(channel, header);
+
+        ByteBuffer scratch = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        writeFloats(channel, scratch, mesh.getVertices());
+        writeFloats(channel, scratch, mesh.getNormals());
+        writeFloats(channel, scratch, mesh.getTexCoords());
+        writeInts(channel, scratch, mesh.getVertexIndices());
+        writeInts(channel, scratch, mesh.getTexCoordIndices());
+        writeInts(channel, scratch, mesh.getNormalIndices());
+        writeInts(channel, scratch, mesh.getFaceStarts());
+        writeInts(channel, scratch, mesh.getFaceMaterials());
+    }
+
+    /**
+     * Read an entry; null if it is malformed or a source changed. The
+     * header is checked before the arrays are read, so a stale entry costs
+     * one small read.
+     */
+    private static Mesh read(FileChannel channel, File objFile) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            return read(readFully(channel, 0, (int) Math.min(size, HEADER_READ)), channel, objFile);
+        } catch (BufferUnderflowException e) {
+            // Header longer than the first read, or a truncated entry
+            return read(readFully(channel, 0, (int) size), channel, objFile);
+        }
+    }
+
+    /**
+     * Decode an entry whose first bytes are in buffer, reading the arrays
+     * from the channel if they are not all there
+     */
+    private static Mesh read(ByteBuffer buffer, FileChannel channel, File objFile) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        int sourceCount = buffer.getInt();
+        for (int i = 0; i < sourceCount; i++) {
+            String path = getString(buffer);
+            long size = buffer.getLong();
+            long modified = buffer.getLong();
+            long hash = buffer.getLong();
+
+            // The first source is the OBJ itself; a moved entry must not be reused
+            if (i == 0 && !path.equals(objFile.getPath())) {
+                return null;
+            }
+            if (!Source.matches(new File(path), size, modified, hash)) {
+                return null;
+            }
+        }
+
+        float[] bounds = new float[6];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = buffer.getFloat();
+        }
+        List<String> materialLibraries = getStrings(buffer);
+        List<String> materialNames = getStrings(buffer);
+
+        int vertexFloats = buffer.getInt();
+        int normalFloats = buffer.getInt();
+        int texCoordFloats = buffer.getInt();
+        int cornerCount = buffer.getInt();
+        int faceCount = buffer.getInt();
+
+        long payload = 4L * ((long) vertexFloats + normalFloats + texCoordFloats + 3L * cornerCount + 2L * faceCount + 1);
+        if (vertexFloats < 0 || normalFloats < 0 || texCoordFloats < 0 || cornerCount < 0 || faceCount < 0
+                || buffer.position() + payload > channel.size()) {
+            return null;
+        }
+        if (buffer.remaining() < payload) {
+            buffer = readFully(channel, buffer.position(), (int) payload);
+        }
+
+        FloatBuffer vertices = slice(buffer, vertexFloats).asFloatBuffer();
+        FloatBuffer normals = slice(buffer, normalFloats).asFloatBuffer();
+        FloatBuffer texCoords = slice(buffer, texCoordFloats).asFloatBuffer();
+        IntBuffer vertexIndices = slice(buffer, cornerCount).asIntBuffer();
+        IntBuffer texCoordIndices = slice(buffer, cornerCount).asIntBuffer();
+        IntBuffer normalIndices = slice(buffer, cornerCount).asIntBuffer();
+        IntBuffer faceStarts = slice(buffer, faceCount + 1).asIntBuffer();
+        IntBuffer faceMaterials = slice(buffer, faceCount).asIntBuffer();
+
+        return new Mesh(vertices, normals, texCoords, vertexIndices, texCoordIndices, normalIndices,
+                faceStarts, faceMaterials, materialNames, materialLibraries, bounds);
+    }
+
+    /**
+     * Read length bytes at a position into a little-endian heap buffer
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Mesh cache entry ends early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * A little-endian view of the next count 4-byte values
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        slice.limit(count * 4);
+        buffer.position(buffer.position() + count * 4);
+        return slice;
+    }
+
+    private static int headerSize(List<Source> sources, Mesh mesh) {
+        int size = 12;
+        for (Source source : sources) {
+            size += stringSize(source.path) + 24;
+        }
+        size += 6 * 4;
+        size += 4;
+        for (String library : mesh.materialLibraries) {
+            size += stringSize(library);
+        }
+        size += 4;
+        for (String name : mesh.materialNames) {
+            size += stringSize(name);
+        }
+        return size + 5 * 4;
+    }
+
+    private static int stringSize(String value) {
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        return 4 + ((length + 3) & ~3);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        for (int i = bytes.length; (i & 3) != 0; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        buffer.position(buffer.position() + (((length + 3) & ~3) - length));
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putStrings(ByteBuffer buffer, List<String> values) {
+        buffer.putInt(values.size());
+        for (String value : values) {
+            putString(buffer, value);
+        }
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+
+    private static void writeFloats(FileChannel channel, ByteBuffer scratch, FloatBuffer values) throws IOException {
+        while (values.hasRemaining()) {
+            int count = Math.min(values.remaining(), scratch.capacity() / 4);
+            FloatBuffer part = values.duplicate();
+            part.limit(part.position() + count);
+            scratch.clear();
+            scratch.asFloatBuffer().put(part);
+            scratch.limit(count * 4);
+            writeFully(channel, scratch);
+            values.position(values.position() + count);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer scratch, IntBuffer values) throws IOException {
+        while (values.hasRemaining()) {
+            int count = Math.min(values.remaining(), scratch.capacity() / 4);
+            IntBuffer part = values.duplicate();
+            part.limit(part.position() + count);
+            scratch.clear();
+            scratch.asIntBuffer().put(part);
+            scratch.limit(count * 4);
+            writeFully(channel, scratch);
+            values.position(values.position() + count);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Identity of a source file; a missing file has size -1
+     */
+    private static class Source {
+        final String path;
+        final long size;
+        final long modified;
+        final long hash;
+
+        Source(String path, long size, long modified, long hash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        static Source of(File file) throws IOException {
+            if (!file.isFile()) {
+                return new Source(file.getPath(), -1, 0, 0);
+            }
+            return new Source(file.getPath(), file.length(), file.lastModified(), contentHash(file));
+        }
+
+        /**
+         * Size and modification time are checked first so that a changed
+         * file is usually rejected without reading it
+         */
+        static boolean matches(File file, long size, long modified, long hash) throws IOException {
+            if (!file.isFile()) {
+                return size == -1;
+            }
+            return file.length() == size && file.lastModified() == modified && contentHash(file) == hash;
+        }
+
+        static long contentHash(File file) throws IOException {
+            CRC32C crc = new CRC32C();
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 20);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                while (channel.read(chunk) >= 0) {
+                    chunk.flip();
+                    crc.update(chunk);
+                    chunk.clear();
+                }
+            }
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * A parsed mesh as primitive buffers. Meshes read from the cache view
+     * the buffer the entry was read into; the copy methods produce the heap
+     * lists the viewers work with.
+     */
+    public static final class Mesh {
+        private final FloatBuffer vertices;
+        private final FloatBuffer normals;
+        private final FloatBuffer texCoords;
+        private final IntBuffer vertexIndices;
+        private final IntBuffer texCoordIndices;
+        private final IntBuffer normalIndices;
+        private final IntBuffer faceStarts;
+        private final IntBuffer faceMaterials;
+        private final List<String> materialNames;
+        private final List<String> materialLibraries;
+        private final float[] bounds;
+
+        private Mesh(FloatBuffer vertices, FloatBuffer normals, FloatBuffer texCoords,
+                IntBuffer vertexIndices, IntBuffer texCoordIndices, IntBuffer normalIndices,
+                IntBuffer faceStarts, IntBuffer faceMaterials, List<String> materialNames,
+                List<String> materialLibraries, float[] bounds) {
+            this.vertices = vertices;
+            this.normals = normals;
+            this.texCoords = texCoords;
+            this.vertexIndices = vertexIndices;
+            this.texCoordIndices = texCoordIndices;
+            this.normalIndices = normalIndices;
+            this.faceStarts = faceStarts;
+            this.faceMaterials = faceMaterials;
+            this.materialNames = materialNames;
+            this.materialLibraries = materialLibraries;
+            this.bounds = bounds;
+        }
+
+        /**
+         * Snapshot of loaded geometry; bounds are min x, y, z then max x, y, z
+         */
+        public static Mesh of(FloatList vertices, FloatList normals, FloatList texCoords, FaceTable faces,
+                List<String> materialLibraries, float[] bounds) {
+            List<String> materialNames = new ArrayList<>(faces.getMaterialCount());
+            for (int id = 0; id < faces.getMaterialCount(); id++) {
+                materialNames.add(faces.getMaterialName(id));
+            }
+            int corners = faces.getCornerCount();
+            int faceCount = faces.getFaceCount();
+            return new Mesh(vertices.asBuffer(), normals.asBuffer(), texCoords.asBuffer(),
+                    IntBuffer.wrap(faces.getVertexIndices(), 0, corners).slice(),
+                    IntBuffer.wrap(faces.getTexCoordIndices(), 0, corners).slice(),
+                    IntBuffer.wrap(faces.getNormalIndices(), 0, corners).slice(),
+                    IntBuffer.wrap(faces.getFaceStarts(), 0, faceCount + 1).slice(),
+                    IntBuffer.wrap(faces.getFaceMaterials(), 0, faceCount).slice(),
+                    materialNames, new ArrayList<>(materialLibraries), bounds.clone());
+        }
+
+        public FloatBuffer getVertices() {
+            return vertices.duplicate();
+        }
+
+        public FloatBuffer getNormals() {
+            return normals.duplicate();
+        }
+
+        public FloatBuffer getTexCoords() {
+            return texCoords.duplicate();
+        }
+
+        public IntBuffer getVertexIndices() {
+            return vertexIndices.duplicate();
+        }
+
+        public IntBuffer getTexCoordIndices() {
+            return texCoordIndices.duplicate();
+        }
+
+        public IntBuffer getNormalIndices() {
+            return normalIndices.duplicate();
+        }
+
+        public IntBuffer getFaceStarts() {
+            return faceStarts.duplicate();
+        }
+
+        public IntBuffer getFaceMaterials() {
+            return faceMaterials.duplicate();
+        }
+
+        /** Material libraries named by the OBJ's mtllib lines */
+        public List<String> getMaterialLibraries() {
+            return Collections.unmodifiableList(materialLibraries);
+        }
+
+        /** min x, y, z then max x, y, z */
+        public float[] getBounds() {
+            return bounds.clone();
+        }
+
+        public FloatList copyVertices() {
+            return copy(vertices);
+        }
+
+        public FloatList copyNormals() {
+            return copy(normals);
+        }
+
+        public FloatList copyTexCoords() {
+            return copy(texCoords);
+        }
+
+        public FaceTable copyFaces() {
+            return new FaceTable(copy(vertexIndices), copy(texCoordIndices), copy(normalIndices),
+                    copy(faceStarts), copy(faceMaterials), materialNames);
+        }
+
+        private static FloatList copy(FloatBuffer buffer) {
+            float[] values = new float[buffer.remaining()];
+            buffer.duplicate().get(values);
+            return new FloatList(values, values.length);
+        }
+
+        private static int[] copy(IntBuffer buffer) {
+            int[] values = new int[buffer.remaining()];
+            buffer.duplicate().get(values);
+            return values;
+        }
+    }
+}
@@ -4,82 +4,145 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-
-import com.modelviewer.model.Face;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.modelviewer.mesh.MeshSimplifier;
+import com.modelviewer.mesh.MeshWelder;
+import com.modelviewer.mesh.Triangulator;
+import com.modelviewer.mesh.VertexCacheOptimizer;
+import com.modelviewer.model.IndexedMesh;
 import com.modelviewer.model.Material;
 import com.modelviewer.model.Model3D;
 
 public class ModelLoader {
-    public Model3D loadObjFile(String filePath) throws IOException {
-        Model3D model = new Model3D(new File(filePath).getName());
+    private boolean weldEnabled = true;
+    private float weldEpsilon = 0.0f;
+    private boolean optimizeVertexCache = true;
+    private boolean generateLods = true;
+
+    /** Build an indexed mesh for every loaded model (on by default) */
+    public void setWeldEnabled(boolean weldEnabled) {
+        this.weldEnabled = weldEnabled;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            String currentMaterial = null;
+    public boolean isWeldEnabled() {
+        return weldEnabled;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
+    /**
+     * Distance under which positions are merged while welding; 0 merges
+     * only corners that reference identical indices
+     */
+    public void setWeldEpsilon(float weldEpsilon) {
+        this.weldEpsilon = Math.max(0.0f, weldEpsilon);
+    }
 
-                String[] parts = line.split("\\s+");
-                switch (parts[0]) {
-                    case "v": // Vertex
-                        model.getVertices().add(Float.parseFloat(parts[1]));
-                        model.getVertices().add(Float.parseFloat(parts[2]));
-                        model.getVertices().add(Float.parseFloat(parts[3]));
-                        model.updateBounds(
-                                Float.parseFloat(parts[1]),
-                                Float.parseFloat(parts[2]),
-                                Float.parseFloat(parts[3]));
-                        break;
+    public float getWeldEpsilon() {
+        return weldEpsilon;
+    }
 
-                    case "vn": // Normal
-                        model.getNormals().add(Float.parseFloat(parts[1]));
-                        model.getNormals().add(Float.parseFloat(parts[2]));
-                        model.getNormals().add(Float.parseFloat(parts[3]));
-                        break;
+    /**
+     * Reorder welded meshes for the GPU vertex cache (on by default); only
+     * applies when welding is enabled
+     */
+    public void setOptimizeVertexCache(boolean optimizeVertexCache) {
+        this.optimizeVertexCache = optimizeVertexCache;
+    }
 
-                    case "vt": // Texture coordinate
-                        model.getTextureCoords().add(Float.parseFloat(parts[1]));
-                        model.getTextureCoords().add(parts.length > 2 ? Float.parseFloat(parts[2]) : 0.0f);
-                        break;
+    public boolean isOptimizeVertexCache() {
+        return optimizeVertexCache;
+    }
+
+    /**
+     * Simplify welded meshes into a chain of levels of detail (on by
+     * default); only applies when welding is enabled
+     */
+    public void setGenerateLods(boolean generateLods) {
+        this.generateLods = generateLods;
+    }
 
-                    case "f": // Face
-                        int[] vertexIndices = new int[parts.length - 1];
-                        int[] texCoordIndices = new int[parts.length - 1];
-                        int[] normalIndices = new int[parts.length - 1];
+    public boolean isGenerateLods() {
+        return generateLods;
+    }
 
-                        for (int i = 1; i < parts.length; i++) {
-                            String[] indices = parts[i].split("/");
-                            vertexIndices[i - 1] = Integer.parseInt(indices[0]) - 1;
+    public Model3D loadObjFile(String filePath) throws IOException {
+        Model3D model = new Model3D(new File(filePath).getName());
+        List<String> materialLibraries = new ArrayList<>();
 
-                            if (indices.length > 1 && !indices[1].isEmpty()) {
-                                texCoordIndices[i - 1] = Integer.parseInt(indices[1]) - 1;
-                            }
+        ObjTokenizer.parseFile(filePath, new ObjTokenizer.Handler() {
+            private String currentMaterial = null;
 
-                            if (indices.length > 2) {
-                                normalIndices[i - 1] = Integer.parseInt(indices[2]) - 1;
-                            }
-                        }
+            @Override
+            public void vertex(float x, float y, float z) {
+                model.getVertices().add(x, y, z);
+                model.updateBounds(x, y, z);
+            }
 
-                        model.getFaces().add(new Face(vertexIndices, texCoordIndices, normalIndices, currentMaterial));
-                        break;
+            @Override
+            public void normal(float x, float y, float z) {
+                model.getNormals().add(x, y, z);
+            }
 
-                    case "mtllib": // Material library
-                        if (parts.length > 1) {
-                            String mtlPath = new File(filePath).getParent() + File.separator + parts[1];
-                            loadMtlFile(mtlPath, model);
-                        }
-                        break;
+            @Override
+            public void texCoord(float u, float v) {
+                model.getTextureCoords().add(u, v);
+            }
 
-                    case "usemtl": // Use material
-                        if (parts.length > 1) {
-                            currentMaterial = parts[1];
-                        }
-                        break;
+            @Override
+            public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+                model.getFaces().addFace(vertexIndices, texCoordIndices, normalIndices, count, currentMaterial);
+            }
+
+            @Override
+            public void useMaterial(String name) {
+                currentMaterial = name;
+            }
+
+            @Override
+            public void materialLibrary(String name) {
+                materialLibraries.add(name);
+            }
+        });
+
+        for (String library : materialLibraries) {
+            String mtlPath = new File(filePath).getParent() + File.separator + library;
+            loadMtlFile(mtlPath, model);
+        }
+
+        // Split polygons into triangles, group them by material and drop
+        // the spare capacity left over from growing
+        model.setFaces(Triangulator.triangulate(model.getVertices(), model.getFaces()));
+        model.getFaces().groupByMaterial();
+        model.getFaces().trimToSize();
+        model.getVertices().trimToSize();
+        model.getNormals().trimToSize();
+        model.getTextureCoords().trimToSize();
+
+        if (weldEnabled) {
+            IndexedMesh mesh = MeshWelder.weld(model.getVertices(), model.getNormals(),
+                    model.getTextureCoords(), model.getFaces(), weldEpsilon);
+            System.out.println("Welded " + model.getFaces().getCornerCount() + " face corners into "
+                    + mesh.getVertexCount() + " vertices (" + mesh.getTriangleCount() + " triangles)");
+
+            if (optimizeVertexCache) {
+                float before = VertexCacheOptimizer.acmr(mesh);
+                mesh = VertexCacheOptimizer.optimize(mesh);
+                System.out.println(String.format("Vertex cache ACMR %.3f -> %.3f",
+                        before, VertexCacheOptimizer.acmr(mesh)));
+            }
+            model.setIndexedMesh(mesh);
+
+            if (generateLods) {
+                long start = System.currentTimeMillis();
+                List<IndexedMesh> lods = MeshSimplifier.buildLodChain(mesh);
+                model.setLods(lods);
+                StringBuilder counts = new StringBuilder();
+                for (IndexedMesh lod : lods) {
+                    counts.append(counts.length() > 0 ? ", " : "").append(lod.getTriangleCount());
                 }
+                System.out.println("Generated " + lods.size() + " LOD levels (" + counts + " triangles) in "
+                        + (System.currentTimeMillis() - start) + " ms");
             }
         }
 
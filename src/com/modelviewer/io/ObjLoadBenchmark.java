@@ -0,0 +1,178 @@
+package com.modelviewer.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import com.modelviewer.OBJLoader;
+import com.modelviewer.TestObjects;
+
+/**
+ * Measures OBJ load throughput on scaled-up versions of the generated
+ * sphere and torus samples.
+ *
+ * "before" is the String based parsing every loader used to do
+ * (trim, split on whitespace, split on '/', Float.parseFloat), "after" is
+ * {@link ObjTokenizer}. Both feed the same counting handler, so only the
+ * tokenizing cost differs. The end-to-end OBJLoader figure is reported too.
+ * A second table shows how {@link ParallelObjParser} scales with threads.
+ *
+ * Usage: ObjLoadBenchmark [outputDir] [scale]
+ */
+public class ObjLoadBenchmark {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 7;
+
+    public static void main(String[] args) throws IOException {
+        String outputDir = args.length > 0 ? args[0] : "benchmark_samples";
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        File dir = new File(outputDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        File sphere = new File(dir, "sphere_x" + scale + ".obj");
+        File torus = new File(dir, "torus_x" + scale + ".obj");
+        if (!sphere.exists()) {
+            TestObjects.generateSphere(sphere.getAbsolutePath(), 1.0f, 32 * scale, 16 * scale);
+        }
+        if (!torus.exists()) {
+            TestObjects.generateTorus(torus.getAbsolutePath(), 1.0f, 0.3f, 48 * scale, 24 * scale);
+        }
+
+        System.out.printf("%-22s %10s %14s %14s %16s%n", "file", "size MB", "before MB/s", "after MB/s", "OBJLoader MB/s");
+        for (File file : new File[] { sphere, torus }) {
+            String path = file.getAbsolutePath();
+            double megabytes = file.length() / (1024.0 * 1024.0);
+
+            double before = megabytes / medianSeconds(() -> parseWithStrings(path, new CountingHandler()));
+            double after = megabytes / medianSeconds(() -> ObjTokenizer.parseFile(path, new CountingHandler()));
+            double loader = megabytes / medianSeconds(() -> OBJLoader.loadOBJModel(path));
+
+            System.out.printf("%-22s %10.1f %14.1f %14.1f %16.1f%n",
+                    file.getName(), megabytes, before, after, loader);
+        }
+
+        System.out.println();
+        System.out.printf("%-22s %8s %14s %10s%n", "parallel (" + torus.getName() + ")", "threads", "MB/s", "speedup");
+        String path = torus.getAbsolutePath();
+        double megabytes = torus.length() / (1024.0 * 1024.0);
+        double single = 0;
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParallelObjParser parser = new ParallelObjParser(pool, 1L << 20);
+            double throughput = megabytes / medianSeconds(() -> parser.parse(path, new CountingHandler()));
+            pool.shutdown();
+            if (threads == 1) {
+                single = throughput;
+            }
+            System.out.printf("%-22s %8d %14.1f %9.2fx%n", "", threads, throughput, throughput / single);
+        }
+        System.out.println("(" + Runtime.getRuntime().availableProcessors() + " processors available)");
+    }
+
+    private interface Run {
+        void run() throws IOException;
+    }
+
+    private static double medianSeconds(Run run) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        double[] times = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            times[i] = (System.nanoTime() - start) / 1e9;
+        }
+        Arrays.sort(times);
+        return times[MEASURED_RUNS / 2];
+    }
+
+    /**
+     * The line/String based parsing the loaders used before ObjTokenizer
+     */
+    private static void parseWithStrings(String filePath, ObjTokenizer.Handler handler) throws IOException {
+        int[] vertexIndices = new int[64];
+        int[] texCoordIndices = new int[64];
+        int[] normalIndices = new int[64];
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split("\\s+");
+                switch (parts[0]) {
+                    case "v":
+                        handler.vertex(Float.parseFloat(parts[1]), Float.parseFloat(parts[2]),
+                                Float.parseFloat(parts[3]));
+                        break;
+                    case "vn":
+                        handler.normal(Float.parseFloat(parts[1]), Float.parseFloat(parts[2]),
+                                Float.parseFloat(parts[3]));
+                        break;
+                    case "vt":
+                        handler.texCoord(Float.parseFloat(parts[1]),
+                                parts.length > 2 ? Float.parseFloat(parts[2]) : 0.0f);
+                        break;
+                    case "f":
+                        for (int i = 1; i < parts.length; i++) {
+                            String[] indices = parts[i].split("/");
+                            vertexIndices[i - 1] = Integer.parseInt(indices[0]) - 1;
+                            texCoordIndices[i - 1] = indices.length > 1 && !indices[1].isEmpty()
+                                    ? Integer.parseInt(indices[1]) - 1
+                                    : -1;
+                            normalIndices[i - 1] = indices.length > 2 ? Integer.parseInt(indices[2]) - 1 : -1;
+                        }
+                        handler.face(vertexIndices, texCoordIndices, normalIndices, parts.length - 1);
+                        break;
+                    case "usemtl":
+                        handler.useMaterial(parts[1]);
+                        break;
+                    case "mtllib":
+                        handler.materialLibrary(parts[1]);
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumes every record so the JIT cannot drop the parsing work
+     */
+    private static class CountingHandler implements ObjTokenizer.Handler {
+        private static double checksum;
+        private static long indexSum;
+
+        @Override
+        public void vertex(float x, float y, float z) {
+            checksum += x + y + z;
+        }
+
+        @Override
+        public void texCoord(float u, float v) {
+            checksum += u + v;
+        }
+
+        @Override
+        public void normal(float x, float y, float z) {
+            checksum += x + y + z;
+        }
+
+        @Override
+        public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+            for (int i = 0; i < count; i++) {
+                indexSum += vertexIndices[i] + texCoordIndices[i] + normalIndices[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.modelviewer.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte-level OBJ tokenizer shared by every OBJ loader.
+ *
+ * Records are parsed straight out of a byte window: numbers and v/vt/vn
+ * triplets are decoded in place, so the only objects created while parsing
+ * are the material names passed to {@link Handler#useMaterial} and
+ * {@link Handler#materialLibrary}.
+ */
+public final class ObjTokenizer {
+
+    /**
+     * Receives the records found by the tokenizer. Face indices are 0-based
+     * with -1 for a missing component; negative (relative) OBJ indices are
+     * already resolved.
+     */
+    public interface Handler {
+        default void vertex(float x, float y, float z) {
+        }
+
+        default void texCoord(float u, float v) {
+        }
+
+        default void normal(float x, float y, float z) {
+        }
+
+        /** The index arrays are reused between calls; copy what you keep. */
+        default void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+        }
+
+        default void useMaterial(String name) {
+        }
+
+        default void materialLibrary(String name) {
+        }
+    }
+
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Handler handler;
+    private final boolean countOnly;
+
+    // Record counts, used to resolve relative (negative) face indices
+    private int vertexCount;
+    private int texCoordCount;
+    private int normalCount;
+
+    // Reused face corner storage
+    private int[] faceVertices = new int[8];
+    private int[] faceTexCoords = new int[8];
+    private int[] faceNormals = new int[8];
+
+    // Current line
+    private byte[] buf;
+    private int pos;
+    private int end;
+
+    public ObjTokenizer(Handler handler) {
+        this(handler, false);
+    }
+
+    private ObjTokenizer(Handler handler, boolean countOnly) {
+        this.handler = handler;
+        this.countOnly = countOnly;
+    }
+
+    /**
+     * Create a tokenizer that only counts v/vt/vn records without decoding
+     * them, for sizing and index bookkeeping
+     */
+    public static ObjTokenizer counter() {
+        return new ObjTokenizer(new Handler() {
+        }, true);
+    }
+
+    /**
+     * Parse an OBJ file from disk
+     */
+    public static void parseFile(String filePath, Handler handler) throws IOException {
+        parseFile(filePath, handler, LoadProgress.NONE);
+    }
+
+    /**
+     * Parse an OBJ file from disk, reporting the bytes read to progress
+     */
+    public static void parseFile(String filePath, Handler handler, LoadProgress progress) throws IOException {
+        File file = new File(filePath);
+        try (InputStream in = new ProgressInputStream(new FileInputStream(file), file.length(), progress)) {
+            new ObjTokenizer(handler).parse(in);
+        }
+    }
+
+    /**
+     * Parse everything readable from the stream, one window at a time
+     */
+    public void parse(InputStream in) throws IOException {
+        byte[] window = new byte[WINDOW_SIZE];
+        int filled = 0;
+        int read;
+        while ((read = in.read(window, filled, window.length - filled)) != -1) {
+            filled += read;
+            if (filled == window.length) {
+                int consumed = parseCompleteLines(window, filled);
+                if (consumed == 0) {
+                    // A single line longer than the window
+                    byte[] larger = new byte[window.length * 2];
+                    System.arraycopy(window, 0, larger, 0, filled);
+                    window = larger;
+                } else {
+                    System.arraycopy(window, consumed, window, 0, filled - consumed);
+                    filled -= consumed;
+                }
+            }
+        }
+        parse(window, 0, filled);
+    }
+
+    /**
+     * Parse the remaining bytes of a buffer (heap or mapped)
+     */
+    public void parse(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int from = buffer.arrayOffset() + buffer.position();
+            parse(buffer.array(), from, from + buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        byte[] window = new byte[WINDOW_SIZE];
+        int filled = 0;
+        while (buffer.hasRemaining()) {
+            int count = Math.min(window.length - filled, buffer.remaining());
+            buffer.get(window, filled, count);
+            filled += count;
+            if (filled == window.length) {
+                int consumed = parseCompleteLines(window, filled);
+                if (consumed == 0) {
+                    byte[] larger = new byte[window.length * 2];
+                    System.arraycopy(window, 0, larger, 0, filled);
+                    window = larger;
+                } else {
+                    System.arraycopy(window, consumed, window, 0, filled - consumed);
+                    filled -= consumed;
+                }
+            }
+        }
+        parse(window, 0, filled);
+    }
+
+    /**
+     * Parse the bytes in [from, to); the last line does not need a terminator
+     */
+    public void parse(byte[] data, int from, int to) {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            parseLine(data, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Seed the record counts, so relative indices in a file fragment resolve
+     * against the records that precede it
+     */
+    public void setRecordCounts(int vertices, int texCoords, int normals) {
+        vertexCount = vertices;
+        texCoordCount = texCoords;
+        normalCount = normals;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getTexCoordCount() {
+        return texCoordCount;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    /**
+     * Parse all complete lines at the start of the window and return the
+     * number of bytes consumed
+     */
+    private int parseCompleteLines(byte[] window, int filled) {
+        int last = filled - 1;
+        while (last >= 0 && window[last] != '\n') {
+            last--;
+        }
+        if (last < 0) {
+            return 0;
+        }
+        parse(window, 0, last + 1);
+        return last + 1;
+    }
+
+    private void parseLine(byte[] data, int from, int to) {
+        buf = data;
+        pos = from;
+        end = to;
+        if (end > pos && buf[end - 1] == '\r') {
+            end--;
+        }
+
+        skipBlanks();
+        if (pos >= end) {
+            return;
+        }
+
+        byte c0 = buf[pos];
+        byte c1 = pos + 1 < end ? buf[pos + 1] : (byte) ' ';
+        if (countOnly) {
+            if (c0 == 'v') {
+                if (isBlank(c1)) {
+                    vertexCount++;
+                } else if (c1 == 't' && atKeywordEnd(2)) {
+                    texCoordCount++;
+                } else if (c1 == 'n' && atKeywordEnd(2)) {
+                    normalCount++;
+                }
+            }
+            return;
+        }
+
+        if (c0 == 'v') {
+            if (isBlank(c1)) {
+                pos += 1;
+                float x = readFloat();
+                float y = readFloat();
+                float z = readFloat();
+                vertexCount++;
+                handler.vertex(x, y, z);
+            } else if (c1 == 't' && atKeywordEnd(2)) {
+                pos += 2;
+                float u = readFloat();
+                float v = readFloat();
+                texCoordCount++;
+                handler.texCoord(u, v);
+            } else if (c1 == 'n' && atKeywordEnd(2)) {
+                pos += 2;
+                float x = readFloat();
+                float y = readFloat();
+                float z = readFloat();
+                normalCount++;
+                handler.normal(x, y, z);
+            }
+        } else if (c0 == 'f' && isBlank(c1)) {
+            pos += 1;
+            parseFace();
+        } else if (matchesKeyword("usemtl")) {
+            String name = readName();
+            if (name != null) {
+                handler.useMaterial(name);
+            }
+        } else if (matchesKeyword("mtllib")) {
+            String name = readName();
+            if (name != null) {
+                handler.materialLibrary(name);
+            }
+        }
+        // Comments and other record types are ignored
+    }
+
+    private void parseFace() {
+        int count = 0;
+        while (true) {
+            skipBlanks();
+            if (pos >= end) {
+                break;
+            }
+            if (count == faceVertices.length) {
+                faceVertices = grow(faceVertices);
+                faceTexCoords = grow(faceTexCoords);
+                faceNormals = grow(faceNormals);
+            }
+
+            int v = readIndex(vertexCount);
+            int t = -1;
+            int n = -1;
+            if (pos < end && buf[pos] == '/') {
+                pos++;
+                t = readIndex(texCoordCount);
+                if (pos < end && buf[pos] == '/') {
+                    pos++;
+                    n = readIndex(normalCount);
+                }
+            }
+
+            // Skip anything unexpected up to the next blank
+            while (pos < end && !isBlank(buf[pos])) {
+                pos++;
+            }
+
+            faceVertices[count] = v;
+            faceTexCoords[count] = t;
+            faceNormals[count] = n;
+            count++;
+        }
+
+        if (count > 0) {
+            handler.face(faceVertices, faceTexCoords, faceNormals, count);
+        }
+    }
+
+    /**
+     * Read an OBJ index and convert it to 0-based, or -1 if absent
+     */
+    private int readIndex(int recordCount) {
+        boolean negative = false;
+        if (pos < end && buf[pos] == '-') {
+            negative = true;
+            pos++;
+        }
+        int value = 0;
+        boolean any = false;
+        while (pos < end) {
+            int d = buf[pos] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            value = value * 10 + d;
+            any = true;
+            pos++;
+        }
+        if (!any || value == 0) {
+            return -1;
+        }
+        return negative ? recordCount - value : value - 1;
+    }
+
+    /**
+     * Read the next number on the line, or 0 if there is none
+     */
+    private float readFloat() {
+        skipBlanks();
+        if (pos >= end) {
+            return 0.0f;
+        }
+
+        int start = pos;
+        boolean negative = false;
+        if (buf[pos] == '-' || buf[pos] == '+') {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while (pos < end) {
+            int d = buf[pos] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            any = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+            pos++;
+        }
+        if (pos < end && buf[pos] == '.') {
+            pos++;
+            while (pos < end) {
+                int d = buf[pos] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                }
+                pos++;
+            }
+        }
+        if (any && pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (buf[pos] == '-' || buf[pos] == '+')) {
+                negativeExponent = buf[pos] == '-';
+                pos++;
+            }
+            int e = 0;
+            while (pos < end) {
+                int d = buf[pos] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                if (e < 10000) {
+                    e = e * 10 + d;
+                }
+                pos++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        boolean clean = pos >= end || isBlank(buf[pos]);
+        if (!any || !clean || digits > 15 || exponent < -22 || exponent > 22) {
+            // Rare forms (nan, inf, very long or extreme values) go through the JDK
+            return slowFloat(start);
+        }
+
+        double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        return (float) (negative ? -value : value);
+    }
+
+    private float slowFloat(int start) {
+        pos = start;
+        while (pos < end && !isBlank(buf[pos])) {
+            pos++;
+        }
+        try {
+            return Float.parseFloat(new String(buf, start, pos - start, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            return 0.0f;
+        }
+    }
+
+    private String readName() {
+        skipBlanks();
+        int start = pos;
+        while (pos < end && !isBlank(buf[pos])) {
+            pos++;
+        }
+        return pos > start ? new String(buf, start, pos - start, StandardCharsets.UTF_8) : null;
+    }
+
+    private boolean matchesKeyword(String keyword) {
+        int length = keyword.length();
+        if (pos + length > end) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[pos + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        if (!atKeywordEnd(length)) {
+            return false;
+        }
+        pos += length;
+        return true;
+    }
+
+    private boolean atKeywordEnd(int length) {
+        return pos + length >= end || isBlank(buf[pos + length]);
+    }
+
+    private void skipBlanks() {
+        while (pos < end && isBlank(buf[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isBlank(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private static int[] grow(int[] array) {
+        int[] larger = new int[array.length * 2];
+        System.arraycopy(array, 0, larger, 0, array.length);
+        return larger;
+    }
+}
@@ -0,0 +1,307 @@
+package com.modelviewer.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.modelviewer.util.ParallelUtils;
+
+/**
+ * Memory-mapped, chunk-parallel OBJ parsing.
+ *
+ * The file is split at newline boundaries into chunks that are parsed on a
+ * fork/join pool in two passes. The first pass counts the v/vt/vn records
+ * of every chunk; a prefix sum over those counts gives each chunk the
+ * number of records before it, so relative face indices resolve exactly as
+ * they would in a sequential parse. The second pass decodes every chunk
+ * into primitive arrays, which are then replayed to the handler in file
+ * order. usemtl state therefore carries across chunk borders and the
+ * handler sees the same record stream {@link ObjTokenizer#parseFile} gives.
+ */
+public final class ParallelObjParser {
+
+    /** Default chunk size; small enough to balance, large enough to amortise a task */
+    public static final long DEFAULT_CHUNK_SIZE = 8L << 20;
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public ParallelObjParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelObjParser(ForkJoinPool pool, long chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parse an OBJ file on the common pool
+     */
+    public static void parseFile(String filePath, ObjTokenizer.Handler handler) throws IOException {
+        new ParallelObjParser().parse(filePath, handler);
+    }
+
+    /**
+     * Parse an OBJ file and replay its records to the handler in file order
+     */
+    public void parse(String filePath, ObjTokenizer.Handler handler) throws IOException {
+        parse(filePath, handler, LoadProgress.NONE);
+    }
+
+    /**
+     * Parse an OBJ file, reporting progress as chunks finish decoding.
+     * Cancellation is noticed between chunks.
+     */
+    public void parse(String filePath, ObjTokenizer.Handler handler, LoadProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            long size = channel.size();
+            AtomicLong decoded = new AtomicLong();
+
+            // Pass 1: count records per chunk
+            runAll(chunks, chunk -> {
+                progress.checkCancelled();
+                ObjTokenizer counter = ObjTokenizer.counter();
+                counter.parse(chunk.buffer.duplicate());
+                chunk.vertexCount = counter.getVertexCount();
+                chunk.texCoordCount = counter.getTexCoordCount();
+                chunk.normalCount = counter.getNormalCount();
+            });
+
+            // Prefix sum: records that precede each chunk
+            int vertices = 0;
+            int texCoords = 0;
+            int normals = 0;
+            for (Chunk chunk : chunks) {
+                chunk.vertexBase = vertices;
+                chunk.texCoordBase = texCoords;
+                chunk.normalBase = normals;
+                vertices += chunk.vertexCount;
+                texCoords += chunk.texCoordCount;
+                normals += chunk.normalCount;
+            }
+
+            // Pass 2: decode every chunk with its global record offsets
+            runAll(chunks, chunk -> {
+                progress.checkCancelled();
+                chunk.records = new ChunkRecords(chunk.vertexCount, chunk.texCoordCount, chunk.normalCount);
+                ObjTokenizer tokenizer = new ObjTokenizer(chunk.records);
+                tokenizer.setRecordCounts(chunk.vertexBase, chunk.texCoordBase, chunk.normalBase);
+                tokenizer.parse(chunk.buffer.duplicate());
+                progress.update(decoded.addAndGet(chunk.buffer.capacity()), size);
+            });
+
+            // Stitch in file order
+            for (Chunk chunk : chunks) {
+                progress.checkCancelled();
+                chunk.records.replay(handler);
+                chunk.records = null;
+            }
+        }
+    }
+
+    /**
+     * Map the file as chunks that each end just after a newline
+     */
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+
+            // Move the boundary forward to the end of the current line
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            end = Math.min(end, size);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            chunks.add(new Chunk(buffer));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private interface ChunkWork {
+        void run(Chunk chunk);
+    }
+
+    private void runAll(List<Chunk> chunks, ChunkWork work) {
+        ParallelUtils.parallelFor(pool, chunks.size(), i -> work.run(chunks.get(i)));
+    }
+
+    private static class Chunk {
+        final ByteBuffer buffer;
+
+        int vertexCount;
+        int texCoordCount;
+        int normalCount;
+
+        int vertexBase;
+        int texCoordBase;
+        int normalBase;
+
+        ChunkRecords records;
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * The decoded records of one chunk, kept in primitive arrays
+     */
+    private static class ChunkRecords implements ObjTokenizer.Handler {
+        final float[] vertices;
+        final float[] texCoords;
+        final float[] normals;
+        int vertexFloats;
+        int texCoordFloats;
+        int normalFloats;
+
+        // Face corners, flattened, and the corner count of each face
+        int[] cornerVertices = new int[1024];
+        int[] cornerTexCoords = new int[1024];
+        int[] cornerNormals = new int[1024];
+        int cornerCount;
+        int[] faceSizes = new int[256];
+        int faceCount;
+
+        // usemtl/mtllib records, keyed by the number of faces read before them
+        final List<String> materialNames = new ArrayList<>();
+        final List<Integer> materialFaces = new ArrayList<>();
+        final List<String> libraries = new ArrayList<>();
+        final List<Integer> libraryFaces = new ArrayList<>();
+
+        ChunkRecords(int vertexCount, int texCoordCount, int normalCount) {
+            vertices = new float[vertexCount * 3];
+            texCoords = new float[texCoordCount * 2];
+            normals = new float[normalCount * 3];
+        }
+
+        @Override
+        public void vertex(float x, float y, float z) {
+            vertices[vertexFloats++] = x;
+            vertices[vertexFloats++] = y;
+            vertices[vertexFloats++] = z;
+        }
+
+        @Override
+        public void texCoord(float u, float v) {
+            texCoords[texCoordFloats++] = u;
+            texCoords[texCoordFloats++] = v;
+        }
+
+        @Override
+        public void normal(float x, float y, float z) {
+            normals[normalFloats++] = x;
+            normals[normalFloats++] = y;
+            normals[normalFloats++] = z;
+        }
+
+        @Override
+        public void face(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices, int count) {
+            if (cornerCount + count > cornerVertices.length) {
+                int capacity = Math.max(cornerVertices.length * 2, cornerCount + count);
+                cornerVertices = Arrays.copyOf(cornerVertices, capacity);
+                cornerTexCoords = Arrays.copyOf(cornerTexCoords, capacity);
+                cornerNormals = Arrays.copyOf(cornerNormals, capacity);
+            }
+            System.arraycopy(vertexIndices, 0, cornerVertices, cornerCount, count);
+            System.arraycopy(texCoordIndices, 0, cornerTexCoords, cornerCount, count);
+            System.arraycopy(normalIndices, 0, cornerNormals, cornerCount, count);
+            cornerCount += count;
+
+            if (faceCount == faceSizes.length) {
+                faceSizes = Arrays.copyOf(faceSizes, faceCount * 2);
+            }
+            faceSizes[faceCount++] = count;
+        }
+
+        @Override
+        public void useMaterial(String name) {
+            materialNames.add(name);
+            materialFaces.add(faceCount);
+        }
+
+        @Override
+        public void materialLibrary(String name) {
+            libraries.add(name);
+            libraryFaces.add(faceCount);
+        }
+
+        /**
+         * Hand the records to a handler. Vertex data comes first, then faces
+         * interleaved with the usemtl/mtllib records at their original place.
+         */
+        void replay(ObjTokenizer.Handler handler) {
+            for (int i = 0; i < vertexFloats; i += 3) {
+                handler.vertex(vertices[i], vertices[i + 1], vertices[i + 2]);
+            }
+            for (int i = 0; i < texCoordFloats; i += 2) {
+                handler.texCoord(texCoords[i], texCoords[i + 1]);
+            }
+            for (int i = 0; i < normalFloats; i += 3) {
+                handler.normal(normals[i], normals[i + 1], normals[i + 2]);
+            }
+
+            int maxSize = 0;
+            for (int f = 0; f < faceCount; f++) {
+                maxSize = Math.max(maxSize, faceSizes[f]);
+            }
+            int[] v = new int[maxSize];
+            int[] t = new int[maxSize];
+            int[] n = new int[maxSize];
+
+            int nextMaterial = 0;
+            int nextLibrary = 0;
+            int corner = 0;
+            for (int f = 0; f <= faceCount; f++) {
+                while (nextLibrary < libraries.size() && libraryFaces.get(nextLibrary) == f) {
+                    handler.materialLibrary(libraries.get(nextLibrary++));
+                }
+                while (nextMaterial < materialNames.size() && materialFaces.get(nextMaterial) == f) {
+                    handler.useMaterial(materialNames.get(nextMaterial++));
+                }
+                if (f == faceCount) {
+                    break;
+                }
+                int size = faceSizes[f];
+                System.arraycopy(cornerVertices, corner, v, 0, size);
+                System.arraycopy(cornerTexCoords, corner, t, 0, size);
+                System.arraycopy(cornerNormals, corner, n, 0, size);
+                corner += size;
+                handler.face(v, t, n, size);
+            }
+        }
+    }
+}
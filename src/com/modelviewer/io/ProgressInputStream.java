@@ -0,0 +1,49 @@
+package com.modelviewer.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reports the bytes read so far to a LoadProgress and stops the read once
+ * the load is cancelled
+ */
+class ProgressInputStream extends FilterInputStream {
+    private final long total;
+    private final LoadProgress progress;
+    private long done;
+
+    ProgressInputStream(InputStream in, long total, LoadProgress progress) {
+        super(in);
+        this.total = total;
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        progress.checkCancelled();
+        int b = super.read();
+        if (b != -1) {
+            progress.update(++done, total);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        progress.checkCancelled();
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            done += read;
+            progress.update(done, total);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        done += skipped;
+        return skipped;
+    }
+}
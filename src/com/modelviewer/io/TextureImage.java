@@ -0,0 +1,73 @@
+package com.modelviewer.io;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A decoded texture as tightly packed RGBA bytes, bottom row first as
+ * glTexImage2D expects. Decoding and repacking happen off the GL thread so
+ * that uploading is a single copy.
+ */
+public final class TextureImage {
+    private final int width;
+    private final int height;
+    private final ByteBuffer pixels;
+
+    private TextureImage(int width, int height, ByteBuffer pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Decode an image file with ImageIO, or return null if it cannot be read
+     */
+    public static TextureImage read(File file) {
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                System.err.println("Unsupported texture format: " + file);
+                return null;
+            }
+            return of(image);
+        } catch (IOException e) {
+            System.err.println("Error loading texture " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static TextureImage of(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        ByteBuffer pixels = ByteBuffer.allocateDirect(width * height * 4);
+        for (int y = height - 1; y >= 0; y--) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int argb : row) {
+                pixels.put((byte) (argb >> 16));
+                pixels.put((byte) (argb >> 8));
+                pixels.put((byte) argb);
+                pixels.put((byte) (argb >>> 24));
+            }
+        }
+        pixels.flip();
+        return new TextureImage(width, height, pixels);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** RGBA bytes, width * height * 4 of them */
+    public ByteBuffer getPixels() {
+        return pixels.duplicate();
+    }
+}
@@ -0,0 +1,163 @@
+package com.modelviewer.io;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+
+import javax.imageio.ImageIO;
+
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.util.FloatList;
+
+/**
+ * Directory of rendered model thumbnails as PNG files.
+ *
+ * Entries are named after a content hash of the model's geometry and
+ * colours plus the thumbnail size, not after a file name, so a model keeps
+ * its thumbnail when it is renamed or moved and two copies of the same
+ * model share one. An edited model hashes differently and simply gets a
+ * new entry; nothing is ever stale. Entries are small and are not evicted.
+ *
+ * The directory defaults to ~/.modelviewer/thumbnails and can be changed
+ * with the system property modelviewer.thumbnails.dir.
+ */
+public final class ThumbnailCache {
+
+    private static final String SUFFIX = ".png";
+
+    /** Bump when the thumbnail camera or shading changes to ignore old entries */
+    private static final int RENDER_VERSION = 1;
+
+    private static ThumbnailCache defaultCache;
+
+    private final File directory;
+
+    public ThumbnailCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The shared cache, configured from system properties on first use
+     */
+    public static synchronized ThumbnailCache getDefault() {
+        if (defaultCache == null) {
+            String dir = System.getProperty("modelviewer.thumbnails.dir",
+                    System.getProperty("user.home") + File.separator + ".modelviewer" + File.separator + "thumbnails");
+            defaultCache = new ThumbnailCache(new File(dir));
+        }
+        return defaultCache;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Content hash of a model as drawn in a thumbnail: its positions, its
+     * face corners and the RGB colour of each face. Runs over every vertex,
+     * so callers compute it off the event thread.
+     */
+    public static String key(FloatList positions, FaceTable faces, int[] faceColors) {
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C geometry = new CRC32C();
+        float[] values = positions.array();
+        for (int i = 0, count = positions.size(); i < count; i++) {
+            if (!chunk.hasRemaining()) {
+                geometry.update(chunk.flip());
+                chunk.clear();
+            }
+            chunk.putFloat(values[i]);
+        }
+        geometry.update(chunk.flip());
+
+        chunk.clear();
+        CRC32C appearance = new CRC32C();
+        int[] corners = faces.getVertexIndices();
+        int[] starts = faces.getFaceStarts();
+        int faceCount = faces.getFaceCount();
+        for (int f = 0; f < faceCount; f++) {
+            // Room for the colour, the corner count and a triangle's corners
+            if (chunk.remaining() < 5 * Integer.BYTES) {
+                appearance.update(chunk.flip());
+                chunk.clear();
+            }
+            chunk.putInt(faceColors[f]);
+            chunk.putInt(starts[f + 1] - starts[f]);
+            for (int c = starts[f]; c < starts[f + 1]; c++) {
+                if (!chunk.hasRemaining()) {
+                    appearance.update(chunk.flip());
+                    chunk.clear();
+                }
+                chunk.putInt(corners[c]);
+            }
+        }
+        appearance.update(chunk.flip());
+
+        return String.format("%08x%08x-%x-%x-v%d", geometry.getValue(), appearance.getValue(),
+                positions.size() / 3, faceCount, RENDER_VERSION);
+    }
+
+    public boolean contains(String key, int size) {
+        return fileFor(key, size).isFile();
+    }
+
+    /**
+     * The cached thumbnail, or null if there is none or it cannot be read
+     */
+    public BufferedImage load(String key, int size) {
+        File file = fileFor(key, size);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null || image.getWidth() != size || image.getHeight() != size) {
+                throw new IOException("not a " + size + "x" + size + " image");
+            }
+            return image;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Discarding unreadable thumbnail " + file + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Write a thumbnail. Safe to call from several threads, also for the
+     * same key: the last writer wins and readers never see a partial file.
+     */
+    public void store(String key, BufferedImage image) throws IOException {
+        File file = fileFor(key, image.getWidth());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+
+        Path temp = Files.createTempFile(directory.toPath(), "thumb", ".tmp");
+        try {
+            if (!ImageIO.write(image, "png", temp.toFile())) {
+                throw new IOException("No PNG writer available");
+            }
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } finally {
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    private File fileFor(String key, int size) {
+        return new File(directory, key + "-" + size + SUFFIX);
+    }
+}
@@ -0,0 +1,877 @@
+package com.modelviewer.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.modelviewer.model.IndexedMesh;
+import com.modelviewer.util.IntList;
+
+/**
+ * Edge-collapse mesh decimation with Garland-Heckbert quadric error
+ * metrics.
+ *
+ * Every vertex carries the sum of the squared distances to the planes of
+ * its triangles, and the cheapest edge under that metric is collapsed
+ * until the triangle target is met. Candidate edges live in a binary heap
+ * over primitive arrays; entries go stale instead of being updated, and
+ * are recognised by per-vertex version stamps when popped.
+ *
+ * Three kinds of edge are preserved:
+ * <ul>
+ * <li>open boundaries, and edges between two materials, only simplify by
+ * sliding along themselves, with extra planes penalising any drift;</li>
+ * <li>vertices that share a position with another vertex (texture or
+ * normal seams, which the welder splits) never move, so seams stay
+ * closed;</li>
+ * <li>non-manifold edges and feature corners never move.</li>
+ * </ul>
+ * Collapses that would fold a triangle over or break the manifold link
+ * condition are skipped.
+ */
+public final class MeshSimplifier {
+    /** LOD levels generated by default, as fractions of the full mesh */
+    public static final float[] DEFAULT_LOD_RATIOS = { 1.0f, 0.25f, 0.06f, 0.015f };
+
+    /** Levels below this many triangles are not worth a draw call of their own */
+    private static final int MIN_LOD_TRIANGLES = 64;
+    private static final double FEATURE_WEIGHT = 100.0;
+
+    private static final byte FREE = 0;
+    private static final byte FEATURE = 1;
+    private static final byte LOCKED = 2;
+
+    private final int vertexCount;
+    private final float[] data; // Interleaved vertex records, updated in place
+    private final int[] tri;
+    private final int[] triRange;
+    private final boolean[] triDead;
+    private final boolean[] vertexDead;
+    private final byte[] kind;
+    private final int[] stamp;
+    private final double[] quadric;
+
+    // Triangle corners around each vertex, as singly linked lists
+    private final int[] cornerHead;
+    private final int[] cornerNext;
+
+    // Feature edges keyed by (min << 32 | max); grows as collapses move them
+    private long[] featureKeys;
+    private int featureSize;
+
+    private final EdgeHeap heap = new EdgeHeap();
+    private final int[] mark;
+    private int markToken;
+    private int liveTriangles;
+
+    private final IndexedMesh source;
+
+    private MeshSimplifier(IndexedMesh mesh) {
+        source = mesh;
+        vertexCount = mesh.getVertexCount();
+        data = Arrays.copyOf(mesh.getVertexData(), vertexCount * IndexedMesh.STRIDE);
+        tri = mesh.getIndices().clone();
+        int triangleCount = tri.length / 3;
+        triRange = new int[triangleCount];
+        for (int r = 0; r < mesh.getRangeCount(); r++) {
+            int first = mesh.getRangeStart(r) / 3;
+            Arrays.fill(triRange, first, first + mesh.getRangeIndexCount(r) / 3, r);
+        }
+        triDead = new boolean[triangleCount];
+        vertexDead = new boolean[vertexCount];
+        kind = new byte[vertexCount];
+        stamp = new int[vertexCount];
+        quadric = new double[vertexCount * 10];
+        cornerHead = new int[vertexCount];
+        cornerNext = new int[tri.length];
+        mark = new int[vertexCount];
+        liveTriangles = triangleCount;
+    }
+
+    /**
+     * Simplify a mesh to about targetTriangles triangles. The result can
+     * keep more triangles when preserved edges leave nothing cheaper to
+     * collapse.
+     */
+    public static IndexedMesh simplify(IndexedMesh mesh, int targetTriangles) {
+        if (mesh.getTriangleCount() <= targetTriangles) {
+            return mesh;
+        }
+        MeshSimplifier simplifier = new MeshSimplifier(mesh);
+        simplifier.prepare();
+        simplifier.collapse(Math.max(targetTriangles, 1));
+        return simplifier.build();
+    }
+
+    /**
+     * Build a chain of progressively simpler meshes, one per ratio of the
+     * original triangle count; level 0 is the mesh itself. The chain stops
+     * early once a level would be tiny or barely smaller than the last.
+     */
+    public static List<IndexedMesh> buildLodChain(IndexedMesh mesh, float[] ratios) {
+        List<IndexedMesh> chain = new ArrayList<>();
+        chain.add(mesh);
+        IndexedMesh previous = mesh;
+        for (int i = 1; i < ratios.length; i++) {
+            int target = Math.round(mesh.getTriangleCount() * ratios[i]);
+            if (target < MIN_LOD_TRIANGLES) {
+                break;
+            }
+            IndexedMesh level = simplify(previous, target);
+            if (level.getTriangleCount() > previous.getTriangleCount() * 0.9f) {
+                break;
+            }
+            level = VertexCacheOptimizer.optimize(level);
+            chain.add(level);
+            previous = level;
+        }
+        return chain;
+    }
+
+    public static List<IndexedMesh> buildLodChain(IndexedMesh mesh) {
+        return buildLodChain(mesh, DEFAULT_LOD_RATIOS);
+    }
+
+    // ---- Setup ----
+
+    private void prepare() {
+        Arrays.fill(cornerHead, -1);
+        for (int c = tri.length - 1; c >= 0; c--) {
+            cornerNext[c] = cornerHead[tri[c]];
+            cornerHead[tri[c]] = c;
+        }
+        for (int t = 0; t < triDead.length; t++) {
+            int a = tri[t * 3];
+            int b = tri[t * 3 + 1];
+            int c = tri[t * 3 + 2];
+            if (a == b || b == c || a == c) {
+                triDead[t] = true;
+                liveTriangles--;
+            }
+        }
+
+        lockSharedPositions();
+        classifyEdges();
+
+        // Plane quadrics, weighted by triangle area
+        for (int t = 0; t < triDead.length; t++) {
+            if (triDead[t]) {
+                continue;
+            }
+            double[] plane = trianglePlane(t);
+            if (plane != null) {
+                for (int k = 0; k < 3; k++) {
+                    addPlane(tri[t * 3 + k], plane[0], plane[1], plane[2], plane[3], plane[4]);
+                }
+            }
+        }
+        addFeaturePlanes();
+
+        // One heap entry per edge
+        for (int v = 0; v < vertexCount; v++) {
+            pushEdges(v, true);
+        }
+    }
+
+    /**
+     * Vertices split by the welder (same position, different attributes)
+     * must move together; the simple way is not to move them at all
+     */
+    private void lockSharedPositions() {
+        int[] table = new int[MeshWelder.tableSize(vertexCount)];
+        int mask = table.length - 1;
+        for (int v = 0; v < vertexCount; v++) {
+            int base = v * IndexedMesh.STRIDE;
+            int h = Float.floatToIntBits(data[base]) * 0x9E3779B1
+                    + Float.floatToIntBits(data[base + 1]) * 0x85EBCA77
+                    + Float.floatToIntBits(data[base + 2]) * 0xC2B2AE3D;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (table[slot] != 0) {
+                int other = table[slot] - 1;
+                if (samePosition(v, other)) {
+                    kind[v] = LOCKED;
+                    kind[other] = LOCKED;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == 0) {
+                table[slot] = v + 1;
+            }
+        }
+    }
+
+    private boolean samePosition(int a, int b) {
+        int pa = a * IndexedMesh.STRIDE;
+        int pb = b * IndexedMesh.STRIDE;
+        return data[pa] == data[pb] && data[pa + 1] == data[pb + 1] && data[pa + 2] == data[pb + 2];
+    }
+
+    /**
+     * Find boundary, material-seam and non-manifold edges
+     */
+    private void classifyEdges() {
+        int capacity = MeshWelder.tableSize(tri.length);
+        long[] keys = new long[capacity];
+        int[] count = new int[capacity];
+        int[] range = new int[capacity];
+        boolean[] seam = new boolean[capacity];
+        int mask = capacity - 1;
+
+        for (int t = 0; t < triDead.length; t++) {
+            if (triDead[t]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                long key = edgeKey(tri[t * 3 + k], tri[t * 3 + (k + 1) % 3]);
+                int slot = (int) mix(key) & mask;
+                while (keys[slot] != 0 && keys[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                if (keys[slot] == 0) {
+                    keys[slot] = key;
+                    range[slot] = triRange[t];
+                } else if (range[slot] != triRange[t]) {
+                    seam[slot] = true;
+                }
+                count[slot]++;
+            }
+        }
+
+        featureKeys = new long[MeshWelder.tableSize(Math.max(16, tri.length / 4))];
+        int[] featureEdges = new int[vertexCount];
+        for (int slot = 0; slot < capacity; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            int a = (int) (keys[slot] >>> 32);
+            int b = (int) keys[slot];
+            if (count[slot] > 2) {
+                kind[a] = LOCKED;
+                kind[b] = LOCKED;
+            } else if (count[slot] == 1 || seam[slot]) {
+                addFeatureEdge(a, b);
+                featureEdges[a]++;
+                featureEdges[b]++;
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (featureEdges[v] > 2) {
+                kind[v] = LOCKED; // Corner where feature lines meet
+            } else if (featureEdges[v] > 0 && kind[v] == FREE) {
+                kind[v] = FEATURE;
+            }
+        }
+    }
+
+    /**
+     * Planes perpendicular to each feature edge's triangles keep collapses
+     * from pulling the feature line sideways
+     */
+    private void addFeaturePlanes() {
+        for (int t = 0; t < triDead.length; t++) {
+            if (triDead[t]) {
+                continue;
+            }
+            double[] plane = trianglePlane(t);
+            if (plane == null) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                int a = tri[t * 3 + k];
+                int b = tri[t * 3 + (k + 1) % 3];
+                if (!isFeatureEdge(a, b)) {
+                    continue;
+                }
+                int pa = a * IndexedMesh.STRIDE;
+                int pb = b * IndexedMesh.STRIDE;
+                double ex = data[pb] - data[pa];
+                double ey = data[pb + 1] - data[pa + 1];
+                double ez = data[pb + 2] - data[pa + 2];
+                double nx = ey * plane[2] - ez * plane[1];
+                double ny = ez * plane[0] - ex * plane[2];
+                double nz = ex * plane[1] - ey * plane[0];
+                double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length == 0) {
+                    continue;
+                }
+                nx /= length;
+                ny /= length;
+                nz /= length;
+                double d = -(nx * data[pa] + ny * data[pa + 1] + nz * data[pa + 2]);
+                double weight = FEATURE_WEIGHT * (ex * ex + ey * ey + ez * ez);
+                addPlane(a, nx, ny, nz, d, weight);
+                addPlane(b, nx, ny, nz, d, weight);
+            }
+        }
+    }
+
+    /**
+     * Unit normal, plane offset and area of a triangle, or null if it has
+     * no area
+     */
+    private double[] trianglePlane(int t) {
+        int p0 = tri[t * 3] * IndexedMesh.STRIDE;
+        int p1 = tri[t * 3 + 1] * IndexedMesh.STRIDE;
+        int p2 = tri[t * 3 + 2] * IndexedMesh.STRIDE;
+        double ux = data[p1] - data[p0];
+        double uy = data[p1 + 1] - data[p0 + 1];
+        double uz = data[p1 + 2] - data[p0 + 2];
+        double vx = data[p2] - data[p0];
+        double vy = data[p2 + 1] - data[p0 + 1];
+        double vz = data[p2 + 2] - data[p0 + 2];
+        double nx = uy * vz - uz * vy;
+        double ny = uz * vx - ux * vz;
+        double nz = ux * vy - uy * vx;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0) {
+            return null;
+        }
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        double d = -(nx * data[p0] + ny * data[p0 + 1] + nz * data[p0 + 2]);
+        return new double[] { nx, ny, nz, d, length * 0.5 };
+    }
+
+    private void addPlane(int v, double a, double b, double c, double d, double weight) {
+        int q = v * 10;
+        quadric[q] += weight * a * a;
+        quadric[q + 1] += weight * a * b;
+        quadric[q + 2] += weight * a * c;
+        quadric[q + 3] += weight * a * d;
+        quadric[q + 4] += weight * b * b;
+        quadric[q + 5] += weight * b * c;
+        quadric[q + 6] += weight * b * d;
+        quadric[q + 7] += weight * c * c;
+        quadric[q + 8] += weight * c * d;
+        quadric[q + 9] += weight * d * d;
+    }
+
+    // ---- Feature edge set ----
+
+    private static long edgeKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private void addFeatureEdge(int a, int b) {
+        if (featureSize * 2 >= featureKeys.length) {
+            long[] old = featureKeys;
+            featureKeys = new long[old.length * 2];
+            featureSize = 0;
+            for (long key : old) {
+                if (key != 0) {
+                    insertFeatureKey(key);
+                }
+            }
+        }
+        insertFeatureKey(edgeKey(a, b));
+    }
+
+    private void insertFeatureKey(long key) {
+        int mask = featureKeys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (featureKeys[slot] != 0) {
+            if (featureKeys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        featureKeys[slot] = key;
+        featureSize++;
+    }
+
+    private boolean isFeatureEdge(int a, int b) {
+        long key = edgeKey(a, b);
+        int mask = featureKeys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (featureKeys[slot] != 0) {
+            if (featureKeys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // ---- Collapse planning ----
+
+    /** Whether v may be merged into its neighbour u */
+    private boolean canRemove(int v, int u) {
+        return kind[v] == FREE || kind[v] == FEATURE && isFeatureEdge(u, v);
+    }
+
+    // Result of plan(): which vertex survives, where it goes, and the cost
+    private int planKeep;
+    private int planRemove;
+    private double planX;
+    private double planY;
+    private double planZ;
+    private double planCost;
+
+    /**
+     * Work out the cheapest allowed collapse of edge a-b; false if neither
+     * end may be removed
+     */
+    private boolean plan(int a, int b) {
+        boolean removeB = canRemove(b, a);
+        boolean removeA = canRemove(a, b);
+        if (!removeA && !removeB) {
+            return false;
+        }
+
+        // Summed quadric in a scratch slot
+        double[] m = quadric;
+        int qa = a * 10;
+        int qb = b * 10;
+        double[] q = scratchQuadric;
+        for (int i = 0; i < 10; i++) {
+            q[i] = m[qa + i] + m[qb + i];
+        }
+        int pa = a * IndexedMesh.STRIDE;
+        int pb = b * IndexedMesh.STRIDE;
+
+        if (removeA && removeB) {
+            // Both free to move: try the optimal point, then the ends and midpoint
+            planKeep = a;
+            planRemove = b;
+            double bestCost = Double.MAX_VALUE;
+            if (solveOptimal(q, pa, pb)) {
+                bestCost = scratchError(q, optimalX, optimalY, optimalZ);
+                planX = optimalX;
+                planY = optimalY;
+                planZ = optimalZ;
+            }
+            for (int i = 0; i < 3; i++) {
+                double t = i * 0.5;
+                double x = data[pa] + (data[pb] - data[pa]) * t;
+                double y = data[pa + 1] + (data[pb + 1] - data[pa + 1]) * t;
+                double z = data[pa + 2] + (data[pb + 2] - data[pa + 2]) * t;
+                double cost = scratchError(q, x, y, z);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    planX = x;
+                    planY = y;
+                    planZ = z;
+                }
+            }
+            planCost = Math.max(bestCost, 0);
+            return true;
+        }
+
+        // Otherwise the fixed end stays put
+        double costAtA = removeB ? scratchError(q, data[pa], data[pa + 1], data[pa + 2]) : Double.MAX_VALUE;
+        double costAtB = removeA ? scratchError(q, data[pb], data[pb + 1], data[pb + 2]) : Double.MAX_VALUE;
+        planKeep = costAtA <= costAtB ? a : b;
+        planRemove = planKeep == a ? b : a;
+        int pk = planKeep * IndexedMesh.STRIDE;
+        planX = data[pk];
+        planY = data[pk + 1];
+        planZ = data[pk + 2];
+        planCost = Math.max(Math.min(costAtA, costAtB), 0);
+        return true;
+    }
+
+    private final double[] scratchQuadric = new double[10];
+    private double optimalX;
+    private double optimalY;
+    private double optimalZ;
+
+    private double scratchError(double[] m, double x, double y, double z) {
+        return m[0] * x * x + 2 * m[1] * x * y + 2 * m[2] * x * z + 2 * m[3] * x
+                + m[4] * y * y + 2 * m[5] * y * z + 2 * m[6] * y
+                + m[7] * z * z + 2 * m[8] * z + m[9];
+    }
+
+    /**
+     * Minimise the quadric by solving its 3x3 system; rejects near-singular
+     * systems and solutions far from the edge
+     */
+    private boolean solveOptimal(double[] m, int pa, int pb) {
+        double a00 = m[0], a01 = m[1], a02 = m[2];
+        double a11 = m[4], a12 = m[5], a22 = m[7];
+        double b0 = -m[3], b1 = -m[6], b2 = -m[8];
+        double c00 = a11 * a22 - a12 * a12;
+        double c01 = a02 * a12 - a01 * a22;
+        double c02 = a01 * a12 - a02 * a11;
+        double det = a00 * c00 + a01 * c01 + a02 * c02;
+        double scale = a00 + a11 + a22;
+        if (Math.abs(det) <= 1e-9 * scale * scale * scale || scale == 0) {
+            return false;
+        }
+        double c11 = a00 * a22 - a02 * a02;
+        double c12 = a01 * a02 - a00 * a12;
+        double c22 = a00 * a11 - a01 * a01;
+        optimalX = (c00 * b0 + c01 * b1 + c02 * b2) / det;
+        optimalY = (c01 * b0 + c11 * b1 + c12 * b2) / det;
+        optimalZ = (c02 * b0 + c12 * b1 + c22 * b2) / det;
+
+        double mx = (data[pa] + data[pb]) * 0.5;
+        double my = (data[pa + 1] + data[pb + 1]) * 0.5;
+        double mz = (data[pa + 2] + data[pb + 2]) * 0.5;
+        double ex = data[pb] - data[pa];
+        double ey = data[pb + 1] - data[pa + 1];
+        double ez = data[pb + 2] - data[pa + 2];
+        double dx = optimalX - mx;
+        double dy = optimalY - my;
+        double dz = optimalZ - mz;
+        return dx * dx + dy * dy + dz * dz <= ex * ex + ey * ey + ez * ez;
+    }
+
+    private void pushEdges(int v, boolean lowerOnly) {
+        if (vertexDead[v]) {
+            return;
+        }
+        int token = ++markToken;
+        for (int c = cornerHead[v]; c >= 0; c = cornerNext[c]) {
+            int t = c / 3;
+            if (triDead[t]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                int u = tri[t * 3 + k];
+                // During setup every edge is seen from both ends; take it once
+                if (u == v || mark[u] == token || lowerOnly && u < v) {
+                    continue;
+                }
+                mark[u] = token;
+                if (plan(v, u)) {
+                    heap.push(planCost, v, u, stamp[v], stamp[u]);
+                }
+            }
+        }
+    }
+
+    // ---- Collapsing ----
+
+    private void collapse(int targetTriangles) {
+        while (liveTriangles > targetTriangles && heap.size() > 0) {
+            heap.pop();
+            int a = heap.topA;
+            int b = heap.topB;
+            if (vertexDead[a] || vertexDead[b] || stamp[a] != heap.topStampA || stamp[b] != heap.topStampB) {
+                continue; // Stale entry
+            }
+            if (!plan(a, b)) {
+                continue;
+            }
+            int keep = planKeep;
+            int remove = planRemove;
+            if (!linkConditionHolds(keep, remove) || flips(remove, keep) || flips(keep, remove)) {
+                continue;
+            }
+            apply(keep, remove);
+            pushEdges(keep, false);
+        }
+    }
+
+    /**
+     * The only vertices adjacent to both ends must be the third corners of
+     * the triangles on the edge, or the collapse pinches the surface
+     */
+    private boolean linkConditionHolds(int a, int b) {
+        int token = ++markToken;
+        for (int c = cornerHead[a]; c >= 0; c = cornerNext[c]) {
+            int t = c / 3;
+            if (!triDead[t]) {
+                for (int k = 0; k < 3; k++) {
+                    mark[tri[t * 3 + k]] = token;
+                }
+            }
+        }
+        int shared = 0;
+        int common = 0;
+        int commonToken = ++markToken;
+        for (int c = cornerHead[b]; c >= 0; c = cornerNext[c]) {
+            int t = c / 3;
+            if (triDead[t]) {
+                continue;
+            }
+            boolean hasA = false;
+            for (int k = 0; k < 3; k++) {
+                int u = tri[t * 3 + k];
+                if (u == a) {
+                    hasA = true;
+                } else if (u != b && mark[u] == token) {
+                    mark[u] = commonToken;
+                    common++;
+                }
+            }
+            if (hasA) {
+                shared++;
+            }
+        }
+        return common == shared;
+    }
+
+    /**
+     * Whether moving vertex v to the planned point flips or flattens any
+     * triangle around v that does not also contain other
+     */
+    private boolean flips(int v, int other) {
+        for (int c = cornerHead[v]; c >= 0; c = cornerNext[c]) {
+            int t = c / 3;
+            if (triDead[t]) {
+                continue;
+            }
+            int i0 = tri[t * 3];
+            int i1 = tri[t * 3 + 1];
+            int i2 = tri[t * 3 + 2];
+            if (i0 == other || i1 == other || i2 == other) {
+                continue;
+            }
+            double[] before = normal(i0, i1, i2, -1);
+            double[] after = normal(i0, i1, i2, v);
+            double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+            double lengthBefore = before[0] * before[0] + before[1] * before[1] + before[2] * before[2];
+            double lengthAfter = after[0] * after[0] + after[1] * after[1] + after[2] * after[2];
+            if (dot <= 0 || lengthAfter < 1e-12 * lengthBefore
+                    || dot * dot < 0.04 * lengthBefore * lengthAfter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final double[] normalScratch = new double[3];
+    private final double[] normalScratch2 = new double[3];
+
+    /** Unnormalised triangle normal, with vertex moved (if not -1) at the planned point */
+    private double[] normal(int i0, int i1, int i2, int moved) {
+        double[] out = moved < 0 ? normalScratch : normalScratch2;
+        double x0 = px(i0, moved), y0 = py(i0, moved), z0 = pz(i0, moved);
+        double ux = px(i1, moved) - x0, uy = py(i1, moved) - y0, uz = pz(i1, moved) - z0;
+        double vx = px(i2, moved) - x0, vy = py(i2, moved) - y0, vz = pz(i2, moved) - z0;
+        out[0] = uy * vz - uz * vy;
+        out[1] = uz * vx - ux * vz;
+        out[2] = ux * vy - uy * vx;
+        return out;
+    }
+
+    private double px(int v, int moved) {
+        return v == moved ? planX : data[v * IndexedMesh.STRIDE];
+    }
+
+    private double py(int v, int moved) {
+        return v == moved ? planY : data[v * IndexedMesh.STRIDE + 1];
+    }
+
+    private double pz(int v, int moved) {
+        return v == moved ? planZ : data[v * IndexedMesh.STRIDE + 2];
+    }
+
+    private void apply(int keep, int remove) {
+        int pk = keep * IndexedMesh.STRIDE;
+        int pr = remove * IndexedMesh.STRIDE;
+
+        // Attributes follow the new position along the edge when both ends
+        // were free; otherwise the kept vertex does not move
+        if (kind[keep] == FREE && kind[remove] == FREE) {
+            double ex = data[pr] - data[pk];
+            double ey = data[pr + 1] - data[pk + 1];
+            double ez = data[pr + 2] - data[pk + 2];
+            double lengthSquared = ex * ex + ey * ey + ez * ez;
+            float t = lengthSquared > 0 ? (float) Math.min(1, Math.max(0,
+                    ((planX - data[pk]) * ex + (planY - data[pk + 1]) * ey + (planZ - data[pk + 2]) * ez)
+                            / lengthSquared)) : 0;
+            for (int i = IndexedMesh.NORMAL_OFFSET; i < IndexedMesh.STRIDE; i++) {
+                data[pk + i] += (data[pr + i] - data[pk + i]) * t;
+            }
+            float nx = data[pk + IndexedMesh.NORMAL_OFFSET];
+            float ny = data[pk + IndexedMesh.NORMAL_OFFSET + 1];
+            float nz = data[pk + IndexedMesh.NORMAL_OFFSET + 2];
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                data[pk + IndexedMesh.NORMAL_OFFSET] = nx / length;
+                data[pk + IndexedMesh.NORMAL_OFFSET + 1] = ny / length;
+                data[pk + IndexedMesh.NORMAL_OFFSET + 2] = nz / length;
+            }
+        }
+        data[pk] = (float) planX;
+        data[pk + 1] = (float) planY;
+        data[pk + 2] = (float) planZ;
+        for (int i = 0; i < 10; i++) {
+            quadric[keep * 10 + i] += quadric[remove * 10 + i];
+        }
+
+        // A feature vertex sliding away hands its other feature edge over
+        if (kind[remove] == FEATURE) {
+            for (int c = cornerHead[remove]; c >= 0; c = cornerNext[c]) {
+                int t = c / 3;
+                if (triDead[t]) {
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    int u = tri[t * 3 + k];
+                    if (u != keep && u != remove && isFeatureEdge(remove, u)) {
+                        addFeatureEdge(keep, u);
+                    }
+                }
+            }
+        }
+
+        // Drop the triangles on the edge, rewire the rest to the kept vertex
+        int c = cornerHead[remove];
+        while (c >= 0) {
+            int nextCorner = cornerNext[c];
+            int t = c / 3;
+            if (!triDead[t]) {
+                if (tri[t * 3] == keep || tri[t * 3 + 1] == keep || tri[t * 3 + 2] == keep) {
+                    triDead[t] = true;
+                    liveTriangles--;
+                } else {
+                    tri[c] = keep;
+                    cornerNext[c] = cornerHead[keep];
+                    cornerHead[keep] = c;
+                }
+            }
+            c = nextCorner;
+        }
+        cornerHead[remove] = -1;
+        vertexDead[remove] = true;
+        stamp[keep]++;
+
+        // Compact the kept vertex's list so dead corners do not pile up
+        int head = -1;
+        c = cornerHead[keep];
+        while (c >= 0) {
+            int nextCorner = cornerNext[c];
+            if (!triDead[c / 3]) {
+                cornerNext[c] = head;
+                head = c;
+            }
+            c = nextCorner;
+        }
+        cornerHead[keep] = head;
+    }
+
+    // ---- Output ----
+
+    private IndexedMesh build() {
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        int used = 0;
+        IntList indices = new IntList(liveTriangles * 3);
+        List<String> rangeMaterials = new ArrayList<>();
+        IntList rangeStarts = new IntList();
+        IntList rangeCounts = new IntList();
+        float[] vertexData = new float[vertexCount * IndexedMesh.STRIDE];
+
+        for (int r = 0; r < source.getRangeCount(); r++) {
+            int start = indices.size();
+            int first = source.getRangeStart(r) / 3;
+            int last = first + source.getRangeIndexCount(r) / 3;
+            for (int t = first; t < last; t++) {
+                if (triDead[t]) {
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    int v = tri[t * 3 + k];
+                    if (remap[v] < 0) {
+                        remap[v] = used;
+                        System.arraycopy(data, v * IndexedMesh.STRIDE, vertexData, used * IndexedMesh.STRIDE,
+                                IndexedMesh.STRIDE);
+                        used++;
+                    }
+                    indices.add(remap[v]);
+                }
+            }
+            if (indices.size() > start) {
+                rangeMaterials.add(source.getRangeMaterial(r));
+                rangeStarts.add(start);
+                rangeCounts.add(indices.size() - start);
+            }
+        }
+        return new IndexedMesh(Arrays.copyOf(vertexData, used * IndexedMesh.STRIDE), used, indices.toArray(),
+                source.hasNormals(), source.hasTexCoords(), rangeMaterials, rangeStarts.toArray(),
+                rangeCounts.toArray());
+    }
+
+    /**
+     * Binary min-heap of candidate collapses in parallel primitive arrays
+     */
+    private static final class EdgeHeap {
+        private double[] cost = new double[1024];
+        private int[] vertexA = new int[1024];
+        private int[] vertexB = new int[1024];
+        private int[] stampA = new int[1024];
+        private int[] stampB = new int[1024];
+        private int size;
+
+        // The entry removed by the last pop()
+        int topA;
+        int topB;
+        int topStampA;
+        int topStampB;
+
+        int size() {
+            return size;
+        }
+
+        void push(double value, int a, int b, int sa, int sb) {
+            if (size == cost.length) {
+                int capacity = size * 2;
+                cost = Arrays.copyOf(cost, capacity);
+                vertexA = Arrays.copyOf(vertexA, capacity);
+                vertexB = Arrays.copyOf(vertexB, capacity);
+                stampA = Arrays.copyOf(stampA, capacity);
+                stampB = Arrays.copyOf(stampB, capacity);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (cost[parent] <= value) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            set(i, value, a, b, sa, sb);
+        }
+
+        void pop() {
+            topA = vertexA[0];
+            topB = vertexB[0];
+            topStampA = stampA[0];
+            topStampB = stampB[0];
+
+            int last = --size;
+            double value = cost[last];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && cost[child + 1] < cost[child]) {
+                    child++;
+                }
+                if (cost[child] >= value) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            set(i, value, vertexA[last], vertexB[last], stampA[last], stampB[last]);
+        }
+
+        private void move(int from, int to) {
+            set(to, cost[from], vertexA[from], vertexB[from], stampA[from], stampB[from]);
+        }
+
+        private void set(int i, double value, int a, int b, int sa, int sb) {
+            cost[i] = value;
+            vertexA[i] = a;
+            vertexB[i] = b;
+            stampA[i] = sa;
+            stampB[i] = sb;
+        }
+    }
+}
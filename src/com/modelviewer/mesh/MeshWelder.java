@@ -0,0 +1,270 @@
+package com.modelviewer.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.model.IndexedMesh;
+import com.modelviewer.util.FloatList;
+import com.modelviewer.util.IntList;
+
+/**
+ * Turns OBJ-style faces, whose corners index positions, texture coordinates
+ * and normals separately, into an {@link IndexedMesh}.
+ *
+ * Every distinct (position, texture coordinate, normal) triple becomes one
+ * interleaved vertex. The triples are looked up in an open-addressing hash
+ * table over int keys, so welding allocates a handful of arrays regardless
+ * of mesh size. With a positive epsilon, positions closer than epsilon are
+ * merged first, which closes the cracks scanned meshes often have between
+ * duplicated vertices.
+ */
+public final class MeshWelder {
+
+    private MeshWelder() {
+    }
+
+    public static IndexedMesh weld(FloatList positions, FloatList normals, FloatList texCoords, FaceTable faces) {
+        return weld(positions, normals, texCoords, faces, 0.0f);
+    }
+
+    public static IndexedMesh weld(FloatList positions, FloatList normals, FloatList texCoords, FaceTable faces,
+            float epsilon) {
+        int positionCount = positions.size() / 3;
+        int normalCount = normals.size() / 3;
+        int texCoordCount = texCoords.size() / 2;
+        int[] positionIds = epsilon > 0 ? weldPositions(positions.array(), positionCount, epsilon) : null;
+
+        int corners = faces.getCornerCount();
+        int[] cornerPositions = faces.getVertexIndices();
+        int[] cornerTexCoords = faces.getTexCoordIndices();
+        int[] cornerNormals = faces.getNormalIndices();
+
+        // Unique triples, and the vertex each corner maps to
+        int[] keyPositions = new int[corners];
+        int[] keyTexCoords = new int[corners];
+        int[] keyNormals = new int[corners];
+        int[] cornerVertices = new int[corners];
+        int vertexCount = 0;
+
+        int[] table = new int[tableSize(corners)];
+        int mask = table.length - 1;
+        for (int c = 0; c < corners; c++) {
+            int p = cornerPositions[c];
+            if (p < 0 || p >= positionCount) {
+                cornerVertices[c] = -1;
+                continue;
+            }
+            if (positionIds != null) {
+                p = positionIds[p];
+            }
+            int t = cornerTexCoords[c] < texCoordCount ? cornerTexCoords[c] : -1;
+            int n = cornerNormals[c] < normalCount ? cornerNormals[c] : -1;
+
+            int slot = hash(p, t, n) & mask;
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    // Empty slot: a new vertex (entries are stored as id + 1)
+                    keyPositions[vertexCount] = p;
+                    keyTexCoords[vertexCount] = t;
+                    keyNormals[vertexCount] = n;
+                    table[slot] = vertexCount + 1;
+                    cornerVertices[c] = vertexCount++;
+                    break;
+                }
+                int id = entry - 1;
+                if (keyPositions[id] == p && keyTexCoords[id] == t && keyNormals[id] == n) {
+                    cornerVertices[c] = id;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        // Interleave the vertex records
+        float[] positionData = positions.array();
+        float[] normalData = normals.array();
+        float[] texCoordData = texCoords.array();
+        float[] vertexData = new float[vertexCount * IndexedMesh.STRIDE];
+        boolean hasNormals = false;
+        boolean hasTexCoords = false;
+        for (int i = 0; i < vertexCount; i++) {
+            int base = i * IndexedMesh.STRIDE;
+            int p = keyPositions[i] * 3;
+            vertexData[base + IndexedMesh.POSITION_OFFSET] = positionData[p];
+            vertexData[base + IndexedMesh.POSITION_OFFSET + 1] = positionData[p + 1];
+            vertexData[base + IndexedMesh.POSITION_OFFSET + 2] = positionData[p + 2];
+            if (keyNormals[i] >= 0) {
+                int n = keyNormals[i] * 3;
+                vertexData[base + IndexedMesh.NORMAL_OFFSET] = normalData[n];
+                vertexData[base + IndexedMesh.NORMAL_OFFSET + 1] = normalData[n + 1];
+                vertexData[base + IndexedMesh.NORMAL_OFFSET + 2] = normalData[n + 2];
+                hasNormals = true;
+            }
+            if (keyTexCoords[i] >= 0) {
+                int t = keyTexCoords[i] * 2;
+                vertexData[base + IndexedMesh.TEXCOORD_OFFSET] = texCoordData[t];
+                vertexData[base + IndexedMesh.TEXCOORD_OFFSET + 1] = texCoordData[t + 1];
+                hasTexCoords = true;
+            }
+        }
+
+        // Split each face into triangles, one index range per material run
+        Triangulator triangulator = new Triangulator();
+        IntList triangleCorners = new IntList();
+        IntList indices = new IntList(faces.getTriangleCount() * 3);
+        List<String> rangeMaterials = new ArrayList<>();
+        IntList rangeStarts = new IntList();
+        IntList rangeCounts = new IntList();
+        int[] faceStarts = faces.getFaceStarts();
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            int start = indices.size();
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                addFace(triangulator, positionData, cornerPositions, cornerVertices, faceStarts[f],
+                        faceStarts[f + 1], triangleCorners, indices);
+            }
+            if (indices.size() > start) {
+                rangeMaterials.add(faces.getMaterialName(faces.getRunMaterial(run)));
+                rangeStarts.add(start);
+                rangeCounts.add(indices.size() - start);
+            }
+        }
+
+        return new IndexedMesh(Arrays.copyOf(vertexData, vertexCount * IndexedMesh.STRIDE), vertexCount,
+                indices.toArray(), hasNormals, hasTexCoords, rangeMaterials, rangeStarts.toArray(),
+                rangeCounts.toArray());
+    }
+
+    /**
+     * Triangulate one face into vertex indices; faces with a corner outside
+     * the position array are dropped
+     */
+    private static void addFace(Triangulator triangulator, float[] positions, int[] cornerPositions,
+            int[] cornerVertices, int start, int end, IntList triangleCorners, IntList indices) {
+        for (int c = start; c < end; c++) {
+            if (cornerVertices[c] < 0) {
+                return;
+            }
+        }
+        if (end - start == 3) {
+            indices.add(cornerVertices[start], cornerVertices[start + 1], cornerVertices[start + 2]);
+            return;
+        }
+        triangleCorners.clear();
+        triangulator.triangulate(positions, cornerPositions, start, end, triangleCorners);
+        int[] corners = triangleCorners.array();
+        for (int i = 0; i < triangleCorners.size(); i++) {
+            indices.add(cornerVertices[corners[i]]);
+        }
+    }
+
+    /**
+     * Map every position to the first earlier position within epsilon of
+     * it (or to itself), using a uniform grid with epsilon-sized cells
+     */
+    static int[] weldPositions(float[] positions, int count, float epsilon) {
+        int[] representative = new int[count];
+        float limit = epsilon * epsilon;
+        float inverse = 1.0f / epsilon;
+
+        // Open-addressing map from packed cell coordinate to the newest
+        // representative in the cell; older ones are chained through next
+        long[] cellKeys = new long[tableSize(count)];
+        int[] cellHeads = new int[cellKeys.length];
+        int mask = cellKeys.length - 1;
+        Arrays.fill(cellHeads, -1);
+        int[] next = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            float x = positions[i * 3];
+            float y = positions[i * 3 + 1];
+            float z = positions[i * 3 + 2];
+            int cx = (int) Math.floor(x * inverse);
+            int cy = (int) Math.floor(y * inverse);
+            int cz = (int) Math.floor(z * inverse);
+
+            int match = -1;
+            for (int dx = -1; dx <= 1 && match < 0; dx++) {
+                for (int dy = -1; dy <= 1 && match < 0; dy++) {
+                    for (int dz = -1; dz <= 1 && match < 0; dz++) {
+                        int slot = findCell(cellKeys, cellHeads, mask, cellKey(cx + dx, cy + dy, cz + dz));
+                        for (int j = slot >= 0 ? cellHeads[slot] : -1; j >= 0; j = next[j]) {
+                            float ex = positions[j * 3] - x;
+                            float ey = positions[j * 3 + 1] - y;
+                            float ez = positions[j * 3 + 2] - z;
+                            if (ex * ex + ey * ey + ez * ez <= limit) {
+                                match = j;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (match >= 0) {
+                representative[i] = match;
+                continue;
+            }
+            representative[i] = i;
+
+            long key = cellKey(cx, cy, cz);
+            int slot = (int) mix(key) & mask;
+            while (cellHeads[slot] >= 0 && cellKeys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            cellKeys[slot] = key;
+            next[i] = cellHeads[slot];
+            cellHeads[slot] = i;
+        }
+        return representative;
+    }
+
+    private static int findCell(long[] keys, int[] heads, int mask, long key) {
+        int slot = (int) mix(key) & mask;
+        while (heads[slot] >= 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Pack three cell coordinates into 21 bits each. Far-apart cells may
+     * share a key; that only costs a few extra distance checks.
+     */
+    private static long cellKey(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int hash(int p, int t, int n) {
+        int h = p * 0x9E3779B1 + t * 0x85EBCA77 + n * 0xC2B2AE3D;
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        h ^= h >>> 12;
+        return h;
+    }
+
+    /**
+     * Power of two at least twice the entry count, for a load factor <= 0.5
+     */
+    static int tableSize(int entries) {
+        int size = 16;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,675 @@
+package com.modelviewer.mesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.util.FloatList;
+import com.modelviewer.util.IntList;
+
+/**
+ * Splits polygons into triangles by ear clipping.
+ *
+ * Each polygon is projected onto the plane of its Newell normal, so
+ * slightly non-planar faces work as well as planar ones, and clipped in
+ * that plane. Concave and self-touching polygons are handled the way the
+ * earcut algorithm does it: when no ear is left, collinear points are
+ * filtered, local self-intersections are cut off, and as a last resort the
+ * polygon is split along a valid diagonal. Large polygons index their
+ * vertices along a z-order curve so ear tests only look at nearby points,
+ * which keeps polygons with 100k corners fast.
+ *
+ * Output triangles keep the winding of the input polygon. An instance
+ * reuses its scratch arrays and is not thread-safe.
+ */
+public final class Triangulator {
+    /** Polygons with more corners than this use the z-order index */
+    private static final int HASH_THRESHOLD = 80;
+
+    // Node pool for the circular polygon list and the z-order list; -1 is null
+    private int[] corner = new int[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int[] zs = new int[64];
+    private int[] prev = new int[64];
+    private int[] next = new int[64];
+    private int[] prevZ = new int[64];
+    private int[] nextZ = new int[64];
+    private int nodeCount;
+
+    private double minX;
+    private double minY;
+    private double invSize;
+    private boolean reversed;
+    private IntList output;
+    private int emitted;
+
+    /**
+     * Triangulate every face of a table. Triangles keep their face's
+     * texture coordinate and normal indices and material; faces referencing
+     * missing positions are dropped. Returns the table itself if it holds
+     * only triangles already.
+     */
+    public static FaceTable triangulate(FloatList positions, FaceTable faces) {
+        if (faces.getCornerCount() == faces.getFaceCount() * 3) {
+            return faces;
+        }
+
+        int faceCount = faces.getFaceCount();
+        int[] starts = faces.getFaceStarts();
+        int[] vertices = faces.getVertexIndices();
+        int[] texCoords = faces.getTexCoordIndices();
+        int[] normals = faces.getNormalIndices();
+        int[] materials = faces.getFaceMaterials();
+        float[] positionData = positions.array();
+        int positionCount = positions.size() / 3;
+
+        Triangulator triangulator = new Triangulator();
+        IntList triangleCorners = new IntList(faces.getTriangleCount() * 3);
+        IntList triangleMaterials = new IntList(faces.getTriangleCount());
+        for (int f = 0; f < faceCount; f++) {
+            if (!hasPositions(vertices, starts[f], starts[f + 1], positionCount)) {
+                continue;
+            }
+            int count = triangulator.triangulate(positionData, vertices, starts[f], starts[f + 1], triangleCorners);
+            for (int i = 0; i < count; i++) {
+                triangleMaterials.add(materials[f]);
+            }
+        }
+
+        // Gather the corner columns for the new triangles
+        int cornerCount = triangleCorners.size();
+        int[] source = triangleCorners.array();
+        int[] newVertices = new int[cornerCount];
+        int[] newTexCoords = new int[cornerCount];
+        int[] newNormals = new int[cornerCount];
+        for (int i = 0; i < cornerCount; i++) {
+            int c = source[i];
+            newVertices[i] = vertices[c];
+            newTexCoords[i] = texCoords[c];
+            newNormals[i] = normals[c];
+        }
+        int triangleCount = triangleMaterials.size();
+        int[] newStarts = new int[triangleCount + 1];
+        for (int t = 0; t <= triangleCount; t++) {
+            newStarts[t] = t * 3;
+        }
+
+        List<String> materialNames = new ArrayList<>();
+        for (int id = 0; id < faces.getMaterialCount(); id++) {
+            materialNames.add(faces.getMaterialName(id));
+        }
+        return new FaceTable(newVertices, newTexCoords, newNormals, newStarts, triangleMaterials.toArray(),
+                materialNames);
+    }
+
+    private static boolean hasPositions(int[] vertices, int start, int end, int positionCount) {
+        for (int c = start; c < end; c++) {
+            if (vertices[c] < 0 || vertices[c] >= positionCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Triangulate the polygon made of corners [start, end), whose positions
+     * are positions[cornerPositions[c] * 3 ...]. Appends three corner
+     * indices per triangle to out and returns the number of triangles.
+     */
+    public int triangulate(float[] positions, int[] cornerPositions, int start, int end, IntList out) {
+        int n = end - start;
+        if (n < 3) {
+            return 0;
+        }
+        if (n == 3) {
+            out.add(start, start + 1, start + 2);
+            return 1;
+        }
+
+        // Newell normal; its largest component picks the projection plane
+        double nx = 0;
+        double ny = 0;
+        double nz = 0;
+        for (int c = start; c < end; c++) {
+            int a = cornerPositions[c] * 3;
+            int b = cornerPositions[c + 1 < end ? c + 1 : start] * 3;
+            nx += (positions[a + 1] - positions[b + 1]) * (positions[a + 2] + positions[b + 2]);
+            ny += (positions[a + 2] - positions[b + 2]) * (positions[a] + positions[b]);
+            nz += (positions[a] - positions[b]) * (positions[a + 1] + positions[b + 1]);
+        }
+        double ax = Math.abs(nx);
+        double ay = Math.abs(ny);
+        double az = Math.abs(nz);
+        if (ax + ay + az == 0) {
+            // Degenerate polygon with no area, nothing sensible to clip
+            return fan(start, end, out);
+        }
+        int u = ax > ay && ax > az ? 1 : ay > az ? 2 : 0;
+        int v = ax > ay && ax > az ? 2 : ay > az ? 0 : 1;
+
+        if (n == 4) {
+            return quad(positions, cornerPositions, start, u, v, out);
+        }
+
+        output = out;
+        emitted = 0;
+        nodeCount = 0;
+        ensureCapacity(n * 2);
+        int outer = linkedList(positions, cornerPositions, start, end, u, v);
+        if (outer >= 0 && next[outer] != prev[outer]) {
+            invSize = 0;
+            if (n > HASH_THRESHOLD) {
+                minX = Double.MAX_VALUE;
+                minY = Double.MAX_VALUE;
+                double maxX = -Double.MAX_VALUE;
+                double maxY = -Double.MAX_VALUE;
+                for (int i = 0; i < nodeCount; i++) {
+                    minX = Math.min(minX, xs[i]);
+                    minY = Math.min(minY, ys[i]);
+                    maxX = Math.max(maxX, xs[i]);
+                    maxY = Math.max(maxY, ys[i]);
+                }
+                double size = Math.max(maxX - minX, maxY - minY);
+                invSize = size != 0 ? 32767 / size : 0;
+            }
+            earcutLinked(outer, 0);
+        }
+        output = null;
+
+        if (emitted == 0) {
+            return fan(start, end, out);
+        }
+        return emitted;
+    }
+
+    private static int fan(int start, int end, IntList out) {
+        for (int c = start + 1; c < end - 1; c++) {
+            out.add(start, c, c + 1);
+        }
+        return end - start - 2;
+    }
+
+    /**
+     * Split a quad along whichever diagonal lies inside it
+     */
+    private static int quad(float[] positions, int[] cornerPositions, int start, int u, int v, IntList out) {
+        int p0 = cornerPositions[start] * 3;
+        int p1 = cornerPositions[start + 1] * 3;
+        int p2 = cornerPositions[start + 2] * 3;
+        int p3 = cornerPositions[start + 3] * 3;
+        // The 0-2 diagonal is inside unless the two halves wind in opposite directions
+        double first = cross(positions, p0, p1, p2, u, v);
+        double second = cross(positions, p0, p2, p3, u, v);
+        if (first * second >= 0) {
+            out.add(start, start + 1, start + 2);
+            out.add(start, start + 2, start + 3);
+        } else {
+            out.add(start, start + 1, start + 3);
+            out.add(start + 1, start + 2, start + 3);
+        }
+        return 2;
+    }
+
+    private static double cross(float[] positions, int a, int b, int c, int u, int v) {
+        return ((double) positions[b + u] - positions[a + u]) * ((double) positions[c + v] - positions[a + v])
+                - ((double) positions[b + v] - positions[a + v]) * ((double) positions[c + u] - positions[a + u]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= corner.length) {
+            return;
+        }
+        int size = Math.max(capacity, corner.length * 2);
+        corner = Arrays.copyOf(corner, size);
+        xs = Arrays.copyOf(xs, size);
+        ys = Arrays.copyOf(ys, size);
+        zs = Arrays.copyOf(zs, size);
+        prev = Arrays.copyOf(prev, size);
+        next = Arrays.copyOf(next, size);
+        prevZ = Arrays.copyOf(prevZ, size);
+        nextZ = Arrays.copyOf(nextZ, size);
+    }
+
+    /**
+     * Build the circular list in clockwise order, remembering whether that
+     * reversed the input
+     */
+    private int linkedList(float[] positions, int[] cornerPositions, int start, int end, int u, int v) {
+        double area = 0;
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            int a = cornerPositions[i] * 3;
+            int b = cornerPositions[j] * 3;
+            area += ((double) positions[b + u] - positions[a + u]) * ((double) positions[a + v] + positions[b + v]);
+        }
+        reversed = area <= 0;
+
+        int last = -1;
+        for (int k = 0; k < end - start; k++) {
+            int c = reversed ? end - 1 - k : start + k;
+            int p = cornerPositions[c] * 3;
+            last = insertNode(c, positions[p + u], positions[p + v], last);
+        }
+        if (last >= 0 && equals(last, next[last])) {
+            removeNode(last);
+            last = next[last];
+        }
+        return last;
+    }
+
+    private void earcutLinked(int ear, int pass) {
+        if (ear < 0) {
+            return;
+        }
+        if (pass == 0 && invSize != 0) {
+            indexCurve(ear);
+        }
+
+        int stop = ear;
+        while (prev[ear] != next[ear]) {
+            int p = prev[ear];
+            int q = next[ear];
+            if (invSize != 0 && (equals(ear, q) || area(p, ear, q) == 0)) {
+                // Clipping a large polygon can leave long collinear chains;
+                // drop them as they appear rather than walking them once
+                // per ear. Small polygons keep them to avoid T-junctions.
+                removeNode(ear);
+                ear = q;
+                stop = q;
+                continue;
+            }
+            if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+                emit(p, ear, q);
+                removeNode(ear);
+                // Skipping the next vertex leads to fewer sliver triangles
+                ear = next[q];
+                stop = next[q];
+                continue;
+            }
+            ear = q;
+
+            if (ear == stop) {
+                // No ear found in a full pass; clean up and try harder
+                if (pass == 0) {
+                    earcutLinked(filterPoints(ear, -1), 1);
+                } else if (pass == 1) {
+                    earcutLinked(cureLocalIntersections(filterPoints(ear, -1)), 2);
+                } else {
+                    splitEarcut(ear);
+                }
+                break;
+            }
+        }
+    }
+
+    private void emit(int a, int b, int c) {
+        if (reversed) {
+            output.add(corner[c], corner[b], corner[a]);
+        } else {
+            output.add(corner[a], corner[b], corner[c]);
+        }
+        emitted++;
+    }
+
+    private boolean isEar(int ear) {
+        int a = prev[ear];
+        int b = ear;
+        int c = next[ear];
+        if (area(a, b, c) >= 0) {
+            return false; // reflex
+        }
+        double x0 = Math.min(xs[a], Math.min(xs[b], xs[c]));
+        double y0 = Math.min(ys[a], Math.min(ys[b], ys[c]));
+        double x1 = Math.max(xs[a], Math.max(xs[b], xs[c]));
+        double y1 = Math.max(ys[a], Math.max(ys[b], ys[c]));
+
+        for (int p = next[c]; p != a; p = next[p]) {
+            if (blocksEar(p, a, b, c, x0, y0, x1, y1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEarHashed(int ear) {
+        int a = prev[ear];
+        int b = ear;
+        int c = next[ear];
+        if (area(a, b, c) >= 0) {
+            return false; // reflex
+        }
+        double x0 = Math.min(xs[a], Math.min(xs[b], xs[c]));
+        double y0 = Math.min(ys[a], Math.min(ys[b], ys[c]));
+        double x1 = Math.max(xs[a], Math.max(xs[b], xs[c]));
+        double y1 = Math.max(ys[a], Math.max(ys[b], ys[c]));
+        int minZ = zOrder(x0, y0);
+        int maxZ = zOrder(x1, y1);
+
+        // Walk the z-order list outwards from the ear in both directions
+        int p = prevZ[ear];
+        int q = nextZ[ear];
+        while (p >= 0 && zs[p] >= minZ && q >= 0 && zs[q] <= maxZ) {
+            if (p != a && p != c && blocksEar(p, a, b, c, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = prevZ[p];
+            if (q != a && q != c && blocksEar(q, a, b, c, x0, y0, x1, y1)) {
+                return false;
+            }
+            q = nextZ[q];
+        }
+        while (p >= 0 && zs[p] >= minZ) {
+            if (p != a && p != c && blocksEar(p, a, b, c, x0, y0, x1, y1)) {
+                return false;
+            }
+            p = prevZ[p];
+        }
+        while (q >= 0 && zs[q] <= maxZ) {
+            if (q != a && q != c && blocksEar(q, a, b, c, x0, y0, x1, y1)) {
+                return false;
+            }
+            q = nextZ[q];
+        }
+        return true;
+    }
+
+    /** A reflex point inside the candidate ear a-b-c */
+    private boolean blocksEar(int p, int a, int b, int c, double x0, double y0, double x1, double y1) {
+        return xs[p] >= x0 && xs[p] <= x1 && ys[p] >= y0 && ys[p] <= y1
+                && pointInTriangle(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c], xs[p], ys[p])
+                && area(prev[p], p, next[p]) >= 0;
+    }
+
+    /**
+     * Cut off triangles where two neighbouring edges cross
+     */
+    private int cureLocalIntersections(int start) {
+        int p = start;
+        do {
+            int a = prev[p];
+            int b = next[next[p]];
+            if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+                emit(a, p, b);
+                removeNode(p);
+                removeNode(next[p]);
+                p = b;
+                start = b;
+            }
+            p = next[p];
+        } while (p != start);
+        return filterPoints(p, -1);
+    }
+
+    /**
+     * Split the polygon along a valid diagonal and clip both halves
+     */
+    private void splitEarcut(int start) {
+        int a = start;
+        do {
+            int b = next[next[a]];
+            while (b != prev[a]) {
+                if (corner[a] != corner[b] && isValidDiagonal(a, b)) {
+                    int c = splitPolygon(a, b);
+                    a = filterPoints(a, next[a]);
+                    c = filterPoints(c, next[c]);
+                    earcutLinked(a, 0);
+                    earcutLinked(c, 0);
+                    return;
+                }
+                b = next[b];
+            }
+            a = next[a];
+        } while (a != start);
+    }
+
+    /**
+     * Remove duplicate and collinear points
+     */
+    private int filterPoints(int start, int end) {
+        if (start < 0) {
+            return start;
+        }
+        if (end < 0) {
+            end = start;
+        }
+        int p = start;
+        boolean again;
+        do {
+            again = false;
+            if (equals(p, next[p]) || area(prev[p], p, next[p]) == 0) {
+                removeNode(p);
+                p = prev[p];
+                end = p;
+                if (p == next[p]) {
+                    break;
+                }
+                again = true;
+            } else {
+                p = next[p];
+            }
+        } while (again || p != end);
+        return end;
+    }
+
+    /**
+     * Link the polygon's nodes in z-order
+     */
+    private void indexCurve(int start) {
+        int p = start;
+        do {
+            if (zs[p] == 0) {
+                zs[p] = zOrder(xs[p], ys[p]);
+            }
+            prevZ[p] = prev[p];
+            nextZ[p] = next[p];
+            p = next[p];
+        } while (p != start);
+        nextZ[prevZ[p]] = -1;
+        prevZ[p] = -1;
+        sortLinked(p);
+    }
+
+    /**
+     * Bottom-up merge sort of the z-order list
+     */
+    private void sortLinked(int list) {
+        int inSize = 1;
+        int numMerges;
+        do {
+            int p = list;
+            list = -1;
+            int tail = -1;
+            numMerges = 0;
+            while (p >= 0) {
+                numMerges++;
+                int q = p;
+                int pSize = 0;
+                for (int i = 0; i < inSize; i++) {
+                    pSize++;
+                    q = nextZ[q];
+                    if (q < 0) {
+                        break;
+                    }
+                }
+                int qSize = inSize;
+                while (pSize > 0 || (qSize > 0 && q >= 0)) {
+                    int e;
+                    if (pSize != 0 && (qSize == 0 || q < 0 || zs[p] <= zs[q])) {
+                        e = p;
+                        p = nextZ[p];
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = nextZ[q];
+                        qSize--;
+                    }
+                    if (tail >= 0) {
+                        nextZ[tail] = e;
+                    } else {
+                        list = e;
+                    }
+                    prevZ[e] = tail;
+                    tail = e;
+                }
+                p = q;
+            }
+            nextZ[tail] = -1;
+            inSize *= 2;
+        } while (numMerges > 1);
+    }
+
+    /** Morton code of a point scaled into 15 bits per axis */
+    private int zOrder(double px, double py) {
+        int x = (int) ((px - minX) * invSize);
+        int y = (int) ((py - minY) * invSize);
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        y = (y | (y << 8)) & 0x00FF00FF;
+        y = (y | (y << 4)) & 0x0F0F0F0F;
+        y = (y | (y << 2)) & 0x33333333;
+        y = (y | (y << 1)) & 0x55555555;
+        return x | (y << 1);
+    }
+
+    private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+            double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    private boolean isValidDiagonal(int a, int b) {
+        return corner[next[a]] != corner[b] && corner[prev[a]] != corner[b] && !intersectsPolygon(a, b)
+                && (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                        && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0)
+                        || equals(a, b) && area(prev[a], a, next[a]) > 0 && area(prev[b], b, next[b]) > 0);
+    }
+
+    private double area(int p, int q, int r) {
+        return (ys[q] - ys[p]) * (xs[r] - xs[q]) - (xs[q] - xs[p]) * (ys[r] - ys[q]);
+    }
+
+    private boolean equals(int p, int q) {
+        return xs[p] == xs[q] && ys[p] == ys[q];
+    }
+
+    private boolean intersects(int p1, int q1, int p2, int q2) {
+        int o1 = sign(area(p1, q1, p2));
+        int o2 = sign(area(p1, q1, q2));
+        int o3 = sign(area(p2, q2, p1));
+        int o4 = sign(area(p2, q2, q1));
+        if (o1 != o2 && o3 != o4) {
+            return true;
+        }
+        return o1 == 0 && onSegment(p1, p2, q1)
+                || o2 == 0 && onSegment(p1, q2, q1)
+                || o3 == 0 && onSegment(p2, p1, q2)
+                || o4 == 0 && onSegment(p2, q1, q2);
+    }
+
+    /** q lies within the bounding box of segment p-r */
+    private boolean onSegment(int p, int q, int r) {
+        return xs[q] <= Math.max(xs[p], xs[r]) && xs[q] >= Math.min(xs[p], xs[r])
+                && ys[q] <= Math.max(ys[p], ys[r]) && ys[q] >= Math.min(ys[p], ys[r]);
+    }
+
+    private static int sign(double value) {
+        return value > 0 ? 1 : value < 0 ? -1 : 0;
+    }
+
+    private boolean intersectsPolygon(int a, int b) {
+        int p = a;
+        do {
+            if (corner[p] != corner[a] && corner[next[p]] != corner[a] && corner[p] != corner[b]
+                    && corner[next[p]] != corner[b] && intersects(p, next[p], a, b)) {
+                return true;
+            }
+            p = next[p];
+        } while (p != a);
+        return false;
+    }
+
+    private boolean locallyInside(int a, int b) {
+        return area(prev[a], a, next[a]) < 0
+                ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0
+                : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+    }
+
+    /** The midpoint of diagonal a-b lies inside the polygon */
+    private boolean middleInside(int a, int b) {
+        int p = a;
+        boolean inside = false;
+        double px = (xs[a] + xs[b]) / 2;
+        double py = (ys[a] + ys[b]) / 2;
+        do {
+            int q = next[p];
+            if ((ys[p] > py) != (ys[q] > py) && ys[q] != ys[p]
+                    && px < (xs[q] - xs[p]) * (py - ys[p]) / (ys[q] - ys[p]) + xs[p]) {
+                inside = !inside;
+            }
+            p = q;
+        } while (p != a);
+        return inside;
+    }
+
+    /**
+     * Link a to b with a diagonal, duplicating both so the polygon becomes
+     * two; returns b's copy, which starts the second polygon
+     */
+    private int splitPolygon(int a, int b) {
+        ensureCapacity(nodeCount + 2);
+        int a2 = newNode(corner[a], xs[a], ys[a]);
+        int b2 = newNode(corner[b], xs[b], ys[b]);
+        int an = next[a];
+        int bp = prev[b];
+
+        next[a] = b;
+        prev[b] = a;
+        next[a2] = an;
+        prev[an] = a2;
+        next[b2] = a2;
+        prev[a2] = b2;
+        next[bp] = b2;
+        prev[b2] = bp;
+        return b2;
+    }
+
+    private int newNode(int c, double x, double y) {
+        int p = nodeCount++;
+        corner[p] = c;
+        xs[p] = x;
+        ys[p] = y;
+        zs[p] = 0;
+        prevZ[p] = -1;
+        nextZ[p] = -1;
+        return p;
+    }
+
+    private int insertNode(int c, double x, double y, int last) {
+        int p = newNode(c, x, y);
+        if (last < 0) {
+            prev[p] = p;
+            next[p] = p;
+        } else {
+            next[p] = next[last];
+            prev[p] = last;
+            prev[next[last]] = p;
+            next[last] = p;
+        }
+        return p;
+    }
+
+    private void removeNode(int p) {
+        prev[next[p]] = prev[p];
+        next[prev[p]] = next[p];
+        if (prevZ[p] >= 0) {
+            nextZ[prevZ[p]] = nextZ[p];
+        }
+        if (nextZ[p] >= 0) {
+            prevZ[nextZ[p]] = prevZ[p];
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.modelviewer.mesh;
+
+import java.util.Arrays;
+
+import com.modelviewer.model.IndexedMesh;
+
+/**
+ * Reorders an indexed mesh for the GPU's post-transform vertex cache.
+ *
+ * Triangles are reordered with Tom Forsyth's linear-speed algorithm: every
+ * vertex is scored by its position in a simulated LRU cache and by how many
+ * triangles still use it, and the next triangle drawn is the best-scoring
+ * one around the vertices just used. Each material range is reordered on
+ * its own so ranges stay contiguous. Vertices are then renumbered in order
+ * of first use, so vertex fetches walk the buffer front to back.
+ *
+ * The result is measured as ACMR, the average number of cache misses per
+ * triangle: 3.0 is the worst case, 0.5 the ideal for a large regular mesh.
+ */
+public final class VertexCacheOptimizer {
+    /** Size of the LRU cache the triangle order is tuned for */
+    public static final int CACHE_SIZE = 32;
+    /** Size of the FIFO cache used to measure ACMR, typical of integrated GPUs */
+    public static final int FIFO_SIZE = 16;
+
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+    /** Valences above this share the smallest boost */
+    private static final int MAX_VALENCE = 64;
+
+    private static final float[] CACHE_SCORES = new float[CACHE_SIZE];
+    private static final float[] VALENCE_SCORES = new float[MAX_VALENCE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            if (i < 3) {
+                // The last triangle's vertices score the same whichever
+                // order they went in, so the triangle cannot be reused
+                CACHE_SCORES[i] = LAST_TRIANGLE_SCORE;
+            } else {
+                float scale = 1.0f / (CACHE_SIZE - 3);
+                CACHE_SCORES[i] = (float) Math.pow(1.0f - (i - 3) * scale, CACHE_DECAY_POWER);
+            }
+        }
+        for (int i = 1; i < MAX_VALENCE; i++) {
+            // Favour vertices with few triangles left to finish them off
+            VALENCE_SCORES[i] = VALENCE_BOOST_SCALE * (float) Math.pow(i, -VALENCE_BOOST_POWER);
+        }
+    }
+
+    private VertexCacheOptimizer() {
+    }
+
+    /**
+     * Reorder triangles within each range, then vertices by first use.
+     * Vertices no triangle references are dropped.
+     */
+    public static IndexedMesh optimize(IndexedMesh mesh) {
+        int vertexCount = mesh.getVertexCount();
+        int[] source = mesh.getIndices();
+        int[] indices = new int[source.length];
+
+        Scratch scratch = new Scratch(vertexCount);
+        int[] rangeStarts = new int[mesh.getRangeCount()];
+        int[] rangeCounts = new int[mesh.getRangeCount()];
+        for (int r = 0; r < mesh.getRangeCount(); r++) {
+            rangeStarts[r] = mesh.getRangeStart(r);
+            rangeCounts[r] = mesh.getRangeIndexCount(r);
+            reorderTriangles(source, rangeStarts[r], rangeCounts[r], scratch, indices);
+        }
+
+        // Renumber vertices in the order the index buffer first uses them
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        int used = 0;
+        for (int i = 0; i < indices.length; i++) {
+            int v = indices[i];
+            if (remap[v] < 0) {
+                remap[v] = used++;
+            }
+            indices[i] = remap[v];
+        }
+        float[] vertexData = mesh.getVertexData();
+        float[] reordered = new float[used * IndexedMesh.STRIDE];
+        for (int v = 0; v < vertexCount; v++) {
+            if (remap[v] >= 0) {
+                System.arraycopy(vertexData, v * IndexedMesh.STRIDE, reordered, remap[v] * IndexedMesh.STRIDE,
+                        IndexedMesh.STRIDE);
+            }
+        }
+
+        return new IndexedMesh(reordered, used, indices, mesh.hasNormals(), mesh.hasTexCoords(),
+                mesh.getRangeMaterials(), rangeStarts, rangeCounts);
+    }
+
+    /**
+     * Average cache misses per triangle of a mesh's index buffer, simulating
+     * a FIFO cache of FIFO_SIZE entries
+     */
+    public static float acmr(IndexedMesh mesh) {
+        return acmr(mesh.getIndices(), mesh.getVertexCount(), FIFO_SIZE);
+    }
+
+    public static float acmr(int[] indices, int vertexCount, int cacheSize) {
+        if (indices.length < 3) {
+            return 0.0f;
+        }
+        // A vertex is cached if fewer than cacheSize misses happened since
+        // its own miss put it in the FIFO
+        int[] insertedAt = new int[vertexCount];
+        int misses = 0;
+        for (int v : indices) {
+            if (insertedAt[v] == 0 || misses - insertedAt[v] >= cacheSize) {
+                insertedAt[v] = ++misses;
+            }
+        }
+        return misses / (indices.length / 3.0f);
+    }
+
+    /**
+     * Per-vertex working arrays, shared by all ranges of a mesh
+     */
+    private static final class Scratch {
+        final int[] activeCount;
+        final int[] adjacencyStart;
+        final int[] cachePosition;
+        final float[] score;
+        final int[] touched;
+
+        Scratch(int vertexCount) {
+            activeCount = new int[vertexCount];
+            adjacencyStart = new int[vertexCount];
+            cachePosition = new int[vertexCount];
+            score = new float[vertexCount];
+            touched = new int[vertexCount];
+        }
+    }
+
+    private static float vertexScore(int cachePosition, int activeTriangles) {
+        if (activeTriangles == 0) {
+            return -1.0f; // Nothing left to draw with this vertex
+        }
+        float score = cachePosition >= 0 ? CACHE_SCORES[cachePosition] : 0.0f;
+        return score + VALENCE_SCORES[Math.min(activeTriangles, MAX_VALENCE - 1)];
+    }
+
+    /**
+     * Forsyth reordering of the triangles in source[start, start + count),
+     * written to the same span of out
+     */
+    private static void reorderTriangles(int[] source, int start, int count, Scratch s, int[] out) {
+        int triangleCount = count / 3;
+        int[] activeCount = s.activeCount;
+        int[] adjacencyStart = s.adjacencyStart;
+        int[] cachePosition = s.cachePosition;
+        float[] score = s.score;
+
+        // Count the triangles around each vertex this range uses
+        int touchedCount = 0;
+        for (int i = start; i < start + triangleCount * 3; i++) {
+            int v = source[i];
+            if (activeCount[v]++ == 0) {
+                s.touched[touchedCount++] = v;
+            }
+        }
+
+        // Triangle lists per vertex, packed into one array; the first
+        // activeCount[v] entries of a vertex's span are its undrawn triangles
+        int offset = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int v = s.touched[i];
+            adjacencyStart[v] = offset;
+            offset += activeCount[v];
+            activeCount[v] = 0;
+        }
+        int[] adjacency = new int[offset];
+        for (int t = 0; t < triangleCount; t++) {
+            for (int k = 0; k < 3; k++) {
+                int v = source[start + t * 3 + k];
+                adjacency[adjacencyStart[v] + activeCount[v]++] = t;
+            }
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+            int v = s.touched[i];
+            cachePosition[v] = -1;
+            score[v] = vertexScore(-1, activeCount[v]);
+        }
+        float[] triangleScore = new float[triangleCount];
+        boolean[] drawn = new boolean[triangleCount];
+        int best = -1;
+        float bestScore = -1.0f;
+        for (int t = 0; t < triangleCount; t++) {
+            int base = start + t * 3;
+            triangleScore[t] = score[source[base]] + score[source[base + 1]] + score[source[base + 2]];
+            if (triangleScore[t] > bestScore) {
+                bestScore = triangleScore[t];
+                best = t;
+            }
+        }
+
+        int[] cache = new int[CACHE_SIZE + 3];
+        int[] nextCache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+        int cursor = 0;
+        for (int emitted = 0; emitted < triangleCount; emitted++) {
+            if (best < 0) {
+                // Nothing adjacent to the cache is left; take the next
+                // undrawn triangle in the original order
+                while (drawn[cursor]) {
+                    cursor++;
+                }
+                best = cursor;
+            }
+
+            int base = start + best * 3;
+            int a = source[base];
+            int b = source[base + 1];
+            int c = source[base + 2];
+            int target = start + emitted * 3;
+            out[target] = a;
+            out[target + 1] = b;
+            out[target + 2] = c;
+            drawn[best] = true;
+
+            // Take the triangle off its vertices' undrawn lists
+            for (int k = 0; k < 3; k++) {
+                int v = source[base + k];
+                int first = adjacencyStart[v];
+                int last = first + activeCount[v] - 1;
+                for (int j = first; j <= last; j++) {
+                    if (adjacency[j] == best) {
+                        adjacency[j] = adjacency[last];
+                        activeCount[v]--;
+                        break;
+                    }
+                }
+            }
+
+            // Move the triangle's vertices to the front of the cache
+            int nextCount = 0;
+            nextCache[nextCount++] = a;
+            if (b != a) {
+                nextCache[nextCount++] = b;
+            }
+            if (c != a && c != b) {
+                nextCache[nextCount++] = c;
+            }
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                if (v != a && v != b && v != c) {
+                    nextCache[nextCount++] = v;
+                }
+            }
+
+            // Rescore everything that moved, including vertices pushed out
+            for (int i = 0; i < nextCount; i++) {
+                int v = nextCache[i];
+                cachePosition[v] = i < CACHE_SIZE ? i : -1;
+                float newScore = vertexScore(cachePosition[v], activeCount[v]);
+                float delta = newScore - score[v];
+                score[v] = newScore;
+                int first = adjacencyStart[v];
+                for (int j = first; j < first + activeCount[v]; j++) {
+                    triangleScore[adjacency[j]] += delta;
+                }
+            }
+
+            // The next triangle is the best one touching the cache
+            best = -1;
+            bestScore = -1.0f;
+            cacheCount = Math.min(nextCount, CACHE_SIZE);
+            for (int i = 0; i < cacheCount; i++) {
+                int v = nextCache[i];
+                int first = adjacencyStart[v];
+                for (int j = first; j < first + activeCount[v]; j++) {
+                    int t = adjacency[j];
+                    if (triangleScore[t] > bestScore) {
+                        bestScore = triangleScore[t];
+                        best = t;
+                    }
+                }
+            }
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+        }
+
+        // Leave the shared arrays clean for the next range
+        for (int i = 0; i < touchedCount; i++) {
+            activeCount[s.touched[i]] = 0;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.modelviewer.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.modelviewer.util.IntList;
+
+/**
+ * Column-oriented polygon storage.
+ *
+ * Corner indices (vertex, texture coordinate, normal) are kept in flat
+ * arrays, 0-based with -1 for a missing component. Face f owns the corners
+ * [getFaceStart(f), getFaceStart(f + 1)) and has an integer material id
+ * that indexes the table's material names. Consecutive faces that share a
+ * material form a run; after {@link #groupByMaterial()} every material has
+ * exactly one run, so renderers can bind a material once and draw all of
+ * its faces without any per-face lookups.
+ *
+ * A table is not synchronized. Once nothing modifies it any more, any
+ * number of threads may read it, including its runs.
+ */
+public class FaceTable {
+    public static final int NO_MATERIAL = -1;
+
+    private IntList vertexIndices = new IntList();
+    private IntList texCoordIndices = new IntList();
+    private IntList normalIndices = new IntList();
+    private IntList faceStarts = new IntList();
+    private IntList faceMaterials = new IntList();
+
+    private final List<String> materialNames = new ArrayList<>();
+    private final Map<String, Integer> materialIds = new HashMap<>();
+
+    // Material runs, rebuilt lazily after the faces change; null when stale
+    private volatile Runs runs = Runs.EMPTY;
+
+    public FaceTable() {
+        faceStarts.add(0);
+    }
+
+    /**
+     * Wrap existing columns; the table takes ownership of the arrays.
+     * faceStarts holds faceMaterials.length + 1 offsets.
+     */
+    public FaceTable(int[] vertexIndices, int[] texCoordIndices, int[] normalIndices,
+            int[] faceStarts, int[] faceMaterials, List<String> materialNames) {
+        this.vertexIndices = new IntList(vertexIndices, vertexIndices.length);
+        this.texCoordIndices = new IntList(texCoordIndices, texCoordIndices.length);
+        this.normalIndices = new IntList(normalIndices, normalIndices.length);
+        this.faceStarts = new IntList(faceStarts, faceMaterials.length + 1);
+        this.faceMaterials = new IntList(faceMaterials, faceMaterials.length);
+        for (String name : materialNames) {
+            getMaterialId(name);
+        }
+        runs = null;
+    }
+
+    /**
+     * Add a face; null texture coordinate or normal arrays mean "none"
+     */
+    public int addFace(int[] vertices, int[] texCoords, int[] normals, int count, String materialName) {
+        return addFace(vertices, texCoords, normals, count, getMaterialId(materialName));
+    }
+
+    public int addFace(int[] vertices, int[] texCoords, int[] normals, int count, int materialId) {
+        vertexIndices.addAll(vertices, 0, count);
+        for (int i = 0; i < count; i++) {
+            texCoordIndices.add(texCoords != null ? texCoords[i] : -1);
+            normalIndices.add(normals != null ? normals[i] : -1);
+        }
+        faceStarts.add(vertexIndices.size());
+        faceMaterials.add(materialId);
+        runs = null;
+        return faceMaterials.size() - 1;
+    }
+
+    /**
+     * The id for a material name, registering the name if it is new
+     */
+    public int getMaterialId(String materialName) {
+        if (materialName == null) {
+            return NO_MATERIAL;
+        }
+        Integer id = materialIds.get(materialName);
+        if (id == null) {
+            id = materialNames.size();
+            materialNames.add(materialName);
+            materialIds.put(materialName, id);
+        }
+        return id;
+    }
+
+    public String getMaterialName(int materialId) {
+        return materialId == NO_MATERIAL ? null : materialNames.get(materialId);
+    }
+
+    public int getMaterialCount() {
+        return materialNames.size();
+    }
+
+    public int getFaceCount() {
+        return faceMaterials.size();
+    }
+
+    public int getCornerCount() {
+        return vertexIndices.size();
+    }
+
+    public boolean isEmpty() {
+        return faceMaterials.isEmpty();
+    }
+
+    public int getFaceStart(int face) {
+        return faceStarts.get(face);
+    }
+
+    public int getFaceSize(int face) {
+        return faceStarts.get(face + 1) - faceStarts.get(face);
+    }
+
+    public int getFaceMaterial(int face) {
+        return faceMaterials.get(face);
+    }
+
+    /** Per-corner vertex indices; valid for getCornerCount() entries */
+    public int[] getVertexIndices() {
+        return vertexIndices.array();
+    }
+
+    /** Per-corner texture coordinate indices, -1 where absent */
+    public int[] getTexCoordIndices() {
+        return texCoordIndices.array();
+    }
+
+    /** Per-corner normal indices, -1 where absent */
+    public int[] getNormalIndices() {
+        return normalIndices.array();
+    }
+
+    /** Corner offsets; face f spans [starts[f], starts[f + 1]) */
+    public int[] getFaceStarts() {
+        return faceStarts.array();
+    }
+
+    public int[] getFaceMaterials() {
+        return faceMaterials.array();
+    }
+
+    public int getTriangleCount() {
+        return getCornerCount() - 2 * getFaceCount();
+    }
+
+    public int getRunCount() {
+        return ensureRuns().materials.length;
+    }
+
+    public int getRunMaterial(int run) {
+        return ensureRuns().materials[run];
+    }
+
+    /** First face of a run */
+    public int getRunStart(int run) {
+        return ensureRuns().starts[run];
+    }
+
+    /** Number of faces in a run */
+    public int getRunFaceCount(int run) {
+        return ensureRuns().counts[run];
+    }
+
+    /**
+     * Reorder the faces so that each material's faces are contiguous,
+     * keeping their relative order (a stable counting sort)
+     */
+    public void groupByMaterial() {
+        int faceCount = getFaceCount();
+        int buckets = materialNames.size() + 1;
+        int[] material = faceMaterials.array();
+
+        // Faces and corners per material, offset by one so NO_MATERIAL is bucket 0
+        int[] faceOffsets = new int[buckets + 1];
+        int[] cornerOffsets = new int[buckets + 1];
+        int[] starts = faceStarts.array();
+        boolean sorted = true;
+        for (int f = 0; f < faceCount; f++) {
+            int bucket = material[f] + 1;
+            faceOffsets[bucket + 1]++;
+            cornerOffsets[bucket + 1] += starts[f + 1] - starts[f];
+            if (f > 0 && material[f] < material[f - 1]) {
+                sorted = false;
+            }
+        }
+        if (sorted) {
+            runs = null;
+            return;
+        }
+        for (int b = 0; b < buckets; b++) {
+            faceOffsets[b + 1] += faceOffsets[b];
+            cornerOffsets[b + 1] += cornerOffsets[b];
+        }
+
+        int cornerCount = getCornerCount();
+        int[] oldVertices = vertexIndices.array();
+        int[] oldTexCoords = texCoordIndices.array();
+        int[] oldNormals = normalIndices.array();
+        int[] newVertices = new int[cornerCount];
+        int[] newTexCoords = new int[cornerCount];
+        int[] newNormals = new int[cornerCount];
+        int[] newSizes = new int[faceCount];
+        int[] newMaterials = new int[faceCount];
+
+        for (int f = 0; f < faceCount; f++) {
+            int bucket = material[f] + 1;
+            int target = faceOffsets[bucket]++;
+            int corner = cornerOffsets[bucket];
+            int size = starts[f + 1] - starts[f];
+            System.arraycopy(oldVertices, starts[f], newVertices, corner, size);
+            System.arraycopy(oldTexCoords, starts[f], newTexCoords, corner, size);
+            System.arraycopy(oldNormals, starts[f], newNormals, corner, size);
+            cornerOffsets[bucket] += size;
+            newSizes[target] = size;
+            newMaterials[target] = material[f];
+        }
+
+        int[] newStarts = new int[faceCount + 1];
+        for (int f = 0; f < faceCount; f++) {
+            newStarts[f + 1] = newStarts[f] + newSizes[f];
+        }
+
+        vertexIndices = new IntList(newVertices, cornerCount);
+        texCoordIndices = new IntList(newTexCoords, cornerCount);
+        normalIndices = new IntList(newNormals, cornerCount);
+        faceStarts = new IntList(newStarts, faceCount + 1);
+        faceMaterials = new IntList(newMaterials, faceCount);
+        runs = null;
+    }
+
+    /**
+     * Deep copy, including the material name table
+     */
+    public FaceTable copy() {
+        FaceTable copy = new FaceTable();
+        copy.vertexIndices = vertexIndices.copy();
+        copy.texCoordIndices = texCoordIndices.copy();
+        copy.normalIndices = normalIndices.copy();
+        copy.faceStarts = faceStarts.copy();
+        copy.faceMaterials = faceMaterials.copy();
+        copy.materialNames.addAll(materialNames);
+        copy.materialIds.putAll(materialIds);
+        copy.runs = null;
+        return copy;
+    }
+
+    /**
+     * Whether both tables hold the same faces, in the same order, with the
+     * same material names
+     */
+    public boolean contentEquals(FaceTable other) {
+        return vertexIndices.contentEquals(other.vertexIndices)
+                && texCoordIndices.contentEquals(other.texCoordIndices)
+                && normalIndices.contentEquals(other.normalIndices)
+                && faceStarts.contentEquals(other.faceStarts)
+                && faceMaterials.contentEquals(other.faceMaterials)
+                && materialNames.equals(other.materialNames);
+    }
+
+    public void clear() {
+        vertexIndices.clear();
+        texCoordIndices.clear();
+        normalIndices.clear();
+        faceStarts.clear();
+        faceStarts.add(0);
+        faceMaterials.clear();
+        materialNames.clear();
+        materialIds.clear();
+        runs = null;
+    }
+
+    /**
+     * Release spare capacity once loading is done
+     */
+    public void trimToSize() {
+        vertexIndices.trimToSize();
+        texCoordIndices.trimToSize();
+        normalIndices.trimToSize();
+        faceStarts.trimToSize();
+        faceMaterials.trimToSize();
+    }
+
+    /**
+     * The current runs. They are built into fresh arrays and published
+     * whole, so threads that only read the table may call the run getters
+     * at the same time; at worst two of them build the same runs twice.
+     */
+    private Runs ensureRuns() {
+        Runs current = runs;
+        if (current != null) {
+            return current;
+        }
+        int faceCount = getFaceCount();
+        int[] material = faceMaterials.array();
+
+        int count = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (f == 0 || material[f] != material[f - 1]) {
+                count++;
+            }
+        }
+        int[] runMaterials = new int[count];
+        int[] runStarts = new int[count];
+        int[] runCounts = new int[count];
+
+        int run = -1;
+        for (int f = 0; f < faceCount; f++) {
+            if (f == 0 || material[f] != material[f - 1]) {
+                run++;
+                runMaterials[run] = material[f];
+                runStarts[run] = f;
+            }
+            runCounts[run]++;
+        }
+        current = new Runs(runMaterials, runStarts, runCounts);
+        runs = current;
+        return current;
+    }
+
+    /** Material, first face and face count of each run; never modified */
+    private static final class Runs {
+        static final Runs EMPTY = new Runs(new int[0], new int[0], new int[0]);
+
+        final int[] materials;
+        final int[] starts;
+        final int[] counts;
+
+        Runs(int[] materials, int[] starts, int[] counts) {
+            this.materials = materials;
+            this.starts = starts;
+            this.counts = counts;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.modelviewer.model;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Triangle mesh ready for indexed drawing.
+ *
+ * Every vertex is one interleaved record of {@link #STRIDE} floats:
+ * position, normal and texture coordinate, with zeros for a component the
+ * source did not have. Triangles are three entries each in the index
+ * array. The index array is split into ranges, one per material, so a
+ * renderer can draw each material with a single glDrawElements call.
+ */
+public class IndexedMesh {
+    public static final int POSITION_OFFSET = 0;
+    public static final int NORMAL_OFFSET = 3;
+    public static final int TEXCOORD_OFFSET = 6;
+    /** Floats per vertex */
+    public static final int STRIDE = 8;
+
+    private final float[] vertexData;
+    private final int vertexCount;
+    private final int[] indices;
+    private final boolean hasNormals;
+    private final boolean hasTexCoords;
+
+    private final List<String> rangeMaterials;
+    private final int[] rangeStarts;
+    private final int[] rangeCounts;
+
+    /**
+     * The mesh takes ownership of the arrays. rangeStarts and rangeCounts
+     * are offsets into the index array, one pair per material name.
+     */
+    public IndexedMesh(float[] vertexData, int vertexCount, int[] indices, boolean hasNormals,
+            boolean hasTexCoords, List<String> rangeMaterials, int[] rangeStarts, int[] rangeCounts) {
+        this.vertexData = vertexData;
+        this.vertexCount = vertexCount;
+        this.indices = indices;
+        this.hasNormals = hasNormals;
+        this.hasTexCoords = hasTexCoords;
+        this.rangeMaterials = new ArrayList<>(rangeMaterials);
+        this.rangeStarts = rangeStarts;
+        this.rangeCounts = rangeCounts;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /** Interleaved vertex records; valid for getVertexCount() * STRIDE floats */
+    public float[] getVertexData() {
+        return vertexData;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public int getIndexCount() {
+        return indices.length;
+    }
+
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    public boolean hasNormals() {
+        return hasNormals;
+    }
+
+    public boolean hasTexCoords() {
+        return hasTexCoords;
+    }
+
+    public int getRangeCount() {
+        return rangeStarts.length;
+    }
+
+    /** Material of a range, null for faces without one */
+    public String getRangeMaterial(int range) {
+        return rangeMaterials.get(range);
+    }
+
+    /** First index of a range */
+    public int getRangeStart(int range) {
+        return rangeStarts[range];
+    }
+
+    /** Number of indices in a range */
+    public int getRangeIndexCount(int range) {
+        return rangeCounts[range];
+    }
+
+    public List<String> getRangeMaterials() {
+        return Collections.unmodifiableList(rangeMaterials);
+    }
+
+    public FloatBuffer vertexBuffer() {
+        return FloatBuffer.wrap(vertexData, 0, vertexCount * STRIDE).slice();
+    }
+
+    public IntBuffer indexBuffer() {
+        return IntBuffer.wrap(indices);
+    }
+
+    public float getX(int vertex) {
+        return vertexData[vertex * STRIDE + POSITION_OFFSET];
+    }
+
+    public float getY(int vertex) {
+        return vertexData[vertex * STRIDE + POSITION_OFFSET + 1];
+    }
+
+    public float getZ(int vertex) {
+        return vertexData[vertex * STRIDE + POSITION_OFFSET + 2];
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedMesh{vertices=" + vertexCount + ", triangles=" + getTriangleCount()
+                + ", ranges=" + getRangeCount() + "}";
+    }
+}
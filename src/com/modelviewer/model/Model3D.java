@@ -1,18 +1,22 @@
 package com.modelviewer.model;
 
 import java.awt.Color;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.modelviewer.util.FloatList;
+
 public class Model3D {
     private String name;
-    private List<Float> vertices = new ArrayList<>();
-    private List<Float> normals = new ArrayList<>();
-    private List<Float> textureCoords = new ArrayList<>();
-    private List<Face> faces = new ArrayList<>();
+    private FloatList vertices = new FloatList();
+    private FloatList normals = new FloatList();
+    private FloatList textureCoords = new FloatList();
+    private FaceTable faces = new FaceTable();
     private Map<String, Material> materials = new HashMap<>();
+    private IndexedMesh indexedMesh; // Welded copy of the faces for indexed drawing
+    private List<IndexedMesh> lods = Collections.emptyList(); // Simplified levels, finest first
 
     // Transform properties
     private float x, y, z; // Position
@@ -39,26 +43,57 @@ public class Model3D {
         this.name = name;
     }
 
-    public List<Float> getVertices() {
+    public FloatList getVertices() {
         return vertices;
     }
 
-    public List<Float> getNormals() {
+    public FloatList getNormals() {
         return normals;
     }
 
-    public List<Float> getTextureCoords() {
+    public FloatList getTextureCoords() {
         return textureCoords;
     }
 
-    public List<Face> getFaces() {
+    public FaceTable getFaces() {
         return faces;
     }
 
+    /**
+     * Replace the faces; the indexed mesh and LODs built from the old ones
+     * are dropped
+     */
+    public void setFaces(FaceTable faces) {
+        this.faces = faces;
+        this.indexedMesh = null;
+        this.lods = Collections.emptyList();
+    }
+
     public Map<String, Material> getMaterials() {
         return materials;
     }
 
+    /** Indexed form of the faces, or null if the model was not welded */
+    public IndexedMesh getIndexedMesh() {
+        return indexedMesh;
+    }
+
+    public void setIndexedMesh(IndexedMesh indexedMesh) {
+        this.indexedMesh = indexedMesh;
+    }
+
+    /**
+     * Levels of detail, level 0 being the indexed mesh itself; empty if none
+     * were generated
+     */
+    public List<IndexedMesh> getLods() {
+        return lods;
+    }
+
+    public void setLods(List<IndexedMesh> lods) {
+        this.lods = Collections.unmodifiableList(lods);
+    }
+
     public float getX() {
         return x;
     }
@@ -140,6 +175,6 @@ public class Model3D {
 
     @Override
     public String toString() {
-        return name + " [vertices: " + vertices.size() / 3 + ", faces: " + faces.size() + "]";
+        return name + " [vertices: " + vertices.size() / 3 + ", faces: " + faces.getFaceCount() + "]";
     }
 }
\ No newline at end of file
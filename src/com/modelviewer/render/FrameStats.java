@@ -0,0 +1,344 @@
+package com.modelviewer.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Per-frame timings and counters for the renderer.
+ *
+ * A frame is split into {@link Stage}s: {@link #mark} charges the time
+ * since the previous mark to a stage, so the render loop calls it once at
+ * the end of each stage. Finished frames go into a fixed ring that keeps
+ * the session for CSV export, and frames from the last few seconds also
+ * feed a log-linear histogram (about 3% resolution from 1 microsecond up)
+ * for percentiles. Recording writes into preallocated arrays only.
+ *
+ * Methods are synchronized so the overlay and export can read while
+ * another thread renders.
+ */
+public class FrameStats {
+    /** Parts of a frame, in the order they run */
+    public enum Stage {
+        SNAPSHOT, CULL, SORT, SUBMIT, SWAP
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final int STAGE_COUNT = STAGES.length;
+
+    /** Frames kept for export; older ones are overwritten */
+    private static final int CAPACITY = 1 << 15;
+
+    // Histogram buckets: 32 linear microsecond buckets, then 32 per
+    // power of two up to 2^30 microseconds
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_OCTAVE = 30;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_OCTAVE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // Session ring, one slot per frame
+    private final long[] frameEnd = new long[CAPACITY]; // System.nanoTime() at the end of the frame
+    private final long[] frameNanos = new long[CAPACITY];
+    private final long[] stageNanos = new long[CAPACITY * STAGE_COUNT];
+    private final int[] frameTriangles = new int[CAPACITY];
+    private final int[] frameDrawCalls = new int[CAPACITY];
+    private final int[] frameStateChanges = new int[CAPACITY];
+    private final int[] frameBucket = new int[CAPACITY];
+    private int head = 0; // Next slot to write
+    private int sessionCount = 0;
+    private long framesRecorded = 0;
+    private long sessionStart = System.nanoTime();
+
+    // Rolling window over the newest windowCount frames of the ring
+    private final int[] histogram = new int[BUCKETS];
+    private int windowCount = 0;
+    private long windowNanos = 10_000_000_000L;
+
+    // Frame being recorded
+    private boolean frameOpen = false;
+    private long lastMark;
+    private final long[] currentStages = new long[STAGE_COUNT];
+    private int currentTriangles;
+    private int currentDrawCalls;
+    private int currentStateChanges;
+
+    /**
+     * Starts timing a frame. A frame still open is recorded as it stands,
+     * without a swap time.
+     */
+    public synchronized void beginFrame() {
+        if (frameOpen) {
+            record();
+        }
+        frameOpen = true;
+        lastMark = System.nanoTime();
+        for (int s = 0; s < STAGE_COUNT; s++) {
+            currentStages[s] = 0;
+        }
+        currentTriangles = 0;
+        currentDrawCalls = 0;
+        currentStateChanges = 0;
+    }
+
+    /**
+     * Charges the time since the previous mark (or the frame start) to a stage
+     */
+    public synchronized void mark(Stage stage) {
+        if (!frameOpen) {
+            return;
+        }
+        long now = System.nanoTime();
+        currentStages[stage.ordinal()] += now - lastMark;
+        lastMark = now;
+    }
+
+    /**
+     * Ends the frame, charging the time since the last mark to
+     * {@link Stage#SWAP}; does nothing if no frame is open
+     */
+    public synchronized void endFrame() {
+        if (!frameOpen) {
+            return;
+        }
+        mark(Stage.SWAP);
+        record();
+    }
+
+    /** Counts one draw call of the given number of triangles */
+    public synchronized void addDrawCall(int triangles) {
+        currentDrawCalls++;
+        currentTriangles += triangles;
+    }
+
+    /** Counts several draw calls submitting the given triangles between them */
+    public synchronized void addDrawCalls(int calls, int triangles) {
+        currentDrawCalls += calls;
+        currentTriangles += triangles;
+    }
+
+    /** Counts one change of GL state: a material, buffer binding or mode */
+    public synchronized void addStateChange() {
+        currentStateChanges++;
+    }
+
+    /**
+     * Sets how far back percentiles look
+     */
+    public synchronized void setWindowSeconds(double seconds) {
+        windowNanos = (long) (seconds * 1e9);
+        evict(System.nanoTime());
+    }
+
+    public synchronized double getWindowSeconds() {
+        return windowNanos / 1e9;
+    }
+
+    /** Drops every recorded frame */
+    public synchronized void reset() {
+        head = 0;
+        sessionCount = 0;
+        windowCount = 0;
+        framesRecorded = 0;
+        frameOpen = false;
+        sessionStart = System.nanoTime();
+        for (int b = 0; b < BUCKETS; b++) {
+            histogram[b] = 0;
+        }
+    }
+
+    /** Frames recorded since the last reset */
+    public synchronized long getFramesRecorded() {
+        return framesRecorded;
+    }
+
+    /** Frames within the window */
+    public synchronized int getWindowFrameCount() {
+        evict(System.nanoTime());
+        return windowCount;
+    }
+
+    /**
+     * Frame time, in milliseconds, below which the given fraction (0 to 1)
+     * of the window's frames fall; 0 if the window is empty
+     */
+    public synchronized double getPercentileMillis(double fraction) {
+        evict(System.nanoTime());
+        if (windowCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * windowCount));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[b];
+            if (seen >= rank) {
+                return bucketMidMicros(b) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /** Slowest frame in the window, in milliseconds */
+    public synchronized double getMaxMillis() {
+        evict(System.nanoTime());
+        long max = 0;
+        for (int i = 0; i < windowCount; i++) {
+            max = Math.max(max, frameNanos[slot(i)]);
+        }
+        return max / 1e6;
+    }
+
+    /** Frames per second drawn over the window */
+    public synchronized double getFramesPerSecond() {
+        long now = System.nanoTime();
+        evict(now);
+        if (windowCount < 2) {
+            return 0;
+        }
+        long span = frameEnd[slot(windowCount - 1)] - frameEnd[slot(0)];
+        return span > 0 ? (windowCount - 1) * 1e9 / span : 0;
+    }
+
+    /** CPU time of the last frame, in milliseconds */
+    public synchronized double getLastFrameMillis() {
+        return sessionCount == 0 ? 0 : frameNanos[last()] / 1e6;
+    }
+
+    /** Time the last frame spent in a stage, in milliseconds */
+    public synchronized double getLastStageMillis(Stage stage) {
+        return sessionCount == 0 ? 0 : stageNanos[last() * STAGE_COUNT + stage.ordinal()] / 1e6;
+    }
+
+    public synchronized int getLastTriangles() {
+        return sessionCount == 0 ? 0 : frameTriangles[last()];
+    }
+
+    public synchronized int getLastDrawCalls() {
+        return sessionCount == 0 ? 0 : frameDrawCalls[last()];
+    }
+
+    public synchronized int getLastStateChanges() {
+        return sessionCount == 0 ? 0 : frameStateChanges[last()];
+    }
+
+    /**
+     * Counts the window's frames into equal-width bins from 0 to
+     * maxMillis; slower frames land in the last bin. Returns the largest
+     * bin count.
+     */
+    public synchronized int fillHistogram(int[] bins, double maxMillis) {
+        evict(System.nanoTime());
+        for (int b = 0; b < bins.length; b++) {
+            bins[b] = 0;
+        }
+        int largest = 0;
+        for (int i = 0; i < windowCount; i++) {
+            int b = (int) (frameNanos[slot(i)] / 1e6 / maxMillis * bins.length);
+            b = Math.min(Math.max(b, 0), bins.length - 1);
+            bins[b]++;
+            largest = Math.max(largest, bins[b]);
+        }
+        return largest;
+    }
+
+    /**
+     * Writes every frame still in the session ring as CSV, oldest first,
+     * with times in milliseconds
+     */
+    public synchronized void writeCsv(Writer out) throws IOException {
+        out.write("frame,time_ms,frame_ms");
+        for (Stage stage : STAGES) {
+            out.write("," + stage.name().toLowerCase(Locale.ROOT) + "_ms");
+        }
+        out.write(",triangles,draw_calls,state_changes\n");
+
+        long firstFrame = framesRecorded - sessionCount;
+        int first = (head - sessionCount + CAPACITY) % CAPACITY;
+        for (int i = 0; i < sessionCount; i++) {
+            int slot = (first + i) % CAPACITY;
+            StringBuilder row = new StringBuilder();
+            row.append(firstFrame + i)
+                    .append(',').append(millis(frameEnd[slot] - sessionStart))
+                    .append(',').append(millis(frameNanos[slot]));
+            for (int s = 0; s < STAGE_COUNT; s++) {
+                row.append(',').append(millis(stageNanos[slot * STAGE_COUNT + s]));
+            }
+            row.append(',').append(frameTriangles[slot])
+                    .append(',').append(frameDrawCalls[slot])
+                    .append(',').append(frameStateChanges[slot])
+                    .append('\n');
+            out.write(row.toString());
+        }
+    }
+
+    private void record() {
+        frameOpen = false;
+        long now = System.nanoTime();
+
+        // A full ring overwrites its oldest frame, which may still be in the window
+        if (sessionCount == CAPACITY && windowCount == CAPACITY) {
+            histogram[frameBucket[slot(0)]]--;
+            windowCount--;
+        }
+
+        long total = 0;
+        for (int s = 0; s < STAGE_COUNT; s++) {
+            stageNanos[head * STAGE_COUNT + s] = currentStages[s];
+            total += currentStages[s];
+        }
+        frameEnd[head] = now;
+        frameNanos[head] = total;
+        frameTriangles[head] = currentTriangles;
+        frameDrawCalls[head] = currentDrawCalls;
+        frameStateChanges[head] = currentStateChanges;
+        frameBucket[head] = bucket(total / 1000);
+        histogram[frameBucket[head]]++;
+
+        head = (head + 1) % CAPACITY;
+        sessionCount = Math.min(sessionCount + 1, CAPACITY);
+        windowCount++;
+        framesRecorded++;
+        evict(now);
+    }
+
+    /** Drops frames older than the window from the histogram */
+    private void evict(long now) {
+        while (windowCount > 0 && now - frameEnd[slot(0)] > windowNanos) {
+            histogram[frameBucket[slot(0)]]--;
+            windowCount--;
+        }
+    }
+
+    /** Ring slot of the i-th oldest frame in the window */
+    private int slot(int i) {
+        return (head - windowCount + i + CAPACITY) % CAPACITY;
+    }
+
+    private int last() {
+        return (head - 1 + CAPACITY) % CAPACITY;
+    }
+
+    private static int bucket(long micros) {
+        long v = Math.min(Math.max(micros, 0), (1L << MAX_OCTAVE) - 1);
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (octave - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    private static double bucketMidMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 0.5;
+        }
+        int octave = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long low = (long) (SUB_BUCKETS + sub) << (octave - SUB_BUCKET_BITS);
+        long width = 1L << (octave - SUB_BUCKET_BITS);
+        return low + width / 2.0;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -1,13 +1,18 @@
 package com.modelviewer.render;
 
 import java.awt.Color;
-import java.util.List;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 import com.jogamp.opengl.GL2;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.glu.GLU;
-import com.modelviewer.model.Face;
+import com.modelviewer.model.FaceTable;
+import com.modelviewer.model.IndexedMesh;
 import com.modelviewer.model.Material;
 import com.modelviewer.model.Model3D;
 import com.modelviewer.model.Room;
@@ -20,6 +25,13 @@ public class GLRenderer implements GLEventListener {
     private boolean wireframeMode = false;
     private boolean use2DView = false;
 
+    // Retained-mode geometry: buffers per model, refilled when its indexed mesh changes
+    private boolean retainedMode = true;
+    private boolean buffersSupported = false;
+    private final Map<Model3D, MeshBuffers> meshBuffers = new IdentityHashMap<>();
+    private final Set<Model3D> drawnModels = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int drawCalls;
+
     @Override
     public void init(GLAutoDrawable drawable) {
         GL2 gl = drawable.getGL().getGL2();
@@ -40,6 +52,11 @@ public class GLRenderer implements GLEventListener {
         // Enable materials
         gl.glEnable(GL2.GL_COLOR_MATERIAL);
         gl.glColorMaterial(GL2.GL_FRONT_AND_BACK, GL2.GL_AMBIENT_AND_DIFFUSE);
+
+        buffersSupported = MeshBuffers.isSupported(gl);
+        if (!buffersSupported) {
+            System.err.println("Vertex buffer objects unavailable; drawing in immediate mode");
+        }
     }
 
     @Override
@@ -49,6 +66,7 @@ public class GLRenderer implements GLEventListener {
 
         setupCamera(gl);
         setupLighting(gl);
+        drawCalls = 0;
 
         if (currentRoom != null) {
             renderRoom(gl, currentRoom);
@@ -57,6 +75,8 @@ public class GLRenderer implements GLEventListener {
         if (currentModel != null) {
             renderModel(gl, currentModel);
         }
+
+        releaseUndrawnBuffers(gl);
     }
 
     @Override
@@ -80,6 +100,11 @@ public class GLRenderer implements GLEventListener {
     @Override
     public void dispose(GLAutoDrawable drawable) {
         // Cleanup resources
+        GL2 gl = drawable.getGL().getGL2();
+        for (MeshBuffers buffers : meshBuffers.values()) {
+            buffers.release(gl);
+        }
+        meshBuffers.clear();
     }
 
     private void setupCamera(GL2 gl) {
@@ -126,6 +151,23 @@ public class GLRenderer implements GLEventListener {
         this.use2DView = use2D;
     }
 
+    /**
+     * Draw welded models from buffer objects (the default) instead of
+     * immediate mode; ignored where the context has no buffer objects
+     */
+    public void setRetainedMode(boolean retainedMode) {
+        this.retainedMode = retainedMode;
+    }
+
+    public boolean isRetainedMode() {
+        return retainedMode;
+    }
+
+    /** Draw calls (glDrawElements or glBegin batches) issued by the last frame */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
     private Room currentRoom;
     private Model3D currentModel;
 
@@ -228,55 +270,8 @@ public class GLRenderer implements GLEventListener {
             gl.glPolygonMode(GL2.GL_FRONT_AND_BACK, GL2.GL_LINE);
         }
 
-        // Render faces
-        for (Face face : model.getFaces()) {
-            // Apply material if available
-            if (face.getMaterialName() != null && !model.isUseCustomColor()) {
-                Material material = model.getMaterials().get(face.getMaterialName());
-                if (material != null) {
-                    gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_AMBIENT, material.getAmbient(), 0);
-                    gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_DIFFUSE, material.getDiffuse(), 0);
-                    gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_SPECULAR, material.getSpecular(), 0);
-                    gl.glMaterialf(GL2.GL_FRONT, GL2.GL_SHININESS, material.getShininess());
-                }
-            } else if (model.isUseCustomColor()) {
-                Color color = model.getCustomColor();
-                float[] colorComponents = color.getComponents(null);
-                gl.glColor4f(colorComponents[0], colorComponents[1], colorComponents[2], colorComponents[3]);
-            }
-
-            // Render face
-            gl.glBegin(GL2.GL_POLYGON);
-            int[] vertexIndices = face.getVertexIndices();
-            int[] normalIndices = face.getNormalIndices();
-            int[] texCoordIndices = face.getTexCoordIndices();
-
-            for (int i = 0; i < vertexIndices.length; i++) {
-                if (normalIndices != null && normalIndices.length > i) {
-                    List<Float> normals = model.getNormals();
-                    int normalIndex = normalIndices[i] * 3;
-                    gl.glNormal3f(
-                            normals.get(normalIndex),
-                            normals.get(normalIndex + 1),
-                            normals.get(normalIndex + 2));
-                }
-
-                if (texCoordIndices != null && texCoordIndices.length > i) {
-                    List<Float> texCoords = model.getTextureCoords();
-                    int texCoordIndex = texCoordIndices[i] * 2;
-                    gl.glTexCoord2f(
-                            texCoords.get(texCoordIndex),
-                            texCoords.get(texCoordIndex + 1));
-                }
-
-                List<Float> vertices = model.getVertices();
-                int vertexIndex = vertexIndices[i] * 3;
-                gl.glVertex3f(
-                        vertices.get(vertexIndex),
-                        vertices.get(vertexIndex + 1),
-                        vertices.get(vertexIndex + 2));
-            }
-            gl.glEnd();
+        if (!renderRetained(gl, model)) {
+            renderImmediate(gl, model);
         }
 
         // Reset polygon mode if in wireframe
@@ -287,6 +282,131 @@ public class GLRenderer implements GLEventListener {
         gl.glPopMatrix();
     }
 
+    /**
+     * Draws a model's indexed mesh from its buffer objects, uploading them
+     * first if the mesh is new; false if the model has to be drawn in
+     * immediate mode instead
+     */
+    private boolean renderRetained(GL2 gl, Model3D model) {
+        IndexedMesh mesh = model.getIndexedMesh();
+        if (!retainedMode || !buffersSupported || mesh == null) {
+            return false;
+        }
+        MeshBuffers buffers = meshBuffers.get(model);
+        if (buffers == null || buffers.getMesh() != mesh) {
+            if (buffers != null) {
+                buffers.release(gl);
+            }
+            buffers = MeshBuffers.upload(gl, mesh);
+            meshBuffers.put(model, buffers);
+        }
+        drawnModels.add(model);
+
+        buffers.bind(gl);
+        for (int range = 0; range < mesh.getRangeCount(); range++) {
+            applyMaterial(gl, model, mesh.getRangeMaterial(range));
+            buffers.drawRange(gl, range);
+            drawCalls++;
+        }
+        buffers.unbind(gl);
+        return true;
+    }
+
+    /**
+     * Frees the buffers of models that were not drawn this frame, such as
+     * ones removed from the room
+     */
+    private void releaseUndrawnBuffers(GL2 gl) {
+        Iterator<Map.Entry<Model3D, MeshBuffers>> entries = meshBuffers.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Model3D, MeshBuffers> entry = entries.next();
+            if (!drawnModels.contains(entry.getKey())) {
+                entry.getValue().release(gl);
+                entries.remove();
+            }
+        }
+        drawnModels.clear();
+    }
+
+    private void applyMaterial(GL2 gl, Model3D model, String materialName) {
+        if (!model.isUseCustomColor()) {
+            Material material = model.getMaterials().get(materialName);
+            if (material != null) {
+                gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_AMBIENT, material.getAmbient(), 0);
+                gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_DIFFUSE, material.getDiffuse(), 0);
+                gl.glMaterialfv(GL2.GL_FRONT, GL2.GL_SPECULAR, material.getSpecular(), 0);
+                gl.glMaterialf(GL2.GL_FRONT, GL2.GL_SHININESS, material.getShininess());
+            }
+        } else {
+            Color color = model.getCustomColor();
+            float[] colorComponents = color.getComponents(null);
+            gl.glColor4f(colorComponents[0], colorComponents[1], colorComponents[2], colorComponents[3]);
+        }
+    }
+
+    /**
+     * Draws a model's faces with glBegin/glEnd, the fallback when buffer
+     * objects are off or unavailable
+     */
+    private void renderImmediate(GL2 gl, Model3D model) {
+        float[] vertices = model.getVertices().array();
+        float[] normals = model.getNormals().array();
+        float[] texCoords = model.getTextureCoords().array();
+
+        FaceTable faces = model.getFaces();
+        int[] faceStarts = faces.getFaceStarts();
+        int[] vertexIndices = faces.getVertexIndices();
+        int[] normalIndices = faces.getNormalIndices();
+        int[] texCoordIndices = faces.getTexCoordIndices();
+
+        // Render faces one material run at a time
+        for (int run = 0; run < faces.getRunCount(); run++) {
+            // Apply material if available
+            applyMaterial(gl, model, faces.getMaterialName(faces.getRunMaterial(run)));
+
+            // Consecutive triangles share one glBegin/glEnd pair
+            int mode = -1;
+            int firstFace = faces.getRunStart(run);
+            int lastFace = firstFace + faces.getRunFaceCount(run);
+            for (int f = firstFace; f < lastFace; f++) {
+                int faceMode = faceStarts[f + 1] - faceStarts[f] == 3 ? GL2.GL_TRIANGLES : GL2.GL_POLYGON;
+                if (faceMode != mode || faceMode == GL2.GL_POLYGON) {
+                    if (mode != -1) {
+                        gl.glEnd();
+                    }
+                    gl.glBegin(faceMode);
+                    mode = faceMode;
+                    drawCalls++;
+                }
+                for (int c = faceStarts[f]; c < faceStarts[f + 1]; c++) {
+                    if (normalIndices[c] >= 0) {
+                        int normalIndex = normalIndices[c] * 3;
+                        gl.glNormal3f(
+                                normals[normalIndex],
+                                normals[normalIndex + 1],
+                                normals[normalIndex + 2]);
+                    }
+
+                    if (texCoordIndices[c] >= 0) {
+                        int texCoordIndex = texCoordIndices[c] * 2;
+                        gl.glTexCoord2f(
+                                texCoords[texCoordIndex],
+                                texCoords[texCoordIndex + 1]);
+                    }
+
+                    int vertexIndex = vertexIndices[c] * 3;
+                    gl.glVertex3f(
+                            vertices[vertexIndex],
+                            vertices[vertexIndex + 1],
+                            vertices[vertexIndex + 2]);
+                }
+            }
+            if (mode != -1) {
+                gl.glEnd();
+            }
+        }
+    }
+
     private void setColorWithTransparency(GL2 gl, Color color, float transparency) {
         float[] components = color.getComponents(null);
         gl.glColor4f(components[0], components[1], components[2], transparency);
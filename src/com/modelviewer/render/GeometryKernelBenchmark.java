@@ -0,0 +1,207 @@
+package com.modelviewer.render;
+
+import java.util.Arrays;
+
+/**
+ * Measures {@link GeometryKernels} against the per-element code the
+ * software paths used before, on a wavy grid of about 1M vertices and 2M
+ * triangles.
+ *
+ * "before" is, for the transform, BasicViewer's old projection (double
+ * rotation with a Point2D allocated per vertex); for face normals, the old
+ * GeometryUtils.calculateNormal with its three temporary arrays per call;
+ * for shading, the rasterizer's old eye-space test with a square root per
+ * triangle. The last table draws the grid through SoftwareRasterizer on one
+ * thread, with face planes computed per frame and computed once.
+ *
+ * Usage: GeometryKernelBenchmark [gridSize]
+ */
+public class GeometryKernelBenchmark {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 11;
+
+    private static double checksum;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int vertexCount = size * size;
+        int triangleCount = (size - 1) * (size - 1) * 2;
+
+        float[] positions = new float[vertexCount * 3];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int p = (y * size + x) * 3;
+                positions[p] = x / (float) size - 0.5f;
+                positions[p + 1] = y / (float) size - 0.5f;
+                positions[p + 2] = 0.05f * (float) (Math.sin(x * 0.05) * Math.cos(y * 0.07));
+            }
+        }
+        int[] indices = new int[triangleCount * 3];
+        int i = 0;
+        for (int y = 0; y < size - 1; y++) {
+            for (int x = 0; x < size - 1; x++) {
+                int v = y * size + x;
+                indices[i++] = v;
+                indices[i++] = v + 1;
+                indices[i++] = v + size;
+                indices[i++] = v + 1;
+                indices[i++] = v + size + 1;
+                indices[i++] = v + size;
+            }
+        }
+        int[] colors = new int[triangleCount];
+        Arrays.fill(colors, 0xC8C8C8);
+
+        // Looking down on the grid from 2 units away, slightly tilted
+        float[] view = {
+            1, 0, 0, 0,
+            0, (float) Math.cos(2.8), (float) -Math.sin(2.8), 0,
+            0, (float) Math.sin(2.8), (float) Math.cos(2.8), 2
+        };
+        float[] eye = new float[vertexCount * 3];
+        float[] screen = new float[vertexCount * 3];
+        float[] planes = new float[triangleCount * GeometryKernels.PLANE_STRIDE];
+        int[] shades = new int[triangleCount];
+        GeometryKernels.transformAffine(view, positions, eye, 0, vertexCount);
+
+        System.out.printf("%d vertices, %d triangles%n%n", vertexCount, triangleCount);
+        System.out.printf("%-24s %14s %14s %9s%n", "kernel", "before ms", "after ms", "speedup");
+        report("transform + project",
+                medianMillis(() -> projectLikeBasicViewer(positions, vertexCount)),
+                medianMillis(() -> {
+                    GeometryKernels.transformAffine(view, positions, eye, 0, vertexCount);
+                    GeometryKernels.project(eye, screen, 0, vertexCount, 1000, 960, 540);
+                }));
+        report("face normals",
+                medianMillis(() -> normalsWithTemporaries(positions, indices, planes, triangleCount)),
+                medianMillis(() -> GeometryKernels.facePlanes(positions, indices, planes, 0, triangleCount)));
+        report("cull + shade",
+                medianMillis(() -> shadeInEyeSpace(eye, indices, colors, shades, triangleCount)),
+                medianMillis(() -> GeometryKernels.shadeFaces(planes, colors, shades, 0, triangleCount,
+                        0, -2 * (float) Math.sin(2.8), -2 * (float) Math.cos(2.8), 0, 0, 1, 0.25f, true)));
+
+        SoftwareRasterizer rasterizer = new SoftwareRasterizer(null);
+        rasterizer.resize(1920, 1080);
+        rasterizer.setCamera(view, 1000);
+        System.out.println();
+        System.out.printf("%-24s %14s %14s %9s%n", "1920x1080 frame", "planes/frame", "planes once", "speedup");
+        report("",
+                medianMillis(() -> {
+                    rasterizer.clear(0);
+                    rasterizer.drawTriangles(positions, vertexCount, indices, triangleCount, colors);
+                }),
+                medianMillis(() -> {
+                    rasterizer.clear(0);
+                    rasterizer.drawTriangles(positions, vertexCount, indices, triangleCount, colors, planes);
+                }));
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    private static void report(String name, double before, double after) {
+        System.out.printf("%-24s %14.2f %14.2f %8.2fx%n", name, before, after, before / after);
+    }
+
+    private static double medianMillis(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        double[] times = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[MEASURED_RUNS / 2];
+    }
+
+    /**
+     * BasicViewer's projection before it used the rasterizer
+     */
+    private static void projectLikeBasicViewer(float[] positions, int vertexCount) {
+        Object[] projected = new Object[vertexCount];
+        double sinX = Math.sin(Math.toRadians(30));
+        double cosX = Math.cos(Math.toRadians(30));
+        double sinY = Math.sin(Math.toRadians(30));
+        double cosY = Math.cos(Math.toRadians(30));
+        for (int v = 0; v < vertexCount; v++) {
+            float x = positions[v * 3];
+            float y = positions[v * 3 + 1];
+            float z = positions[v * 3 + 2];
+            float y2 = (float) (y * cosX - z * sinX);
+            float z2 = (float) (y * sinX + z * cosX);
+            float x3 = (float) (x * cosY + z2 * sinY);
+            float z3 = (float) (-x * sinY + z2 * cosY);
+            projected[v] = new float[] {960 + x3 * 100 / (z3 + 5), 540 + y2 * 100 / (z3 + 5), z3};
+        }
+        checksum += ((float[]) projected[vertexCount / 2])[0];
+    }
+
+    /**
+     * Face normals through the old GeometryUtils.calculateNormal
+     */
+    private static void normalsWithTemporaries(float[] positions, int[] indices, float[] out, int triangleCount) {
+        float[] v1 = new float[3];
+        float[] v2 = new float[3];
+        float[] v3 = new float[3];
+        float sum = 0;
+        for (int t = 0; t < triangleCount; t++) {
+            System.arraycopy(positions, indices[t * 3] * 3, v1, 0, 3);
+            System.arraycopy(positions, indices[t * 3 + 1] * 3, v2, 0, 3);
+            System.arraycopy(positions, indices[t * 3 + 2] * 3, v3, 0, 3);
+            float[] vector1 = new float[] {v2[0] - v1[0], v2[1] - v1[1], v2[2] - v1[2]};
+            float[] vector2 = new float[] {v3[0] - v1[0], v3[1] - v1[1], v3[2] - v1[2]};
+            float[] normal = new float[3];
+            normal[0] = vector1[1] * vector2[2] - vector1[2] * vector2[1];
+            normal[1] = vector1[2] * vector2[0] - vector1[0] * vector2[2];
+            normal[2] = vector1[0] * vector2[1] - vector1[1] * vector2[0];
+            float length = (float) Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+            if (length != 0) {
+                normal[0] /= length;
+                normal[1] /= length;
+                normal[2] /= length;
+            }
+            System.arraycopy(normal, 0, out, t * GeometryKernels.PLANE_STRIDE, 3);
+            sum += normal[2];
+        }
+        checksum += sum;
+    }
+
+    /**
+     * The rasterizer's per-triangle shading before face planes: gathers
+     * the eye-space corners and normalizes the normal every frame
+     */
+    private static void shadeInEyeSpace(float[] eye, int[] indices, int[] colors, int[] out, int triangleCount) {
+        for (int t = 0; t < triangleCount; t++) {
+            int a = indices[t * 3] * 3;
+            int b = indices[t * 3 + 1] * 3;
+            int c = indices[t * 3 + 2] * 3;
+            float ax = eye[a];
+            float ay = eye[a + 1];
+            float az = eye[a + 2];
+            float ux = eye[b] - ax;
+            float uy = eye[b + 1] - ay;
+            float uz = eye[b + 2] - az;
+            float vx = eye[c] - ax;
+            float vy = eye[c + 1] - ay;
+            float vz = eye[c + 2] - az;
+            float nx = uy * vz - uz * vy;
+            float ny = uz * vx - ux * vz;
+            float nz = ux * vy - uy * vx;
+            if (nx * ax + ny * ay + nz * az >= 0) {
+                out[t] = -1;
+                continue;
+            }
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            float diffuse = -nz / length;
+            float intensity = 0.25f + 0.75f * Math.max(0.0f, diffuse);
+            int rgb = colors[t];
+            int r = (int) (((rgb >> 16) & 0xFF) * intensity);
+            int g = (int) (((rgb >> 8) & 0xFF) * intensity);
+            int bl = (int) ((rgb & 0xFF) * intensity);
+            out[t] = (r << 16) | (g << 8) | bl;
+        }
+        checksum += out[triangleCount / 2];
+    }
+}
@@ -0,0 +1,121 @@
+package com.modelviewer.render;
+
+/**
+ * Batch geometry math for the software rasterizer.
+ *
+ * Each kernel runs one straight loop over flat float arrays for a range of
+ * vertices or triangles, with no allocation and no calls inside the loop,
+ * so ranges can be handed to different threads and the JIT can keep the
+ * values in registers. Matrices are row-major 3x4 affine transforms: a 4x4
+ * matrix whose bottom row is 0 0 0 1.
+ */
+public final class GeometryKernels {
+    /** Floats per face plane: unit normal x, y, z and its dot product with a corner */
+    public static final int PLANE_STRIDE = 4;
+
+    private GeometryKernels() {
+    }
+
+    /**
+     * Transforms points [from, to) of xyz triples by a row-major 3x4 matrix
+     */
+    public static void transformAffine(float[] m, float[] in, float[] out, int from, int to) {
+        float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        for (int p = from * 3, end = to * 3; p < end; p += 3) {
+            float x = in[p];
+            float y = in[p + 1];
+            float z = in[p + 2];
+            out[p] = m0 * x + m1 * y + m2 * z + m3;
+            out[p + 1] = m4 * x + m5 * y + m6 * z + m7;
+            out[p + 2] = m8 * x + m9 * y + m10 * z + m11;
+        }
+    }
+
+    /**
+     * Perspective divide for eye-space points [from, to) with z forward:
+     * writes screen x, y in pixels and 1/z. Points at or behind the eye
+     * give meaningless values; callers clip them first.
+     */
+    public static void project(float[] eye, float[] screen, int from, int to,
+            float focalLength, float centerX, float centerY) {
+        for (int p = from * 3, end = to * 3; p < end; p += 3) {
+            float invZ = 1.0f / eye[p + 2];
+            float scale = focalLength * invZ;
+            screen[p] = centerX + eye[p] * scale;
+            screen[p + 1] = centerY + eye[p + 1] * scale;
+            screen[p + 2] = invZ;
+        }
+    }
+
+    /**
+     * Plane of every triangle in [from, to): the unit normal of its
+     * counter-clockwise side and the normal's dot product with its first
+     * corner, {@link #PLANE_STRIDE} floats per triangle. Degenerate
+     * triangles get an all-zero plane.
+     */
+    public static void facePlanes(float[] positions, int[] indices, float[] out, int from, int to) {
+        for (int t = from; t < to; t++) {
+            int a = indices[t * 3] * 3;
+            int b = indices[t * 3 + 1] * 3;
+            int c = indices[t * 3 + 2] * 3;
+            float ax = positions[a];
+            float ay = positions[a + 1];
+            float az = positions[a + 2];
+            float ux = positions[b] - ax;
+            float uy = positions[b + 1] - ay;
+            float uz = positions[b + 2] - az;
+            float vx = positions[c] - ax;
+            float vy = positions[c + 1] - ay;
+            float vz = positions[c + 2] - az;
+            float nx = uy * vz - uz * vy;
+            float ny = uz * vx - ux * vz;
+            float nz = ux * vy - uy * vx;
+            float lengthSquared = nx * nx + ny * ny + nz * nz;
+            float inverse = lengthSquared > 0 ? 1.0f / (float) Math.sqrt(lengthSquared) : 0.0f;
+            nx *= inverse;
+            ny *= inverse;
+            nz *= inverse;
+            int o = t * PLANE_STRIDE;
+            out[o] = nx;
+            out[o + 1] = ny;
+            out[o + 2] = nz;
+            out[o + 3] = nx * ax + ny * ay + nz * az;
+        }
+    }
+
+    /**
+     * Lambert-shades triangles [from, to) from their planes, with the eye
+     * position and unit light direction given in the same space as the
+     * planes. Writes the lit RGB colour, or -1 for a triangle seen from
+     * behind when culling or seen exactly edge-on. Triangles seen from
+     * behind without culling are lit on their back.
+     */
+    public static void shadeFaces(float[] planes, int[] colors, int[] out, int from, int to,
+            float eyeX, float eyeY, float eyeZ, float lightX, float lightY, float lightZ,
+            float ambient, boolean backFaceCulling) {
+        float diffuseScale = 1.0f - ambient;
+        for (int t = from; t < to; t++) {
+            int p = t * PLANE_STRIDE;
+            float nx = planes[p];
+            float ny = planes[p + 1];
+            float nz = planes[p + 2];
+            float facing = nx * eyeX + ny * eyeY + nz * eyeZ - planes[p + 3];
+            float diffuse = nx * lightX + ny * lightY + nz * lightZ;
+            if (!(facing > 0)) {
+                if (backFaceCulling || facing == 0 || facing != facing) {
+                    out[t] = -1;
+                    continue;
+                }
+                diffuse = -diffuse;
+            }
+            float intensity = ambient + diffuseScale * Math.max(0.0f, diffuse);
+            int rgb = colors[t];
+            int r = (int) (((rgb >> 16) & 0xFF) * intensity);
+            int g = (int) (((rgb >> 8) & 0xFF) * intensity);
+            int b = (int) ((rgb & 0xFF) * intensity);
+            out[t] = (r << 16) | (g << 8) | b;
+        }
+    }
+}
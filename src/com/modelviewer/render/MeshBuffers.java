@@ -0,0 +1,137 @@
+package com.modelviewer.render;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.modelviewer.model.IndexedMesh;
+
+/**
+ * GPU copy of an {@link IndexedMesh}: one interleaved vertex buffer, one
+ * index buffer and, where the context supports them, a vertex array object
+ * that remembers the attribute layout.
+ *
+ * Buffers are filled once by {@link #upload} and drawn with one
+ * glDrawElements call per material range, so the per-frame cost depends on
+ * the number of materials rather than the number of faces.
+ */
+public class MeshBuffers {
+    private static final int FLOAT_BYTES = Float.BYTES;
+    private static final int INDEX_BYTES = Integer.BYTES;
+
+    private final IndexedMesh mesh;
+    private int vertexBuffer;
+    private int indexBuffer;
+    private int vertexArray; // 0 when vertex array objects are unavailable
+
+    private MeshBuffers(IndexedMesh mesh) {
+        this.mesh = mesh;
+    }
+
+    /**
+     * Whether the context can hold geometry in buffer objects
+     */
+    public static boolean isSupported(GL2 gl) {
+        return gl.isFunctionAvailable("glGenBuffers") && gl.isFunctionAvailable("glDrawElements");
+    }
+
+    /**
+     * Copy a mesh into new buffer objects
+     */
+    public static MeshBuffers upload(GL2 gl, IndexedMesh mesh) {
+        MeshBuffers buffers = new MeshBuffers(mesh);
+        int[] ids = new int[2];
+        gl.glGenBuffers(2, ids, 0);
+        buffers.vertexBuffer = ids[0];
+        buffers.indexBuffer = ids[1];
+
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, buffers.vertexBuffer);
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, (long) mesh.getVertexCount() * IndexedMesh.STRIDE * FLOAT_BYTES,
+                mesh.vertexBuffer(), GL.GL_STATIC_DRAW);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, buffers.indexBuffer);
+        gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, (long) mesh.getIndexCount() * INDEX_BYTES,
+                mesh.indexBuffer(), GL.GL_STATIC_DRAW);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+
+        // The vertex array object records the pointers and index buffer,
+        // so drawing needs a single bind
+        if (gl.isFunctionAvailable("glGenVertexArrays")) {
+            gl.glGenVertexArrays(1, ids, 0);
+            buffers.vertexArray = ids[0];
+            gl.glBindVertexArray(buffers.vertexArray);
+            buffers.bindAttributes(gl);
+            gl.glBindVertexArray(0);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+        }
+        return buffers;
+    }
+
+    /** The mesh these buffers were filled from */
+    public IndexedMesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * Make the buffers current; call before drawing ranges and pair with
+     * {@link #unbind}
+     */
+    public void bind(GL2 gl) {
+        if (vertexArray != 0) {
+            gl.glBindVertexArray(vertexArray);
+        } else {
+            bindAttributes(gl);
+        }
+    }
+
+    public void unbind(GL2 gl) {
+        if (vertexArray != 0) {
+            gl.glBindVertexArray(0);
+        } else {
+            unbindAttributes(gl);
+        }
+    }
+
+    /**
+     * Draw one material range of the mesh as triangles
+     */
+    public void drawRange(GL2 gl, int range) {
+        gl.glDrawElements(GL.GL_TRIANGLES, mesh.getRangeIndexCount(range), GL.GL_UNSIGNED_INT,
+                (long) mesh.getRangeStart(range) * INDEX_BYTES);
+    }
+
+    /**
+     * Free the buffer objects; the instance must not be used afterwards
+     */
+    public void release(GL2 gl) {
+        gl.glDeleteBuffers(2, new int[] { vertexBuffer, indexBuffer }, 0);
+        if (vertexArray != 0) {
+            gl.glDeleteVertexArrays(1, new int[] { vertexArray }, 0);
+        }
+        vertexBuffer = 0;
+        indexBuffer = 0;
+        vertexArray = 0;
+    }
+
+    private void bindAttributes(GL2 gl) {
+        int stride = IndexedMesh.STRIDE * FLOAT_BYTES;
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vertexBuffer);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+        gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glVertexPointer(3, GL.GL_FLOAT, stride, (long) IndexedMesh.POSITION_OFFSET * FLOAT_BYTES);
+        if (mesh.hasNormals()) {
+            gl.glEnableClientState(GL2.GL_NORMAL_ARRAY);
+            gl.glNormalPointer(GL.GL_FLOAT, stride, (long) IndexedMesh.NORMAL_OFFSET * FLOAT_BYTES);
+        }
+        if (mesh.hasTexCoords()) {
+            gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+            gl.glTexCoordPointer(2, GL.GL_FLOAT, stride, (long) IndexedMesh.TEXCOORD_OFFSET * FLOAT_BYTES);
+        }
+    }
+
+    private void unbindAttributes(GL2 gl) {
+        gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glDisableClientState(GL2.GL_NORMAL_ARRAY);
+        gl.glDisableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+}
@@ -0,0 +1,172 @@
+package com.modelviewer.render;
+
+import java.util.Arrays;
+
+/**
+ * One frame's draw list, ordered to keep GL state changes down and to blend
+ * transparent surfaces correctly.
+ *
+ * Each entry is a 64-bit sort key plus an int item the caller uses to find
+ * what to draw. Opaque entries come first, grouped by state (material) and
+ * front to back within a state so early depth rejection can skip hidden
+ * pixels. Transparent entries follow, back to front by view depth.
+ *
+ * Keys are sorted with an LSD radix sort over primitive arrays, so a
+ * frame's sort allocates nothing once the queue has grown to size.
+ */
+public class RenderQueue {
+    private static final int DEPTH_BITS = 24;
+    private static final int STATE_BITS = 23;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private static final long TRANSPARENT_BIT = 1L << 63;
+
+    private long[] keys = new long[64];
+    private int[] items = new int[64];
+    private long[] keyScratch = new long[64];
+    private int[] itemScratch = new int[64];
+    private final int[] counts = new int[8 * 256];
+    private int size;
+
+    private float nearDepth = 1.0f;
+    private float farDepth = 100.0f;
+
+    /**
+     * Sets the view depths that map onto the key's depth range; depths
+     * outside it are clamped
+     */
+    public void setDepthRange(float near, float far) {
+        this.nearDepth = near;
+        this.farDepth = far;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Queue an opaque item; state is a small id for the GL state it needs
+     * (up to 2^23 - 1) and depth its distance in front of the eye
+     */
+    public void addOpaque(int state, float depth, int item) {
+        long key = ((state & STATE_MASK) << DEPTH_BITS) | quantize(depth);
+        add(key, item);
+    }
+
+    /**
+     * Queue a transparent item; these always sort after opaque ones,
+     * farthest first, then by state among equal depths
+     */
+    public void addTransparent(int state, float depth, int item) {
+        long key = TRANSPARENT_BIT | ((DEPTH_MASK - quantize(depth)) << STATE_BITS) | (state & STATE_MASK);
+        add(key, item);
+    }
+
+    public int getItem(int index) {
+        return items[index];
+    }
+
+    public boolean isTransparent(int index) {
+        return (keys[index] & TRANSPARENT_BIT) != 0;
+    }
+
+    /**
+     * Index of the first transparent entry after {@link #sort}, or
+     * {@link #size} if there are none
+     */
+    public int firstTransparent() {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isTransparent(mid)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Orders the entries by key: a stable LSD radix sort, one byte per
+     * pass, skipping bytes every key shares
+     */
+    public void sort() {
+        if (size < 2) {
+            return;
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < size; i++) {
+            long key = keys[i];
+            for (int b = 0; b < 8; b++) {
+                counts[b * 256 + (int) ((key >>> (b * 8)) & 0xFF)]++;
+            }
+        }
+
+        long[] srcKeys = keys;
+        int[] srcItems = items;
+        long[] dstKeys = keyScratch;
+        int[] dstItems = itemScratch;
+        for (int b = 0; b < 8; b++) {
+            int base = b * 256;
+            int shift = b * 8;
+            if (counts[base + (int) ((srcKeys[0] >>> shift) & 0xFF)] == size) {
+                continue;
+            }
+
+            // Bucket counts to starting offsets
+            int offset = 0;
+            for (int d = 0; d < 256; d++) {
+                int count = counts[base + d];
+                counts[base + d] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                long key = srcKeys[i];
+                int slot = counts[base + (int) ((key >>> shift) & 0xFF)]++;
+                dstKeys[slot] = key;
+                dstItems[slot] = srcItems[i];
+            }
+
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            int[] swapItems = srcItems;
+            srcItems = dstItems;
+            dstItems = swapItems;
+        }
+        keys = srcKeys;
+        items = srcItems;
+        keyScratch = dstKeys;
+        itemScratch = dstItems;
+    }
+
+    private void add(long key, int item) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            items = Arrays.copyOf(items, capacity);
+            keyScratch = new long[capacity];
+            itemScratch = new int[capacity];
+        }
+        keys[size] = key;
+        items[size] = item;
+        size++;
+    }
+
+    private long quantize(float depth) {
+        float t = (depth - nearDepth) / (farDepth - nearDepth);
+        if (!(t > 0)) {
+            return 0;
+        }
+        if (t >= 1) {
+            return DEPTH_MASK;
+        }
+        return (long) (t * DEPTH_MASK);
+    }
+}
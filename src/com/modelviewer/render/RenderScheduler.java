@@ -0,0 +1,149 @@
+package com.modelviewer.render;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import com.jogamp.opengl.GLAutoDrawable;
+
+/**
+ * Redraws a GL drawable only when something asks for it, in place of an
+ * Animator that renders continuously.
+ *
+ * {@link #requestRender} marks the view dirty; any number of requests
+ * before the next frame collapse into one. Frames are spaced at least one
+ * display refresh apart while the user is interacting and at a lower rate
+ * otherwise, and nothing runs at all while the scene is static. Frames are
+ * drawn on the Swing event thread, which owns the view state.
+ */
+public class RenderScheduler {
+    private static final int DEFAULT_REFRESH_RATE = 60;
+    /** Frame rate cap outside interactions */
+    private static final int IDLE_FRAME_RATE = 30;
+
+    private final GLAutoDrawable drawable;
+    private final Timer timer;
+    private FrameStats frameStats; // Told when each frame, swap included, is done
+    private final int interactiveInterval; // Milliseconds per display refresh
+    private final int idleInterval;
+
+    // Touched only on the event thread
+    private boolean dirty = false;
+    private boolean running = true;
+    private int interactions = 0;
+    private long lastFrameTime = 0;
+    private long framesRendered = 0;
+
+    public RenderScheduler(GLAutoDrawable drawable) {
+        this.drawable = drawable;
+        this.interactiveInterval = 1000 / refreshRate();
+        this.idleInterval = Math.max(interactiveInterval, 1000 / IDLE_FRAME_RATE);
+
+        timer = new Timer(0, e -> renderFrame());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Asks for a frame; safe to call from any thread
+     */
+    public void requestRender() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            schedule();
+        } else {
+            SwingUtilities.invokeLater(this::schedule);
+        }
+    }
+
+    /**
+     * Raises the frame cap to the display refresh rate until the matching
+     * {@link #endInteraction}, for camera and object drags
+     */
+    public void beginInteraction() {
+        interactions++;
+    }
+
+    public void endInteraction() {
+        if (interactions > 0) {
+            interactions--;
+        }
+        requestRender();
+    }
+
+    public boolean isInteracting() {
+        return interactions > 0;
+    }
+
+    /**
+     * Resumes drawing after {@link #stop}, with one frame to catch up
+     */
+    public void start() {
+        running = true;
+        requestRender();
+    }
+
+    /**
+     * Stops drawing; later requests are remembered but not drawn until
+     * {@link #start}
+     */
+    public void stop() {
+        running = false;
+        timer.stop();
+    }
+
+    /**
+     * Stats whose frames should end once the drawable has swapped; the
+     * listener begins them
+     */
+    public void setFrameStats(FrameStats frameStats) {
+        this.frameStats = frameStats;
+    }
+
+    /** Frames drawn since the scheduler was created */
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    private void schedule() {
+        dirty = true;
+        if (!running || timer.isRunning()) {
+            return;
+        }
+        int interval = interactions > 0 ? interactiveInterval : idleInterval;
+        long wait = lastFrameTime + interval - System.currentTimeMillis();
+        timer.setInitialDelay((int) Math.max(0, wait));
+        timer.start();
+    }
+
+    private void renderFrame() {
+        if (!dirty || !running) {
+            return;
+        }
+        dirty = false;
+        lastFrameTime = System.currentTimeMillis();
+        drawable.display();
+        if (frameStats != null) {
+            frameStats.endFrame();
+        }
+        framesRendered++;
+    }
+
+    /**
+     * Refresh rate of the default screen, or 60 Hz when it is unknown
+     */
+    private static int refreshRate() {
+        try {
+            if (!GraphicsEnvironment.isHeadless()) {
+                int rate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                        .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+                if (rate != DisplayMode.REFRESH_RATE_UNKNOWN && rate > 0) {
+                    return rate;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Could not read display refresh rate: " + e.getMessage());
+        }
+        return DEFAULT_REFRESH_RATE;
+    }
+}
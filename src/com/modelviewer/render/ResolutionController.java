@@ -0,0 +1,103 @@
+package com.modelviewer.render;
+
+/**
+ * Chooses the resolution of interactive software-rendered frames so that
+ * they fit a frame-time budget.
+ *
+ * The scale applies to both sides of the framebuffer, so a frame's pixel
+ * work grows with its square. Every drawn frame, at whatever scale, feeds
+ * a smoothed estimate of what the same frame would cost at full size; the
+ * next interactive scale is the one that estimate says fits the target.
+ * Full-size frames drawn while idle count too, so the first frame of a
+ * drag already starts near the right scale. The estimate reacts to a
+ * change in load within two or three frames. Scales come in steps of 1/16
+ * and stay put while frames are within 15% of the target, so the
+ * framebuffer is not reallocated every frame.
+ *
+ * The target defaults to 30 frames per second and can be changed with the
+ * system property modelviewer.targetFrameMs.
+ */
+public class ResolutionController {
+    public static final float MIN_SCALE = 0.25f;
+    public static final float MAX_SCALE = 1.0f;
+
+    private static final float DEFAULT_TARGET_MILLIS = 1000.0f / 30;
+    /** Weight of the newest frame in the full-size cost estimate */
+    private static final float SMOOTHING = 0.5f;
+    /** Largest scale increase per frame; decreases are not limited */
+    private static final float MAX_GROWTH = 1.25f;
+    private static final float QUANTUM = 1.0f / 16;
+    /** Relative distance from the target within which the scale is kept */
+    private static final float TOLERANCE = 0.15f;
+
+    private float targetMillis;
+    private float scale = MAX_SCALE;
+    private float fullFrameMillis = -1; // Negative until the first frame
+
+    /**
+     * A controller with the target from modelviewer.targetFrameMs
+     */
+    public ResolutionController() {
+        this(targetFromProperty());
+    }
+
+    public ResolutionController(float targetMillis) {
+        setTargetMillis(targetMillis);
+    }
+
+    public float getTargetMillis() {
+        return targetMillis;
+    }
+
+    public void setTargetMillis(float targetMillis) {
+        if (!(targetMillis > 0)) {
+            throw new IllegalArgumentException("Target frame time must be positive: " + targetMillis);
+        }
+        this.targetMillis = targetMillis;
+    }
+
+    /**
+     * Scale for the next interactive frame, between {@link #MIN_SCALE} and
+     * {@link #MAX_SCALE}
+     */
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * Records how long a frame drawn at the given scale took and adjusts
+     * the interactive scale
+     */
+    public void frameDrawn(float millis, float drawnScale) {
+        float cost = millis / (drawnScale * drawnScale);
+        fullFrameMillis = fullFrameMillis < 0 ? cost : fullFrameMillis + SMOOTHING * (cost - fullFrameMillis);
+        if (!(fullFrameMillis > 0)) {
+            return;
+        }
+
+        float predicted = fullFrameMillis * scale * scale;
+        if (Math.abs(predicted - targetMillis) <= TOLERANCE * targetMillis) {
+            return;
+        }
+        float fitting = (float) Math.sqrt(targetMillis / fullFrameMillis);
+        fitting = Math.min(fitting, scale * MAX_GROWTH);
+        fitting = (float) Math.floor(fitting / QUANTUM) * QUANTUM;
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, fitting));
+    }
+
+    private static float targetFromProperty() {
+        String value = System.getProperty("modelviewer.targetFrameMs");
+        if (value != null) {
+            try {
+                float millis = Float.parseFloat(value);
+                if (millis > 0) {
+                    return millis;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
+            System.err.println("Ignoring invalid modelviewer.targetFrameMs: " + value);
+        }
+        return DEFAULT_TARGET_MILLIS;
+    }
+}
@@ -0,0 +1,702 @@
+package com.modelviewer.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import com.modelviewer.util.IntList;
+import com.modelviewer.util.ParallelUtils;
+
+/**
+ * Draws flat-shaded triangles into an int RGB framebuffer with a float
+ * depth buffer, for machines without a usable GPU.
+ *
+ * Vertices go through a 3x4 view transform into eye space, where x points
+ * right, y down and z forward, and are projected with
+ * {@code screen = center + focalLength * xy / z}. Culling and lighting use
+ * each triangle's plane in model space, with the eye and light moved there
+ * once per frame, so a static mesh's planes can be computed once
+ * ({@link GeometryKernels}). Triangles crossing the near plane, or
+ * reaching far beyond the viewport, are clipped; the rest are scanned with
+ * integer edge functions in 1/16 pixel fixed point and a top-left fill
+ * rule, so triangles sharing an edge never both cover a pixel. The depth
+ * buffer holds 1/z, which is linear in screen space.
+ *
+ * With a fork/join pool, vertices are transformed in parallel chunks and
+ * triangles are set up in parallel batches that bin them into 64x64 pixel
+ * tiles. Tiles are then drawn in parallel, each from its own bins in
+ * submission order, so no two threads touch the same pixels and the image
+ * matches the one drawn on a single thread pixel for pixel.
+ *
+ * The framebuffer is the backing array of {@link #getImage}, so a frame is
+ * shown by drawing that image once. Calls must come from one thread at a
+ * time.
+ */
+public class SoftwareRasterizer {
+    private static final int SUBPIXEL_BITS = 4;
+    private static final int SUBPIXEL = 1 << SUBPIXEL_BITS;
+    private static final float SUBPIXEL_SCALE = SUBPIXEL;
+    /** Pixels beyond each viewport edge that projected vertices may reach before clipping */
+    private static final float GUARD_BAND = 8192;
+    private static final int TILE_BITS = 6;
+    private static final int TILE_SIZE = 1 << TILE_BITS;
+    /** Vertices transformed per task */
+    private static final int VERTEX_CHUNK = 1 << 14;
+    /** Triangles set up and binned per task */
+    private static final int TRIANGLE_BATCH = 1 << 14;
+
+    // Clip planes, as outcode bits
+    private static final int CLIP_NEAR = 1;
+    private static final int CLIP_LEFT = 2;
+    private static final int CLIP_RIGHT = 4;
+    private static final int CLIP_TOP = 8;
+    private static final int CLIP_BOTTOM = 16;
+    private static final int CLIP_PLANES = 5;
+    /** Most corners a triangle can have after clipping against every plane */
+    private static final int MAX_CLIPPED = 3 + CLIP_PLANES;
+
+    private static final float AMBIENT = 0.25f;
+    // Light direction in eye space: from above left, behind the viewer
+    private static final float LIGHT_X = -0.3f;
+    private static final float LIGHT_Y = -0.45f;
+    private static final float LIGHT_Z = -0.84f;
+
+    private final ForkJoinPool pool; // null to draw on the calling thread
+    private int width;
+    private int height;
+    private int tilesX;
+    private int tilesY;
+    private BufferedImage image;
+    private int[] color = new int[0];
+    private float[] depth = new float[0];
+
+    private final float[] view = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0};
+    private float focalLength = 100.0f;
+    private float nearPlane = 0.05f;
+    private boolean backFaceCulling = true;
+
+    // Per-vertex scratch, grown to the largest mesh drawn
+    private float[] eye = new float[0];
+    private float[] screen = new float[0]; // x, y in pixels and 1/z
+    private byte[] outcodes = new byte[0];
+
+    // Per-triangle scratch: lit colour (or -1 if culled) and face planes
+    // for meshes drawn without their own
+    private int[] shades = new int[0];
+    private float[] planeScratch = new float[0];
+
+    // Eye position and light direction in model space, for the current view
+    private float eyeModelX;
+    private float eyeModelY;
+    private float eyeModelZ;
+    private float lightModelX;
+    private float lightModelY;
+    private float lightModelZ;
+
+    private final Batch direct = new Batch(true);
+    private final List<Batch> batches = new ArrayList<>();
+
+    private int trianglesDrawn;
+
+    /**
+     * A rasterizer that draws on the common fork/join pool
+     */
+    public SoftwareRasterizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A rasterizer that draws on the given pool, or on the calling thread
+     * alone if it is null
+     */
+    public SoftwareRasterizer(ForkJoinPool pool) {
+        this.pool = pool;
+        resize(1, 1);
+    }
+
+    /**
+     * Sets the framebuffer size; keeps the buffers when it is unchanged
+     */
+    public void resize(int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        tilesX = (width + TILE_SIZE - 1) >> TILE_BITS;
+        tilesY = (height + TILE_SIZE - 1) >> TILE_BITS;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        color = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        depth = new float[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** The framebuffer as an image; it shares its pixels with the rasterizer */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /** RGB pixels, row by row from the top left */
+    public int[] getColorBuffer() {
+        return color;
+    }
+
+    /** 1/z per pixel; 0 where nothing was drawn */
+    public float[] getDepthBuffer() {
+        return depth;
+    }
+
+    /**
+     * Fills the framebuffer with an RGB colour and resets depth
+     */
+    public void clear(int rgb) {
+        if (pool == null) {
+            Arrays.fill(color, rgb);
+            Arrays.fill(depth, 0.0f);
+        } else {
+            parallelFor(tilesY, row -> {
+                int from = (row << TILE_BITS) * width;
+                int to = Math.min(height, (row + 1) << TILE_BITS) * width;
+                Arrays.fill(color, from, to, rgb);
+                Arrays.fill(depth, from, to, 0.0f);
+            });
+        }
+        trianglesDrawn = 0;
+    }
+
+    /**
+     * Sets the model to eye transform, a row-major 3x4 matrix, and the
+     * projection's focal length in pixels
+     */
+    public void setCamera(float[] view, float focalLength) {
+        System.arraycopy(view, 0, this.view, 0, 12);
+        this.focalLength = focalLength;
+    }
+
+    /** Eye-space depth below which geometry is clipped away */
+    public void setNearPlane(float nearPlane) {
+        this.nearPlane = nearPlane;
+    }
+
+    /**
+     * Whether faces turned away from the eye are skipped; when off they are
+     * lit from the side facing the eye
+     */
+    public void setBackFaceCulling(boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+    }
+
+    /** Triangles that passed culling since the last clear */
+    public int getTrianglesDrawn() {
+        return trianglesDrawn;
+    }
+
+    /**
+     * Draws an indexed triangle mesh. Positions hold x, y, z per vertex,
+     * indices three vertices per triangle (counter-clockwise from the front)
+     * and colors one RGB value per triangle.
+     */
+    public void drawTriangles(float[] positions, int vertexCount, int[] indices, int triangleCount, int[] colors) {
+        drawTriangles(positions, vertexCount, indices, triangleCount, colors, null);
+    }
+
+    /**
+     * Draws an indexed triangle mesh whose face planes, from
+     * {@link GeometryKernels#facePlanes}, are already known; a static mesh
+     * can compute them once instead of every frame. With null planes they
+     * are computed here.
+     */
+    public void drawTriangles(float[] positions, int vertexCount, int[] indices, int triangleCount, int[] colors,
+            float[] facePlanes) {
+        ensureCapacity(vertexCount, triangleCount);
+        float[] planes = facePlanes != null ? facePlanes : planeScratch;
+        prepareLighting();
+        if (pool == null) {
+            transformVertices(positions, 0, vertexCount);
+            if (facePlanes == null) {
+                GeometryKernels.facePlanes(positions, indices, planes, 0, triangleCount);
+            }
+            direct.begin();
+            setUp(direct, indices, colors, planes, 0, triangleCount);
+            trianglesDrawn += direct.drawn;
+            return;
+        }
+
+        int vertexChunks = (vertexCount + VERTEX_CHUNK - 1) / VERTEX_CHUNK;
+        parallelFor(vertexChunks, chunk -> transformVertices(positions, chunk * VERTEX_CHUNK,
+                Math.min(vertexCount, (chunk + 1) * VERTEX_CHUNK)));
+
+        // Set up and bin in batches, then draw every tile from the batches in order
+        int batchCount = (triangleCount + TRIANGLE_BATCH - 1) / TRIANGLE_BATCH;
+        while (batches.size() < batchCount) {
+            batches.add(new Batch(false));
+        }
+        parallelFor(batchCount, b -> {
+            int from = b * TRIANGLE_BATCH;
+            int to = Math.min(triangleCount, from + TRIANGLE_BATCH);
+            if (facePlanes == null) {
+                GeometryKernels.facePlanes(positions, indices, planes, from, to);
+            }
+            Batch batch = batches.get(b);
+            batch.begin();
+            setUp(batch, indices, colors, planes, from, to);
+        });
+        parallelFor(tilesX * tilesY, tile -> rasterizeTile(tile, batchCount));
+
+        for (int b = 0; b < batchCount; b++) {
+            trianglesDrawn += batches.get(b).drawn;
+        }
+    }
+
+    private void ensureCapacity(int vertexCount, int triangleCount) {
+        if (outcodes.length < vertexCount) {
+            int capacity = Math.max(vertexCount, outcodes.length * 3 / 2);
+            eye = new float[capacity * 3];
+            screen = new float[capacity * 3];
+            outcodes = new byte[capacity];
+        }
+        if (shades.length < triangleCount) {
+            int capacity = Math.max(triangleCount, shades.length * 3 / 2);
+            shades = new int[capacity];
+            planeScratch = new float[capacity * GeometryKernels.PLANE_STRIDE];
+        }
+    }
+
+    /**
+     * Moves the eye and the light into model space, where face planes are
+     * given. Lighting assumes the view scales uniformly.
+     */
+    private void prepareLighting() {
+        float[] m = view;
+        // Inverse of the 3x3 part by cofactors
+        float c00 = m[5] * m[10] - m[6] * m[9];
+        float c01 = m[2] * m[9] - m[1] * m[10];
+        float c02 = m[1] * m[6] - m[2] * m[5];
+        float c10 = m[6] * m[8] - m[4] * m[10];
+        float c11 = m[0] * m[10] - m[2] * m[8];
+        float c12 = m[2] * m[4] - m[0] * m[6];
+        float c20 = m[4] * m[9] - m[5] * m[8];
+        float c21 = m[1] * m[8] - m[0] * m[9];
+        float c22 = m[0] * m[5] - m[1] * m[4];
+        float det = m[0] * c00 + m[1] * c10 + m[2] * c20;
+        float invDet = det != 0 ? 1.0f / det : 0.0f;
+
+        // The eye is where the view maps to the origin
+        eyeModelX = -(c00 * m[3] + c01 * m[7] + c02 * m[11]) * invDet;
+        eyeModelY = -(c10 * m[3] + c11 * m[7] + c12 * m[11]) * invDet;
+        eyeModelZ = -(c20 * m[3] + c21 * m[7] + c22 * m[11]) * invDet;
+
+        float lx = c00 * LIGHT_X + c01 * LIGHT_Y + c02 * LIGHT_Z;
+        float ly = c10 * LIGHT_X + c11 * LIGHT_Y + c12 * LIGHT_Z;
+        float lz = c20 * LIGHT_X + c21 * LIGHT_Y + c22 * LIGHT_Z;
+        float length = (float) Math.sqrt(lx * lx + ly * ly + lz * lz);
+        float scale = length > 0 ? Math.signum(det) / length : 0.0f;
+        lightModelX = lx * scale;
+        lightModelY = ly * scale;
+        lightModelZ = lz * scale;
+    }
+
+    /** Moves vertices [from, to) to eye space, computes outcodes and projects them */
+    private void transformVertices(float[] positions, int from, int to) {
+        GeometryKernels.transformAffine(view, positions, eye, from, to);
+        GeometryKernels.project(eye, screen, from, to, focalLength, width * 0.5f, height * 0.5f);
+
+        float f = focalLength;
+        float left = width * 0.5f + GUARD_BAND;
+        float right = width * 0.5f + GUARD_BAND;
+        float top = height * 0.5f + GUARD_BAND;
+        float bottom = height * 0.5f + GUARD_BAND;
+        float near = nearPlane;
+        for (int v = from; v < to; v++) {
+            int p = v * 3;
+            float fx = f * eye[p];
+            float fy = f * eye[p + 1];
+            float z = eye[p + 2];
+            int code = (z < near ? CLIP_NEAR : 0)
+                    | (fx + left * z < 0 ? CLIP_LEFT : 0)
+                    | (right * z - fx < 0 ? CLIP_RIGHT : 0)
+                    | (fy + top * z < 0 ? CLIP_TOP : 0)
+                    | (bottom * z - fy < 0 ? CLIP_BOTTOM : 0);
+            outcodes[v] = (byte) code;
+        }
+    }
+
+    /**
+     * Culls, lights and clips triangles [from, to), handing the survivors
+     * to the batch in order
+     */
+    private void setUp(Batch batch, int[] indices, int[] colors, float[] planes, int from, int to) {
+        GeometryKernels.shadeFaces(planes, colors, shades, from, to, eyeModelX, eyeModelY, eyeModelZ,
+                lightModelX, lightModelY, lightModelZ, AMBIENT, backFaceCulling);
+
+        for (int t = from; t < to; t++) {
+            int shade = shades[t];
+            if (shade < 0) {
+                continue;
+            }
+            int i0 = indices[t * 3];
+            int i1 = indices[t * 3 + 1];
+            int i2 = indices[t * 3 + 2];
+            int code0 = outcodes[i0];
+            int code1 = outcodes[i1];
+            int code2 = outcodes[i2];
+            if ((code0 & code1 & code2) != 0) {
+                continue;
+            }
+            batch.drawn++;
+
+            if ((code0 | code1 | code2) == 0) {
+                emit(batch, screen, i0 * 3, i1 * 3, i2 * 3, shade);
+            } else {
+                clip(batch, i0, i1, i2, code0 | code1 | code2, shade);
+            }
+        }
+    }
+
+    /**
+     * Clips a triangle against the planes its corners are outside of, then
+     * emits the resulting convex polygon as a fan
+     */
+    private void clip(Batch batch, int i0, int i1, int i2, int planes, int rgb) {
+        float[] in = batch.clipA;
+        float[] out = batch.clipB;
+        System.arraycopy(eye, i0 * 3, in, 0, 3);
+        System.arraycopy(eye, i1 * 3, in, 3, 3);
+        System.arraycopy(eye, i2 * 3, in, 6, 3);
+        int count = 3;
+
+        for (int plane = 0; plane < CLIP_PLANES && count >= 3; plane++) {
+            if ((planes & (1 << plane)) == 0) {
+                continue;
+            }
+            count = clipPolygon(in, count, out, 1 << plane);
+            float[] swap = in;
+            in = out;
+            out = swap;
+        }
+        if (count < 3) {
+            return;
+        }
+
+        float centerX = width * 0.5f;
+        float centerY = height * 0.5f;
+        float[] projected = batch.clipScreen;
+        for (int i = 0; i < count; i++) {
+            int p = i * 3;
+            float invZ = 1.0f / in[p + 2];
+            projected[p] = centerX + focalLength * in[p] * invZ;
+            projected[p + 1] = centerY + focalLength * in[p + 1] * invZ;
+            projected[p + 2] = invZ;
+        }
+        for (int i = 1; i < count - 1; i++) {
+            emit(batch, projected, 0, i * 3, (i + 1) * 3, rgb);
+        }
+    }
+
+    /** One Sutherland-Hodgman pass; returns the number of corners written to out */
+    private int clipPolygon(float[] in, int count, float[] out, int plane) {
+        int written = 0;
+        int prev = (count - 1) * 3;
+        float prevDistance = planeDistance(in, prev, plane);
+        for (int i = 0; i < count; i++) {
+            int cur = i * 3;
+            float distance = planeDistance(in, cur, plane);
+            if ((prevDistance >= 0) != (distance >= 0)) {
+                float t = prevDistance / (prevDistance - distance);
+                int o = written * 3;
+                out[o] = in[prev] + (in[cur] - in[prev]) * t;
+                out[o + 1] = in[prev + 1] + (in[cur + 1] - in[prev + 1]) * t;
+                out[o + 2] = in[prev + 2] + (in[cur + 2] - in[prev + 2]) * t;
+                if (plane == CLIP_NEAR) {
+                    out[o + 2] = nearPlane; // Exactly on the plane despite rounding
+                }
+                written++;
+            }
+            if (distance >= 0) {
+                System.arraycopy(in, cur, out, written * 3, 3);
+                written++;
+            }
+            prev = cur;
+            prevDistance = distance;
+        }
+        return written;
+    }
+
+    /** Signed distance of an eye-space point from a clip plane; negative is outside */
+    private float planeDistance(float[] points, int p, int plane) {
+        float x = points[p];
+        float y = points[p + 1];
+        float z = points[p + 2];
+        float centerX = width * 0.5f;
+        float centerY = height * 0.5f;
+        switch (plane) {
+            case CLIP_NEAR:
+                return z - nearPlane;
+            case CLIP_LEFT:
+                return focalLength * x + (centerX + GUARD_BAND) * z;
+            case CLIP_RIGHT:
+                return (width - centerX + GUARD_BAND) * z - focalLength * x;
+            case CLIP_TOP:
+                return focalLength * y + (centerY + GUARD_BAND) * z;
+            default:
+                return (height - centerY + GUARD_BAND) * z - focalLength * y;
+        }
+    }
+
+    /**
+     * Draws a projected triangle straight away, or stores it in the batch
+     * and adds it to the bin of every tile its bounds touch
+     */
+    private void emit(Batch batch, float[] points, int a, int b, int c, int rgb) {
+        if (batch.direct) {
+            rasterize(points, a, b, c, rgb, 0, 0, width - 1, height - 1);
+            return;
+        }
+
+        // A pixel of margin covers rounding to the subpixel grid
+        float minX = Math.min(points[a], Math.min(points[b], points[c]));
+        float maxX = Math.max(points[a], Math.max(points[b], points[c]));
+        float minY = Math.min(points[a + 1], Math.min(points[b + 1], points[c + 1]));
+        float maxY = Math.max(points[a + 1], Math.max(points[b + 1], points[c + 1]));
+        int tileMinX = Math.max(0, (int) Math.floor(minX) - 1) >> TILE_BITS;
+        int tileMaxX = Math.min(width - 1, (int) maxX + 1) >> TILE_BITS;
+        int tileMinY = Math.max(0, (int) Math.floor(minY) - 1) >> TILE_BITS;
+        int tileMaxY = Math.min(height - 1, (int) maxY + 1) >> TILE_BITS;
+        if (tileMinX > tileMaxX || tileMinY > tileMaxY) {
+            return;
+        }
+
+        int k = batch.add(points, a, b, c, rgb);
+        for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+            for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                batch.bin(ty * tilesX + tx, k);
+            }
+        }
+    }
+
+    /** Draws one tile's triangles, batch by batch in submission order */
+    private void rasterizeTile(int tile, int batchCount) {
+        int minX = (tile % tilesX) << TILE_BITS;
+        int minY = (tile / tilesX) << TILE_BITS;
+        int maxX = Math.min(width, minX + TILE_SIZE) - 1;
+        int maxY = Math.min(height, minY + TILE_SIZE) - 1;
+        for (int b = 0; b < batchCount; b++) {
+            Batch batch = batches.get(b);
+            IntList bin = batch.bins[tile];
+            if (bin == null) {
+                continue;
+            }
+            int[] triangles = bin.array();
+            for (int i = 0, n = bin.size(); i < n; i++) {
+                int k = triangles[i];
+                rasterize(batch.points, k * 9, k * 9 + 3, k * 9 + 6, batch.colors[k], minX, minY, maxX, maxY);
+            }
+        }
+    }
+
+    /**
+     * Scans the part of a projected triangle inside the given pixel
+     * rectangle; a, b and c index x, y, 1/z triples in the given array.
+     * Every value is computed from the pixel position alone, so the result
+     * does not depend on how the screen is split.
+     */
+    private void rasterize(float[] points, int a, int b, int c, int rgb,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        long x0 = Math.round(points[a] * SUBPIXEL_SCALE);
+        long y0 = Math.round(points[a + 1] * SUBPIXEL_SCALE);
+        long x1 = Math.round(points[b] * SUBPIXEL_SCALE);
+        long y1 = Math.round(points[b + 1] * SUBPIXEL_SCALE);
+        long x2 = Math.round(points[c] * SUBPIXEL_SCALE);
+        long y2 = Math.round(points[c + 1] * SUBPIXEL_SCALE);
+        float z0 = points[a + 2];
+        float z1 = points[b + 2];
+        float z2 = points[c + 2];
+
+        long area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (area == 0) {
+            return;
+        }
+        if (area < 0) {
+            // Make the winding positive so inside means all edge functions >= 0
+            long tx = x1;
+            x1 = x2;
+            x2 = tx;
+            long ty = y1;
+            y1 = y2;
+            y2 = ty;
+            float tz = z1;
+            z1 = z2;
+            z2 = tz;
+            area = -area;
+        }
+
+        // Pixels whose centres fall inside the triangle's bounds
+        int half = SUBPIXEL / 2;
+        int anchorX = (int) ((Math.min(x0, Math.min(x1, x2)) - half + SUBPIXEL - 1) >> SUBPIXEL_BITS);
+        int anchorY = (int) ((Math.min(y0, Math.min(y1, y2)) - half + SUBPIXEL - 1) >> SUBPIXEL_BITS);
+        int minX = Math.max(clipMinX, anchorX);
+        int maxX = Math.min(clipMaxX, (int) ((Math.max(x0, Math.max(x1, x2)) - half) >> SUBPIXEL_BITS));
+        int minY = Math.max(clipMinY, anchorY);
+        int maxY = Math.min(clipMaxY, (int) ((Math.max(y0, Math.max(y1, y2)) - half) >> SUBPIXEL_BITS));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // Edge functions at the anchor, the first pixel centre of the
+        // unclipped bounds; w0 is opposite corner 0
+        long px = ((long) anchorX << SUBPIXEL_BITS) + half;
+        long py = ((long) anchorY << SUBPIXEL_BITS) + half;
+        long w0Anchor = edge(x1, y1, x2, y2, px, py);
+        long w1Anchor = edge(x2, y2, x0, y0, px, py);
+        long w2Anchor = edge(x0, y0, x1, y1, px, py);
+        long stepX0 = (y1 - y2) << SUBPIXEL_BITS;
+        long stepX1 = (y2 - y0) << SUBPIXEL_BITS;
+        long stepX2 = (y0 - y1) << SUBPIXEL_BITS;
+        long stepY0 = (x2 - x1) << SUBPIXEL_BITS;
+        long stepY1 = (x0 - x2) << SUBPIXEL_BITS;
+        long stepY2 = (x1 - x0) << SUBPIXEL_BITS;
+
+        // 1/z as a plane over the same weights
+        float invArea = 1.0f / area;
+        float zAnchor = (w0Anchor * z0 + w1Anchor * z1 + w2Anchor * z2) * invArea;
+        float zStepX = (stepX0 * z0 + stepX1 * z1 + stepX2 * z2) * invArea;
+        float zStepY = (stepY0 * z0 + stepY1 * z1 + stepY2 * z2) * invArea;
+
+        // Top-left rule: pixels exactly on other edges belong to the neighbour
+        w0Anchor += topLeftBias(x1, y1, x2, y2);
+        w1Anchor += topLeftBias(x2, y2, x0, y0);
+        w2Anchor += topLeftBias(x0, y0, x1, y1);
+
+        int dx = minX - anchorX;
+        int dy = minY - anchorY;
+        long w0Row = w0Anchor + stepX0 * dx + stepY0 * dy;
+        long w1Row = w1Anchor + stepX1 * dx + stepY1 * dy;
+        long w2Row = w2Anchor + stepX2 * dx + stepY2 * dy;
+
+        int[] pixels = color;
+        float[] depths = depth;
+        for (int y = minY; y <= maxY; y++) {
+            long w0 = w0Row;
+            long w1 = w1Row;
+            long w2 = w2Row;
+            float zRow = zAnchor + zStepY * (y - anchorY);
+            int index = y * width + minX;
+            for (int x = minX; x <= maxX; x++) {
+                if ((w0 | w1 | w2) >= 0) {
+                    float z = zRow + zStepX * (x - anchorX);
+                    if (z > depths[index]) {
+                        depths[index] = z;
+                        pixels[index] = rgb;
+                    }
+                }
+                w0 += stepX0;
+                w1 += stepX1;
+                w2 += stepX2;
+                index++;
+            }
+            w0Row += stepY0;
+            w1Row += stepY1;
+            w2Row += stepY2;
+        }
+    }
+
+    /** Twice the signed area of (a, b, p); positive when p is inside edge a-b */
+    private static long edge(long ax, long ay, long bx, long by, long px, long py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    /**
+     * 0 for a top or left edge, whose boundary pixels are drawn, and -1 for
+     * the others, which leave them to the triangle on the other side
+     */
+    private static long topLeftBias(long ax, long ay, long bx, long by) {
+        long dx = bx - ax;
+        long dy = by - ay;
+        boolean topLeft = dy < 0 || (dy == 0 && dx > 0);
+        return topLeft ? 0 : -1;
+    }
+
+    /** Runs body for 0 to count - 1 on the pool, returning when all are done */
+    private void parallelFor(int count, IntConsumer body) {
+        ParallelUtils.parallelFor(pool, count, body);
+    }
+
+    /**
+     * Set-up output of one run of triangles, with the clipping scratch of
+     * the thread working on it. A direct batch rasterizes each triangle as
+     * it is emitted; the others keep the projected triangles and a bin of
+     * triangle numbers per tile.
+     */
+    private final class Batch {
+        final boolean direct;
+        final float[] clipA = new float[MAX_CLIPPED * 3];
+        final float[] clipB = new float[MAX_CLIPPED * 3];
+        final float[] clipScreen = new float[MAX_CLIPPED * 3];
+
+        float[] points = new float[9 * 256]; // x, y, 1/z per corner
+        int[] colors = new int[256];
+        int count;
+        IntList[] bins = new IntList[0];
+        final IntList usedBins = new IntList();
+        int drawn;
+
+        Batch(boolean direct) {
+            this.direct = direct;
+        }
+
+        /** Empties the batch and sizes its bins to the current tiles */
+        void begin() {
+            count = 0;
+            drawn = 0;
+            if (direct) {
+                return;
+            }
+            if (bins.length != tilesX * tilesY) {
+                bins = new IntList[tilesX * tilesY];
+            } else {
+                for (int i = 0, n = usedBins.size(); i < n; i++) {
+                    bins[usedBins.get(i)].clear();
+                }
+            }
+            usedBins.clear();
+        }
+
+        int add(float[] source, int a, int b, int c, int rgb) {
+            if (count == colors.length) {
+                points = Arrays.copyOf(points, count * 2 * 9);
+                colors = Arrays.copyOf(colors, count * 2);
+            }
+            int p = count * 9;
+            System.arraycopy(source, a, points, p, 3);
+            System.arraycopy(source, b, points, p + 3, 3);
+            System.arraycopy(source, c, points, p + 6, 3);
+            colors[count] = rgb;
+            return count++;
+        }
+
+        void bin(int tile, int triangle) {
+            IntList bin = bins[tile];
+            if (bin == null) {
+                bin = new IntList();
+                bins[tile] = bin;
+            }
+            if (bin.isEmpty()) {
+                usedBins.add(tile);
+            }
+            bin.add(triangle);
+        }
+    }
+}
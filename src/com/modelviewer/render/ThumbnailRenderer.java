@@ -0,0 +1,145 @@
+package com.modelviewer.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Renders square model thumbnails on the CPU, without a display or GPU.
+ *
+ * Every model is shown from the same three-quarter view, 45 degrees around
+ * and 30 degrees above its front, framed so that its bounding sphere fills
+ * the image. Triangles are drawn two-sided by {@link SoftwareRasterizer} on
+ * the calling thread at twice the requested size and box-filtered down, so
+ * edges are antialiased. Thumbnails of different models can be rendered in
+ * parallel with one renderer per thread.
+ */
+public class ThumbnailRenderer {
+    /** Background colour of thumbnails, the library dialog's panel grey */
+    public static final int BACKGROUND = 0xF0F0F0;
+
+    private static final int SUPERSAMPLE = 2;
+    private static final double YAW = Math.toRadians(45);
+    private static final double ELEVATION = Math.toRadians(30);
+    private static final double HALF_FIELD_OF_VIEW = Math.toRadians(15);
+    /** Fraction of the image's half-width the bounding sphere fills */
+    private static final float MARGIN = 0.92f;
+
+    private final SoftwareRasterizer rasterizer = new SoftwareRasterizer(null);
+
+    public ThumbnailRenderer() {
+        rasterizer.setBackFaceCulling(false);
+    }
+
+    /**
+     * Render triangles given as corner indices into xyz positions, with one
+     * RGB colour per triangle, into a new size x size image
+     */
+    public BufferedImage render(float[] positions, int vertexCount, int[] indices, int triangleCount,
+            int[] colors, int size) {
+        int samples = size * SUPERSAMPLE;
+        rasterizer.resize(samples, samples);
+        rasterizer.clear(BACKGROUND);
+
+        float[] bounds = bounds(positions, vertexCount, indices, triangleCount);
+        if (bounds != null) {
+            float centerX = (bounds[0] + bounds[3]) * 0.5f;
+            float centerY = (bounds[1] + bounds[4]) * 0.5f;
+            float centerZ = (bounds[2] + bounds[5]) * 0.5f;
+            float dx = bounds[3] - bounds[0];
+            float dy = bounds[4] - bounds[1];
+            float dz = bounds[5] - bounds[2];
+            float radius = Math.max(1e-6f, 0.5f * (float) Math.sqrt(dx * dx + dy * dy + dz * dz));
+            float distance = radius / (float) Math.sin(HALF_FIELD_OF_VIEW);
+            float focalLength = MARGIN * samples * 0.5f / (float) Math.tan(HALF_FIELD_OF_VIEW);
+
+            rasterizer.setCamera(view(centerX, centerY, centerZ, distance), focalLength);
+            rasterizer.setNearPlane((distance - radius) * 0.5f);
+            rasterizer.drawTriangles(positions, vertexCount, indices, triangleCount, colors);
+        }
+        return downsample(rasterizer.getColorBuffer(), size);
+    }
+
+    /**
+     * Looks at the center from the three-quarter direction, with +y up in
+     * the model mapped to down in eye space
+     */
+    private static float[] view(float centerX, float centerY, float centerZ, float distance) {
+        // Forward runs from the eye to the center; the eye is above, right and in front
+        float fx = (float) (-Math.sin(YAW) * Math.cos(ELEVATION));
+        float fy = (float) -Math.sin(ELEVATION);
+        float fz = (float) (-Math.cos(YAW) * Math.cos(ELEVATION));
+        // right = forward x worldUp, normalized
+        float rx = -fz;
+        float rz = fx;
+        float length = (float) Math.sqrt(rx * rx + rz * rz);
+        rx /= length;
+        rz /= length;
+        // down = -(right x forward)
+        float dx = -(-rz * fy);
+        float dy = -(rz * fx - rx * fz);
+        float dz = -(rx * fy);
+        return new float[] {
+            rx, 0, rz, -(rx * centerX + rz * centerZ),
+            dx, dy, dz, -(dx * centerX + dy * centerY + dz * centerZ),
+            fx, fy, fz, distance - (fx * centerX + fy * centerY + fz * centerZ)
+        };
+    }
+
+    /**
+     * Min x, y, z and max x, y, z of the referenced vertices, or null if
+     * there are none
+     */
+    private static float[] bounds(float[] positions, int vertexCount, int[] indices, int triangleCount) {
+        float[] bounds = {
+            Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+            Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+        };
+        boolean any = false;
+        for (int i = 0, count = triangleCount * 3; i < count; i++) {
+            int vertex = indices[i];
+            if (vertex < 0 || vertex >= vertexCount) {
+                continue;
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                float value = positions[vertex * 3 + axis];
+                if (value < bounds[axis]) {
+                    bounds[axis] = value;
+                }
+                if (value > bounds[axis + 3]) {
+                    bounds[axis + 3] = value;
+                }
+            }
+            any = true;
+        }
+        return any ? bounds : null;
+    }
+
+    /**
+     * Averages each SUPERSAMPLE x SUPERSAMPLE block of the framebuffer into
+     * one pixel of a new image
+     */
+    private static BufferedImage downsample(int[] samples, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int stride = size * SUPERSAMPLE;
+        int count = SUPERSAMPLE * SUPERSAMPLE;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                for (int sy = 0; sy < SUPERSAMPLE; sy++) {
+                    int row = (y * SUPERSAMPLE + sy) * stride + x * SUPERSAMPLE;
+                    for (int sx = 0; sx < SUPERSAMPLE; sx++) {
+                        int rgb = samples[row + sx];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+                pixels[y * size + x] = ((r / count) << 16) | ((g / count) << 8) | (b / count);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,95 @@
+package com.modelviewer.ui.dialogs;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.Timer;
+
+import com.modelviewer.core.ModelLoadService.LoadTask;
+
+/**
+ * Non-modal progress window for a background load, with a Cancel button.
+ * It only appears if the load is still running after a short delay, so
+ * fast (cached) loads do not flash a window, and closes itself once the
+ * task is done.
+ */
+public class LoadProgressDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static final int POLL_MILLIS = 100;
+    private static final long SHOW_DELAY_MILLIS = 300;
+
+    private final transient LoadTask<?> task;
+    private final JProgressBar progressBar = new JProgressBar(0, 1000);
+    private final JLabel detailLabel = new JLabel(" ");
+    private final Timer timer;
+    private final long startTime = System.currentTimeMillis();
+
+    private LoadProgressDialog(Window owner, LoadTask<?> task) {
+        super(owner, "Loading " + task.getName(), ModalityType.MODELESS);
+        this.task = task;
+
+        JPanel content = new JPanel(new BorderLayout(5, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(new JLabel("Loading " + task.getName() + "..."), BorderLayout.NORTH);
+
+        progressBar.setStringPainted(true);
+        content.add(progressBar, BorderLayout.CENTER);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            task.cancel();
+            close();
+        });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(detailLabel);
+        buttons.add(cancelButton);
+        content.add(buttons, BorderLayout.SOUTH);
+
+        setContentPane(content);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        pack();
+        setSize(Math.max(getWidth(), 360), getHeight());
+        setLocationRelativeTo(owner);
+
+        timer = new Timer(POLL_MILLIS, e -> refresh());
+    }
+
+    /**
+     * Track a task; call on the event thread right after submitting it
+     */
+    public static LoadProgressDialog open(Window owner, LoadTask<?> task) {
+        LoadProgressDialog dialog = new LoadProgressDialog(owner, task);
+        dialog.timer.start();
+        return dialog;
+    }
+
+    private void refresh() {
+        if (task.isDone()) {
+            close();
+            return;
+        }
+        if (!isVisible() && System.currentTimeMillis() - startTime >= SHOW_DELAY_MILLIS) {
+            setVisible(true);
+        }
+
+        progressBar.setValue((int) (task.getFraction() * 1000));
+        long total = task.getBytesTotal();
+        if (total > 0) {
+            detailLabel.setText(String.format("%.1f / %.1f MB",
+                    task.getBytesDone() / (1024.0 * 1024.0), total / (1024.0 * 1024.0)));
+        }
+    }
+
+    private void close() {
+        timer.stop();
+        dispose();
+    }
+}
@@ -0,0 +1,172 @@
+package com.modelviewer.util;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of primitive floats, used for vertex data in place of
+ * List<Float>. The backing array can be read directly or wrapped as
+ * a FloatBuffer; both views are only valid until the list grows.
+ */
+public class FloatList {
+    private static final float[] EMPTY = new float[0];
+
+    private float[] data;
+    private int size;
+
+    public FloatList() {
+        data = EMPTY;
+    }
+
+    public FloatList(int capacity) {
+        data = capacity > 0 ? new float[capacity] : EMPTY;
+    }
+
+    /**
+     * Wrap an existing array; the list takes ownership of it
+     */
+    public FloatList(float[] values, int size) {
+        this.data = values;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public float get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return data[index];
+    }
+
+    public void set(int index, float value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        data[index] = value;
+    }
+
+    public void add(float value) {
+        if (size == data.length) {
+            grow(size + 1);
+        }
+        data[size++] = value;
+    }
+
+    public void add(float a, float b) {
+        if (size + 2 > data.length) {
+            grow(size + 2);
+        }
+        data[size++] = a;
+        data[size++] = b;
+    }
+
+    public void add(float a, float b, float c) {
+        if (size + 3 > data.length) {
+            grow(size + 3);
+        }
+        data[size++] = a;
+        data[size++] = b;
+        data[size++] = c;
+    }
+
+    public void addAll(FloatList other) {
+        addAll(other.data, 0, other.size);
+    }
+
+    public void addAll(float[] values, int offset, int length) {
+        if (size + length > data.length) {
+            grow(size + length);
+        }
+        System.arraycopy(values, offset, data, size, length);
+        size += length;
+    }
+
+    /**
+     * Append boxed values, e.g. from a serialized List<Float>
+     */
+    public void addAll(List<Float> values) {
+        ensureCapacity(size + values.size());
+        for (Float value : values) {
+            data[size++] = value;
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * Release unused capacity once loading is done
+     */
+    public void trimToSize() {
+        if (size < data.length) {
+            data = size > 0 ? Arrays.copyOf(data, size) : EMPTY;
+        }
+    }
+
+    /**
+     * The backing array; only the first size() elements are meaningful
+     */
+    public float[] array() {
+        return data;
+    }
+
+    public float[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * A buffer view over the current contents, sharing the backing array
+     */
+    public FloatBuffer asBuffer() {
+        return FloatBuffer.wrap(data, 0, size).slice();
+    }
+
+    /**
+     * Boxed copy, for serialized formats that store List<Float>
+     */
+    public List<Float> toList() {
+        List<Float> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(data[i]);
+        }
+        return list;
+    }
+
+    public FloatList copy() {
+        return new FloatList(toArray(), size);
+    }
+
+    /** Whether both lists hold the same values in the same order */
+    public boolean contentEquals(FloatList other) {
+        return size == other.size && Arrays.equals(data, 0, size, other.data, 0, size);
+    }
+
+    public int contentHashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Float.floatToIntBits(data[i]);
+        }
+        return hash;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, Math.max(16, data.length + (data.length >> 1)));
+        data = Arrays.copyOf(data, capacity);
+    }
+}
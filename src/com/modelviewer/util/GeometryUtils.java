@@ -2,40 +2,28 @@ package com.modelviewer.util;
 
 public class GeometryUtils {
     public static float[] calculateNormal(float[] v1, float[] v2, float[] v3) {
-        float[] normal = new float[3];
-        
-        // Calculate vectors from v1 to v2 and v1 to v3
-        float[] vector1 = new float[] {
-            v2[0] - v1[0],
-            v2[1] - v1[1],
-            v2[2] - v1[2]
-        };
-        
-        float[] vector2 = new float[] {
-            v3[0] - v1[0],
-            v3[1] - v1[1],
-            v3[2] - v1[2]
-        };
+        // Edge vectors from v1 to v2 and v1 to v3
+        float ux = v2[0] - v1[0];
+        float uy = v2[1] - v1[1];
+        float uz = v2[2] - v1[2];
+        float vx = v3[0] - v1[0];
+        float vy = v3[1] - v1[1];
+        float vz = v3[2] - v1[2];
         
         // Cross product
-        normal[0] = vector1[1] * vector2[2] - vector1[2] * vector2[1];
-        normal[1] = vector1[2] * vector2[0] - vector1[0] * vector2[2];
-        normal[2] = vector1[0] * vector2[1] - vector1[1] * vector2[0];
+        float nx = uy * vz - uz * vy;
+        float ny = uz * vx - ux * vz;
+        float nz = ux * vy - uy * vx;
         
         // Normalize
-        float length = (float) Math.sqrt(
-            normal[0] * normal[0] +
-            normal[1] * normal[1] +
-            normal[2] * normal[2]
-        );
-        
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
         if (length != 0) {
-            normal[0] /= length;
-            normal[1] /= length;
-            normal[2] /= length;
+            nx /= length;
+            ny /= length;
+            nz /= length;
         }
         
-        return normal;
+        return new float[] {nx, ny, nz};
     }
     
     public static float[] calculateCenter(float[] bounds) {
@@ -105,4 +93,77 @@ public class GeometryUtils {
         float discriminant = b * b - 4 * a * c;
         return discriminant >= 0;
     }
+    
+    /**
+     * Extracts the six clip planes (left, right, bottom, top, near, far) of
+     * the view frustum from column-major OpenGL matrices. Each plane is
+     * a, b, c, d with a unit normal pointing into the frustum, in the space
+     * the modelview matrix maps from.
+     */
+    public static float[] extractFrustumPlanes(float[] projection, float[] modelView) {
+        float[] m = new float[16];
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection[k * 4 + row] * modelView[col * 4 + k];
+                }
+                m[col * 4 + row] = sum;
+            }
+        }
+        
+        float[] planes = new float[24];
+        for (int p = 0; p < 6; p++) {
+            int row = p / 2;
+            float sign = (p % 2 == 0) ? 1.0f : -1.0f;
+            for (int col = 0; col < 4; col++) {
+                planes[p * 4 + col] = m[col * 4 + 3] + sign * m[col * 4 + row];
+            }
+            float len = (float) Math.sqrt(planes[p * 4] * planes[p * 4] +
+                                    planes[p * 4 + 1] * planes[p * 4 + 1] +
+                                    planes[p * 4 + 2] * planes[p * 4 + 2]);
+            if (len > 0) {
+                for (int col = 0; col < 4; col++) {
+                    planes[p * 4 + col] /= len;
+                }
+            }
+        }
+        return planes;
+    }
+    
+    /**
+     * Tests a sphere against frustum planes: -1 if it is entirely outside,
+     * 1 if entirely inside and 0 if it crosses a plane
+     */
+    public static int sphereInFrustum(float[] planes, float x, float y, float z, float radius) {
+        int result = 1;
+        for (int p = 0; p < planes.length; p += 4) {
+            float distance = planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3];
+            if (distance < -radius) {
+                return -1;
+            }
+            if (distance < radius) {
+                result = 0;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Whether an axis-aligned box (minX, maxX, minY, maxY, minZ, maxZ) is
+     * at least partly inside frustum planes. Conservative: a box near a
+     * frustum corner may pass without being visible.
+     */
+    public static boolean boxInFrustum(float[] planes, float[] bounds) {
+        for (int p = 0; p < planes.length; p += 4) {
+            // The corner furthest along the plane normal
+            float x = planes[p] >= 0 ? bounds[1] : bounds[0];
+            float y = planes[p + 1] >= 0 ? bounds[3] : bounds[2];
+            float z = planes[p + 2] >= 0 ? bounds[5] : bounds[4];
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
 } 
\ No newline at end of file
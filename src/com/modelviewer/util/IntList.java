@@ -0,0 +1,141 @@
+package com.modelviewer.util;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for index data in place of
+ * List<Integer>. The backing array can be read directly or wrapped as
+ * an IntBuffer; both views are only valid until the list grows.
+ */
+public class IntList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        data = EMPTY;
+    }
+
+    public IntList(int capacity) {
+        data = capacity > 0 ? new int[capacity] : EMPTY;
+    }
+
+    /**
+     * Wrap an existing array; the list takes ownership of it
+     */
+    public IntList(int[] values, int size) {
+        this.data = values;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        data[index] = value;
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            grow(size + 1);
+        }
+        data[size++] = value;
+    }
+
+    public void add(int a, int b) {
+        if (size + 2 > data.length) {
+            grow(size + 2);
+        }
+        data[size++] = a;
+        data[size++] = b;
+    }
+
+    public void add(int a, int b, int c) {
+        if (size + 3 > data.length) {
+            grow(size + 3);
+        }
+        data[size++] = a;
+        data[size++] = b;
+        data[size++] = c;
+    }
+
+    public void addAll(IntList other) {
+        addAll(other.data, 0, other.size);
+    }
+
+    public void addAll(int[] values, int offset, int length) {
+        if (size + length > data.length) {
+            grow(size + length);
+        }
+        System.arraycopy(values, offset, data, size, length);
+        size += length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * Release unused capacity once loading is done
+     */
+    public void trimToSize() {
+        if (size < data.length) {
+            data = size > 0 ? Arrays.copyOf(data, size) : EMPTY;
+        }
+    }
+
+    /**
+     * The backing array; only the first size() elements are meaningful
+     */
+    public int[] array() {
+        return data;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * A buffer view over the current contents, sharing the backing array
+     */
+    public IntBuffer asBuffer() {
+        return IntBuffer.wrap(data, 0, size).slice();
+    }
+
+    public IntList copy() {
+        return new IntList(toArray(), size);
+    }
+
+    /** Whether both lists hold the same values in the same order */
+    public boolean contentEquals(IntList other) {
+        return size == other.size && Arrays.equals(data, 0, size, other.data, 0, size);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, Math.max(16, data.length + (data.length >> 1)));
+        data = Arrays.copyOf(data, capacity);
+    }
+}
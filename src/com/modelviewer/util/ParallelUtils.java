@@ -0,0 +1,53 @@
+package com.modelviewer.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Fork/join helpers shared by the parallel parser and rasterizer
+ */
+public final class ParallelUtils {
+
+    private ParallelUtils() {
+    }
+
+    /**
+     * Runs body for 0 to count - 1 on the pool, returning when all are
+     * done. A single index runs on the calling thread.
+     */
+    public static void parallelFor(ForkJoinPool pool, int count, IntConsumer body) {
+        if (count == 1) {
+            body.accept(0);
+        } else if (count > 1) {
+            pool.invoke(new RangeTask(0, count, body));
+        }
+    }
+
+    /**
+     * Splits an index range in half until a single index is left
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer body;
+
+        RangeTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, body), new RangeTask(middle, to, body));
+        }
+    }
+}